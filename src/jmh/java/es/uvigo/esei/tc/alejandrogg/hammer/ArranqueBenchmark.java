@@ -0,0 +1,121 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Prueba de rendimiento del arranque de la aplicación, que mide el tiempo desde
+ * que se lanza un proceso que codifica un fichero de {@link #BYTES} bytes hasta
+ * que escribe el primer byte en su salida estándar.
+ * <p>
+ * Se compara el JAR de la aplicación, ejecutado con la máquina virtual que
+ * ejecuta la prueba, con la imagen de ejecución del perfil de Maven
+ * {@code arranque}, que debe de haberse construido antes. Las rutas de ambos
+ * son relativas al directorio de trabajo, que debe de ser el del proyecto.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Thread)
+public class ArranqueBenchmark {
+	/**
+	 * El número de bytes del fichero a codificar.
+	 */
+	static final int BYTES = 1024;
+
+	/**
+	 * Cómo se ejecuta la aplicación: {@code jar}, con {@code java -jar}, o
+	 * {@code imagen}, con el lanzador de la imagen de ejecución.
+	 */
+	@Param({ "jar", "imagen" })
+	public String ejecucion;
+
+	private String[] orden;
+	private Path fuente;
+	private Process proceso;
+
+	@Setup
+	public void prepararOrden() throws IOException {
+		final Path ejecutable;
+		if ("jar".equals(ejecucion)) {
+			ejecutable = Paths.get("target", "Hammer.jar");
+		} else {
+			ejecutable = Paths.get("target", "hammer-runtime", "bin", "hammer");
+		}
+
+		if (!Files.isRegularFile(ejecutable)) {
+			throw new IllegalStateException("No se ha encontrado " + ejecutable.toAbsolutePath() + ". ¿Se ha construido?");
+		}
+
+		final byte[] datos = new byte[BYTES];
+		final SplittableRandom prng = new SplittableRandom(1);
+		for (int i = 0; i < BYTES; ++i) {
+			datos[i] = (byte) prng.nextInt(256);
+		}
+
+		fuente = Files.createTempFile("hammer-arranque", ".raw");
+		Files.write(fuente, datos);
+
+		if ("jar".equals(ejecucion)) {
+			orden = new String[] {
+				Paths.get(System.getProperty("java.home"), "bin", "java").toString(), "-jar", ejecutable.toString(),
+				"-q", "-c", "-", fuente.toString()
+			};
+		} else {
+			orden = new String[] { ejecutable.toString(), "-q", "-c", "-", fuente.toString() };
+		}
+	}
+
+	@TearDown
+	public void borrarFuente() throws IOException {
+		Files.deleteIfExists(fuente);
+	}
+
+	@Benchmark
+	public int primerByte() throws IOException {
+		proceso = new ProcessBuilder(orden).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+		return proceso.getInputStream().read();
+	}
+
+	@TearDown(Level.Invocation)
+	public void esperarProceso() throws IOException, InterruptedException {
+		// Leer el resto de la salida fuera de la medida, para que el proceso termine
+		try (InputStream salida = proceso.getInputStream()) {
+			final byte[] buffer = new byte[BYTES];
+			while (salida.read(buffer) >= 0) {
+				// Descartar los bytes
+			}
+		}
+
+		if (proceso.waitFor() != 0) {
+			throw new IllegalStateException("La aplicación ha terminado con el código " + proceso.exitValue());
+		}
+	}
+}
@@ -0,0 +1,47 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada del JAR de pruebas de rendimiento. Acepta los mismos
+ * argumentos que el de JMH, pero añade siempre el perfilador del recolector de
+ * basura, de manera que, junto al rendimiento de cada prueba en MB/s, se
+ * muestra la memoria que reserva por operación ({@code gc.alloc.rate.norm}).
+ *
+ * @author Alejandro González García
+ */
+public final class EjecutorBenchmarks {
+	// No permitir instanciar esta clase
+	private EjecutorBenchmarks() {}
+
+	/**
+	 * Ejecuta las pruebas de rendimiento seleccionadas por los argumentos, o todas
+	 * si no se selecciona ninguna.
+	 *
+	 * @param args Los argumentos de JMH, como una expresión regular con las
+	 *             pruebas a ejecutar.
+	 * @throws CommandLineOptionException Si los argumentos no son válidos.
+	 * @throws IOException                Si no se puede mostrar la ayuda.
+	 * @throws RunnerException            Si falla alguna prueba.
+	 */
+	public static void main(final String... args) throws CommandLineOptionException, IOException, RunnerException {
+		final CommandLineOptions opciones = new CommandLineOptions(args);
+
+		if (opciones.shouldHelp()) {
+			opciones.showHelp();
+		} else if (opciones.shouldList()) {
+			new Runner(opciones).list();
+		} else {
+			new Runner(new OptionsBuilder().parent(opciones).addProfiler(GCProfiler.class).build()).run();
+		}
+	}
+}
@@ -0,0 +1,137 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pruebas de rendimiento de {@link HammingAmpliado3_2}, palabra a palabra y por
+ * bloques.
+ * <p>
+ * Cada invocación procesa {@link #BYTES} bytes de entrada, y cada uno cuenta
+ * como una operación, así que el rendimiento en operaciones por microsegundo
+ * equivale a MB/s de entrada. Las pruebas de decodificación se repiten con
+ * distintas probabilidades de error por bit, introducidas con un canal binario
+ * simétrico.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HammingAmpliado3_2Benchmark {
+	/**
+	 * El número de bytes de entrada de cada invocación.
+	 */
+	static final int BYTES = 64 * 1024;
+
+	private final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
+	private final byte[] fuente = new byte[BYTES];
+	private final byte[] codificado = new byte[2 * BYTES];
+	private final byte[] decodificado = new byte[BYTES];
+
+	@Setup
+	public void generarFuente() {
+		final SplittableRandom prng = new SplittableRandom(1);
+
+		for (int i = 0; i < BYTES; ++i) {
+			fuente[i] = (byte) prng.nextInt(256);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BYTES)
+	public byte[] codificarNibble() {
+		for (int i = 0; i < BYTES; ++i) {
+			codificado[i] = codigo.codificarNibble(fuente[i]);
+		}
+
+		return codificado;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BYTES)
+	public byte[] codificar() {
+		codigo.codificar(fuente, 0, BYTES, codificado, 0);
+
+		return codificado;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BYTES)
+	public int decodificarPalabraCodigo(final PalabrasRecibidas recibidas) {
+		int incorregibles = 0;
+
+		for (int i = 0; i < BYTES; ++i) {
+			try {
+				decodificado[i] = codigo.decodificarPalabraCodigo(recibidas.palabras[i]);
+			} catch (final DecodificacionImposibleException exc) {
+				++incorregibles;
+			}
+		}
+
+		return incorregibles;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BYTES)
+	public byte[] decodificarNibble(final PalabrasRecibidas recibidas) {
+		for (int i = 0; i < BYTES; ++i) {
+			decodificado[i] = (byte) codigo.decodificarNibble(recibidas.palabras[i]);
+		}
+
+		return decodificado;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BYTES)
+	public long decodificar(final PalabrasRecibidas recibidas) {
+		final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+
+		codigo.decodificar(recibidas.palabras, 0, BYTES, decodificado, 0, estadisticas);
+
+		return estadisticas.getPalabrasCorregidas();
+	}
+
+	/**
+	 * Palabras código recibidas a través de un canal binario simétrico, con la
+	 * probabilidad de error por bit indicada.
+	 */
+	@State(Scope.Thread)
+	public static class PalabrasRecibidas {
+		@Param({ "0", "0.0001", "0.01", "0.1" })
+		public double probabilidadError;
+
+		final byte[] palabras = new byte[BYTES];
+
+		@Setup
+		public void recibir() {
+			final SplittableRandom prng = new SplittableRandom(2);
+			final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
+
+			for (int i = 0; i < BYTES; ++i) {
+				palabras[i] = codigo.codificarNibble((byte) prng.nextInt(16));
+			}
+
+			new CanalBinarioSimetrico(probabilidadError, 3).introducir(palabras, 0, BYTES, 0);
+		}
+	}
+}
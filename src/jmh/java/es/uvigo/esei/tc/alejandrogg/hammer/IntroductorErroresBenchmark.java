@@ -0,0 +1,64 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pruebas de rendimiento de la introducción de errores con cada modelo de
+ * canal.
+ * <p>
+ * Cada invocación introduce errores en {@link #BYTES} bytes codificados, que
+ * continúan a los de la anterior, y cada uno cuenta como una operación, así que
+ * el rendimiento en operaciones por microsegundo equivale a MB/s.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntroductorErroresBenchmark {
+	/**
+	 * El número de bytes codificados de cada invocación.
+	 */
+	static final int BYTES = 64 * 1024;
+
+	@Param({ "fijo:1", "normal-limitado", "bsc:0.000001", "bsc:0.001", "gilbert-elliott:0.00001,0.01,0,0.5" })
+	public String canal;
+
+	private final byte[] palabrasCodigo = new byte[BYTES];
+	private IntroductorErrores introductor;
+	private long posicion;
+
+	@Setup
+	public void crearIntroductor() {
+		introductor = IntroductorErrores.crear(canal, 1);
+		posicion = 0;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BYTES)
+	public byte[] introducirErrores() {
+		introductor.introducir(palabrasCodigo, 0, BYTES, posicion);
+		posicion += BYTES;
+
+		return palabrasCodigo;
+	}
+}
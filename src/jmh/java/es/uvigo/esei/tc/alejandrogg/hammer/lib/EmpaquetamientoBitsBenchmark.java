@@ -0,0 +1,75 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer.lib;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Pruebas de rendimiento de {@link EmpaquetamientoBits}.
+ * <p>
+ * Cada invocación desempaqueta o empaqueta {@link #BYTES} bytes, y cada uno
+ * cuenta como una operación, así que el rendimiento en operaciones por
+ * microsegundo equivale a MB/s de bytes empaquetados.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EmpaquetamientoBitsBenchmark {
+	/**
+	 * El número de bytes empaquetados de cada invocación.
+	 */
+	static final int BYTES = 16 * 1024;
+
+	private final byte[] empaquetados = new byte[BYTES];
+	private final byte[][] desempaquetados = new byte[BYTES][];
+
+	@Setup
+	public void generarBytes() {
+		final SplittableRandom prng = new SplittableRandom(1);
+
+		for (int i = 0; i < BYTES; ++i) {
+			empaquetados[i] = (byte) prng.nextInt(256);
+			desempaquetados[i] = EmpaquetamientoBits.bitsABytes(empaquetados[i], 8);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BYTES)
+	public void bitsABytes(final Blackhole agujeroNegro) {
+		for (int i = 0; i < BYTES; ++i) {
+			agujeroNegro.consume(EmpaquetamientoBits.bitsABytes(empaquetados[i], 8));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BYTES)
+	public int bytesABits() {
+		int suma = 0;
+
+		for (int i = 0; i < BYTES; ++i) {
+			suma += EmpaquetamientoBits.bytesABits(desempaquetados[i]);
+		}
+
+		return suma;
+	}
+}
@@ -0,0 +1,146 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer.lib;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pruebas de rendimiento de las operaciones de {@link MatrizZ2}, con matrices
+ * cuadradas de varias dimensiones.
+ * <p>
+ * Como el número de bytes procesados depende de la dimensión, además de las
+ * operaciones por microsegundo se muestra el contador {@code bytes}, que
+ * acumula el tamaño de los operandos empaquetados (un bit por elemento), y cuyo
+ * valor por microsegundo equivale a MB/s.
+ * </p>
+ * <p>
+ * Para comparar la multiplicación con la de la implementación original, que
+ * almacenaba un byte por elemento, {@code multiplicarPorReferencia} mide esta
+ * última. Como es cúbica, solo se mide hasta la dimensión 512, pues con las
+ * mayores cada operación llevaría de segundos a minutos.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrizZ2Benchmark {
+	@Benchmark
+	public MatrizZ2 multiplicarPor(final Operandos operandos, final BytesProcesados procesados) {
+		procesados.bytes += operandos.bytesOperandos;
+
+		return operandos.x.multiplicarPor(operandos.y);
+	}
+
+	@Benchmark
+	public MatrizZ2 sumar(final Operandos operandos, final BytesProcesados procesados) {
+		procesados.bytes += operandos.bytesOperandos;
+
+		return operandos.x.sumar(operandos.y);
+	}
+
+	@Benchmark
+	public byte[][] multiplicarPorReferencia(final OperandosReferencia operandos, final BytesProcesados procesados) {
+		procesados.bytes += operandos.bytesOperandos;
+
+		final byte[][] x = operandos.x;
+		final byte[][] y = operandos.y;
+		final byte[][] resultado = new byte[x.length][y[0].length];
+
+		for (int i = 0; i < x.length; ++i) {
+			for (int j = 0; j < y[0].length; ++j) {
+				for (int k = 0; k < y.length; ++k) {
+					resultado[i][j] ^= (byte) (x[i][k] * y[k][j]);
+				}
+			}
+		}
+
+		return resultado;
+	}
+
+	/**
+	 * Las matrices empaquetadas a operar.
+	 */
+	@State(Scope.Thread)
+	public static class Operandos {
+		@Param({ "64", "128", "256", "512", "1024", "2048", "4096" })
+		public int dimension;
+
+		private MatrizZ2 x;
+		private MatrizZ2 y;
+		private long bytesOperandos;
+
+		@Setup
+		public void generarMatrices() {
+			final Random prng = new Random(1);
+
+			x = MatrizZ2.aleatoria(dimension, dimension, prng);
+			y = MatrizZ2.aleatoria(dimension, dimension, prng);
+			bytesOperandos = 2L * dimension * dimension / 8;
+		}
+	}
+
+	/**
+	 * Las matrices a multiplicar con la implementación original, con un byte por
+	 * elemento.
+	 */
+	@State(Scope.Thread)
+	public static class OperandosReferencia {
+		@Param({ "64", "128", "256", "512" })
+		public int dimension;
+
+		private byte[][] x;
+		private byte[][] y;
+		private long bytesOperandos;
+
+		@Setup
+		public void generarMatrices() {
+			final Random prng = new Random(1);
+
+			x = desempaquetar(MatrizZ2.aleatoria(dimension, dimension, prng));
+			y = desempaquetar(MatrizZ2.aleatoria(dimension, dimension, prng));
+			bytesOperandos = 2L * dimension * dimension / 8;
+		}
+
+		private static byte[][] desempaquetar(final MatrizZ2 matriz) {
+			final byte[][] elementos = new byte[matriz.getNumeroFilas()][];
+			for (int i = 0; i < elementos.length; ++i) {
+				elementos[i] = matriz.getFila(i);
+			}
+
+			return elementos;
+		}
+	}
+
+	/**
+	 * Cuenta los bytes de los operandos procesados en cada iteración.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class BytesProcesados {
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reiniciar() {
+			bytes = 0;
+		}
+	}
+}
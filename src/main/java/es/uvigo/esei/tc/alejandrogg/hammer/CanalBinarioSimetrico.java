@@ -0,0 +1,59 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+/**
+ * Introduce errores según un canal binario simétrico, que niega cada bit de
+ * manera independiente con una probabilidad p.
+ * <p>
+ * El número de bits sin errores entre dos errores consecutivos sigue una
+ * distribución geométrica, así que se muestrea directamente, saltando de un bit
+ * erróneo al siguiente. Con probabilidades realistas, como 10<sup>-6</sup>, la
+ * gran mayoría de los bytes no se llega a tocar.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class CanalBinarioSimetrico extends IntroductorErroresBits {
+	/**
+	 * El nombre de este modelo de canal en la descripción aceptada por
+	 * {@link IntroductorErrores#crear(String, long)}.
+	 */
+	static final String NOMBRE = "bsc";
+
+	private final double probabilidadError;
+	private final double logaritmoAcierto;
+
+	/**
+	 * Crea un nuevo canal binario simétrico.
+	 *
+	 * @param probabilidadError La probabilidad de negar cada bit.
+	 * @param semilla           La semilla de los números pseudoaleatorios a usar.
+	 * @throws IllegalArgumentException Si la probabilidad no está entre 0 y 1.
+	 */
+	CanalBinarioSimetrico(final double probabilidadError, final long semilla) {
+		super(semilla);
+
+		if (!(probabilidadError >= 0 && probabilidadError <= 1)) {
+			throw new IllegalArgumentException("La probabilidad de error debe de estar entre 0 y 1");
+		}
+
+		this.probabilidadError = probabilidadError;
+		this.logaritmoAcierto = Math.log1p(-probabilidadError);
+	}
+
+	@Override
+	IntroductorErrores derivar() {
+		return new CanalBinarioSimetrico(probabilidadError, semilla);
+	}
+
+	@Override
+	boolean introduceErrores() {
+		return probabilidadError > 0;
+	}
+
+	@Override
+	long bitsSinErrores() {
+		return geometrica(logaritmoAcierto);
+	}
+}
@@ -0,0 +1,318 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Canal de escritura que codifica con un código lineal los bytes que se
+ * escriben en él, antes de escribirlos en el canal subyacente. Es el
+ * equivalente de {@link FlujoSalidaHamming} para canales, con el mismo
+ * resultado.
+ * <p>
+ * Los búferes internos son directos, de manera que, si también lo son los
+ * búferes escritos y el canal subyacente es un fichero o un socket, los bytes no
+ * pasan por arrays del montículo entre el núcleo del sistema operativo y el
+ * código (salvo el final del flujo, y con los códigos que no implementan la
+ * codificación entre búferes directos). Las escrituras de búferes grandes se
+ * codifican directamente desde ellos, y {@link #transferirDesde} lee de otro
+ * canal directamente al búfer interno.
+ * </p>
+ * <p>
+ * El canal subyacente debe de estar en modo bloqueante, y este canal siempre
+ * consume todos los bytes restantes de los búferes escritos. Como los bytes que
+ * no completan un bloque solo se pueden codificar al final del flujo, deben de
+ * codificarse llamando a {@link #terminar()} o {@link #close()}. Las instancias
+ * de esta clase no son seguras para su uso concurrente.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+public final class CanalCodificacionHamming implements WritableByteChannel {
+	/**
+	 * El número aproximado de bytes fuente del búfer interno.
+	 */
+	static final int TAMANO_BUFFER = 64 * 1024;
+
+	private final WritableByteChannel canal;
+	private final CodigoLineal codigo;
+	private final IntroductorErrores introductorErrores;
+	/**
+	 * Los bytes fuente pendientes de codificar, en modo escritura.
+	 */
+	private final ByteBuffer bufferFuente;
+	private final ByteBuffer bufferCodigo;
+
+	private long bytesLeidos = 0;
+	private long bytesEscritos = 0;
+	private boolean terminado = false;
+	private boolean abierto = true;
+
+	/**
+	 * Crea un canal que codifica con el código Hamming ampliado (3, 2).
+	 *
+	 * @param canal El canal subyacente donde escribir los bytes codificados.
+	 * @throws IllegalArgumentException Si el canal es nulo.
+	 */
+	public CanalCodificacionHamming(final WritableByteChannel canal) {
+		this(canal, new HammingAmpliado3_2(), IntroductorErrores.ninguno());
+	}
+
+	/**
+	 * Crea un canal que codifica con el código indicado.
+	 *
+	 * @param canal        El canal subyacente donde escribir los bytes
+	 *                     codificados.
+	 * @param nombreCodigo El nombre del código, en el formato aceptado por la
+	 *                     opción {@code --codigo} de la aplicación.
+	 * @throws IllegalArgumentException Si el canal es nulo, o el nombre no
+	 *                                  corresponde a ningún código conocido.
+	 */
+	public CanalCodificacionHamming(final WritableByteChannel canal, final String nombreCodigo) {
+		this(canal, CodigoLineal.crear(nombreCodigo), IntroductorErrores.ninguno());
+	}
+
+	/**
+	 * Crea un canal que codifica con el código indicado, introduciendo errores en
+	 * los bytes codificados.
+	 *
+	 * @param canal              El canal subyacente donde escribir los bytes
+	 *                           codificados.
+	 * @param codigo             El código con el que codificar.
+	 * @param introductorErrores El introductor de errores a usar. Los errores
+	 *                           se introducen según la posición de cada byte en
+	 *                           el canal subyacente.
+	 * @throws IllegalArgumentException Si algún parámetro es nulo.
+	 */
+	CanalCodificacionHamming(
+		final WritableByteChannel canal, final CodigoLineal codigo, final IntroductorErrores introductorErrores
+	) {
+		if (canal == null || codigo == null || introductorErrores == null) {
+			throw new IllegalArgumentException("El canal, el código y el introductor de errores no pueden ser nulos");
+		}
+
+		final int bloques = Math.max(1, TAMANO_BUFFER / codigo.getBytesBloqueFuente());
+
+		this.canal = canal;
+		this.codigo = codigo;
+		this.introductorErrores = introductorErrores;
+		this.bufferFuente = ByteBuffer.allocateDirect(bloques * codigo.getBytesBloqueFuente());
+		// Al terminar, se codifica el final del flujo, que puede ocupar un bloque más
+		this.bufferCodigo = ByteBuffer.allocateDirect((bloques + 1) * codigo.getBytesBloqueCodigo());
+	}
+
+	/**
+	 * Obtiene el número de bytes fuente escritos en este canal hasta el momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getBytesLeidos() {
+		return bytesLeidos;
+	}
+
+	/**
+	 * Obtiene el número de bytes codificados escritos en el canal subyacente hasta
+	 * el momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getBytesEscritos() {
+		return bytesEscritos;
+	}
+
+	/**
+	 * Obtiene el número de errores (bits negados) introducidos en los bytes
+	 * codificados hasta el momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getErroresIntroducidos() {
+		return introductorErrores.getErroresIntroducidos();
+	}
+
+	@Override
+	public int write(final ByteBuffer src) throws IOException {
+		comprobarEscribible();
+
+		final int longitud = src.remaining();
+
+		// Completar primero el búfer, si tiene bytes pendientes
+		if (bufferFuente.position() > 0) {
+			copiar(src, bufferFuente);
+
+			if (bufferFuente.hasRemaining()) {
+				bytesLeidos += longitud;
+				return longitud;
+			}
+
+			codificarBufferFuente();
+		}
+
+		// Codificar los bloques completos directamente desde el búfer escrito
+		while (src.remaining() >= bufferFuente.capacity()) {
+			codificarBloques(src);
+		}
+
+		bufferFuente.put(src);
+		bytesLeidos += longitud;
+
+		return longitud;
+	}
+
+	/**
+	 * Lee todos los bytes de un canal, hasta su final, y los escribe en este
+	 * canal. Los bytes se leen directamente al búfer interno, sin copias
+	 * intermedias.
+	 *
+	 * @param origen El canal del que leer, que debe de estar en modo bloqueante.
+	 * @return El número de bytes transferidos.
+	 * @throws IOException Si ocurre un error de E/S.
+	 * @throws IllegalArgumentException Si el canal es nulo.
+	 */
+	public long transferirDesde(final ReadableByteChannel origen) throws IOException {
+		if (origen == null) {
+			throw new IllegalArgumentException("El canal de origen no puede ser nulo");
+		}
+
+		comprobarEscribible();
+
+		long transferidos = 0;
+		int leidos;
+		while ((leidos = origen.read(bufferFuente)) >= 0) {
+			transferidos += leidos;
+			bytesLeidos += leidos;
+
+			if (!bufferFuente.hasRemaining()) {
+				codificarBufferFuente();
+			}
+		}
+
+		return transferidos;
+	}
+
+	/**
+	 * Codifica y escribe el final del flujo, incluidos los bytes que no completan
+	 * un bloque, sin cerrar el canal subyacente. Después de terminar, no se pueden
+	 * escribir más bytes en este canal. Si ya se ha terminado, no hace nada.
+	 *
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	public void terminar() throws IOException {
+		if (!abierto) {
+			throw new ClosedChannelException();
+		}
+
+		if (!terminado) {
+			((Buffer) bufferFuente).flip();
+
+			final byte[] resto = new byte[bufferFuente.remaining() % codigo.getBytesBloqueFuente()];
+			final byte[] bloqueFinal = new byte[codigo.getBytesBloqueCodigo()];
+
+			((Buffer) bufferCodigo).clear();
+			codigo.codificar(bufferFuente, bufferCodigo);
+			bufferFuente.get(resto);
+			bufferCodigo.put(bloqueFinal, 0, codigo.codificarFinal(resto, 0, resto.length, bloqueFinal, 0));
+			escribirBufferCodigo();
+
+			((Buffer) bufferFuente).clear();
+			terminado = true;
+		}
+	}
+
+	@Override
+	public boolean isOpen() {
+		return abierto;
+	}
+
+	/**
+	 * Termina este canal, como {@link #terminar()}, y cierra el canal subyacente.
+	 * Si ya se ha cerrado, no hace nada.
+	 *
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (abierto) {
+			try {
+				terminar();
+			} finally {
+				abierto = false;
+				canal.close();
+			}
+		}
+	}
+
+	/**
+	 * Codifica los bloques del búfer interno, que debe de estar lleno, y lo vacía.
+	 *
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private void codificarBufferFuente() throws IOException {
+		((Buffer) bufferFuente).flip();
+		codificarBloques(bufferFuente);
+		((Buffer) bufferFuente).clear();
+	}
+
+	/**
+	 * Codifica tantos bloques completos de un búfer como quepan en el búfer
+	 * interno de bytes codificados, y los escribe en el canal subyacente.
+	 *
+	 * @param origen El búfer con los bloques a codificar, cuya posición avanza de
+	 *               acuerdo a lo codificado.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private void codificarBloques(final ByteBuffer origen) throws IOException {
+		((Buffer) bufferCodigo).clear();
+		codigo.codificar(origen, bufferCodigo);
+		escribirBufferCodigo();
+	}
+
+	/**
+	 * Introduce errores en los bytes codificados del búfer interno, que está en
+	 * modo escritura, y los escribe completamente en el canal subyacente.
+	 *
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private void escribirBufferCodigo() throws IOException {
+		((Buffer) bufferCodigo).flip();
+
+		final int codificados = bufferCodigo.remaining();
+		introductorErrores.introducir(bufferCodigo, 0, codificados, bytesEscritos);
+
+		while (bufferCodigo.hasRemaining()) {
+			canal.write(bufferCodigo);
+		}
+
+		bytesEscritos += codificados;
+	}
+
+	private void comprobarEscribible() throws IOException {
+		if (!abierto) {
+			throw new ClosedChannelException();
+		}
+
+		if (terminado) {
+			throw new IOException("No se pueden escribir más bytes en un canal terminado");
+		}
+	}
+
+	/**
+	 * Copia tantos bytes restantes de un búfer a otro como quepan en este último.
+	 *
+	 * @param origen  El búfer del que copiar.
+	 * @param destino El búfer en el que copiar.
+	 */
+	static void copiar(final ByteBuffer origen, final ByteBuffer destino) {
+		final int copiados = Math.min(origen.remaining(), destino.remaining());
+		final ByteBuffer copia = origen.duplicate();
+
+		((Buffer) copia).limit(copia.position() + copiados);
+		destino.put(copia);
+		((Buffer) origen).position(origen.position() + copiados);
+	}
+}
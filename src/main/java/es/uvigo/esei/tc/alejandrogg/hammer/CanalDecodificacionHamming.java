@@ -0,0 +1,281 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Canal de lectura que decodifica con un código lineal los bytes leídos del
+ * canal subyacente, corrigiendo los errores que sea posible. Es el equivalente
+ * de {@link FlujoEntradaHamming} para canales, con el mismo resultado.
+ * <p>
+ * Los búferes internos son directos, de manera que, si también lo son los
+ * búferes leídos y el canal subyacente es un fichero o un socket, los bytes no
+ * pasan por arrays del montículo entre el núcleo del sistema operativo y el
+ * código (salvo el final del flujo, y con los códigos que no implementan la
+ * decodificación entre búferes directos). {@link #transferirA} escribe en otro
+ * canal directamente desde el búfer interno.
+ * </p>
+ * <p>
+ * El canal subyacente debe de estar en modo bloqueante. Las estadísticas de la
+ * decodificación se pueden consultar en cualquier momento, y reflejan los
+ * bloques decodificados hasta entonces. Las instancias de esta clase no son
+ * seguras para su uso concurrente.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+public final class CanalDecodificacionHamming implements ReadableByteChannel {
+	/**
+	 * El número aproximado de bytes codificados del búfer interno.
+	 */
+	static final int TAMANO_BUFFER = 64 * 1024;
+
+	private final ReadableByteChannel canal;
+	private final CodigoLineal codigo;
+	private final EstadisticasDecodificacion estadisticas;
+	/**
+	 * Los bytes codificados pendientes de decodificar, en modo escritura.
+	 */
+	private final ByteBuffer bufferCodigo;
+	/**
+	 * Los bytes decodificados pendientes de leer, en modo lectura.
+	 */
+	private final ByteBuffer bufferDecodificado;
+
+	private long bytesDecodificados = 0;
+	private boolean finAlcanzado = false;
+	private boolean abierto = true;
+
+	/**
+	 * Crea un canal que decodifica con el código Hamming ampliado (3, 2).
+	 *
+	 * @param canal El canal subyacente del que leer los bytes codificados.
+	 * @throws IllegalArgumentException Si el canal es nulo.
+	 */
+	public CanalDecodificacionHamming(final ReadableByteChannel canal) {
+		this(canal, new HammingAmpliado3_2(), new EstadisticasDecodificacion());
+	}
+
+	/**
+	 * Crea un canal que decodifica con el código indicado.
+	 *
+	 * @param canal        El canal subyacente del que leer los bytes codificados.
+	 * @param nombreCodigo El nombre del código, en el formato aceptado por la
+	 *                     opción {@code --codigo} de la aplicación.
+	 * @throws IllegalArgumentException Si el canal es nulo, o el nombre no
+	 *                                  corresponde a ningún código conocido.
+	 */
+	public CanalDecodificacionHamming(final ReadableByteChannel canal, final String nombreCodigo) {
+		this(canal, CodigoLineal.crear(nombreCodigo), new EstadisticasDecodificacion());
+	}
+
+	/**
+	 * Crea un canal que decodifica con el código indicado, acumulando el
+	 * resultado en las estadísticas dadas.
+	 *
+	 * @param canal        El canal subyacente del que leer los bytes codificados.
+	 * @param codigo       El código con el que decodificar.
+	 * @param estadisticas Las estadísticas donde acumular el resultado de la
+	 *                     decodificación. Si conservan los borrados, los índices
+	 *                     de los bytes borrados son sus posiciones en este canal.
+	 * @throws IllegalArgumentException Si algún parámetro es nulo.
+	 */
+	CanalDecodificacionHamming(
+		final ReadableByteChannel canal, final CodigoLineal codigo, final EstadisticasDecodificacion estadisticas
+	) {
+		if (canal == null || codigo == null || estadisticas == null) {
+			throw new IllegalArgumentException("El canal, el código y las estadísticas no pueden ser nulos");
+		}
+
+		final int bloques = Math.max(1, TAMANO_BUFFER / codigo.getBytesBloqueCodigo());
+
+		this.canal = canal;
+		this.codigo = codigo;
+		this.estadisticas = estadisticas;
+		this.bufferCodigo = ByteBuffer.allocateDirect(
+			bloques * codigo.getBytesBloqueCodigo() + codigo.getBytesRetenidosDecodificacion()
+		);
+		// El final del flujo puede decodificarse en un bloque fuente más
+		this.bufferDecodificado = ByteBuffer.allocateDirect((bloques + 1) * codigo.getBytesBloqueFuente());
+		((Buffer) bufferDecodificado).limit(0);
+	}
+
+	/**
+	 * Obtiene el número de palabras código decodificadas hasta el momento que no
+	 * tenían errores.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getPalabrasCorrectas() {
+		return estadisticas.getPalabrasCorrectas();
+	}
+
+	/**
+	 * Obtiene el número de palabras código decodificadas hasta el momento en las
+	 * que se han corregido errores.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getPalabrasCorregidas() {
+		return estadisticas.getPalabrasCorregidas();
+	}
+
+	/**
+	 * Obtiene el número de palabras código decodificadas hasta el momento con
+	 * errores que no se han podido corregir.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getPalabrasIncorregibles() {
+		return estadisticas.getPalabrasIncorregibles();
+	}
+
+	/**
+	 * Obtiene el número de bytes fuente descartados hasta el momento por
+	 * pertenecer a palabras código incorregibles.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getBytesDescartados() {
+		return estadisticas.getBytesDescartados();
+	}
+
+	/**
+	 * Obtiene las estadísticas donde se acumula el resultado de la
+	 * decodificación.
+	 *
+	 * @return Las devandichas estadísticas.
+	 */
+	EstadisticasDecodificacion getEstadisticas() {
+		return estadisticas;
+	}
+
+	@Override
+	public int read(final ByteBuffer dst) throws IOException {
+		if (!abierto) {
+			throw new ClosedChannelException();
+		}
+
+		if (!dst.hasRemaining()) {
+			return 0;
+		}
+
+		if (!bufferDecodificado.hasRemaining() && !rellenar()) {
+			return -1;
+		}
+
+		final int leidos = Math.min(dst.remaining(), bufferDecodificado.remaining());
+		CanalCodificacionHamming.copiar(bufferDecodificado, dst);
+
+		return leidos;
+	}
+
+	/**
+	 * Lee y decodifica todos los bytes restantes de este canal, hasta su final, y
+	 * los escribe en otro canal directamente desde el búfer interno.
+	 *
+	 * @param destino El canal en el que escribir, que debe de estar en modo
+	 *                bloqueante.
+	 * @return El número de bytes transferidos.
+	 * @throws IOException Si ocurre un error de E/S.
+	 * @throws IllegalArgumentException Si el canal es nulo.
+	 */
+	public long transferirA(final WritableByteChannel destino) throws IOException {
+		if (destino == null) {
+			throw new IllegalArgumentException("El canal de destino no puede ser nulo");
+		}
+
+		if (!abierto) {
+			throw new ClosedChannelException();
+		}
+
+		long transferidos = 0;
+		while (bufferDecodificado.hasRemaining() || rellenar()) {
+			transferidos += bufferDecodificado.remaining();
+
+			while (bufferDecodificado.hasRemaining()) {
+				destino.write(bufferDecodificado);
+			}
+		}
+
+		return transferidos;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return abierto;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (abierto) {
+			abierto = false;
+			canal.close();
+		}
+	}
+
+	/**
+	 * Lee bytes codificados del canal subyacente y los decodifica en el búfer
+	 * interno, que debe de estar vacío, hasta obtener algún byte decodificado o
+	 * llegar al final del flujo.
+	 *
+	 * @return Verdadero si se han obtenido bytes decodificados, falso si se ha
+	 *         llegado al final del flujo.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private boolean rellenar() throws IOException {
+		((Buffer) bufferDecodificado).clear();
+
+		while (bufferDecodificado.position() == 0 && !finAlcanzado) {
+			final boolean esFinal = canal.read(bufferCodigo) < 0;
+
+			((Buffer) bufferCodigo).flip();
+
+			final int llenos = bufferCodigo.remaining();
+			int procesables = Math.max(0, llenos - codigo.getBytesRetenidosDecodificacion());
+			procesables -= procesables % codigo.getBytesBloqueCodigo();
+
+			estadisticas.setDesplazamientoBorrados(bytesDecodificados);
+
+			((Buffer) bufferCodigo).limit(procesables);
+			codigo.decodificar(bufferCodigo, bufferDecodificado, estadisticas);
+			((Buffer) bufferCodigo).limit(llenos);
+
+			if (esFinal) {
+				decodificarFinal();
+				finAlcanzado = true;
+			}
+
+			// Conservar los bytes que no se han decodificado para la siguiente lectura
+			bufferCodigo.compact();
+		}
+
+		((Buffer) bufferDecodificado).flip();
+		bytesDecodificados += bufferDecodificado.remaining();
+
+		return bufferDecodificado.hasRemaining();
+	}
+
+	/**
+	 * Decodifica los bytes restantes del búfer interno de bytes codificados, que
+	 * son los del final del flujo, a continuación de los ya decodificados.
+	 */
+	private void decodificarFinal() {
+		final byte[] resto = new byte[bufferCodigo.remaining()];
+		final byte[] bloqueFinal = new byte[(resto.length / codigo.getBytesBloqueCodigo() + 1) * codigo.getBytesBloqueFuente()];
+
+		bufferCodigo.get(resto);
+
+		// Los bytes borrados se registran con índices del array del bloque final
+		estadisticas.setDesplazamientoBorrados(bytesDecodificados + bufferDecodificado.position());
+		bufferDecodificado.put(
+			bloqueFinal, 0, codigo.decodificarFinal(resto, 0, resto.length, bloqueFinal, 0, estadisticas)
+		);
+	}
+}
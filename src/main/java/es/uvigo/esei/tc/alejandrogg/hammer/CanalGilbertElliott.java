@@ -0,0 +1,157 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+/**
+ * Introduce errores en ráfagas según un canal de Gilbert–Elliott: una cadena de
+ * Márkov de dos estados, uno bueno y otro malo, en cada uno de los cuales los
+ * bits se niegan de manera independiente con una probabilidad distinta. Tras
+ * cada bit, el canal pasa del estado bueno al malo con probabilidad b, y del
+ * malo al bueno con probabilidad g.
+ * <p>
+ * Tanto el número de bits que el canal permanece en cada estado como el número
+ * de bits sin errores entre dos errores dentro de un estado siguen
+ * distribuciones geométricas, así que ambos se muestrean directamente. Cada
+ * introductor empieza en un estado elegido según la distribución estacionaria
+ * de la cadena, que se vuelve a elegir al principio de cada segmento del flujo
+ * codificado.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class CanalGilbertElliott extends IntroductorErroresBits {
+	/**
+	 * El nombre de este modelo de canal en la descripción aceptada por
+	 * {@link IntroductorErrores#crear(String, long)}.
+	 */
+	static final String NOMBRE = "gilbert-elliott";
+
+	private final double probabilidadBuenoMalo;
+	private final double probabilidadMaloBueno;
+	private final double probabilidadErrorBueno;
+	private final double probabilidadErrorMalo;
+	/**
+	 * Los logaritmos de las probabilidades de permanecer en el estado bueno y en
+	 * el malo tras cada bit.
+	 */
+	private final double[] logaritmosPermanencia;
+	/**
+	 * Los logaritmos de las probabilidades de no negar un bit en el estado bueno
+	 * y en el malo.
+	 */
+	private final double[] logaritmosAcierto;
+
+	private int estado;
+	/**
+	 * El número de bits que faltan para que el canal cambie de estado, incluido
+	 * el actual.
+	 */
+	private long bitsRestantesEstado;
+
+	/**
+	 * Crea un nuevo canal de Gilbert–Elliott.
+	 *
+	 * @param probabilidadBuenoMalo  La probabilidad de pasar del estado bueno al
+	 *                               malo tras cada bit.
+	 * @param probabilidadMaloBueno  La probabilidad de pasar del estado malo al
+	 *                               bueno tras cada bit.
+	 * @param probabilidadErrorBueno La probabilidad de negar cada bit en el
+	 *                               estado bueno.
+	 * @param probabilidadErrorMalo  La probabilidad de negar cada bit en el estado
+	 *                               malo.
+	 * @param semilla                La semilla de los números pseudoaleatorios
+	 *                               a usar.
+	 * @throws IllegalArgumentException Si alguna probabilidad no está entre 0 y 1,
+	 *                                  o las dos de transición son nulas.
+	 */
+	CanalGilbertElliott(
+		final double probabilidadBuenoMalo, final double probabilidadMaloBueno,
+		final double probabilidadErrorBueno, final double probabilidadErrorMalo,
+		final long semilla
+	) {
+		super(semilla);
+
+		for (final double probabilidad : new double[] {
+			probabilidadBuenoMalo, probabilidadMaloBueno, probabilidadErrorBueno, probabilidadErrorMalo
+		}) {
+			if (!(probabilidad >= 0 && probabilidad <= 1)) {
+				throw new IllegalArgumentException("Las probabilidades del canal deben de estar entre 0 y 1");
+			}
+		}
+
+		if (probabilidadBuenoMalo + probabilidadMaloBueno == 0) {
+			throw new IllegalArgumentException("Alguna de las probabilidades de transición debe de ser positiva");
+		}
+
+		this.probabilidadBuenoMalo = probabilidadBuenoMalo;
+		this.probabilidadMaloBueno = probabilidadMaloBueno;
+		this.probabilidadErrorBueno = probabilidadErrorBueno;
+		this.probabilidadErrorMalo = probabilidadErrorMalo;
+		this.logaritmosPermanencia = new double[] {
+			Math.log1p(-probabilidadBuenoMalo), Math.log1p(-probabilidadMaloBueno)
+		};
+		this.logaritmosAcierto = new double[] {
+			Math.log1p(-probabilidadErrorBueno), Math.log1p(-probabilidadErrorMalo)
+		};
+	}
+
+	@Override
+	IntroductorErrores derivar() {
+		return new CanalGilbertElliott(
+			probabilidadBuenoMalo, probabilidadMaloBueno, probabilidadErrorBueno, probabilidadErrorMalo,
+			semilla
+		);
+	}
+
+	@Override
+	boolean introduceErrores() {
+		return probabilidadErrorBueno > 0 && probabilidadMaloBueno > 0 ||
+			probabilidadErrorMalo > 0 && probabilidadBuenoMalo > 0;
+	}
+
+	@Override
+	void reiniciarEstado() {
+		super.reiniciarEstado();
+
+		// Empezar en el estado malo con su probabilidad estacionaria
+		estado = prng.nextDouble() * (probabilidadBuenoMalo + probabilidadMaloBueno) < probabilidadBuenoMalo ? 1 : 0;
+		bitsRestantesEstado = permanencia();
+	}
+
+	@Override
+	long bitsSinErrores() {
+		long bitsSinErrores = 0;
+
+		while (bitsSinErrores < MAXIMO_BITS_SIN_ERRORES) {
+			final long bitsHastaError = geometrica(logaritmosAcierto[estado]);
+
+			if (bitsHastaError < bitsRestantesEstado) {
+				bitsRestantesEstado -= bitsHastaError + 1;
+				if (bitsRestantesEstado == 0) {
+					cambiarEstado();
+				}
+
+				return Math.min(bitsSinErrores + bitsHastaError, MAXIMO_BITS_SIN_ERRORES);
+			}
+
+			// No hay errores antes de cambiar de estado
+			bitsSinErrores += bitsRestantesEstado;
+			cambiarEstado();
+		}
+
+		return MAXIMO_BITS_SIN_ERRORES;
+	}
+
+	private void cambiarEstado() {
+		estado ^= 1;
+		bitsRestantesEstado = permanencia();
+	}
+
+	/**
+	 * Muestrea el número de bits que el canal permanece en el estado actual, tras
+	 * entrar en él, que es al menos uno.
+	 */
+	private long permanencia() {
+		return 1 + geometrica(logaritmosPermanencia[estado]);
+	}
+}
@@ -0,0 +1,103 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+/**
+ * Introduce en cada byte un número de errores que se obtiene de una variable
+ * aleatoria Z con distribución normal de media 0 y desviación típica 1, como
+ * |⌊Z⌋|, o bien, en su versión limitada, como |⌊Z⌋| mod 3, de manera que nunca
+ * se introducen más de dos errores por byte.
+ * <p>
+ * En lugar de muestrear Z para cada byte, el número de errores se obtiene por
+ * inversión de su función de distribución, precalculada, con un único número
+ * pseudoaleatorio uniforme, y los bits a negar, de una máscara precalculada con
+ * ese número de bits a uno.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class CanalNormal extends IntroductorErrores {
+	/**
+	 * El nombre de este modelo de canal en la descripción aceptada por
+	 * {@link IntroductorErrores#crear(String, long)}.
+	 */
+	static final String NOMBRE = "normal";
+	/**
+	 * El nombre de la versión limitada de este modelo de canal en la descripción
+	 * aceptada por {@link IntroductorErrores#crear(String, long)}.
+	 */
+	static final String NOMBRE_LIMITADO = "normal-limitado";
+
+	/**
+	 * La probabilidad de que |⌊Z⌋| valga cada número de errores, de 0 a 8. La
+	 * probabilidad de valores mayores, del orden de 10<sup>-15</sup>, es
+	 * despreciable, y como un byte no puede tener más de 8 errores, se acumula en
+	 * la última.
+	 */
+	private static final double[] PROBABILIDADES_ERRORES = {
+		0.3413447460685429, 0.4772498680518208, 0.15730535589982697,
+		0.02271846070634609, 0.001349611380058291, 3.167025524536404e-05,
+		2.866502920584324e-07, 9.865870342906646e-10, 1.2804757254514243e-12
+	};
+
+	private static final double[] DISTRIBUCION_ERRORES = distribucion(false);
+	private static final double[] DISTRIBUCION_ERRORES_LIMITADOS = distribucion(true);
+
+	private final boolean limitado;
+	private final double[] distribucion;
+
+	/**
+	 * Crea un nuevo canal con un número de errores por byte de distribución
+	 * normal.
+	 *
+	 * @param limitado Si el número de errores por byte no debe de superar dos.
+	 * @param semilla  La semilla de los números pseudoaleatorios a usar.
+	 */
+	CanalNormal(final boolean limitado, final long semilla) {
+		super(semilla);
+
+		this.limitado = limitado;
+		this.distribucion = limitado ? DISTRIBUCION_ERRORES_LIMITADOS : DISTRIBUCION_ERRORES;
+	}
+
+	@Override
+	IntroductorErrores derivar() {
+		return new CanalNormal(limitado, semilla);
+	}
+
+	@Override
+	boolean introduceErrores() {
+		return true;
+	}
+
+	@Override
+	long siguienteError() {
+		final double u = prng.nextDouble();
+
+		int numeroErrores = 0;
+		while (numeroErrores < distribucion.length - 1 && u >= distribucion[numeroErrores]) {
+			++numeroErrores;
+		}
+
+		return mascaraAleatoria(numeroErrores);
+	}
+
+	/**
+	 * Calcula la función de distribución del número de errores por byte.
+	 *
+	 * @param limitado Si el número de errores se toma módulo 3.
+	 * @return La probabilidad acumulada de cada número de errores.
+	 */
+	private static double[] distribucion(final boolean limitado) {
+		final double[] probabilidades = new double[limitado ? 3 : PROBABILIDADES_ERRORES.length];
+		for (int i = 0; i < PROBABILIDADES_ERRORES.length; ++i) {
+			probabilidades[i % probabilidades.length] += PROBABILIDADES_ERRORES[i];
+		}
+
+		for (int i = 1; i < probabilidades.length; ++i) {
+			probabilidades[i] += probabilidades[i - 1];
+		}
+
+		return probabilidades;
+	}
+}
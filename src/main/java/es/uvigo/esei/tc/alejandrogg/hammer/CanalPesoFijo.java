@@ -0,0 +1,53 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+/**
+ * Introduce errores negando un número fijo de bits de cada byte, en posiciones
+ * aleatorias. Los bits a negar se eligen de una vez, muestreando una de las
+ * máscaras con ese número de bits a uno, precalculadas.
+ *
+ * @author Alejandro González García
+ */
+final class CanalPesoFijo extends IntroductorErrores {
+	/**
+	 * El nombre de este modelo de canal en la descripción aceptada por
+	 * {@link IntroductorErrores#crear(String, long)}.
+	 */
+	static final String NOMBRE = "fijo";
+
+	private final int numeroErrores;
+
+	/**
+	 * Crea un nuevo canal que niega un número fijo de bits de cada byte.
+	 *
+	 * @param numeroErrores El número de bits a negar en cada byte. Si es mayor
+	 *                      que 8, se niegan todos.
+	 * @param semilla       La semilla de los números pseudoaleatorios a usar.
+	 * @throws IllegalArgumentException Si el número de errores es negativo.
+	 */
+	CanalPesoFijo(final int numeroErrores, final long semilla) {
+		super(semilla);
+
+		if (numeroErrores < 0) {
+			throw new IllegalArgumentException("El número de errores no puede ser negativo");
+		}
+
+		this.numeroErrores = Math.min(numeroErrores, 8);
+	}
+
+	@Override
+	IntroductorErrores derivar() {
+		return new CanalPesoFijo(numeroErrores, semilla);
+	}
+
+	@Override
+	boolean introduceErrores() {
+		return numeroErrores > 0;
+	}
+
+	@Override
+	long siguienteError() {
+		return numeroErrores > 0 ? mascaraAleatoria(numeroErrores) : SIN_MAS_ERRORES << 8;
+	}
+}
@@ -0,0 +1,499 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.ColaCircular;
+
+/**
+ * Transforma un flujo de entrada a un flujo de salida mediante tres etapas que
+ * se ejecutan a la vez: la lectura de la entrada por trozos, su transformación
+ * por uno o varios hilos, y la escritura de los trozos transformados en la
+ * salida, en el mismo orden en el que se leyeron.
+ * <p>
+ * Las etapas se comunican mediante colas acotadas de un único productor y un
+ * único consumidor: la lectura reparte los trozos por turnos entre las colas de
+ * entrada de los hilos de transformación, y la escritura los recoge en el mismo
+ * orden de sus colas de salida, devolviéndolos a la lectura para reutilizar sus
+ * búferes. Así, la memoria usada está acotada por el número de trozos, y la
+ * latencia de la E/S se solapa con la transformación, incluso con un único hilo
+ * de transformación. Las colas llevan la cuenta de las esperas de cada etapa,
+ * que indican cuál de ellas limita el rendimiento.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class Canalizacion {
+	/**
+	 * Transforma los trozos de la entrada. Cada hilo de transformación usa su
+	 * propia instancia, así que no es necesario que sean seguras para su uso
+	 * concurrente.
+	 */
+	interface Transformacion {
+		/**
+		 * Transforma un trozo de la entrada.
+		 *
+		 * @param posicion La posición en la entrada del primer byte del trozo.
+		 *                 Como todos los trozos menos el último tienen el mismo
+		 *                 tamaño, es múltiplo de él.
+		 * @param entrada  El array con los bytes del trozo.
+		 * @param longitud El número de bytes del trozo.
+		 * @param esFinal  Si el trozo es el último de la entrada.
+		 * @param salida   El array donde escribir el trozo transformado.
+		 * @return El número de bytes escritos en {@code salida}.
+		 * @throws IOException Si ocurre un error al transformar el trozo.
+		 */
+		int transformar(long posicion, byte[] entrada, int longitud, boolean esFinal, byte[] salida) throws IOException;
+	}
+
+	/**
+	 * El número de trozos por hilo de transformación que pueden estar leídos y
+	 * pendientes de escribir a la vez: uno transformándose y otro esperando.
+	 */
+	private static final int TROZOS_POR_TRANSFORMACION = 2;
+
+	/**
+	 * Trozo que indica a un hilo de transformación que la entrada ha terminado
+	 * y no le corresponden más trozos.
+	 */
+	private static final Trozo FIN = new Trozo(0, 0);
+
+	private final int bytesTrozo;
+	private final int bytesRetenidos;
+	private final int bytesSalidaTrozo;
+	private final Transformacion[] transformaciones;
+	private final int trozosMaximos;
+
+	private final ColaCircular<Trozo> libres;
+	private final ColaCircular<Trozo>[] entradas;
+	private final ColaCircular<Trozo>[] salidas;
+
+	private final AtomicReference<Throwable> fallo = new AtomicReference<>();
+	private final Thread[] hilos;
+	private Thread hiloLectura;
+
+	private int trozosCreados = 0;
+	private long bytesLeidos = 0;
+	private long bytesEscritos = 0;
+
+	/**
+	 * Crea una nueva canalización, con un hilo de transformación por cada
+	 * transformación recibida.
+	 *
+	 * @param bytesTrozo       El número de bytes de cada trozo de la entrada.
+	 * @param bytesRetenidos   El número de bytes que siguen a cada trozo y se
+	 *                         deben de leer antes de transformarlo, porque
+	 *                         podrían ser el final de la entrada. Se transforman
+	 *                         como parte del siguiente trozo.
+	 * @param bytesSalidaTrozo El número máximo de bytes de un trozo transformado,
+	 *                         incluido el último.
+	 * @param transformaciones Las transformaciones de los trozos.
+	 * @throws IllegalArgumentException Si los tamaños no son válidos, o no hay
+	 *                                  ninguna transformación.
+	 */
+	@SuppressWarnings("unchecked")
+	Canalizacion(
+		final int bytesTrozo, final int bytesRetenidos, final int bytesSalidaTrozo,
+		final Transformacion... transformaciones
+	) {
+		if (bytesTrozo < 1 || bytesRetenidos < 0 || bytesSalidaTrozo < 0) {
+			throw new IllegalArgumentException("Los tamaños de los trozos no son válidos");
+		}
+
+		if (transformaciones == null || transformaciones.length == 0) {
+			throw new IllegalArgumentException("Se necesita al menos una transformación");
+		}
+
+		this.bytesTrozo = bytesTrozo;
+		this.bytesRetenidos = bytesRetenidos;
+		this.bytesSalidaTrozo = bytesSalidaTrozo;
+		this.transformaciones = transformaciones.clone();
+		// Además de los de cada hilo de transformación, uno se puede estar
+		// leyendo y otro escribiendo
+		this.trozosMaximos = transformaciones.length * TROZOS_POR_TRANSFORMACION + 2;
+
+		this.libres = new ColaCircular<>(trozosMaximos);
+		this.entradas = new ColaCircular[transformaciones.length];
+		this.salidas = new ColaCircular[transformaciones.length];
+		for (int i = 0; i < transformaciones.length; ++i) {
+			entradas[i] = new ColaCircular<>(trozosMaximos);
+			salidas[i] = new ColaCircular<>(trozosMaximos);
+		}
+
+		this.hilos = new Thread[transformaciones.length + 1];
+	}
+
+	/**
+	 * Transforma un flujo de entrada completo a un flujo de salida. La lectura se
+	 * realiza en el hilo que invoca este método, que espera a que terminen las
+	 * demás etapas. Solo se puede invocar una vez.
+	 *
+	 * @param entrada El flujo de entrada.
+	 * @param salida  El flujo de salida.
+	 * @throws IOException           Si ocurre un error de E/S, o alguna
+	 *                               transformación lanza una excepción.
+	 * @throws IllegalStateException Si la canalización ya se ha ejecutado.
+	 */
+	void ejecutar(final InputStream entrada, final OutputStream salida) throws IOException {
+		if (hiloLectura != null) {
+			throw new IllegalStateException("La canalización ya se ha ejecutado");
+		}
+
+		hiloLectura = Thread.currentThread();
+
+		for (int i = 0; i < transformaciones.length; ++i) {
+			final int indice = i;
+			hilos[i] = new Thread(() -> transformar(indice), "hammer-transformacion-" + i);
+		}
+		hilos[transformaciones.length] = new Thread(() -> escribir(salida), "hammer-escritura");
+
+		for (final Thread hilo : hilos) {
+			hilo.setDaemon(true);
+			hilo.start();
+		}
+
+		try {
+			leer(entrada);
+		} catch (final InterruptedException exc) {
+			// Otra etapa ha fallado y ha interrumpido la lectura
+		} catch (final IOException | RuntimeException | Error exc) {
+			fallar(exc);
+		}
+
+		esperarHilos();
+
+		final Throwable causa = fallo.get();
+		if (causa != null) {
+			// Descartar la interrupción que pueda haber recibido este hilo
+			Thread.interrupted();
+
+			if (causa instanceof IOException) {
+				throw (IOException) causa;
+			} else if (causa instanceof RuntimeException) {
+				throw (RuntimeException) causa;
+			} else if (causa instanceof Error) {
+				throw (Error) causa;
+			} else {
+				throw new IOException(causa);
+			}
+		}
+	}
+
+	/**
+	 * Obtiene el número de bytes leídos de la entrada.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getBytesLeidos() {
+		return bytesLeidos;
+	}
+
+	/**
+	 * Obtiene el número de bytes escritos en la salida.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getBytesEscritos() {
+		return bytesEscritos;
+	}
+
+	/**
+	 * Obtiene el número de veces que la lectura ha tenido que esperar a que la
+	 * escritura liberase un trozo. Si es alto, la lectura no es la etapa más
+	 * lenta.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getEsperasLectura() {
+		return libres.getEsperasConsumidor();
+	}
+
+	/**
+	 * Obtiene el número de veces que los hilos de transformación han tenido que
+	 * esperar a que la lectura les proporcionase un trozo. Si es alto, la lectura
+	 * es la etapa más lenta.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getEsperasTransformacion() {
+		long esperas = 0;
+		for (final ColaCircular<Trozo> cola : entradas) {
+			esperas += cola.getEsperasConsumidor();
+		}
+
+		return esperas;
+	}
+
+	/**
+	 * Obtiene el número de veces que la escritura ha tenido que esperar a que
+	 * terminase la transformación del siguiente trozo. Si es alto, la
+	 * transformación es la etapa más lenta.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getEsperasEscritura() {
+		long esperas = 0;
+		for (final ColaCircular<Trozo> cola : salidas) {
+			esperas += cola.getEsperasConsumidor();
+		}
+
+		return esperas;
+	}
+
+	/**
+	 * Obtiene la ocupación media de las colas de entrada de los hilos de
+	 * transformación, tras cada inserción.
+	 *
+	 * @return La devandicha ocupación media, en trozos.
+	 */
+	double getOcupacionMediaEntradas() {
+		return getOcupacionMedia(entradas);
+	}
+
+	/**
+	 * Obtiene la ocupación media de las colas de salida de los hilos de
+	 * transformación, tras cada inserción.
+	 *
+	 * @return La devandicha ocupación media, en trozos.
+	 */
+	double getOcupacionMediaSalidas() {
+		return getOcupacionMedia(salidas);
+	}
+
+	/**
+	 * Ejecuta la etapa de lectura, repartiendo los trozos leídos por turnos entre
+	 * los hilos de transformación.
+	 *
+	 * @param entrada El flujo de entrada.
+	 * @throws IOException          Si ocurre un error de E/S.
+	 * @throws InterruptedException Si otra etapa falla mientras se espera.
+	 */
+	private void leer(final InputStream entrada) throws IOException, InterruptedException {
+		Trozo trozo = obtenerTrozoLibre();
+		long posicion = 0;
+		int disponibles = 0;
+		int turno = 0;
+
+		while (true) {
+			final int leidos = leerCompletamente(entrada, trozo.entrada, disponibles);
+			bytesLeidos += leidos;
+			disponibles += leidos;
+
+			if (disponibles < trozo.entrada.length) {
+				break;
+			}
+
+			// Los bytes que siguen al trozo pasan al principio del siguiente
+			final Trozo siguiente = obtenerTrozoLibre();
+			System.arraycopy(trozo.entrada, bytesTrozo, siguiente.entrada, 0, bytesRetenidos);
+
+			trozo.posicion = posicion;
+			trozo.longitudEntrada = bytesTrozo;
+			trozo.esFinal = false;
+			entradas[turno].poner(trozo);
+			turno = (turno + 1) % entradas.length;
+
+			trozo = siguiente;
+			posicion += bytesTrozo;
+			disponibles = bytesRetenidos;
+		}
+
+		trozo.posicion = posicion;
+		trozo.longitudEntrada = disponibles;
+		trozo.esFinal = true;
+		entradas[turno].poner(trozo);
+
+		for (int i = 0; i < entradas.length; ++i) {
+			if (i != turno) {
+				entradas[i].poner(FIN);
+			}
+		}
+	}
+
+	/**
+	 * Ejecuta la etapa de transformación de un hilo.
+	 *
+	 * @param indice El índice del hilo de transformación.
+	 */
+	private void transformar(final int indice) {
+		final ColaCircular<Trozo> entrada = entradas[indice];
+		final ColaCircular<Trozo> salida = salidas[indice];
+		final Transformacion transformacion = transformaciones[indice];
+
+		try {
+			Trozo trozo;
+			while ((trozo = entrada.tomar()) != FIN) {
+				trozo.longitudSalida = transformacion.transformar(
+					trozo.posicion, trozo.entrada, trozo.longitudEntrada, trozo.esFinal, trozo.salida
+				);
+				salida.poner(trozo);
+
+				if (trozo.esFinal) {
+					break;
+				}
+			}
+		} catch (final InterruptedException exc) {
+			// Otra etapa ha fallado
+		} catch (final Throwable exc) {
+			fallar(exc);
+		}
+	}
+
+	/**
+	 * Ejecuta la etapa de escritura, recogiendo los trozos transformados en el
+	 * orden en el que se repartieron.
+	 *
+	 * @param salida El flujo de salida.
+	 */
+	private void escribir(final OutputStream salida) {
+		try {
+			for (int turno = 0; ; turno = (turno + 1) % salidas.length) {
+				final Trozo trozo = salidas[turno].tomar();
+
+				final EventosJfr.EntradaSalida evento = EventosJfr.EntradaSalida.iniciar();
+				salida.write(trozo.salida, 0, trozo.longitudSalida);
+				evento.terminarEscritura(trozo.longitudSalida);
+
+				bytesEscritos += trozo.longitudSalida;
+
+				if (trozo.esFinal) {
+					break;
+				}
+
+				libres.poner(trozo);
+			}
+		} catch (final InterruptedException exc) {
+			// Otra etapa ha fallado
+		} catch (final Throwable exc) {
+			fallar(exc);
+		}
+	}
+
+	/**
+	 * Obtiene un trozo libre para leer en él, creándolo si todavía no se han
+	 * creado todos los posibles, o esperando a que la escritura libere alguno.
+	 *
+	 * @return El trozo libre.
+	 * @throws InterruptedException Si otra etapa falla mientras se espera.
+	 */
+	private Trozo obtenerTrozoLibre() throws InterruptedException {
+		Trozo trozo = libres.extraer();
+
+		if (trozo == null) {
+			if (trozosCreados < trozosMaximos) {
+				++trozosCreados;
+				trozo = new Trozo(bytesTrozo + bytesRetenidos, bytesSalidaTrozo);
+			} else {
+				trozo = libres.tomar();
+			}
+		}
+
+		return trozo;
+	}
+
+	/**
+	 * Registra el fallo de una etapa, si es el primero, e interrumpe a las demás.
+	 *
+	 * @param causa La causa del fallo.
+	 */
+	private void fallar(final Throwable causa) {
+		if (fallo.compareAndSet(null, causa)) {
+			for (final Thread hilo : hilos) {
+				if (hilo != Thread.currentThread()) {
+					hilo.interrupt();
+				}
+			}
+
+			if (hiloLectura != Thread.currentThread()) {
+				hiloLectura.interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Espera a que terminen los hilos de transformación y de escritura.
+	 */
+	private void esperarHilos() {
+		for (final Thread hilo : hilos) {
+			boolean terminado = false;
+
+			while (!terminado) {
+				try {
+					hilo.join();
+					terminado = true;
+				} catch (final InterruptedException exc) {
+					// Seguir esperando: las demás etapas terminarán por el fallo
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calcula la ocupación media de un conjunto de colas.
+	 *
+	 * @param colas Las colas.
+	 * @return La media de sus ocupaciones medias.
+	 */
+	private static double getOcupacionMedia(final ColaCircular<Trozo>[] colas) {
+		double suma = 0;
+		for (final ColaCircular<Trozo> cola : colas) {
+			suma += cola.getOcupacionMedia();
+		}
+
+		return suma / colas.length;
+	}
+
+	/**
+	 * Lee de un flujo hasta llenar un array, o hasta que el flujo termine.
+	 *
+	 * @param flujo          El flujo del que leer.
+	 * @param array          El array a llenar.
+	 * @param desplazamiento La posición del array a partir de la cual leer.
+	 * @return El número de bytes leídos, que solo es menor que los que quedaban
+	 *         por llenar en el array si el flujo ha terminado.
+	 * @throws IOException Si ocurre un error de E/S, o se interrumpe el hilo.
+	 */
+	private static int leerCompletamente(final InputStream flujo, final byte[] array, final int desplazamiento) throws IOException {
+		int posicion = desplazamiento;
+		while (posicion < array.length) {
+			final EventosJfr.EntradaSalida evento = EventosJfr.EntradaSalida.iniciar();
+			final int leidos = flujo.read(array, posicion, array.length - posicion);
+			evento.terminarLectura(leidos);
+
+			if (leidos == -1) {
+				break;
+			}
+
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedIOException();
+			}
+
+			posicion += leidos;
+		}
+
+		return posicion - desplazamiento;
+	}
+
+	/**
+	 * Un trozo de la entrada, junto con su transformación, cuyos búferes se
+	 * reutilizan para los siguientes trozos.
+	 */
+	private static final class Trozo {
+		private final byte[] entrada;
+		private final byte[] salida;
+		private long posicion;
+		private int longitudEntrada;
+		private int longitudSalida;
+		private boolean esFinal;
+
+		private Trozo(final int bytesEntrada, final int bytesSalida) {
+			this.entrada = new byte[bytesEntrada];
+			this.salida = new byte[bytesSalida];
+		}
+	}
+}
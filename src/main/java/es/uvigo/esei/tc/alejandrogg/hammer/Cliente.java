@@ -0,0 +1,193 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Cliente de un {@link Servidor}, que le pide codificar o decodificar datos
+ * con el {@link ProtocoloServidor}. Las peticiones se hacen una tras otra por
+ * la misma conexión.
+ * <p>
+ * Para que el servidor pueda enviar los datos procesados mientras los recibe,
+ * sin que los búferes de la conexión se llenen en ambos sentidos, los datos de
+ * cada petición se envían desde otro hilo. Las instancias de esta clase no son
+ * seguras para su uso concurrente.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class Cliente implements Closeable {
+	private final SocketChannel conexion;
+	private final DataInputStream entrada;
+	private final DataOutputStream salida;
+
+	/**
+	 * Conecta con un servidor.
+	 *
+	 * @param direccion La dirección en la que escucha el servidor.
+	 * @throws IOException              Si ocurre un error de E/S al conectar.
+	 * @throws IllegalArgumentException Si la dirección es nula.
+	 */
+	Cliente(final String direccion) throws IOException {
+		if (direccion == null) {
+			throw new IllegalArgumentException("La dirección del servidor no puede ser nula");
+		}
+
+		this.conexion = ConexionesLocales.conectar(direccion);
+		this.entrada = new DataInputStream(
+			new BufferedInputStream(ProtocoloServidor.flujoEntrada(conexion), ProtocoloServidor.TAMANO_TRAMA)
+		);
+		this.salida = new DataOutputStream(
+			new BufferedOutputStream(ProtocoloServidor.flujoSalida(conexion), ProtocoloServidor.TAMANO_TRAMA)
+		);
+	}
+
+	/**
+	 * Pide al servidor que codifique o decodifique un flujo.
+	 *
+	 * @param operacion    La operación a pedir,
+	 *                     {@link ProtocoloServidor#OPERACION_CODIFICAR} o
+	 *                     {@link ProtocoloServidor#OPERACION_DECODIFICAR}.
+	 * @param nombreCodigo El nombre del código a usar, o {@code null} para usar el
+	 *                     código Hamming ampliado (3, 2).
+	 * @param origen       El flujo con los datos a procesar, que se lee hasta su
+	 *                     final.
+	 * @param destino      El flujo donde escribir los datos procesados.
+	 * @return Las estadísticas de la petición que ha enviado el servidor.
+	 * @throws IOException Si ocurre un error de E/S, o el servidor responde con
+	 *                     un error, cuyo mensaje es el de la excepción.
+	 */
+	ProtocoloServidor.Resumen procesar(
+		final byte operacion, final String nombreCodigo, final InputStream origen, final OutputStream destino
+	) throws IOException {
+		salida.writeByte(operacion);
+		salida.writeUTF(nombreCodigo != null ? nombreCodigo : "");
+
+		final IOException[] errorEnvio = new IOException[1];
+		final Thread envio = new Thread(() -> {
+			try {
+				final ProtocoloServidor.FlujoSalidaTramas datos = new ProtocoloServidor.FlujoSalidaTramas(salida, -1);
+				final byte[] buffer = new byte[ProtocoloServidor.TAMANO_TRAMA];
+
+				int leidos;
+				while ((leidos = origen.read(buffer)) >= 0) {
+					datos.write(buffer, 0, leidos);
+				}
+
+				salida.writeInt(0);
+				salida.flush();
+			} catch (final IOException exc) {
+				errorEnvio[0] = exc;
+
+				// El servidor no va a recibir el final de los datos, así que se cierra
+				// la conexión para no esperar su respuesta indefinidamente
+				cerrarSilenciosamente();
+			}
+		}, "hammer-envio");
+		envio.setDaemon(true);
+		envio.start();
+
+		ProtocoloServidor.Resumen resumen = null;
+		IOException errorRecepcion = null;
+		try {
+			resumen = recibir(destino);
+		} catch (final RespuestaErroneaException exc) {
+			// El servidor ha leído todos los datos antes de responder, así que la
+			// conexión se puede seguir usando
+			errorRecepcion = exc;
+		} catch (final IOException exc) {
+			// La conexión queda en un estado indefinido, y cerrarla desbloquea el envío
+			errorRecepcion = exc;
+			cerrarSilenciosamente();
+		}
+
+		try {
+			envio.join();
+		} catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			cerrarSilenciosamente();
+			throw new InterruptedIOException();
+		}
+
+		if (errorEnvio[0] != null) {
+			throw errorEnvio[0];
+		}
+
+		if (errorRecepcion != null) {
+			throw errorRecepcion;
+		}
+
+		return resumen;
+	}
+
+	@Override
+	public void close() throws IOException {
+		conexion.close();
+	}
+
+	/**
+	 * Recibe la respuesta a una petición.
+	 *
+	 * @param destino El flujo donde escribir los datos procesados.
+	 * @return Las estadísticas de la petición.
+	 * @throws IOException Si ocurre un error de E/S, o el servidor responde con
+	 *                     un error.
+	 */
+	private ProtocoloServidor.Resumen recibir(final OutputStream destino) throws IOException {
+		final byte[] buffer = new byte[ProtocoloServidor.TAMANO_TRAMA];
+
+		while (true) {
+			final byte tipoMensaje = entrada.readByte();
+
+			switch (tipoMensaje) {
+				case ProtocoloServidor.MENSAJE_DATOS:
+					int restantes = entrada.readInt();
+					if (restantes < 0) {
+						throw new IOException("La longitud de la trama no es válida");
+					}
+
+					while (restantes > 0) {
+						final int leidos = Math.min(restantes, buffer.length);
+						entrada.readFully(buffer, 0, leidos);
+						destino.write(buffer, 0, leidos);
+						restantes -= leidos;
+					}
+					break;
+				case ProtocoloServidor.MENSAJE_RESUMEN:
+					return ProtocoloServidor.Resumen.leer(entrada);
+				case ProtocoloServidor.MENSAJE_ERROR:
+					throw new RespuestaErroneaException(entrada.readUTF());
+				default:
+					throw new IOException("El tipo del mensaje recibido no es válido");
+			}
+		}
+	}
+
+	private void cerrarSilenciosamente() {
+		try {
+			close();
+		} catch (final IOException ignorada) {}
+	}
+
+	/**
+	 * Excepción que indica que el servidor ha respondido a una petición con un
+	 * error.
+	 */
+	private static final class RespuestaErroneaException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		private RespuestaErroneaException(final String mensaje) {
+			super("El servidor ha respondido con un error: " + mensaje);
+		}
+	}
+}
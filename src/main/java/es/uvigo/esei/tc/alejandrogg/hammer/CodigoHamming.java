@@ -0,0 +1,605 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.EscritorBits;
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.LectorBits;
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.MatrizZ2;
+
+/**
+ * Representa un código lineal sistemático 1-corrector definido por su matriz
+ * control de paridad, como los códigos Hamming (2<sup>r</sup> - 1,
+ * 2<sup>r</sup> - 1 - r) y sus versiones ampliadas, que además son
+ * 2-detectoras.
+ * <p>
+ * A partir de la matriz control de paridad se obtienen, al construir el código,
+ * su matriz generadora sistemática y la tabla de síndromes, donde el
+ * representante de cada síndrome es un error de un bit, si existe, o se
+ * considera que hay errores que no se pueden corregir en otro caso. Estas
+ * matrices se compilan a tablas de consulta indexadas por cada byte de las
+ * palabras, de manera que calcular los bits de paridad o el síndrome de una
+ * palabra se reduce a combinar, mediante XOR, una entrada de tabla por byte.
+ * </p>
+ * <p>
+ * Si las palabras fuente o código no ocupan un número entero de bytes, se
+ * empaquetan de manera consecutiva, sin dejar bits sin usar. A diferencia de
+ * {@link HammingAmpliado3_2}, cuando una palabra código no se puede corregir,
+ * sus bits fuente se decodifican tal y como se recibieron, pues descartarlos
+ * desplazaría el resto de bits del flujo.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+class CodigoHamming extends CodigoLineal {
+	/**
+	 * El prefijo del nombre de los códigos Hamming.
+	 */
+	static final String NOMBRE_HAMMING = "hamming";
+	/**
+	 * El prefijo del nombre de los códigos Hamming ampliados.
+	 */
+	static final String NOMBRE_HAMMING_AMPLIADO = "hamming-ampliado";
+	/**
+	 * El nombre de los códigos definidos por una matriz control de paridad
+	 * arbitraria.
+	 */
+	static final String NOMBRE_MATRIZ_CONTROL = "matriz-control";
+
+	/**
+	 * El número de bits de redundancia mínimo de un código Hamming.
+	 */
+	static final int REDUNDANCIA_MINIMA = 2;
+	/**
+	 * El número de bits de redundancia máximo de un código Hamming.
+	 */
+	static final int REDUNDANCIA_MAXIMA = 8;
+
+	/**
+	 * El número máximo de bits de control (filas de la matriz control de paridad),
+	 * que limita el tamaño de la tabla de síndromes.
+	 */
+	private static final int BITS_CONTROL_MAXIMOS = 16;
+	/**
+	 * La dimensión máxima de un código, que garantiza que el número de bytes
+	 * válidos del bloque final de un flujo quepa en un byte.
+	 */
+	private static final int DIMENSION_MAXIMA = 255;
+
+	private final String nombre;
+	private final int longitud;
+	private final int dimension;
+	private final int bitsControl;
+	private final MatrizZ2 matrizGeneradora;
+	private final MatrizZ2 matrizControl;
+
+	private final int bytesPalabraFuente;
+	private final int bytesPalabraCodigo;
+	private final int palabrasBloque;
+	private final int bytesBloqueFuente;
+	private final int bytesBloqueCodigo;
+
+	/**
+	 * Los bits de paridad aportados por cada valor de cada byte de una palabra
+	 * fuente, indexados por la posición del byte y su valor.
+	 */
+	private final int[][] tablaParidad;
+	/**
+	 * El síndrome aportado por cada valor de cada byte de una palabra código,
+	 * indexado por la posición del byte y su valor.
+	 */
+	private final int[][] tablaSindrome;
+	/**
+	 * El resultado de decodificar cada síndrome: en los dos bits de menor peso, el
+	 * estado de decodificación; en el resto, la posición del bit erróneo, si el
+	 * estado es {@link #ESTADO_CORREGIDA}.
+	 */
+	private final int[] tablaCorreccion;
+
+	/**
+	 * Crea un código Hamming, o un código Hamming ampliado.
+	 *
+	 * @param redundancia El número de bits de redundancia r del código Hamming.
+	 * @param ampliado    Si es verdadero, se crea el código ampliado con un bit de
+	 *                    paridad global adicional.
+	 * @throws IllegalArgumentException Si el número de bits de redundancia no está
+	 *                                  en el intervalo [{@link #REDUNDANCIA_MINIMA},
+	 *                                  {@link #REDUNDANCIA_MAXIMA}].
+	 */
+	CodigoHamming(final int redundancia, final boolean ampliado) {
+		this(
+			(ampliado ? NOMBRE_HAMMING_AMPLIADO : NOMBRE_HAMMING) + ":" + redundancia,
+			matrizControlHamming(redundancia, ampliado)
+		);
+	}
+
+	/**
+	 * Crea un código a partir de su matriz control de paridad.
+	 *
+	 * @param nombre        El nombre del código.
+	 * @param matrizControl La matriz control de paridad del código, cuyas últimas
+	 *                      columnas deben de ser linealmente independientes.
+	 * @throws IllegalArgumentException Si la matriz es nula, es demasiado grande,
+	 *                                  no se puede llevar a forma sistemática
+	 *                                  mediante operaciones de filas, o tiene
+	 *                                  columnas nulas o repetidas, de manera que
+	 *                                  el código no puede corregir todos los
+	 *                                  errores de un bit.
+	 */
+	CodigoHamming(final String nombre, final MatrizZ2 matrizControl) {
+		if (matrizControl == null) {
+			throw new IllegalArgumentException("La matriz control de paridad no puede ser nula");
+		}
+
+		this.nombre = nombre;
+		this.longitud = matrizControl.getNumeroColumnas();
+		this.bitsControl = matrizControl.getNumeroFilas();
+		this.dimension = longitud - bitsControl;
+
+		if (bitsControl > BITS_CONTROL_MAXIMOS || dimension <= 0 || dimension > DIMENSION_MAXIMA) {
+			throw new IllegalArgumentException("La dimensión de la matriz control de paridad no es válida");
+		}
+
+		// H = [A | I], G = [I | A^T]
+		try {
+			this.matrizControl = matrizControl.formaSistematica(true);
+		} catch (final ArithmeticException exc) {
+			throw new IllegalArgumentException("Las últimas columnas de la matriz control de paridad no son linealmente independientes");
+		}
+		this.matrizGeneradora = MatrizZ2.identidad(dimension).concatenarColumnas(
+			this.matrizControl.getColumnas(0, dimension).traspuesta()
+		);
+
+		// Un bloque está formado por el menor número de palabras cuyos bits fuente y
+		// código ocupan un número entero de bytes
+		int palabras = 1;
+		while ((palabras * dimension) % 8 != 0 || (palabras * longitud) % 8 != 0) {
+			++palabras;
+		}
+
+		this.bytesPalabraFuente = (dimension + 7) / 8;
+		this.bytesPalabraCodigo = (longitud + 7) / 8;
+		this.palabrasBloque = palabras;
+		this.bytesBloqueFuente = palabras * dimension / 8;
+		this.bytesBloqueCodigo = palabras * longitud / 8;
+
+		// Interpretar cada columna de H como un número binario, cuyo bit de mayor
+		// peso es el de la primera fila
+		final int[] columnas = new int[longitud];
+		for (int j = 0; j < longitud; ++j) {
+			for (int i = 0; i < bitsControl; ++i) {
+				columnas[j] = columnas[j] << 1 | this.matrizControl.getElemento(i, j);
+			}
+		}
+
+		this.tablaParidad = compilarTabla(columnas, dimension);
+		this.tablaSindrome = compilarTabla(columnas, longitud);
+
+		this.tablaCorreccion = new int[1 << bitsControl];
+		for (int sindrome = 1; sindrome < tablaCorreccion.length; ++sindrome) {
+			tablaCorreccion[sindrome] = ESTADO_INCORREGIBLE;
+		}
+
+		for (int j = 0; j < longitud; ++j) {
+			if (columnas[j] == 0 || tablaCorreccion[columnas[j]] != ESTADO_INCORREGIBLE) {
+				throw new IllegalArgumentException("La matriz control de paridad tiene columnas nulas o repetidas");
+			}
+
+			tablaCorreccion[columnas[j]] = ESTADO_CORREGIDA | j << 2;
+		}
+	}
+
+	/**
+	 * Crea un código Hamming (2<sup>r</sup> - 1, 2<sup>r</sup> - 1 - r).
+	 *
+	 * @param redundancia El número de bits de redundancia r.
+	 * @return El devandicho código.
+	 * @throws IllegalArgumentException Si el número de bits de redundancia no está
+	 *                                  en el intervalo [{@link #REDUNDANCIA_MINIMA},
+	 *                                  {@link #REDUNDANCIA_MAXIMA}].
+	 */
+	static CodigoHamming hamming(final int redundancia) {
+		return new CodigoHamming(redundancia, false);
+	}
+
+	/**
+	 * Crea un código Hamming ampliado (2<sup>r</sup>, 2<sup>r</sup> - 1 - r), que
+	 * añade un bit de paridad global al código Hamming correspondiente.
+	 *
+	 * @param redundancia El número de bits de redundancia r del código Hamming.
+	 * @return El devandicho código.
+	 * @throws IllegalArgumentException Si el número de bits de redundancia no está
+	 *                                  en el intervalo [{@link #REDUNDANCIA_MINIMA},
+	 *                                  {@link #REDUNDANCIA_MAXIMA}].
+	 */
+	static CodigoHamming ampliado(final int redundancia) {
+		return new CodigoHamming(redundancia, true);
+	}
+
+	/**
+	 * Crea un código a partir de una matriz control de paridad arbitraria.
+	 *
+	 * @param matrizControl La matriz control de paridad.
+	 * @return El devandicho código.
+	 * @throws IllegalArgumentException Si la matriz no define un código
+	 *                                  1-corrector válido.
+	 * @see #CodigoHamming(String, MatrizZ2)
+	 */
+	static CodigoHamming desdeMatrizControl(final MatrizZ2 matrizControl) {
+		return new CodigoHamming(NOMBRE_MATRIZ_CONTROL, matrizControl);
+	}
+
+	/**
+	 * Lee una matriz control de paridad de un fichero de texto. Cada línea no
+	 * vacía del fichero contiene una fila de la matriz, formada por ceros y unos,
+	 * que pueden estar separados por espacios. Se ignora el texto que siga a un
+	 * carácter {@code #}.
+	 *
+	 * @param fichero La ruta del fichero.
+	 * @return La matriz leída.
+	 * @throws IOException              Si ocurre un error de E/S.
+	 * @throws IllegalArgumentException Si el contenido del fichero no es una
+	 *                                  matriz válida.
+	 */
+	static MatrizZ2 leerMatrizControl(final Path fichero) throws IOException {
+		final List<byte[]> filas = new ArrayList<>();
+
+		for (String linea : Files.readAllLines(fichero, StandardCharsets.UTF_8)) {
+			final int comentario = linea.indexOf('#');
+			if (comentario >= 0) {
+				linea = linea.substring(0, comentario);
+			}
+
+			linea = linea.replaceAll("\\s", "");
+			if (!linea.isEmpty()) {
+				final byte[] fila = new byte[linea.length()];
+
+				for (int j = 0; j < fila.length; ++j) {
+					final char elemento = linea.charAt(j);
+
+					if (elemento != '0' && elemento != '1') {
+						throw new IllegalArgumentException("La matriz control de paridad solo puede contener ceros y unos");
+					}
+
+					fila[j] = (byte) (elemento - '0');
+				}
+
+				filas.add(fila);
+			}
+		}
+
+		return new MatrizZ2(filas.toArray(new byte[0][]));
+	}
+
+	/**
+	 * Construye la matriz control de paridad sistemática de un código Hamming, o
+	 * de un código Hamming ampliado. Las columnas correspondientes a los bits
+	 * fuente son los vectores de r bits con dos o más bits a 1, en orden
+	 * creciente; en el código ampliado, se les añade un bit que hace impar su
+	 * peso.
+	 *
+	 * @param redundancia El número de bits de redundancia r del código Hamming.
+	 * @param ampliado    Si es verdadero, se construye la matriz del código
+	 *                    ampliado.
+	 * @return La devandicha matriz.
+	 * @throws IllegalArgumentException Si el número de bits de redundancia no es
+	 *                                  válido.
+	 */
+	private static MatrizZ2 matrizControlHamming(final int redundancia, final boolean ampliado) {
+		if (redundancia < REDUNDANCIA_MINIMA || redundancia > REDUNDANCIA_MAXIMA) {
+			throw new IllegalArgumentException("El número de bits de redundancia del código Hamming no es válido");
+		}
+
+		final int longitud = (1 << redundancia) - 1;
+		final int dimension = longitud - redundancia;
+		final int filas = ampliado ? redundancia + 1 : redundancia;
+		final MatrizZ2 h = MatrizZ2.ceros(filas, ampliado ? longitud + 1 : longitud);
+
+		int columna = 0;
+		for (int vector = 1; vector <= longitud; ++vector) {
+			if (Integer.bitCount(vector) >= 2) {
+				for (int i = 0; i < redundancia; ++i) {
+					h.setElemento(i, columna, vector >>> (redundancia - 1 - i) & 1);
+				}
+
+				if (ampliado) {
+					h.setElemento(redundancia, columna, ~Integer.bitCount(vector) & 1);
+				}
+
+				++columna;
+			}
+		}
+
+		for (int i = 0; i < filas; ++i) {
+			h.setElemento(i, dimension + i, 1);
+		}
+
+		return h;
+	}
+
+	/**
+	 * Compila una tabla que asocia a cada valor de cada byte de una palabra la
+	 * suma de las columnas de la matriz control de paridad correspondientes a sus
+	 * bits a 1.
+	 *
+	 * @param columnas Las columnas de la matriz control de paridad.
+	 * @param bits     El número de bits de la palabra.
+	 * @return La tabla, indexada por la posición del byte y su valor.
+	 */
+	private static int[][] compilarTabla(final int[] columnas, final int bits) {
+		final int[][] tabla = new int[(bits + 7) / 8][256];
+
+		for (int b = 0; b < tabla.length; ++b) {
+			for (int valor = 0; valor < 256; ++valor) {
+				for (int t = 0; t < 8 && 8 * b + t < bits; ++t) {
+					if ((valor & 0x80 >>> t) != 0) {
+						tabla[b][valor] ^= columnas[8 * b + t];
+					}
+				}
+			}
+		}
+
+		return tabla;
+	}
+
+	@Override
+	public String getNombre() {
+		return nombre;
+	}
+
+	@Override
+	public int getLongitud() {
+		return longitud;
+	}
+
+	@Override
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * La matriz devuelta no debe de modificarse.
+	 * </p>
+	 */
+	@Override
+	public MatrizZ2 getMatrizGeneradora() {
+		return matrizGeneradora;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * La matriz devuelta no debe de modificarse.
+	 * </p>
+	 */
+	@Override
+	public MatrizZ2 getMatrizControl() {
+		return matrizControl;
+	}
+
+	@Override
+	public int getBytesBloqueFuente() {
+		return bytesBloqueFuente;
+	}
+
+	@Override
+	public int getBytesBloqueCodigo() {
+		return bytesBloqueCodigo;
+	}
+
+	@Override
+	public void codificarPalabra(final byte[] fuente, final byte[] palabra) {
+		int paridad = 0;
+		for (int b = 0; b < bytesPalabraFuente; ++b) {
+			paridad ^= tablaParidad[b][fuente[b] & 0xFF];
+		}
+
+		// Copiar los bits fuente, y a continuación añadir los bits de paridad
+		System.arraycopy(fuente, 0, palabra, 0, bytesPalabraFuente);
+		for (int b = bytesPalabraFuente; b < bytesPalabraCodigo; ++b) {
+			palabra[b] = 0;
+		}
+
+		if ((dimension & 7) != 0) {
+			palabra[bytesPalabraFuente - 1] &= 0xFF << (8 - (dimension & 7));
+		}
+
+		for (int j = 0; j < bitsControl; ++j) {
+			if ((paridad >>> (bitsControl - 1 - j) & 1) != 0) {
+				final int posicion = dimension + j;
+				palabra[posicion >>> 3] |= 0x80 >>> (posicion & 7);
+			}
+		}
+	}
+
+	@Override
+	public int decodificarPalabra(final byte[] palabra, final byte[] fuente) {
+		return decodificarPalabra(palabra, calcularSindrome(palabra), fuente);
+	}
+
+	@Override
+	public int getPosicionError(final int sindrome) {
+		if (sindrome <= 0 || sindrome >= tablaCorreccion.length) {
+			return -1;
+		}
+
+		final int correccion = tablaCorreccion[sindrome];
+
+		return (correccion & 0x3) == ESTADO_CORREGIDA ? correccion >>> 2 : -1;
+	}
+
+	/**
+	 * Calcula el síndrome de una palabra código recibida.
+	 *
+	 * @param palabra La palabra código recibida.
+	 * @return El síndrome, interpretado como un número binario.
+	 */
+	private int calcularSindrome(final byte[] palabra) {
+		int sindrome = 0;
+		for (int b = 0; b < bytesPalabraCodigo; ++b) {
+			sindrome ^= tablaSindrome[b][palabra[b] & 0xFF];
+		}
+
+		return sindrome;
+	}
+
+	/**
+	 * Decodifica una palabra código recibida cuyo síndrome ya se ha calculado.
+	 *
+	 * @see #decodificarPalabra(byte[], byte[])
+	 */
+	private int decodificarPalabra(final byte[] palabra, final int sindrome, final byte[] fuente) {
+		final int correccion = tablaCorreccion[sindrome];
+		final int estado = correccion & 0x3;
+
+		// Se trata de un código sistemático, donde los primeros bits son la palabra fuente
+		System.arraycopy(palabra, 0, fuente, 0, bytesPalabraFuente);
+		if ((dimension & 7) != 0) {
+			fuente[bytesPalabraFuente - 1] &= 0xFF << (8 - (dimension & 7));
+		}
+
+		// Corregir el bit erróneo, si es un bit fuente
+		final int posicion = correccion >>> 2;
+		if (estado == ESTADO_CORREGIDA && posicion < dimension) {
+			fuente[posicion >>> 3] ^= 0x80 >>> (posicion & 7);
+		}
+
+		return estado;
+	}
+
+	@Override
+	public int codificar(
+		final byte[] origen, final int desplazamiento, final int longitud,
+		final byte[] destino, final int desplazamientoDestino
+	) {
+		final int bloques = longitud / bytesBloqueFuente;
+
+		comprobarIntervalo(origen, desplazamiento, longitud);
+		comprobarIntervalo(destino, desplazamientoDestino, bloques * bytesBloqueCodigo);
+
+		final LectorBits lector = new LectorBits(origen, desplazamiento);
+		final EscritorBits escritor = new EscritorBits(destino, desplazamientoDestino);
+		final byte[] fuente = new byte[bytesPalabraFuente];
+		final byte[] palabra = new byte[bytesPalabraCodigo];
+
+		for (int i = 0; i < bloques * palabrasBloque; ++i) {
+			lector.leer(fuente, dimension);
+			codificarPalabra(fuente, palabra);
+			escritor.escribir(palabra, this.longitud);
+		}
+
+		return bloques * bytesBloqueCodigo;
+	}
+
+	@Override
+	public int codificarFinal(
+		final byte[] origen, final int desplazamiento, final int longitud,
+		final byte[] destino, final int desplazamientoDestino
+	) {
+		if (longitud >= bytesBloqueFuente) {
+			throw new IllegalArgumentException("La longitud del final del flujo debe de ser menor que la de un bloque");
+		}
+
+		comprobarIntervalo(origen, desplazamiento, longitud);
+
+		if (getBytesRetenidosDecodificacion() == 0) {
+			return 0;
+		}
+
+		// Bloque final: bytes restantes, relleno de ceros y número de bytes válidos
+		final byte[] bloqueFinal = new byte[bytesBloqueFuente];
+		System.arraycopy(origen, desplazamiento, bloqueFinal, 0, longitud);
+		bloqueFinal[bytesBloqueFuente - 1] = (byte) longitud;
+
+		return codificar(bloqueFinal, 0, bytesBloqueFuente, destino, desplazamientoDestino);
+	}
+
+	@Override
+	public int decodificar(
+		final byte[] origen, final int desplazamiento, final int longitud,
+		final byte[] destino, final int desplazamientoDestino,
+		final EstadisticasDecodificacion estadisticas
+	) {
+		final int bloques = longitud / bytesBloqueCodigo;
+
+		comprobarIntervalo(origen, desplazamiento, longitud);
+		comprobarIntervalo(destino, desplazamientoDestino, bloques * bytesBloqueFuente);
+		comprobarEstadisticas(estadisticas);
+
+		final LectorBits lector = new LectorBits(origen, desplazamiento);
+		final EscritorBits escritor = new EscritorBits(destino, desplazamientoDestino);
+		final byte[] palabra = new byte[bytesPalabraCodigo];
+		final byte[] fuente = new byte[bytesPalabraFuente];
+
+		for (int i = 0; i < bloques * palabrasBloque; ++i) {
+			lector.leer(palabra, this.longitud);
+
+			final int sindrome = calcularSindrome(palabra);
+			final int estado = decodificarPalabra(palabra, sindrome, fuente);
+			estadisticas.registrarPalabra(estado, sindrome);
+
+			// Los bits fuente de las palabras incorregibles se conservan tal y como
+			// se recibieron, pero se marcan como borrados los bytes que los contienen
+			if (estado == ESTADO_INCORREGIBLE && estadisticas.conservaBorrados()) {
+				final long primerBit = (long) desplazamientoDestino * 8 + (long) i * dimension;
+				final long primerByte = primerBit >>> 3;
+
+				estadisticas.registrarBorrado(primerByte, ((primerBit + dimension - 1) >>> 3) - primerByte + 1);
+			}
+
+			escritor.escribir(fuente, dimension);
+		}
+
+		return bloques * bytesBloqueFuente;
+	}
+
+	@Override
+	public int decodificarFinal(
+		final byte[] origen, final int desplazamiento, final int longitud,
+		final byte[] destino, final int desplazamientoDestino,
+		final EstadisticasDecodificacion estadisticas
+	) {
+		final int bloques = longitud / bytesBloqueCodigo;
+
+		comprobarIntervalo(origen, desplazamiento, longitud);
+		comprobarEstadisticas(estadisticas);
+
+		// Sin bloque final, o con el bloque final truncado, no hay nada más que decodificar
+		if (getBytesRetenidosDecodificacion() == 0 || bloques == 0) {
+			return 0;
+		}
+
+		// Decodificar los bloques anteriores al final, si los hubiese, y después el final
+		final int anteriores = decodificar(
+			origen, desplazamiento, (bloques - 1) * bytesBloqueCodigo,
+			destino, desplazamientoDestino, estadisticas
+		);
+
+		// Los bytes borrados del bloque final se registran en las posiciones del
+		// destino donde se copia, y se descartan los que no son válidos
+		final byte[] bloqueFinal = new byte[bytesBloqueFuente];
+		final long desplazamientoBorrados = estadisticas.getDesplazamientoBorrados();
+		estadisticas.setDesplazamientoBorrados(desplazamientoBorrados + desplazamientoDestino + anteriores);
+		decodificar(
+			origen, desplazamiento + (bloques - 1) * bytesBloqueCodigo, bytesBloqueCodigo,
+			bloqueFinal, 0, estadisticas
+		);
+
+		final int validos = Math.min(bloqueFinal[bytesBloqueFuente - 1] & 0xFF, bytesBloqueFuente - 1);
+		estadisticas.recortarBorrados(validos);
+		estadisticas.setDesplazamientoBorrados(desplazamientoBorrados);
+
+		comprobarIntervalo(destino, desplazamientoDestino + anteriores, validos);
+		System.arraycopy(bloqueFinal, 0, destino, desplazamientoDestino + anteriores, validos);
+
+		return anteriores + validos;
+	}
+}
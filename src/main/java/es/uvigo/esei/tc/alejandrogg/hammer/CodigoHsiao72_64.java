@@ -0,0 +1,498 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.MatrizZ2;
+
+/**
+ * Representa el código Hsiao (72, 64), un código lineal sistemático
+ * 1-corrector y 2-detector que protege cada palabra de 64 bits con 8 bits de
+ * paridad, de manera que la redundancia es del 12,5 %, frente al 100 % del
+ * código Hamming ampliado (3, 2).
+ * <p>
+ * Las columnas de su matriz control de paridad correspondientes a los bits
+ * fuente son los 56 vectores de 8 bits de peso 3 y 8 de peso 5, elegidos para
+ * que todas las filas tengan el mismo peso. Como todas las columnas tienen peso
+ * impar, el síndrome de un error de un bit tiene peso impar, y el de un error de
+ * dos bits, peso par y distinto de cero, de manera que se distinguen sin
+ * necesidad de un bit de paridad global.
+ * </p>
+ * <p>
+ * Cada palabra código ocupa 9 bytes: los 8 bytes fuente, tal y como se
+ * recibieron, seguidos del byte de paridad. Su codificación y decodificación
+ * masiva leen cada palabra fuente como un {@code long}, y calculan cada bit de
+ * paridad como la paridad del número de bits a 1 de su intersección con una
+ * fila de la matriz.
+ * </p>
+ * <p>
+ * Como las palabras código ocupan un número entero de bytes, el final de un
+ * flujo no necesita una palabra adicional que indique cuántos bytes son
+ * válidos: los k &lt; 8 bytes fuente que no completan una palabra se codifican
+ * en una palabra acortada de k + 1 bytes, los k bytes fuente seguidos del byte
+ * de paridad de la palabra fuente rellenada con ceros, y al decodificar, k se
+ * deduce del resto de dividir la longitud del flujo entre 9. Así, un flujo de
+ * 8N bytes ocupa exactamente 9N bytes una vez codificado.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class CodigoHsiao72_64 extends CodigoHamming {
+	/**
+	 * El nombre del código.
+	 */
+	static final String NOMBRE_HSIAO = "hsiao";
+
+	/**
+	 * El número de bits de paridad de cada palabra código.
+	 */
+	private static final int BITS_PARIDAD = 8;
+	/**
+	 * El número de bits fuente de cada palabra código.
+	 */
+	private static final int BITS_FUENTE = 64;
+	/**
+	 * El número de bytes fuente de cada palabra código.
+	 */
+	private static final int BYTES_FUENTE = BITS_FUENTE / 8;
+	/**
+	 * El número de bytes de cada palabra código.
+	 */
+	private static final int BYTES_CODIGO = BYTES_FUENTE + 1;
+
+	/**
+	 * Las columnas de la matriz control de paridad correspondientes a los bits
+	 * fuente, interpretadas como números binarios cuyo bit de mayor peso es el de
+	 * la primera fila.
+	 */
+	private static final int[] COLUMNAS = columnas();
+	/**
+	 * Las filas de la matriz control de paridad restringidas a los bits fuente,
+	 * como máscaras de una palabra fuente leída en orden de bytes big-endian: el
+	 * bit fuente j corresponde al bit de peso 63 - j.
+	 */
+	private static final long[] MASCARAS = mascaras();
+	/**
+	 * El resultado de decodificar cada síndrome, con el mismo formato que la
+	 * tabla de corrección de {@link CodigoHamming}: en los dos bits de menor peso,
+	 * el estado de decodificación; en el resto, la posición del bit erróneo.
+	 */
+	private static final int[] TABLA_CORRECCION = tablaCorreccion();
+
+	/**
+	 * Crea el código Hsiao (72, 64).
+	 */
+	CodigoHsiao72_64() {
+		super(NOMBRE_HSIAO, matrizControl());
+	}
+
+	/**
+	 * Calcula las columnas de la matriz control de paridad correspondientes a los
+	 * bits fuente: los vectores de peso 3, en orden creciente, y después los
+	 * complementos de los vectores con tres bits a 1 consecutivos, rotados, que
+	 * tienen peso 5. Así, cada fila tiene 21 + 5 = 26 bits a 1.
+	 *
+	 * @return Las devandichas columnas.
+	 */
+	private static int[] columnas() {
+		final int[] columnas = new int[BITS_FUENTE];
+
+		int j = 0;
+		for (int vector = 0; vector < 1 << BITS_PARIDAD; ++vector) {
+			if (Integer.bitCount(vector) == 3) {
+				columnas[j++] = vector;
+			}
+		}
+
+		for (int rotacion = 0; rotacion < BITS_PARIDAD; ++rotacion) {
+			final int consecutivos = (0x7 << rotacion | 0x7 >>> (BITS_PARIDAD - rotacion)) & 0xFF;
+			columnas[j++] = ~consecutivos & 0xFF;
+		}
+
+		return columnas;
+	}
+
+	/**
+	 * Calcula las máscaras de bits fuente de cada fila de la matriz control de
+	 * paridad.
+	 *
+	 * @return Las devandichas máscaras.
+	 */
+	private static long[] mascaras() {
+		final long[] mascaras = new long[BITS_PARIDAD];
+
+		for (int i = 0; i < BITS_PARIDAD; ++i) {
+			for (int j = 0; j < BITS_FUENTE; ++j) {
+				if ((COLUMNAS[j] >>> (BITS_PARIDAD - 1 - i) & 1) != 0) {
+					mascaras[i] |= 1L << (BITS_FUENTE - 1 - j);
+				}
+			}
+		}
+
+		return mascaras;
+	}
+
+	/**
+	 * Construye la tabla de corrección de los síndromes: los de las columnas de la
+	 * matriz control de paridad corresponden a errores de un bit, y el resto de
+	 * síndromes distintos de cero, a errores que no se pueden corregir.
+	 *
+	 * @return La devandicha tabla.
+	 */
+	private static int[] tablaCorreccion() {
+		final int[] tabla = new int[1 << BITS_PARIDAD];
+
+		for (int sindrome = 1; sindrome < tabla.length; ++sindrome) {
+			tabla[sindrome] = ESTADO_INCORREGIBLE;
+		}
+
+		for (int j = 0; j < BITS_FUENTE; ++j) {
+			tabla[COLUMNAS[j]] = ESTADO_CORREGIDA | j << 2;
+		}
+
+		for (int i = 0; i < BITS_PARIDAD; ++i) {
+			tabla[1 << (BITS_PARIDAD - 1 - i)] = ESTADO_CORREGIDA | (BITS_FUENTE + i) << 2;
+		}
+
+		return tabla;
+	}
+
+	/**
+	 * Construye la matriz control de paridad sistemática del código, H = [A | I].
+	 *
+	 * @return La devandicha matriz.
+	 */
+	private static MatrizZ2 matrizControl() {
+		final MatrizZ2 h = MatrizZ2.ceros(BITS_PARIDAD, BITS_FUENTE + BITS_PARIDAD);
+
+		for (int i = 0; i < BITS_PARIDAD; ++i) {
+			for (int j = 0; j < BITS_FUENTE; ++j) {
+				h.setElemento(i, j, COLUMNAS[j] >>> (BITS_PARIDAD - 1 - i) & 1);
+			}
+
+			h.setElemento(i, BITS_FUENTE + i, 1);
+		}
+
+		return h;
+	}
+
+	/**
+	 * Calcula los bits de paridad de una palabra fuente.
+	 *
+	 * @param fuente La palabra fuente, leída en orden de bytes big-endian.
+	 * @return El byte de paridad, cuyo bit de mayor peso es el de la primera fila
+	 *         de la matriz control de paridad.
+	 */
+	private static int paridad(final long fuente) {
+		int paridad = 0;
+		for (int i = 0; i < BITS_PARIDAD; ++i) {
+			paridad = paridad << 1 | Long.bitCount(fuente & MASCARAS[i]) & 1;
+		}
+
+		return paridad;
+	}
+
+	@Override
+	public int codificar(
+		final byte[] origen, final int desplazamiento, final int longitud,
+		final byte[] destino, final int desplazamientoDestino
+	) {
+		final int palabras = longitud / BYTES_FUENTE;
+
+		comprobarIntervalo(origen, desplazamiento, longitud);
+		comprobarIntervalo(destino, desplazamientoDestino, palabras * BYTES_CODIGO);
+
+		codificar(envolver(origen), desplazamiento, palabras, envolver(destino), desplazamientoDestino);
+
+		return palabras * BYTES_CODIGO;
+	}
+
+	@Override
+	public int decodificar(
+		final byte[] origen, final int desplazamiento, final int longitud,
+		final byte[] destino, final int desplazamientoDestino,
+		final EstadisticasDecodificacion estadisticas
+	) {
+		final int palabras = longitud / BYTES_CODIGO;
+
+		comprobarIntervalo(origen, desplazamiento, longitud);
+		comprobarIntervalo(destino, desplazamientoDestino, palabras * BYTES_FUENTE);
+		comprobarEstadisticas(estadisticas);
+
+		decodificar(
+			envolver(origen), desplazamiento, palabras,
+			envolver(destino), desplazamientoDestino, estadisticas
+		);
+
+		return palabras * BYTES_FUENTE;
+	}
+
+	/**
+	 * Obtiene el número de bytes del final de un flujo codificado que deben de
+	 * decodificarse con {@link #decodificarFinal}: los de la palabra acortada más
+	 * larga, que no se distingue de una completa hasta llegar al final del flujo.
+	 *
+	 * @return El devandicho número de bytes.
+	 */
+	@Override
+	public int getBytesRetenidosDecodificacion() {
+		return BYTES_CODIGO - 1;
+	}
+
+	@Override
+	public long getLongitudCodificada(final long longitudFuente) {
+		final long resto = longitudFuente % BYTES_FUENTE;
+
+		return longitudFuente / BYTES_FUENTE * BYTES_CODIGO + (resto > 0 ? resto + 1 : 0);
+	}
+
+	@Override
+	public int codificarFinal(
+		final byte[] origen, final int desplazamiento, final int longitud,
+		final byte[] destino, final int desplazamientoDestino
+	) {
+		if (longitud >= BYTES_FUENTE) {
+			throw new IllegalArgumentException("La longitud del final del flujo debe de ser menor que la de un bloque");
+		}
+
+		comprobarIntervalo(origen, desplazamiento, longitud);
+
+		if (longitud == 0) {
+			return 0;
+		}
+
+		comprobarIntervalo(destino, desplazamientoDestino, longitud + 1);
+
+		// Palabra acortada: los bytes fuente, sin relleno, y la paridad de la palabra rellenada con ceros
+		System.arraycopy(origen, desplazamiento, destino, desplazamientoDestino, longitud);
+		destino[desplazamientoDestino + longitud] = (byte) paridad(leerAcortada(origen, desplazamiento, longitud));
+
+		return longitud + 1;
+	}
+
+	@Override
+	public int decodificarFinal(
+		final byte[] origen, final int desplazamiento, final int longitud,
+		final byte[] destino, final int desplazamientoDestino,
+		final EstadisticasDecodificacion estadisticas
+	) {
+		final int palabras = longitud / BYTES_CODIGO;
+		final int bytesFuente = longitud % BYTES_CODIGO - 1;
+
+		comprobarIntervalo(origen, desplazamiento, longitud);
+		comprobarEstadisticas(estadisticas);
+
+		final int anteriores = decodificar(
+			origen, desplazamiento, palabras * BYTES_CODIGO,
+			destino, desplazamientoDestino, estadisticas
+		);
+
+		// Sin palabra acortada, o con un único byte que no puede serlo, no hay nada más que decodificar
+		if (bytesFuente < 1) {
+			return anteriores;
+		}
+
+		final int posicionPalabra = desplazamiento + palabras * BYTES_CODIGO;
+		final int posicionFuente = desplazamientoDestino + anteriores;
+		comprobarIntervalo(destino, posicionFuente, bytesFuente);
+
+		long fuente = leerAcortada(origen, posicionPalabra, bytesFuente);
+		final int sindrome = paridad(fuente) ^ origen[posicionPalabra + bytesFuente] & 0xFF;
+		int estado = TABLA_CORRECCION[sindrome] & 0x3;
+		final int posicion = TABLA_CORRECCION[sindrome] >>> 2;
+
+		// Los bits del relleno no se transmiten, así que un error en ellos no es de un bit
+		if (estado == ESTADO_CORREGIDA && posicion < bytesFuente * 8) {
+			fuente ^= 1L << (BITS_FUENTE - 1 - posicion);
+		} else if (estado == ESTADO_CORREGIDA && posicion < BITS_FUENTE) {
+			estado = ESTADO_INCORREGIBLE;
+		}
+
+		if (estado == ESTADO_INCORREGIBLE && estadisticas.conservaBorrados()) {
+			estadisticas.registrarBorrado(posicionFuente, bytesFuente);
+		}
+		estadisticas.registrarPalabra(estado, sindrome);
+
+		for (int i = 0; i < bytesFuente; ++i) {
+			destino[posicionFuente + i] = (byte) (fuente >>> (BITS_FUENTE - 8 - i * 8));
+		}
+
+		return anteriores + bytesFuente;
+	}
+
+	/**
+	 * Lee los bytes fuente de una palabra acortada como una palabra fuente
+	 * completa rellenada con ceros.
+	 *
+	 * @param array          El array que contiene los bytes fuente.
+	 * @param desplazamiento La posición del primer byte fuente.
+	 * @param longitud       El número de bytes fuente, menor que 8.
+	 * @return La palabra fuente, en orden de bytes big-endian.
+	 */
+	private static long leerAcortada(final byte[] array, final int desplazamiento, final int longitud) {
+		long fuente = 0;
+		for (int i = 0; i < longitud; ++i) {
+			fuente |= (array[desplazamiento + i] & 0xFFL) << (BITS_FUENTE - 8 - i * 8);
+		}
+
+		return fuente;
+	}
+
+	/**
+	 * Codifica las palabras fuente completas restantes de un búfer a otro búfer,
+	 * tantas como quepan en el búfer de destino. Las posiciones de ambos búferes
+	 * avanzan de acuerdo a lo leído y escrito. Los búferes pueden ser directos o
+	 * no.
+	 *
+	 * @param origen  El búfer que contiene los bytes a codificar.
+	 * @param destino El búfer donde escribir las palabras código.
+	 * @return El número de bytes escritos en {@code destino}.
+	 * @throws IllegalArgumentException Si algún búfer es nulo.
+	 */
+	@Override
+	public int codificar(final ByteBuffer origen, final ByteBuffer destino) {
+		if (origen == null || destino == null) {
+			throw new IllegalArgumentException("Los búferes no pueden ser nulos");
+		}
+
+		final int palabras = Math.min(origen.remaining() / BYTES_FUENTE, destino.remaining() / BYTES_CODIGO);
+		final int posicionOrigen = origen.position();
+		final int posicionDestino = destino.position();
+
+		codificar(
+			origen.duplicate().order(ByteOrder.BIG_ENDIAN), posicionOrigen, palabras,
+			destino.duplicate().order(ByteOrder.BIG_ENDIAN), posicionDestino
+		);
+
+		// Conversión a Buffer por compatibilidad binaria con Java 8
+		((Buffer) origen).position(posicionOrigen + palabras * BYTES_FUENTE);
+		((Buffer) destino).position(posicionDestino + palabras * BYTES_CODIGO);
+
+		return palabras * BYTES_CODIGO;
+	}
+
+	/**
+	 * Decodifica las palabras código completas restantes de un búfer a otro
+	 * búfer, tantas como quepan en el búfer de destino. Las posiciones de ambos
+	 * búferes avanzan de acuerdo a lo leído y escrito. Los búferes pueden ser
+	 * directos o no.
+	 *
+	 * @param origen       El búfer que contiene las palabras código.
+	 * @param destino      El búfer donde escribir los bytes decodificados.
+	 * @param estadisticas Las estadísticas donde acumular el resultado de la
+	 *                     decodificación.
+	 * @return El número de bytes decodificados escritos en {@code destino}.
+	 * @throws IllegalArgumentException Si algún búfer o las estadísticas son
+	 *                                  nulos.
+	 */
+	@Override
+	public int decodificar(final ByteBuffer origen, final ByteBuffer destino, final EstadisticasDecodificacion estadisticas) {
+		if (origen == null || destino == null) {
+			throw new IllegalArgumentException("Los búferes no pueden ser nulos");
+		}
+
+		final int palabras = Math.min(origen.remaining() / BYTES_CODIGO, destino.remaining() / BYTES_FUENTE);
+		final int posicionOrigen = origen.position();
+		final int posicionDestino = destino.position();
+
+		comprobarEstadisticas(estadisticas);
+
+		decodificar(
+			origen.duplicate().order(ByteOrder.BIG_ENDIAN), posicionOrigen, palabras,
+			destino.duplicate().order(ByteOrder.BIG_ENDIAN), posicionDestino, estadisticas
+		);
+
+		// Conversión a Buffer por compatibilidad binaria con Java 8
+		((Buffer) origen).position(posicionOrigen + palabras * BYTES_CODIGO);
+		((Buffer) destino).position(posicionDestino + palabras * BYTES_FUENTE);
+
+		return palabras * BYTES_FUENTE;
+	}
+
+	/**
+	 * Codifica palabras fuente de un búfer a otro, mediante índices absolutos.
+	 *
+	 * @param origen          El búfer que contiene las palabras fuente, en orden
+	 *                        de bytes big-endian.
+	 * @param posicionOrigen  La posición de la primera palabra fuente.
+	 * @param palabras        El número de palabras a codificar.
+	 * @param destino         El búfer donde escribir las palabras código, en orden
+	 *                        de bytes big-endian.
+	 * @param posicionDestino La posición donde escribir la primera palabra código.
+	 */
+	private static void codificar(
+		final ByteBuffer origen, final int posicionOrigen, final int palabras,
+		final ByteBuffer destino, final int posicionDestino
+	) {
+		for (int i = 0; i < palabras; ++i) {
+			final long fuente = origen.getLong(posicionOrigen + i * BYTES_FUENTE);
+			final int posicionPalabra = posicionDestino + i * BYTES_CODIGO;
+
+			destino.putLong(posicionPalabra, fuente);
+			destino.put(posicionPalabra + BYTES_FUENTE, (byte) paridad(fuente));
+		}
+	}
+
+	/**
+	 * Decodifica palabras código de un búfer a otro, mediante índices absolutos,
+	 * corrigiendo errores de un bit. Los bits fuente de las palabras incorregibles
+	 * se conservan tal y como se recibieron, pero se registran como borrados.
+	 *
+	 * @param origen          El búfer que contiene las palabras código, en orden
+	 *                        de bytes big-endian.
+	 * @param posicionOrigen  La posición de la primera palabra código.
+	 * @param palabras        El número de palabras a decodificar.
+	 * @param destino         El búfer donde escribir las palabras fuente, en orden
+	 *                        de bytes big-endian.
+	 * @param posicionDestino La posición donde escribir la primera palabra fuente.
+	 * @param estadisticas    Las estadísticas donde acumular el resultado de la
+	 *                        decodificación.
+	 */
+	private static void decodificar(
+		final ByteBuffer origen, final int posicionOrigen, final int palabras,
+		final ByteBuffer destino, final int posicionDestino, final EstadisticasDecodificacion estadisticas
+	) {
+		long correctas = 0;
+
+		for (int i = 0; i < palabras; ++i) {
+			final int posicionPalabra = posicionOrigen + i * BYTES_CODIGO;
+			final int posicionFuente = posicionDestino + i * BYTES_FUENTE;
+			long fuente = origen.getLong(posicionPalabra);
+			final int sindrome = paridad(fuente) ^ origen.get(posicionPalabra + BYTES_FUENTE) & 0xFF;
+
+			if (sindrome == 0) {
+				++correctas;
+			} else {
+				final int correccion = TABLA_CORRECCION[sindrome];
+				final int estado = correccion & 0x3;
+				final int posicion = correccion >>> 2;
+
+				if (estado == ESTADO_CORREGIDA && posicion < BITS_FUENTE) {
+					fuente ^= 1L << (BITS_FUENTE - 1 - posicion);
+				} else if (estado == ESTADO_INCORREGIBLE && estadisticas.conservaBorrados()) {
+					estadisticas.registrarBorrado(posicionFuente, BYTES_FUENTE);
+				}
+
+				estadisticas.registrarPalabra(estado, sindrome);
+			}
+
+			destino.putLong(posicionFuente, fuente);
+		}
+
+		estadisticas.registrarCorrectas(correctas);
+	}
+
+	/**
+	 * Envuelve un array en un búfer con el orden de bytes que esperan los métodos
+	 * de codificación y decodificación masivos.
+	 *
+	 * @param array El array a envolver.
+	 * @return El búfer, cuyos índices coinciden con los del array.
+	 */
+	private static ByteBuffer envolver(final byte[] array) {
+		return ByteBuffer.wrap(array).order(ByteOrder.BIG_ENDIAN);
+	}
+}
@@ -0,0 +1,505 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.MatrizZ2;
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.ReservaBuffers;
+
+/**
+ * Un código lineal de bloque binario, capaz de codificar y decodificar flujos de
+ * bytes.
+ * <p>
+ * Como las palabras fuente y código pueden no ocupar un número entero de bytes,
+ * los flujos se procesan en bloques: el menor número de bytes fuente que se
+ * codifica en un número entero de palabras código que, a su vez, ocupan un número
+ * entero de bytes. Los métodos de codificación y decodificación masiva solo
+ * procesan bloques completos, y es responsabilidad de quien los llama conservar
+ * los bytes sobrantes para la siguiente llamada. Al llegar al final del flujo,
+ * los bytes sobrantes se procesan con {@link #codificarFinal} y
+ * {@link #decodificarFinal}.
+ * </p>
+ * <p>
+ * Si un bloque fuente ocupa más de un byte, el flujo codificado siempre termina
+ * con un bloque adicional, que contiene los bytes fuente que no llegan a
+ * completar un bloque, rellenados con ceros, y cuyo último byte fuente indica
+ * cuántos de ellos son válidos, salvo que el código pueda acortar su última
+ * palabra. Por ello, al decodificar, los últimos
+ * {@link #getBytesRetenidosDecodificacion()} bytes del flujo no se deben de
+ * decodificar hasta saber que no hay más.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+abstract class CodigoLineal {
+	/**
+	 * Estado de decodificación de una palabra código recibida sin errores.
+	 */
+	static final int ESTADO_CORRECTA = 0;
+	/**
+	 * Estado de decodificación de una palabra código en la que se ha corregido un
+	 * error de un bit.
+	 */
+	static final int ESTADO_CORREGIDA = 1;
+	/**
+	 * Estado de decodificación de una palabra código en la que se han detectado
+	 * errores que no se pueden corregir.
+	 */
+	static final int ESTADO_INCORREGIBLE = 2;
+
+	/**
+	 * El número aproximado de bytes de los búferes intermedios con los que se
+	 * codifican y decodifican por partes los búferes que no están respaldados por
+	 * un array, como los directos o los ficheros proyectados en memoria.
+	 */
+	private static final int TAMANO_BUFFER_INTERMEDIO = 64 * 1024;
+
+	/**
+	 * Los búferes intermedios, que contienen un número entero de bloques
+	 * codificados, o {@code null} si todavía no se han necesitado.
+	 */
+	private volatile ReservaBuffers reservaIntermedia = null;
+
+	/**
+	 * Crea un código a partir de su nombre, tal y como lo devuelve
+	 * {@link #getNombre()}. Se admiten los nombres {@code hamming:r}, para el
+	 * código Hamming con r bits de redundancia, {@code hamming-ampliado:r}, para
+	 * su versión ampliada, y {@code hsiao}, para el código Hsiao (72, 64).
+	 *
+	 * @param nombre El nombre del código.
+	 * @return El código correspondiente.
+	 * @throws IllegalArgumentException Si el nombre es nulo o no corresponde a
+	 *                                  ningún código conocido.
+	 */
+	static CodigoLineal crear(final String nombre) {
+		if (nombre == null) {
+			throw new IllegalArgumentException("El nombre del código no puede ser nulo");
+		}
+
+		final int separador = nombre.indexOf(':');
+		final String familia = separador < 0 ? nombre : nombre.substring(0, separador);
+		final int parametro;
+		try {
+			parametro = separador < 0 ? -1 : Integer.parseInt(nombre.substring(separador + 1));
+		} catch (final NumberFormatException exc) {
+			throw new IllegalArgumentException("El parámetro del código no es un número entero");
+		}
+
+		switch (familia) {
+			case CodigoHamming.NOMBRE_HAMMING:
+				return CodigoHamming.hamming(parametro);
+			case CodigoHamming.NOMBRE_HAMMING_AMPLIADO:
+				// El código Hamming ampliado (3, 2) tiene una implementación más eficiente
+				return parametro == 3 ? new HammingAmpliado3_2() : CodigoHamming.ampliado(parametro);
+			case CodigoHsiao72_64.NOMBRE_HSIAO:
+				if (separador >= 0) {
+					throw new IllegalArgumentException("El código Hsiao (72, 64) no admite parámetros");
+				}
+
+				return new CodigoHsiao72_64();
+			default:
+				throw new IllegalArgumentException("El código indicado no es conocido");
+		}
+	}
+
+	/**
+	 * Obtiene el nombre del código, que permite crearlo de nuevo con
+	 * {@link #crear(String)}.
+	 *
+	 * @return El nombre del código.
+	 */
+	public abstract String getNombre();
+
+	/**
+	 * Obtiene la longitud n de las palabras código, en bits.
+	 *
+	 * @return La longitud de las palabras código.
+	 */
+	public abstract int getLongitud();
+
+	/**
+	 * Obtiene la dimensión k del código, que es la longitud de las palabras fuente,
+	 * en bits.
+	 *
+	 * @return La dimensión del código.
+	 */
+	public abstract int getDimension();
+
+	/**
+	 * Obtiene la matriz generadora del código, en forma sistemática.
+	 *
+	 * @return La matriz generadora del código.
+	 */
+	public abstract MatrizZ2 getMatrizGeneradora();
+
+	/**
+	 * Obtiene la matriz control de paridad del código, en forma sistemática.
+	 *
+	 * @return La matriz control de paridad del código.
+	 */
+	public abstract MatrizZ2 getMatrizControl();
+
+	/**
+	 * Obtiene el número de bytes fuente de un bloque.
+	 *
+	 * @return El número de bytes fuente de un bloque.
+	 */
+	public abstract int getBytesBloqueFuente();
+
+	/**
+	 * Obtiene el número de bytes que ocupa un bloque codificado.
+	 *
+	 * @return El número de bytes que ocupa un bloque codificado.
+	 */
+	public abstract int getBytesBloqueCodigo();
+
+	/**
+	 * Obtiene el número de bytes del final de un flujo codificado que deben de
+	 * decodificarse con {@link #decodificarFinal}.
+	 *
+	 * @return El devandicho número de bytes, que es 0 si el flujo codificado no
+	 *         termina con un bloque adicional.
+	 */
+	public int getBytesRetenidosDecodificacion() {
+		return getBytesBloqueFuente() > 1 ? getBytesBloqueCodigo() : 0;
+	}
+
+	/**
+	 * Calcula la longitud que tendrá un flujo de bytes una vez codificado.
+	 *
+	 * @param longitudFuente La longitud del flujo de bytes a codificar.
+	 * @return La longitud del flujo codificado.
+	 */
+	public long getLongitudCodificada(final long longitudFuente) {
+		final long bloques = longitudFuente / getBytesBloqueFuente();
+
+		return (bloques + (getBytesRetenidosDecodificacion() > 0 ? 1 : 0)) * getBytesBloqueCodigo();
+	}
+
+	/**
+	 * Codifica una palabra fuente en una palabra código.
+	 *
+	 * @param fuente La palabra fuente, cuyos k bits se leen empezando por el de
+	 *               mayor peso del primer byte.
+	 * @param palabra El array donde escribir la palabra código, cuyos n bits se
+	 *                escriben empezando por el de mayor peso del primer byte.
+	 */
+	public abstract void codificarPalabra(byte[] fuente, byte[] palabra);
+
+	/**
+	 * Decodifica una palabra código recibida en una palabra fuente, corrigiendo
+	 * los errores que sea posible.
+	 *
+	 * @param palabra La palabra código recibida, cuyos n bits se leen empezando
+	 *                por el de mayor peso del primer byte.
+	 * @param fuente  El array donde escribir la palabra fuente, cuyos k bits se
+	 *                escriben empezando por el de mayor peso del primer byte. Si
+	 *                la palabra código no se puede corregir, contendrá sus k
+	 *                primeros bits tal y como se recibieron.
+	 * @return El estado de la decodificación: {@link #ESTADO_CORRECTA},
+	 *         {@link #ESTADO_CORREGIDA} o {@link #ESTADO_INCORREGIBLE}.
+	 */
+	public abstract int decodificarPalabra(byte[] palabra, byte[] fuente);
+
+	/**
+	 * Obtiene la posición del bit que se corrige en las palabras código recibidas
+	 * con un síndrome.
+	 *
+	 * @param sindrome El síndrome, interpretado como un número binario cuyo bit de
+	 *                 mayor peso corresponde a la primera fila de la matriz control
+	 *                 de paridad.
+	 * @return La posición del bit corregido, contando desde el de mayor peso del
+	 *         primer byte de la palabra código, o -1 si el síndrome es nulo o no
+	 *         corresponde a un error corregible.
+	 */
+	public abstract int getPosicionError(int sindrome);
+
+	/**
+	 * Codifica los bloques fuente completos de un array a otro array.
+	 *
+	 * @param origen                El array que contiene los bytes a codificar.
+	 * @param desplazamiento        La posición del primer byte a codificar.
+	 * @param longitud              El número de bytes disponibles para codificar.
+	 *                              Solo se codifican los bloques completos.
+	 * @param destino               El array donde escribir los bloques
+	 *                              codificados.
+	 * @param desplazamientoDestino La posición de {@code destino} a partir de la
+	 *                              cual escribir.
+	 * @return El número de bytes escritos en {@code destino}.
+	 * @throws IllegalArgumentException Si algún array es nulo, o los intervalos
+	 *                                  indicados no están contenidos en ellos.
+	 */
+	public abstract int codificar(byte[] origen, int desplazamiento, int longitud, byte[] destino, int desplazamientoDestino);
+
+	/**
+	 * Codifica los bytes fuente del final de un flujo que no completan un bloque,
+	 * junto con la información necesaria para decodificarlos.
+	 *
+	 * @param origen                El array que contiene los bytes a codificar.
+	 * @param desplazamiento        La posición del primer byte a codificar.
+	 * @param longitud              El número de bytes a codificar, menor que
+	 *                              {@link #getBytesBloqueFuente()}.
+	 * @param destino               El array donde escribir el final del flujo
+	 *                              codificado, con espacio para, al menos,
+	 *                              {@link #getBytesBloqueCodigo()} bytes.
+	 * @param desplazamientoDestino La posición de {@code destino} a partir de la
+	 *                              cual escribir.
+	 * @return El número de bytes escritos en {@code destino}.
+	 * @throws IllegalArgumentException Si algún array es nulo, los intervalos
+	 *                                  indicados no están contenidos en ellos, o
+	 *                                  la longitud no es menor que la de un
+	 *                                  bloque.
+	 */
+	public abstract int codificarFinal(byte[] origen, int desplazamiento, int longitud, byte[] destino, int desplazamientoDestino);
+
+	/**
+	 * Decodifica los bloques codificados completos de un array a otro array,
+	 * corrigiendo los errores que sea posible.
+	 * <p>
+	 * Si las estadísticas conservan los borrados, se registran en ellas, con los
+	 * índices de {@code destino}, los bytes que contienen bits fuente de palabras
+	 * código incorregibles, y los códigos que descartarían esos bytes escriben en
+	 * su lugar {@link EstadisticasDecodificacion#BYTE_BORRADO}.
+	 * </p>
+	 *
+	 * @param origen                El array que contiene los bloques codificados.
+	 * @param desplazamiento        La posición del primer byte a decodificar.
+	 * @param longitud              El número de bytes disponibles para
+	 *                              decodificar. Solo se decodifican los bloques
+	 *                              completos.
+	 * @param destino               El array donde escribir los bytes
+	 *                              decodificados, con espacio para los bytes
+	 *                              fuente de todos los bloques completos.
+	 * @param desplazamientoDestino La posición de {@code destino} a partir de la
+	 *                              cual escribir.
+	 * @param estadisticas          Las estadísticas donde acumular el resultado de
+	 *                              la decodificación.
+	 * @return El número de bytes decodificados escritos en {@code destino}.
+	 * @throws IllegalArgumentException Si algún array o las estadísticas son
+	 *                                  nulos, o los intervalos indicados no están
+	 *                                  contenidos en los arrays.
+	 */
+	public abstract int decodificar(
+		byte[] origen, int desplazamiento, int longitud,
+		byte[] destino, int desplazamientoDestino,
+		EstadisticasDecodificacion estadisticas
+	);
+
+	/**
+	 * Decodifica los bytes del final de un flujo codificado, que no se han
+	 * decodificado con {@link #decodificar(byte[], int, int, byte[], int, EstadisticasDecodificacion)}.
+	 *
+	 * @param origen                El array que contiene el final del flujo.
+	 * @param desplazamiento        La posición del primer byte a decodificar.
+	 * @param longitud              El número de bytes restantes del flujo.
+	 * @param destino               El array donde escribir los bytes
+	 *                              decodificados, con espacio para los bytes
+	 *                              fuente de todos los bloques completos
+	 *                              restantes y de un bloque más.
+	 * @param desplazamientoDestino La posición de {@code destino} a partir de la
+	 *                              cual escribir.
+	 * @param estadisticas          Las estadísticas donde acumular el resultado de
+	 *                              la decodificación.
+	 * @return El número de bytes decodificados escritos en {@code destino}.
+	 * @throws IllegalArgumentException Si algún array o las estadísticas son
+	 *                                  nulos, o los intervalos indicados no están
+	 *                                  contenidos en los arrays.
+	 */
+	public abstract int decodificarFinal(
+		byte[] origen, int desplazamiento, int longitud,
+		byte[] destino, int desplazamientoDestino,
+		EstadisticasDecodificacion estadisticas
+	);
+
+	/**
+	 * Codifica los bloques fuente completos restantes de un búfer a otro búfer,
+	 * como {@link #codificar(byte[], int, int, byte[], int)}. Se codifican tantos
+	 * bloques como quepan en el búfer de destino, y las posiciones de ambos
+	 * búferes avanzan de acuerdo a lo leído y escrito. Los búferes pueden ser
+	 * directos o no.
+	 *
+	 * @param origen  El búfer que contiene los bytes a codificar.
+	 * @param destino El búfer donde escribir los bloques codificados.
+	 * @return El número de bytes escritos en {@code destino}.
+	 * @throws IllegalArgumentException Si algún búfer es nulo.
+	 */
+	public int codificar(final ByteBuffer origen, final ByteBuffer destino) {
+		if (origen == null || destino == null) {
+			throw new IllegalArgumentException("Los búferes no pueden ser nulos");
+		}
+
+		final int bloques = Math.min(
+			origen.remaining() / getBytesBloqueFuente(),
+			destino.remaining() / getBytesBloqueCodigo()
+		);
+		final int longitud = bloques * getBytesBloqueFuente();
+		final int escritos = bloques * getBytesBloqueCodigo();
+
+		if (origen.hasArray() && destino.hasArray()) {
+			codificar(
+				origen.array(), origen.arrayOffset() + origen.position(), longitud,
+				destino.array(), destino.arrayOffset() + destino.position()
+			);
+
+			// Conversión a Buffer por compatibilidad binaria con Java 8
+			((Buffer) origen).position(origen.position() + longitud);
+			((Buffer) destino).position(destino.position() + escritos);
+		} else {
+			// Copiar los bloques por partes a búferes intermedios reutilizados, que
+			// avanzan las posiciones de los búferes al leer y escribir
+			final ReservaBuffers reserva = getReservaIntermedia();
+			final ByteBuffer intermedioOrigen = reserva.tomar();
+			final ByteBuffer intermedioDestino = reserva.tomar();
+			final int bloquesIntermedios = reserva.getBytesBuffers() / getBytesBloqueCodigo();
+
+			for (int bloque = 0; bloque < bloques; bloque += bloquesIntermedios) {
+				final int longitudParte = Math.min(bloquesIntermedios, bloques - bloque) * getBytesBloqueFuente();
+
+				origen.get(intermedioOrigen.array(), 0, longitudParte);
+				destino.put(
+					intermedioDestino.array(), 0,
+					codificar(intermedioOrigen.array(), 0, longitudParte, intermedioDestino.array(), 0)
+				);
+			}
+
+			reserva.devolver(intermedioOrigen);
+			reserva.devolver(intermedioDestino);
+		}
+
+		return escritos;
+	}
+
+	/**
+	 * Decodifica los bloques codificados completos restantes de un búfer a otro
+	 * búfer, como
+	 * {@link #decodificar(byte[], int, int, byte[], int, EstadisticasDecodificacion)}.
+	 * Se decodifican tantos bloques como quepan en el búfer de destino, y las
+	 * posiciones de ambos búferes avanzan de acuerdo a lo leído y escrito. Los
+	 * búferes pueden ser directos o no.
+	 *
+	 * @param origen       El búfer que contiene los bloques codificados.
+	 * @param destino      El búfer donde escribir los bytes decodificados.
+	 * @param estadisticas Las estadísticas donde acumular el resultado de la
+	 *                     decodificación.
+	 * @return El número de bytes decodificados escritos en {@code destino}.
+	 * @throws IllegalArgumentException Si algún búfer o las estadísticas son
+	 *                                  nulos.
+	 */
+	public int decodificar(final ByteBuffer origen, final ByteBuffer destino, final EstadisticasDecodificacion estadisticas) {
+		if (origen == null || destino == null) {
+			throw new IllegalArgumentException("Los búferes no pueden ser nulos");
+		}
+
+		final int bloques = Math.min(
+			origen.remaining() / getBytesBloqueCodigo(),
+			destino.remaining() / getBytesBloqueFuente()
+		);
+		final int longitud = bloques * getBytesBloqueCodigo();
+		final int escritos;
+
+		comprobarEstadisticas(estadisticas);
+
+		// Los bytes borrados se registran con índices de los arrays, que hay que
+		// convertir a índices del búfer de destino
+		final long desplazamientoBorrados = estadisticas.getDesplazamientoBorrados();
+
+		if (origen.hasArray() && destino.hasArray()) {
+			estadisticas.setDesplazamientoBorrados(desplazamientoBorrados - destino.arrayOffset());
+			escritos = decodificar(
+				origen.array(), origen.arrayOffset() + origen.position(), longitud,
+				destino.array(), destino.arrayOffset() + destino.position(),
+				estadisticas
+			);
+
+			((Buffer) origen).position(origen.position() + longitud);
+			((Buffer) destino).position(destino.position() + escritos);
+		} else {
+			final ReservaBuffers reserva = getReservaIntermedia();
+			final ByteBuffer intermedioOrigen = reserva.tomar();
+			final ByteBuffer intermedioDestino = reserva.tomar();
+			final int bloquesIntermedios = reserva.getBytesBuffers() / getBytesBloqueCodigo();
+			int escritosPartes = 0;
+
+			for (int bloque = 0; bloque < bloques; bloque += bloquesIntermedios) {
+				final int longitudParte = Math.min(bloquesIntermedios, bloques - bloque) * getBytesBloqueCodigo();
+
+				// Cada parte empieza en el índice cero del búfer intermedio
+				estadisticas.setDesplazamientoBorrados(desplazamientoBorrados + destino.position());
+				origen.get(intermedioOrigen.array(), 0, longitudParte);
+				final int escritosParte = decodificar(
+					intermedioOrigen.array(), 0, longitudParte, intermedioDestino.array(), 0, estadisticas
+				);
+				destino.put(intermedioDestino.array(), 0, escritosParte);
+				escritosPartes += escritosParte;
+			}
+
+			reserva.devolver(intermedioOrigen);
+			reserva.devolver(intermedioDestino);
+			escritos = escritosPartes;
+		}
+
+		estadisticas.setDesplazamientoBorrados(desplazamientoBorrados);
+
+		return escritos;
+	}
+
+	/**
+	 * Obtiene la reserva de los búferes intermedios del código, creándola si
+	 * todavía no existe. Cada búfer contiene al menos un bloque codificado, y
+	 * por tanto también uno fuente.
+	 *
+	 * @return La devandicha reserva.
+	 */
+	private ReservaBuffers getReservaIntermedia() {
+		ReservaBuffers reserva = reservaIntermedia;
+
+		if (reserva == null) {
+			synchronized (this) {
+				reserva = reservaIntermedia;
+				if (reserva == null) {
+					// Cada hilo que codifica o decodifica usa dos búferes a la vez
+					reserva = new ReservaBuffers(
+						Math.max(1, TAMANO_BUFFER_INTERMEDIO / getBytesBloqueCodigo()) * getBytesBloqueCodigo(),
+						2 * Runtime.getRuntime().availableProcessors(), false
+					);
+					reservaIntermedia = reserva;
+				}
+			}
+		}
+
+		return reserva;
+	}
+
+	/**
+	 * Comprueba que un intervalo está contenido en un array.
+	 *
+	 * @param array          El array.
+	 * @param desplazamiento El comienzo del intervalo.
+	 * @param longitud       La longitud del intervalo.
+	 * @throws IllegalArgumentException Si el array es nulo o el intervalo no está
+	 *                                  contenido en él.
+	 */
+	static void comprobarIntervalo(final byte[] array, final int desplazamiento, final int longitud) {
+		if (array == null) {
+			throw new IllegalArgumentException("El array no puede ser nulo");
+		}
+
+		if (desplazamiento < 0 || longitud < 0 || desplazamiento > array.length - longitud) {
+			throw new IllegalArgumentException("El intervalo del array no es válido");
+		}
+	}
+
+	/**
+	 * Comprueba que las estadísticas de decodificación no son nulas.
+	 *
+	 * @param estadisticas Las estadísticas a comprobar.
+	 * @throws IllegalArgumentException Si las estadísticas son nulas.
+	 */
+	static void comprobarEstadisticas(final EstadisticasDecodificacion estadisticas) {
+		if (estadisticas == null) {
+			throw new IllegalArgumentException("Las estadísticas de decodificación no pueden ser nulas");
+		}
+	}
+}
@@ -0,0 +1,118 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Abre los sockets locales del servidor de la aplicación y de sus clientes, y
+ * crea los hilos que atienden las conexiones.
+ * <p>
+ * Las direcciones son un número de puerto TCP de la interfaz de bucle local, o
+ * la ruta de un socket de dominio Unix. Esta versión de la clase, para Java 8,
+ * solo admite puertos TCP, y atiende cada conexión en un hilo de plataforma de
+ * un grupo. El JAR de la aplicación incluye otra versión en
+ * {@code META-INF/versions/21}, que la máquina virtual usa en su lugar si es
+ * compatible, con sockets de dominio Unix e hilos virtuales.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class ConexionesLocales {
+	private ConexionesLocales() {}
+
+	/**
+	 * Comprueba si una dirección es un número de puerto TCP.
+	 *
+	 * @param direccion La dirección.
+	 * @return Verdadero si la dirección es un número de puerto, falso si es la
+	 *         ruta de un socket de dominio Unix.
+	 */
+	static boolean esPuerto(final String direccion) {
+		return direccion.matches("[0-9]{1,5}") && Integer.parseInt(direccion) <= 65535;
+	}
+
+	/**
+	 * Abre un socket de servidor en modo bloqueante, que escucha en una
+	 * dirección local.
+	 *
+	 * @param direccion La dirección en la que escuchar. El puerto 0 elige un
+	 *                  puerto libre cualquiera.
+	 * @return El canal del socket de servidor.
+	 * @throws IOException Si ocurre un error de E/S, o la dirección es un socket
+	 *                     de dominio Unix y no se admiten.
+	 */
+	static ServerSocketChannel escuchar(final String direccion) throws IOException {
+		comprobarPuerto(direccion);
+
+		final ServerSocketChannel canal = ServerSocketChannel.open();
+		try {
+			canal.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(direccion)));
+		} catch (final IOException exc) {
+			canal.close();
+			throw exc;
+		}
+
+		return canal;
+	}
+
+	/**
+	 * Conecta con un servidor que escucha en una dirección local.
+	 *
+	 * @param direccion La dirección del servidor.
+	 * @return El canal del socket conectado, en modo bloqueante.
+	 * @throws IOException Si ocurre un error de E/S, o la dirección es un socket
+	 *                     de dominio Unix y no se admiten.
+	 */
+	static SocketChannel conectar(final String direccion) throws IOException {
+		comprobarPuerto(direccion);
+
+		return SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(direccion)));
+	}
+
+	/**
+	 * Obtiene la dirección en la que escucha un socket de servidor abierto por
+	 * {@link #escuchar(String)}, que, si es un puerto TCP, es el puerto elegido
+	 * realmente.
+	 *
+	 * @param canal     El canal del socket de servidor.
+	 * @param direccion La dirección con la que se abrió.
+	 * @return La dirección en la que escucha.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	static String getDireccionLocal(final ServerSocketChannel canal, final String direccion) throws IOException {
+		return Integer.toString(((InetSocketAddress) canal.getLocalAddress()).getPort());
+	}
+
+	/**
+	 * Crea el ejecutor que atiende las conexiones, cada una en su propio hilo.
+	 *
+	 * @param maximoConexiones El número máximo de conexiones que se atienden a la
+	 *                         vez.
+	 * @return El ejecutor.
+	 */
+	static ExecutorService crearEjecutor(final int maximoConexiones) {
+		final AtomicInteger hilosCreados = new AtomicInteger();
+
+		// El servidor no acepta más conexiones que el máximo, así que el grupo no
+		// llega a tener más hilos
+		return Executors.newCachedThreadPool(tarea -> {
+			final Thread hilo = new Thread(tarea, "hammer-conexion-" + hilosCreados.incrementAndGet());
+			hilo.setDaemon(true);
+			return hilo;
+		});
+	}
+
+	private static void comprobarPuerto(final String direccion) throws IOException {
+		if (!esPuerto(direccion)) {
+			throw new IOException("Los sockets de dominio Unix requieren Java 21 o posterior");
+		}
+	}
+}
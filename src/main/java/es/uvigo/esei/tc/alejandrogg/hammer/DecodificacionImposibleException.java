@@ -5,9 +5,22 @@ package es.uvigo.esei.tc.alejandrogg.hammer;
 /**
  * Excepción lanzada para representar la imposibilidad de decodificar una
  * palabra código determinada.
+ * <p>
+ * Para que lanzarla sea barato, no registra la traza de la pila ni admite
+ * excepciones suprimidas. Aun así, para decodificar muchas palabras código es
+ * preferible usar métodos que devuelven el estado de la decodificación, como
+ * {@link HammingAmpliado3_2#decodificarNibble(byte)}.
+ * </p>
  *
  * @author Alejandro González García
  */
 final class DecodificacionImposibleException extends Exception {
 	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Crea una nueva excepción, sin traza de la pila.
+	 */
+	DecodificacionImposibleException() {
+		super("No se ha podido decodificar la palabra código", null, false, false);
+	}
 }
@@ -0,0 +1,70 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Ejecución de entrenamiento del perfil de Maven {@code arranque}, que ejecuta
+ * en una única máquina virtual las operaciones más habituales de la
+ * aplicación, para que el archivo de CDS dinámico que se genera al terminar
+ * contenga las clases que cargan. Descarta todo el texto que muestra la
+ * aplicación.
+ *
+ * @author Alejandro González García
+ */
+public final class EntrenamientoArranque {
+	// No permitir instanciar esta clase
+	private EntrenamientoArranque() {}
+
+	/**
+	 * Ejecuta el entrenamiento.
+	 *
+	 * @param args La ruta del fichero con el que entrenar.
+	 * @throws IOException Si ocurre un error de E/S con los ficheros temporales.
+	 */
+	public static void main(final String... args) throws IOException {
+		final Path fuente = Paths.get(args[0]);
+		final Path directorio = Files.createTempDirectory("hammer-entrenamiento");
+		final Path codificado = directorio.resolve("codificado");
+		final Path decodificado = directorio.resolve("decodificado");
+
+		final InputStream entradaEstandar = System.in;
+		final PrintStream salidaEstandar = System.out;
+		final PrintStream salidaErrores = System.err;
+		final PrintStream salidaNula = new PrintStream(new OutputStream() {
+			@Override
+			public void write(final int b) {
+				// Descartar byte
+			}
+		});
+
+		System.setOut(salidaNula);
+		System.setErr(salidaNula);
+		try {
+			// Entre ficheros, que se proyectan en memoria, con y sin errores
+			new Hammer().run("-c", codificado.toString(), "-e", "1", fuente.toString());
+			new Hammer().run("--json", "-d", decodificado.toString(), codificado.toString());
+
+			// Con los flujos estándar, que se procesan con una canalización
+			System.setIn(Files.newInputStream(fuente));
+			new Hammer().run("-c", "-", "-");
+
+			new Hammer().run("--ayuda");
+		} finally {
+			System.setIn(entradaEstandar);
+			System.setOut(salidaEstandar);
+			System.setErr(salidaErrores);
+
+			Files.deleteIfExists(codificado);
+			Files.deleteIfExists(decodificado);
+			Files.delete(directorio);
+		}
+	}
+}
@@ -0,0 +1,327 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.util.Arrays;
+
+/**
+ * Acumula el resultado de decodificar palabras código: cuántas se recibieron
+ * sin errores, en cuántas se corrigió un error, en cuántas se detectaron errores
+ * que no se pueden corregir, y cuántos bytes fuente se han descartado por ello.
+ * Además, lleva un histograma de los síndromes no nulos calculados, a partir
+ * del cual se puede obtener el de las posiciones de los bits corregidos, y,
+ * opcionalmente, un {@link MapaBorrados} con los bytes fuente que no se han
+ * podido recuperar.
+ * <p>
+ * Los bucles de decodificación solo incrementan contadores: dar formato a los
+ * resultados y mostrarlos queda fuera de ellos, y se hace una única vez al
+ * final.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class EstadisticasDecodificacion {
+	/**
+	 * El byte que se escribe en lugar de cada byte fuente borrado.
+	 */
+	static final byte BYTE_BORRADO = 0;
+
+	private long palabrasCorrectas = 0;
+	private long palabrasCorregidas = 0;
+	private long palabrasIncorregibles = 0;
+	private long bytesDescartados = 0;
+	/**
+	 * El número de palabras código recibidas con cada síndrome, indexado por el
+	 * síndrome. Crece según se registran síndromes mayores, y no cuenta las
+	 * palabras con síndrome nulo, que son las correctas.
+	 */
+	private long[] sindromes = new long[0];
+	/**
+	 * El mapa donde registrar los bytes fuente incorregibles, o {@code null} si se
+	 * descartan.
+	 */
+	private final MapaBorrados borrados;
+	/**
+	 * La posición en la salida decodificada del primer elemento del destino que
+	 * se está decodificando, para convertir a ella las posiciones de los bytes
+	 * borrados.
+	 */
+	private long desplazamientoBorrados = 0;
+
+	/**
+	 * Crea estadísticas de decodificación vacías, con las que los bytes fuente que
+	 * contienen palabras código incorregibles se descartan.
+	 */
+	EstadisticasDecodificacion() {
+		this(null);
+	}
+
+	/**
+	 * Crea estadísticas de decodificación vacías.
+	 *
+	 * @param borrados El mapa donde registrar las posiciones de los bytes fuente
+	 *                 que no se han podido recuperar, o {@code null} para
+	 *                 descartarlos. Si no es nulo, los códigos que los descartan
+	 *                 escriben en su lugar el byte {@link #BYTE_BORRADO}, de
+	 *                 manera que no desplazan a los siguientes.
+	 */
+	EstadisticasDecodificacion(final MapaBorrados borrados) {
+		this.borrados = borrados;
+	}
+
+	/**
+	 * Crea estadísticas de decodificación vacías con el mismo tratamiento de los
+	 * bytes fuente incorregibles que éstas, y un mapa de borrados propio, si
+	 * corresponde, para decodificar una parte de la entrada por separado y
+	 * acumular después el resultado.
+	 *
+	 * @return Las estadísticas creadas.
+	 */
+	EstadisticasDecodificacion crearParciales() {
+		return new EstadisticasDecodificacion(borrados != null ? new MapaBorrados() : null);
+	}
+
+	/**
+	 * Indica si los bytes fuente incorregibles se conservan como borrados, en
+	 * lugar de descartarse.
+	 *
+	 * @return Verdadero si se conservan, falso si se descartan.
+	 */
+	boolean conservaBorrados() {
+		return borrados != null;
+	}
+
+	/**
+	 * Obtiene el mapa donde se registran los bytes borrados.
+	 *
+	 * @return El mapa, o {@code null} si los bytes incorregibles se descartan.
+	 */
+	MapaBorrados getBorrados() {
+		return borrados;
+	}
+
+	/**
+	 * Establece la posición en la salida decodificada del primer elemento del
+	 * array o búfer de destino de las siguientes decodificaciones, a partir de la
+	 * cual se calculan las posiciones de los bytes borrados.
+	 *
+	 * @param desplazamiento La devandicha posición.
+	 */
+	void setDesplazamientoBorrados(final long desplazamiento) {
+		desplazamientoBorrados = desplazamiento;
+	}
+
+	/**
+	 * Obtiene la posición establecida con {@link #setDesplazamientoBorrados(long)}.
+	 *
+	 * @return La devandicha posición.
+	 */
+	long getDesplazamientoBorrados() {
+		return desplazamientoBorrados;
+	}
+
+	/**
+	 * Registra una racha de bytes borrados en el destino de la decodificación. No
+	 * hace nada si los bytes incorregibles se descartan.
+	 *
+	 * @param indice   El índice en el destino del primer byte borrado.
+	 * @param longitud El número de bytes borrados.
+	 */
+	void registrarBorrado(final long indice, final long longitud) {
+		if (borrados != null) {
+			borrados.registrar(desplazamientoBorrados + indice, longitud);
+		}
+	}
+
+	/**
+	 * Suma los contadores especificados a los de estas estadísticas.
+	 *
+	 * @param correctas    El número de palabras código recibidas sin errores.
+	 * @param corregidas   El número de palabras código en las que se ha corregido
+	 *                     un error.
+	 * @param incorregibles El número de palabras código con errores detectados que
+	 *                     no se pueden corregir.
+	 * @param descartados  El número de bytes fuente descartados.
+	 */
+	void registrar(final long correctas, final long corregidas, final long incorregibles, final long descartados) {
+		palabrasCorrectas += correctas;
+		palabrasCorregidas += corregidas;
+		palabrasIncorregibles += incorregibles;
+		bytesDescartados += descartados;
+	}
+
+	/**
+	 * Suma el número especificado de palabras código recibidas sin errores.
+	 *
+	 * @param correctas El devandicho número.
+	 */
+	void registrarCorrectas(final long correctas) {
+		palabrasCorrectas += correctas;
+	}
+
+	/**
+	 * Registra una palabra código decodificada, de acuerdo a su estado de
+	 * decodificación y su síndrome.
+	 *
+	 * @param estado   El estado de decodificación de la palabra:
+	 *                 {@link CodigoLineal#ESTADO_CORRECTA},
+	 *                 {@link CodigoLineal#ESTADO_CORREGIDA} o
+	 *                 {@link CodigoLineal#ESTADO_INCORREGIBLE}.
+	 * @param sindrome El síndrome de la palabra, interpretado como un número
+	 *                 binario.
+	 */
+	void registrarPalabra(final int estado, final int sindrome) {
+		switch (estado) {
+			case CodigoLineal.ESTADO_CORRECTA:
+				++palabrasCorrectas;
+				break;
+			case CodigoLineal.ESTADO_CORREGIDA:
+				++palabrasCorregidas;
+				break;
+			default:
+				++palabrasIncorregibles;
+				break;
+		}
+
+		if (sindrome != 0) {
+			if (sindrome >= sindromes.length) {
+				sindromes = Arrays.copyOf(sindromes, Math.max(sindrome + 1, sindromes.length * 2));
+			}
+
+			++sindromes[sindrome];
+		}
+	}
+
+	/**
+	 * Descarta los bytes borrados registrados a partir de un índice del destino de
+	 * la decodificación, que ya no forman parte de ella. No hace nada si los bytes
+	 * incorregibles se descartan.
+	 *
+	 * @param indice El primer índice a descartar.
+	 */
+	void recortarBorrados(final long indice) {
+		if (borrados != null) {
+			borrados.recortar(desplazamientoBorrados + indice);
+		}
+	}
+
+	/**
+	 * Suma los contadores de otras estadísticas a los de éstas.
+	 *
+	 * @param otras Las estadísticas a sumar.
+	 */
+	void acumular(final EstadisticasDecodificacion otras) {
+		registrar(otras.palabrasCorrectas, otras.palabrasCorregidas, otras.palabrasIncorregibles, otras.bytesDescartados);
+
+		if (otras.sindromes.length > sindromes.length) {
+			sindromes = Arrays.copyOf(sindromes, otras.sindromes.length);
+		}
+
+		for (int sindrome = 0; sindrome < otras.sindromes.length; ++sindrome) {
+			sindromes[sindrome] += otras.sindromes[sindrome];
+		}
+
+		if (borrados != null && otras.borrados != null) {
+			borrados.acumular(otras.borrados);
+		}
+	}
+
+	/**
+	 * Obtiene el número de palabras código decodificadas, con o sin errores.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getPalabras() {
+		return palabrasCorrectas + palabrasCorregidas + palabrasIncorregibles;
+	}
+
+	/**
+	 * Obtiene el número de palabras código recibidas sin errores.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getPalabrasCorrectas() {
+		return palabrasCorrectas;
+	}
+
+	/**
+	 * Obtiene el número de palabras código en las que se ha corregido un error de
+	 * un bit.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getPalabrasCorregidas() {
+		return palabrasCorregidas;
+	}
+
+	/**
+	 * Obtiene el número de palabras código en las que se han detectado errores que
+	 * no se pueden corregir.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getPalabrasIncorregibles() {
+		return palabrasIncorregibles;
+	}
+
+	/**
+	 * Obtiene el número de bytes fuente descartados por contener alguna palabra
+	 * código que no se ha podido corregir.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getBytesDescartados() {
+		return bytesDescartados;
+	}
+
+	/**
+	 * Obtiene el número de bytes fuente que no se han podido recuperar y se han
+	 * conservado como borrados.
+	 *
+	 * @return El devandicho número, que es 0 si se descartan.
+	 */
+	public long getBytesBorrados() {
+		return borrados != null ? borrados.getBytesBorrados() : 0;
+	}
+
+	/**
+	 * Obtiene el histograma de los síndromes de las palabras código decodificadas.
+	 * El elemento de índice 0 es el número de palabras correctas.
+	 *
+	 * @return El histograma, indexado por el síndrome, con tantos elementos como
+	 *         el mayor síndrome registrado más uno.
+	 */
+	public long[] getHistogramaSindromes() {
+		final long[] histograma = Arrays.copyOf(sindromes, Math.max(sindromes.length, 1));
+		histograma[0] = palabrasCorrectas;
+
+		return histograma;
+	}
+
+	/**
+	 * Obtiene el histograma de las posiciones de los bits corregidos en las
+	 * palabras código, a partir del de síndromes y de la correspondencia entre
+	 * síndromes y posiciones del código.
+	 *
+	 * @param codigo El código con el que se ha decodificado.
+	 * @return El histograma, con un elemento por bit de las palabras código, desde
+	 *         el de mayor peso del primer byte.
+	 * @throws IllegalArgumentException Si el código es nulo.
+	 */
+	public long[] getHistogramaPosicionesError(final CodigoLineal codigo) {
+		if (codigo == null) {
+			throw new IllegalArgumentException("El código no puede ser nulo");
+		}
+
+		final long[] histograma = new long[codigo.getLongitud()];
+		for (int sindrome = 1; sindrome < sindromes.length; ++sindrome) {
+			final int posicion = codigo.getPosicionError(sindrome);
+
+			if (sindromes[sindrome] > 0 && posicion >= 0) {
+				histograma[posicion] += sindromes[sindrome];
+			}
+		}
+
+		return histograma;
+	}
+}
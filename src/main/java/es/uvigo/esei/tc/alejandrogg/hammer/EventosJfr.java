@@ -0,0 +1,406 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+
+/**
+ * Eventos de JDK Flight Recorder (JFR) que registran en qué se emplea el tiempo
+ * al procesar una entrada: la codificación o decodificación de cada trozo, cada
+ * llamada de E/S a los flujos y ficheros, y los trozos decodificados en los que
+ * la proporción de palabras incorregibles supera un umbral.
+ * <p>
+ * Todos los eventos están deshabilitados por defecto, incluso aunque se esté
+ * grabando con otra configuración, así que hay que habilitarlos con la
+ * configuración {@code hammer.jfc} del proyecto. Mientras no lo están, crearlos y
+ * confirmarlos no tiene coste: el compilador JIT elimina el objeto, y la
+ * comprobación de si se deben de registrar es constante. Los datos de los
+ * eventos solo se calculan si se van a registrar.
+ * </p>
+ * <p>
+ * Como no todas las máquinas virtuales de Java 8 incluyen JFR, el resto de la
+ * aplicación solo usa las interfaces {@link Bloque} y {@link EntradaSalida},
+ * cuyos métodos estáticos crean los eventos de JFR si está disponible, o
+ * mediciones que no hacen nada en otro caso. Así, las clases de los eventos,
+ * que heredan de {@link Event}, solo se cargan si se pueden cargar.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class EventosJfr {
+	/**
+	 * La propiedad del sistema que permite cambiar la proporción de palabras
+	 * incorregibles de un trozo decodificado a partir de la cual se registra un
+	 * evento {@link RafagaErrores}, como un número entre 0 y 1.
+	 */
+	static final String PROPIEDAD_UMBRAL_RAFAGA = "hammer.umbralRafaga";
+
+	/**
+	 * La proporción de palabras incorregibles predeterminada a partir de la cual
+	 * se registra un evento {@link RafagaErrores}.
+	 */
+	static final double UMBRAL_RAFAGA_PREDETERMINADO = 0.01;
+
+	/**
+	 * La proporción de palabras incorregibles a partir de la cual se registra un
+	 * evento {@link RafagaErrores}.
+	 */
+	static final double UMBRAL_RAFAGA = leerUmbralRafaga();
+
+	/**
+	 * Indica si la máquina virtual incluye JFR, y por tanto se pueden crear los
+	 * eventos.
+	 */
+	static final boolean JFR_DISPONIBLE = comprobarJfr();
+
+	private static final String CATEGORIA = "Hammer";
+
+	private EventosJfr() {}
+
+	/**
+	 * Comprueba si la clase base de los eventos de JFR se puede cargar.
+	 *
+	 * @return Verdadero si se puede cargar, falso en otro caso.
+	 */
+	private static boolean comprobarJfr() {
+		try {
+			Class.forName("jdk.jfr.Event", false, EventosJfr.class.getClassLoader());
+			return true;
+		} catch (final ClassNotFoundException | LinkageError exc) {
+			return false;
+		}
+	}
+
+	/**
+	 * Obtiene el umbral de las ráfagas de errores de la propiedad del sistema
+	 * {@value #PROPIEDAD_UMBRAL_RAFAGA}, o el predeterminado si no está definida o
+	 * no es válida.
+	 *
+	 * @return El devandicho umbral.
+	 */
+	private static double leerUmbralRafaga() {
+		final String valor = System.getProperty(PROPIEDAD_UMBRAL_RAFAGA);
+
+		if (valor != null) {
+			try {
+				final double umbral = Double.parseDouble(valor);
+				if (umbral >= 0 && umbral <= 1) {
+					return umbral;
+				}
+			} catch (final NumberFormatException exc) {
+				// Mostrar el aviso de abajo
+			}
+
+			System.err.println(
+				"! El valor de la propiedad " + PROPIEDAD_UMBRAL_RAFAGA + " no es un número entre 0 y 1. " +
+				"Se usará " + UMBRAL_RAFAGA_PREDETERMINADO
+			);
+		}
+
+		return UMBRAL_RAFAGA_PREDETERMINADO;
+	}
+
+	/**
+	 * La medición de la codificación o decodificación de un trozo de la entrada.
+	 */
+	interface Bloque {
+		/**
+		 * Empieza a medir la codificación de un trozo.
+		 *
+		 * @return La medición.
+		 */
+		static Bloque iniciarCodificacion() {
+			if (!JFR_DISPONIBLE) {
+				return Inactivo.INSTANCIA;
+			}
+
+			return EventoBloque.iniciarCodificacion();
+		}
+
+		/**
+		 * Empieza a medir la decodificación de un trozo.
+		 *
+		 * @param estadisticas Las estadísticas en las que se va a acumular el
+		 *                     resultado de la decodificación del trozo, de las que
+		 *                     se obtienen las palabras corregidas e incorregibles.
+		 * @return La medición.
+		 */
+		static Bloque iniciarDecodificacion(final EstadisticasDecodificacion estadisticas) {
+			if (!JFR_DISPONIBLE) {
+				return Inactivo.INSTANCIA;
+			}
+
+			return EventoBloque.iniciarDecodificacion(estadisticas);
+		}
+
+		/**
+		 * Termina de medir el trozo y registra el evento, si corresponde.
+		 *
+		 * @param codigo       El código con el que se ha procesado el trozo.
+		 * @param posicion     La posición del trozo en la entrada.
+		 * @param bytesEntrada Los bytes de entrada del trozo.
+		 * @param bytesSalida  Los bytes de salida del trozo.
+		 */
+		void terminar(CodigoLineal codigo, long posicion, long bytesEntrada, long bytesSalida);
+	}
+
+	/**
+	 * La medición de una llamada de lectura o escritura a un flujo o fichero de la
+	 * entrada o salida.
+	 */
+	interface EntradaSalida {
+		/**
+		 * Empieza a medir una llamada de E/S.
+		 *
+		 * @return La medición.
+		 */
+		static EntradaSalida iniciar() {
+			if (!JFR_DISPONIBLE) {
+				return Inactivo.INSTANCIA;
+			}
+
+			return EventoEntradaSalida.iniciar();
+		}
+
+		/**
+		 * Termina de medir una lectura y registra el evento, si corresponde.
+		 *
+		 * @param bytes Los bytes leídos, que son negativos si se ha alcanzado el
+		 *              final.
+		 */
+		void terminarLectura(long bytes);
+
+		/**
+		 * Termina de medir una escritura y registra el evento, si corresponde.
+		 *
+		 * @param bytes Los bytes escritos.
+		 */
+		void terminarEscritura(long bytes);
+	}
+
+	/**
+	 * Las mediciones que se usan si JFR no está disponible, que no hacen nada.
+	 */
+	private static final class Inactivo implements Bloque, EntradaSalida {
+		static final Inactivo INSTANCIA = new Inactivo();
+
+		private Inactivo() {}
+
+		@Override
+		public void terminar(final CodigoLineal codigo, final long posicion, final long bytesEntrada, final long bytesSalida) {}
+
+		@Override
+		public void terminarLectura(final long bytes) {}
+
+		@Override
+		public void terminarEscritura(final long bytes) {}
+	}
+
+	/**
+	 * La codificación o decodificación de un trozo de la entrada, cuya duración es
+	 * la del cálculo, sin la E/S. Al decodificar, si la proporción de palabras
+	 * incorregibles del trozo supera el umbral, registra también un evento
+	 * {@link RafagaErrores}.
+	 */
+	@Name("es.uvigo.esei.tc.alejandrogg.hammer.Bloque")
+	@Label("Bloque")
+	@Description("Codificación o decodificación de un trozo de la entrada")
+	@Category(CATEGORIA)
+	@Enabled(false)
+	@StackTrace(false)
+	private static final class EventoBloque extends Event implements Bloque {
+		@Label("Operación")
+		String operacion;
+
+		@Label("Código")
+		String codigo;
+
+		@Label("Posición")
+		@Description("Posición del trozo en la entrada")
+		@DataAmount
+		long posicion;
+
+		@Label("Bytes de entrada")
+		@DataAmount
+		long bytesEntrada;
+
+		@Label("Bytes de salida")
+		@DataAmount
+		long bytesSalida;
+
+		@Label("Palabras corregidas")
+		long palabrasCorregidas;
+
+		@Label("Palabras incorregibles")
+		long palabrasIncorregibles;
+
+		// Los contadores de las estadísticas al empezar, que no se registran
+		private transient EstadisticasDecodificacion estadisticas;
+		private transient long correctasIniciales;
+		private transient long corregidasIniciales;
+		private transient long incorregiblesIniciales;
+
+		static EventoBloque iniciarCodificacion() {
+			final EventoBloque evento = new EventoBloque();
+			evento.operacion = "Codificación";
+			evento.begin();
+
+			return evento;
+		}
+
+		static EventoBloque iniciarDecodificacion(final EstadisticasDecodificacion estadisticas) {
+			final EventoBloque evento = new EventoBloque();
+			evento.operacion = "Decodificación";
+			evento.estadisticas = estadisticas;
+			evento.correctasIniciales = estadisticas.getPalabrasCorrectas();
+			evento.corregidasIniciales = estadisticas.getPalabrasCorregidas();
+			evento.incorregiblesIniciales = estadisticas.getPalabrasIncorregibles();
+			evento.begin();
+
+			return evento;
+		}
+
+		@Override
+		public void terminar(final CodigoLineal codigo, final long posicion, final long bytesEntrada, final long bytesSalida) {
+			end();
+
+			if (estadisticas != null) {
+				final long corregidas = estadisticas.getPalabrasCorregidas() - corregidasIniciales;
+				final long incorregibles = estadisticas.getPalabrasIncorregibles() - incorregiblesIniciales;
+
+				if (shouldCommit()) {
+					this.palabrasCorregidas = corregidas;
+					this.palabrasIncorregibles = incorregibles;
+				}
+
+				if (incorregibles > 0) {
+					RafagaErrores.comprobar(
+						codigo, posicion, estadisticas.getPalabrasCorrectas() - correctasIniciales + corregidas + incorregibles,
+						incorregibles
+					);
+				}
+			}
+
+			if (shouldCommit()) {
+				this.codigo = codigo.getNombre();
+				this.posicion = posicion;
+				this.bytesEntrada = bytesEntrada;
+				this.bytesSalida = bytesSalida;
+				commit();
+			}
+		}
+	}
+
+	/**
+	 * Una llamada de lectura o escritura a un flujo o fichero de la entrada o
+	 * salida.
+	 */
+	@Name("es.uvigo.esei.tc.alejandrogg.hammer.EntradaSalida")
+	@Label("Entrada/salida")
+	@Description("Llamada de lectura o escritura a la entrada o la salida")
+	@Category(CATEGORIA)
+	@Enabled(false)
+	private static final class EventoEntradaSalida extends Event implements EntradaSalida {
+		@Label("Operación")
+		String operacion;
+
+		@Label("Bytes")
+		@DataAmount
+		long bytes;
+
+		static EventoEntradaSalida iniciar() {
+			final EventoEntradaSalida evento = new EventoEntradaSalida();
+			evento.begin();
+
+			return evento;
+		}
+
+		@Override
+		public void terminarLectura(final long bytes) {
+			terminar("Lectura", Math.max(0, bytes));
+		}
+
+		@Override
+		public void terminarEscritura(final long bytes) {
+			terminar("Escritura", bytes);
+		}
+
+		private void terminar(final String operacion, final long bytes) {
+			end();
+
+			if (shouldCommit()) {
+				this.operacion = operacion;
+				this.bytes = bytes;
+				commit();
+			}
+		}
+	}
+
+	/**
+	 * Un trozo decodificado en el que la proporción de palabras incorregibles
+	 * supera el umbral, lo que indica una ráfaga de errores en el canal o un
+	 * fichero que no se ha codificado con el mismo código.
+	 */
+	@Name("es.uvigo.esei.tc.alejandrogg.hammer.RafagaErrores")
+	@Label("Ráfaga de errores")
+	@Description("Trozo decodificado con una proporción de palabras incorregibles superior al umbral")
+	@Category(CATEGORIA)
+	@Enabled(false)
+	@StackTrace(false)
+	private static final class RafagaErrores extends Event {
+		@Label("Código")
+		String codigo;
+
+		@Label("Posición")
+		@Description("Posición del trozo en la entrada")
+		@DataAmount
+		long posicion;
+
+		@Label("Palabras")
+		long palabras;
+
+		@Label("Palabras incorregibles")
+		long palabrasIncorregibles;
+
+		@Label("Proporción de incorregibles")
+		@Percentage
+		double proporcion;
+
+		@Label("Umbral")
+		@Percentage
+		double umbral;
+
+		/**
+		 * Registra el evento si la proporción de palabras incorregibles de un trozo
+		 * decodificado supera el umbral.
+		 *
+		 * @param codigo                El código con el que se ha decodificado.
+		 * @param posicion              La posición del trozo en la entrada.
+		 * @param palabras              Las palabras código del trozo.
+		 * @param palabrasIncorregibles Las palabras incorregibles del trozo.
+		 */
+		static void comprobar(
+			final CodigoLineal codigo, final long posicion, final long palabras, final long palabrasIncorregibles
+		) {
+			final RafagaErrores evento = new RafagaErrores();
+
+			if (evento.isEnabled() && palabrasIncorregibles > UMBRAL_RAFAGA * palabras) {
+				evento.codigo = codigo.getNombre();
+				evento.posicion = posicion;
+				evento.palabras = palabras;
+				evento.palabrasIncorregibles = palabrasIncorregibles;
+				evento.proporcion = (double) palabrasIncorregibles / palabras;
+				evento.umbral = UMBRAL_RAFAGA;
+				evento.commit();
+			}
+		}
+	}
+}
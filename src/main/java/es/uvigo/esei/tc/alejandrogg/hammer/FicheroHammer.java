@@ -0,0 +1,804 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Un contenedor de Hammer: un fichero codificado con un código lineal en bloques
+ * independientes de un tamaño fijo, con un índice que permite decodificar
+ * cualquier intervalo de bytes del original sin decodificar los anteriores.
+ * <p>
+ * El contenedor empieza por una cabecera con los 4 bytes {@code HMRC}, un byte
+ * con la versión del formato, el número de bytes fuente de cada bloque, como
+ * entero de 4 bytes, y el nombre del código, precedido de su longitud en un
+ * byte. A continuación están los bloques codificados, cada uno con su propio
+ * final de flujo, de manera que todos ocupan lo mismo salvo, quizás, el último.
+ * Tras ellos, el índice tiene, por cada bloque, su número de bytes fuente y el
+ * CRC-32 de éstos, ambos como enteros de 4 bytes, con los que se comprueba si
+ * cada bloque se ha decodificado correctamente. El contenedor termina con el
+ * número de bloques, como entero de 8 bytes, el CRC-32 del índice y los 4 bytes
+ * {@code HMRI}. Todos los enteros se escriben con el byte de mayor peso primero.
+ * Como el índice está al final, los contenedores se pueden escribir en flujos
+ * que no admiten acceso aleatorio, con {@link Escritor}.
+ * </p>
+ * <p>
+ * Los bloques se leen del fichero con lecturas posicionales, y los últimos
+ * bloques decodificados se conservan en una caché, de manera que las lecturas
+ * pequeñas y repetidas no vuelven a decodificarlos. Los bytes fuente
+ * incorregibles de un bloque se conservan como borrados, para no desplazar a
+ * los siguientes. Las instancias de esta clase son seguras para su uso
+ * concurrente.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+public final class FicheroHammer implements Closeable {
+	/**
+	 * El número predeterminado de bloques decodificados que se conservan en la
+	 * caché.
+	 */
+	public static final int BLOQUES_CACHE_PREDETERMINADOS = 16;
+
+	private static final byte[] MAGICO_CABECERA = { 'H', 'M', 'R', 'C' };
+	private static final byte[] MAGICO_PIE = { 'H', 'M', 'R', 'I' };
+	private static final byte VERSION = 1;
+	/**
+	 * El número de bytes de la cabecera sin contar el nombre del código.
+	 */
+	private static final int BYTES_CABECERA_FIJA = MAGICO_CABECERA.length + 1 + 4 + 1;
+	private static final int BYTES_ENTRADA_INDICE = 8;
+	private static final int BYTES_PIE = 8 + 4 + MAGICO_PIE.length;
+
+	private final FileChannel canal;
+	private final CodigoLineal codigo;
+	private final int bytesBloque;
+	private final long bytesCabecera;
+	private final long bytesBloqueCodificado;
+	private final long longitud;
+	private final int[] longitudesBloques;
+	private final int[] crcsBloques;
+	private final Map<Integer, BloqueDecodificado> cache;
+
+	private final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+	private long bytesLeidos = 0;
+	private long bytesDecodificados = 0;
+	private long bytesBorrados = 0;
+	private long bloquesIntegros = 0;
+	private long bloquesDanados = 0;
+	private long aciertosCache = 0;
+	private long fallosCache = 0;
+
+	/**
+	 * Abre un contenedor, decodificándolo con el código indicado en su cabecera.
+	 *
+	 * @param ruta La ruta del fichero del contenedor.
+	 * @throws IOException Si ocurre un error de E/S, o el fichero no es un
+	 *                     contenedor válido.
+	 * @throws IllegalArgumentException Si la ruta es nula, o el código del
+	 *                                  contenedor no es conocido.
+	 */
+	public FicheroHammer(final Path ruta) throws IOException {
+		this(ruta, BLOQUES_CACHE_PREDETERMINADOS);
+	}
+
+	/**
+	 * Abre un contenedor, decodificándolo con el código indicado en su cabecera.
+	 *
+	 * @param ruta          La ruta del fichero del contenedor.
+	 * @param bloquesCache El número máximo de bloques decodificados a conservar en
+	 *                      la caché.
+	 * @throws IOException Si ocurre un error de E/S, o el fichero no es un
+	 *                     contenedor válido.
+	 * @throws IllegalArgumentException Si la ruta es nula, el código del
+	 *                                  contenedor no es conocido, o el número de
+	 *                                  bloques de la caché es negativo.
+	 */
+	public FicheroHammer(final Path ruta, final int bloquesCache) throws IOException {
+		this(abrir(ruta), null, bloquesCache);
+	}
+
+	/**
+	 * Abre un contenedor a partir del canal de su fichero.
+	 *
+	 * @param canal        El canal del fichero del contenedor, que pasa a
+	 *                     pertenecer al contenedor.
+	 * @param codigo       El código con el que decodificar, que debe de tener el
+	 *                     nombre indicado en la cabecera, o {@code null} para
+	 *                     crearlo a partir de él.
+	 * @param bloquesCache El número máximo de bloques decodificados a conservar en
+	 *                     la caché.
+	 * @throws IOException Si ocurre un error de E/S, o el fichero no es un
+	 *                     contenedor válido.
+	 * @throws IllegalArgumentException Si el canal es nulo, el código no
+	 *                                  corresponde al del contenedor, o el número
+	 *                                  de bloques de la caché es negativo.
+	 */
+	FicheroHammer(final FileChannel canal, final CodigoLineal codigo, final int bloquesCache) throws IOException {
+		if (canal == null) {
+			throw new IllegalArgumentException("El canal no puede ser nulo");
+		}
+
+		if (bloquesCache < 0) {
+			throw new IllegalArgumentException("El número de bloques de la caché no puede ser negativo");
+		}
+
+		this.canal = canal;
+
+		try {
+			// Cabecera
+			final ByteBuffer cabeceraFija = leer(0, BYTES_CABECERA_FIJA);
+			comprobarMagico(cabeceraFija, MAGICO_CABECERA);
+
+			if (cabeceraFija.get() != VERSION) {
+				throw new IOException("La versión del formato del contenedor no es compatible");
+			}
+
+			this.bytesBloque = cabeceraFija.getInt();
+			final int bytesNombre = cabeceraFija.get() & 0xFF;
+			final String nombreCodigo = new String(
+				leer(BYTES_CABECERA_FIJA, bytesNombre).array(), StandardCharsets.US_ASCII
+			);
+
+			if (bytesBloque < 1) {
+				throw new IOException("El tamaño de bloque del contenedor no es válido");
+			}
+
+			if (codigo == null) {
+				this.codigo = CodigoLineal.crear(nombreCodigo);
+			} else if (codigo.getNombre().equals(nombreCodigo)) {
+				this.codigo = codigo;
+			} else {
+				throw new IllegalArgumentException(
+					"El contenedor se ha codificado con el código " + nombreCodigo + ", y no con " + codigo.getNombre()
+				);
+			}
+
+			this.bytesCabecera = BYTES_CABECERA_FIJA + bytesNombre;
+			this.bytesBloqueCodificado = this.codigo.getLongitudCodificada(bytesBloque);
+
+			// Pie e índice
+			final long bytesFichero = canal.size();
+			if (bytesFichero < bytesCabecera + BYTES_PIE) {
+				throw new IOException("El contenedor está truncado");
+			}
+
+			final ByteBuffer pie = leer(bytesFichero - BYTES_PIE, BYTES_PIE);
+			final long numeroBloques = pie.getLong();
+			final int crcIndice = pie.getInt();
+			comprobarMagico(pie, MAGICO_PIE);
+
+			if (numeroBloques < 0 || numeroBloques > (bytesFichero - bytesCabecera - BYTES_PIE) / BYTES_ENTRADA_INDICE) {
+				throw new IOException("El número de bloques del contenedor no es válido");
+			}
+
+			final long bytesIndice = numeroBloques * BYTES_ENTRADA_INDICE;
+			final ByteBuffer indice = leer(bytesFichero - BYTES_PIE - bytesIndice, (int) bytesIndice);
+			final CRC32 crc = new CRC32();
+			crc.update(indice.array());
+			if ((int) crc.getValue() != crcIndice) {
+				throw new IOException("El índice del contenedor está dañado");
+			}
+
+			this.longitudesBloques = new int[(int) numeroBloques];
+			this.crcsBloques = new int[(int) numeroBloques];
+			long longitudTotal = 0;
+			for (int i = 0; i < numeroBloques; ++i) {
+				longitudesBloques[i] = indice.getInt();
+				crcsBloques[i] = indice.getInt();
+
+				// Todos los bloques están completos, salvo, quizás, el último
+				if (longitudesBloques[i] < 1 || longitudesBloques[i] > bytesBloque ||
+					i < numeroBloques - 1 && longitudesBloques[i] != bytesBloque
+				) {
+					throw new IOException("La longitud de un bloque del contenedor no es válida");
+				}
+
+				longitudTotal += longitudesBloques[i];
+			}
+			this.longitud = longitudTotal;
+
+			final long bytesBloques = numeroBloques > 0 ?
+				(numeroBloques - 1) * bytesBloqueCodificado + this.codigo.getLongitudCodificada(longitudesBloques[(int) numeroBloques - 1]) :
+				0;
+			if (bytesCabecera + bytesBloques + bytesIndice + BYTES_PIE != bytesFichero) {
+				throw new IOException("La longitud del contenedor no coincide con la de sus bloques");
+			}
+		} catch (final IOException | RuntimeException exc) {
+			canal.close();
+			throw exc;
+		}
+
+		this.cache = new LinkedHashMap<Integer, BloqueDecodificado>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Integer, BloqueDecodificado> mayor) {
+				return size() > bloquesCache;
+			}
+		};
+	}
+
+	/**
+	 * Obtiene el nombre del código con el que se ha codificado el contenedor.
+	 *
+	 * @return El devandicho nombre.
+	 */
+	public String getNombreCodigo() {
+		return codigo.getNombre();
+	}
+
+	/**
+	 * Obtiene el código con el que se ha codificado el contenedor.
+	 *
+	 * @return El devandicho código.
+	 */
+	CodigoLineal getCodigo() {
+		return codigo;
+	}
+
+	/**
+	 * Obtiene la longitud de los bytes fuente del contenedor.
+	 *
+	 * @return La devandicha longitud.
+	 */
+	public long getLongitud() {
+		return longitud;
+	}
+
+	/**
+	 * Obtiene el número de bytes fuente de cada bloque del contenedor, salvo,
+	 * quizás, el último.
+	 *
+	 * @return El devandicho número.
+	 */
+	public int getBytesBloque() {
+		return bytesBloque;
+	}
+
+	/**
+	 * Obtiene el número de bloques del contenedor.
+	 *
+	 * @return El devandicho número.
+	 */
+	public int getNumeroBloques() {
+		return longitudesBloques.length;
+	}
+
+	/**
+	 * Lee bytes fuente del contenedor a partir de una posición, decodificando los
+	 * bloques que los contienen si no están en la caché.
+	 *
+	 * @param posicion       La posición del primer byte fuente a leer.
+	 * @param destino        El array donde escribir los bytes leídos.
+	 * @param desplazamiento La posición de {@code destino} a partir de la cual
+	 *                       escribir.
+	 * @param bytes          El número máximo de bytes a leer.
+	 * @return El número de bytes leídos, que solo es menor que {@code bytes} si se
+	 *         ha llegado al final del contenedor, o -1 si la posición está más
+	 *         allá del final y {@code bytes} es positivo.
+	 * @throws IOException Si ocurre un error de E/S.
+	 * @throws IllegalArgumentException Si la posición es negativa, o el intervalo
+	 *                                  indicado no está contenido en el array.
+	 */
+	public int leer(final long posicion, final byte[] destino, final int desplazamiento, final int bytes) throws IOException {
+		if (posicion < 0) {
+			throw new IllegalArgumentException("La posición no puede ser negativa");
+		}
+
+		CodigoLineal.comprobarIntervalo(destino, desplazamiento, bytes);
+
+		if (bytes == 0) {
+			return 0;
+		}
+
+		if (posicion >= longitud) {
+			return -1;
+		}
+
+		final int leidos = (int) Math.min(bytes, longitud - posicion);
+		int copiados = 0;
+		while (copiados < leidos) {
+			final long posicionActual = posicion + copiados;
+			final byte[] datos = getBloque((int) (posicionActual / bytesBloque)).datos;
+			final int desde = (int) (posicionActual % bytesBloque);
+			final int copiadosBloque = Math.min(leidos - copiados, datos.length - desde);
+
+			System.arraycopy(datos, desde, destino, desplazamiento + copiados, copiadosBloque);
+			copiados += copiadosBloque;
+		}
+
+		return leidos;
+	}
+
+	/**
+	 * Escribe en un flujo los bytes fuente de un intervalo del contenedor,
+	 * decodificando los bloques que los contienen si no están en la caché.
+	 *
+	 * @param desde  La posición del primer byte fuente a escribir.
+	 * @param hasta  La posición siguiente al último byte fuente a escribir. Si está
+	 *               más allá del final del contenedor, se escribe hasta el final.
+	 * @param salida El flujo donde escribir.
+	 * @return El número de bytes escritos.
+	 * @throws IOException Si ocurre un error de E/S.
+	 * @throws IllegalArgumentException Si el flujo es nulo, {@code desde} es
+	 *                                  negativo o {@code hasta} es menor que
+	 *                                  {@code desde}.
+	 */
+	public long transferir(final long desde, final long hasta, final OutputStream salida) throws IOException {
+		if (salida == null) {
+			throw new IllegalArgumentException("El flujo de salida no puede ser nulo");
+		}
+
+		if (desde < 0 || hasta < desde) {
+			throw new IllegalArgumentException("El intervalo a transferir no es válido");
+		}
+
+		final long fin = Math.min(hasta, longitud);
+		long posicion = desde;
+		while (posicion < fin) {
+			final byte[] datos = getBloque((int) (posicion / bytesBloque)).datos;
+			final int desdeBloque = (int) (posicion % bytesBloque);
+			final int bytesEscritos = (int) Math.min(fin - posicion, datos.length - desdeBloque);
+
+			salida.write(datos, desdeBloque, bytesEscritos);
+			posicion += bytesEscritos;
+		}
+
+		return Math.max(0, fin - desde);
+	}
+
+	/**
+	 * Obtiene el número de bytes codificados leídos del contenedor hasta el
+	 * momento, sin contar su cabecera ni su índice.
+	 *
+	 * @return El devandicho número.
+	 */
+	public synchronized long getBytesLeidos() {
+		return bytesLeidos;
+	}
+
+	/**
+	 * Obtiene el número de bytes fuente decodificados hasta el momento. Los
+	 * bloques que se vuelven a decodificar tras salir de la caché se cuentan cada
+	 * vez.
+	 *
+	 * @return El devandicho número.
+	 */
+	public synchronized long getBytesDecodificados() {
+		return bytesDecodificados;
+	}
+
+	/**
+	 * Obtiene el número de bytes fuente decodificados hasta el momento que no se
+	 * han podido recuperar, y se han conservado como borrados.
+	 *
+	 * @return El devandicho número.
+	 */
+	public synchronized long getBytesBorrados() {
+		return bytesBorrados;
+	}
+
+	/**
+	 * Obtiene el número de bloques decodificados hasta el momento cuyo CRC-32
+	 * coincide con el del índice.
+	 *
+	 * @return El devandicho número.
+	 */
+	public synchronized long getBloquesIntegros() {
+		return bloquesIntegros;
+	}
+
+	/**
+	 * Obtiene el número de bloques decodificados hasta el momento cuyo CRC-32 no
+	 * coincide con el del índice, por contener errores que no se han podido
+	 * corregir.
+	 *
+	 * @return El devandicho número.
+	 */
+	public synchronized long getBloquesDanados() {
+		return bloquesDanados;
+	}
+
+	/**
+	 * Obtiene el número de veces que un bloque se ha encontrado en la caché.
+	 *
+	 * @return El devandicho número.
+	 */
+	public synchronized long getAciertosCache() {
+		return aciertosCache;
+	}
+
+	/**
+	 * Obtiene el número de veces que un bloque no se ha encontrado en la caché, y
+	 * se ha tenido que decodificar.
+	 *
+	 * @return El devandicho número.
+	 */
+	public synchronized long getFallosCache() {
+		return fallosCache;
+	}
+
+	/**
+	 * Obtiene las estadísticas de la decodificación de los bloques decodificados
+	 * hasta el momento.
+	 *
+	 * @return Una copia de las devandichas estadísticas.
+	 */
+	synchronized EstadisticasDecodificacion getEstadisticas() {
+		final EstadisticasDecodificacion copia = new EstadisticasDecodificacion();
+		copia.acumular(estadisticas);
+
+		return copia;
+	}
+
+	@Override
+	public void close() throws IOException {
+		canal.close();
+	}
+
+	/**
+	 * Obtiene un bloque decodificado, de la caché si está en ella, o
+	 * decodificándolo en otro caso.
+	 *
+	 * @param bloque El índice del bloque.
+	 * @return El bloque decodificado.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private BloqueDecodificado getBloque(final int bloque) throws IOException {
+		synchronized (this) {
+			final BloqueDecodificado decodificado = cache.get(bloque);
+
+			if (decodificado != null) {
+				++aciertosCache;
+				return decodificado;
+			}
+
+			++fallosCache;
+		}
+
+		// Decodificar fuera del cerrojo, para que otros hilos puedan leer a la vez
+		// otros bloques
+		final BloqueDecodificado decodificado = decodificarBloque(bloque);
+
+		synchronized (this) {
+			cache.put(bloque, decodificado);
+		}
+
+		return decodificado;
+	}
+
+	/**
+	 * Lee y decodifica un bloque del contenedor, y acumula el resultado en las
+	 * estadísticas.
+	 *
+	 * @param bloque El índice del bloque.
+	 * @return El bloque decodificado.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private BloqueDecodificado decodificarBloque(final int bloque) throws IOException {
+		final int bytesFuente = longitudesBloques[bloque];
+		final byte[] codificado = leer(
+			bytesCabecera + bloque * bytesBloqueCodificado, (int) codigo.getLongitudCodificada(bytesFuente)
+		).array();
+		final byte[] decodificado = new byte[(codificado.length / codigo.getBytesBloqueCodigo() + 1) * codigo.getBytesBloqueFuente()];
+
+		// Conservar los bytes incorregibles como borrados, para que los siguientes
+		// sigan en su posición
+		final EstadisticasDecodificacion estadisticasBloque = new EstadisticasDecodificacion(new MapaBorrados());
+
+		int procesables = Math.max(0, codificado.length - codigo.getBytesRetenidosDecodificacion());
+		procesables -= procesables % codigo.getBytesBloqueCodigo();
+
+		int decodificados = codigo.decodificar(codificado, 0, procesables, decodificado, 0, estadisticasBloque);
+		decodificados += codigo.decodificarFinal(
+			codificado, procesables, codificado.length - procesables, decodificado, decodificados, estadisticasBloque
+		);
+
+		// Si el final del bloque está dañado, su longitud puede no coincidir
+		final byte[] datos = Arrays.copyOf(decodificado, bytesFuente);
+		final CRC32 crc = new CRC32();
+		crc.update(datos);
+		final boolean integro = (int) crc.getValue() == crcsBloques[bloque] && decodificados == bytesFuente;
+
+		synchronized (this) {
+			estadisticas.acumular(estadisticasBloque);
+			bytesLeidos += codificado.length;
+			bytesDecodificados += bytesFuente;
+			bytesBorrados += Math.min(bytesFuente, estadisticasBloque.getBytesBorrados());
+
+			if (integro) {
+				++bloquesIntegros;
+			} else {
+				++bloquesDanados;
+			}
+		}
+
+		return new BloqueDecodificado(datos);
+	}
+
+	/**
+	 * Lee completamente un intervalo del fichero del contenedor.
+	 *
+	 * @param posicion La posición del primer byte a leer.
+	 * @param bytes    El número de bytes a leer.
+	 * @return Un búfer con los bytes leídos, respaldado por un array y en la
+	 *         posición 0.
+	 * @throws IOException Si ocurre un error de E/S, o el fichero termina antes.
+	 */
+	private ByteBuffer leer(final long posicion, final int bytes) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(bytes);
+
+		Procesador.leerCompletamente(canal, buffer, posicion);
+		// Conversión a Buffer por compatibilidad binaria con Java 8
+		((Buffer) buffer).flip();
+
+		return buffer;
+	}
+
+	private static void comprobarMagico(final ByteBuffer buffer, final byte[] magico) throws IOException {
+		final byte[] leido = new byte[magico.length];
+		buffer.get(leido);
+
+		if (!Arrays.equals(leido, magico)) {
+			throw new IOException("El fichero no es un contenedor de Hammer");
+		}
+	}
+
+	private static FileChannel abrir(final Path ruta) throws IOException {
+		if (ruta == null) {
+			throw new IllegalArgumentException("La ruta no puede ser nula");
+		}
+
+		return FileChannel.open(ruta);
+	}
+
+	/**
+	 * Un bloque del contenedor decodificado.
+	 */
+	private static final class BloqueDecodificado {
+		private final byte[] datos;
+
+		private BloqueDecodificado(final byte[] datos) {
+			this.datos = datos;
+		}
+	}
+
+	/**
+	 * Flujo de salida que escribe en el flujo subyacente un contenedor con los
+	 * bytes que se escriben en él, codificados por bloques.
+	 * <p>
+	 * Las instancias de esta clase no son seguras para su uso concurrente.
+	 * </p>
+	 */
+	public static final class Escritor extends FilterOutputStream {
+		private final CodigoLineal codigo;
+		private final IntroductorErrores introductorErrores;
+		private final byte[] bufferFuente;
+		private final byte[] bufferCodigo;
+		private final ByteArrayOutputStream bytesIndice = new ByteArrayOutputStream();
+		private final DataOutputStream indice = new DataOutputStream(bytesIndice);
+		private final CRC32 crc = new CRC32();
+
+		private int bytesBufferFuente = 0;
+		private long bytesLeidos = 0;
+		private long bytesEscritos = 0;
+		private long bytesBloquesEscritos = 0;
+		private long numeroBloques = 0;
+		private boolean terminado = false;
+
+		/**
+		 * Crea un flujo que escribe un contenedor codificado con el código indicado,
+		 * y escribe la cabecera del contenedor.
+		 *
+		 * @param salida       El flujo subyacente donde escribir el contenedor.
+		 * @param nombreCodigo El nombre del código, en el formato aceptado por la
+		 *                     opción {@code --codigo} de la aplicación.
+		 * @param bytesBloque  El número de bytes fuente de cada bloque.
+		 * @throws IOException Si ocurre un error de E/S.
+		 * @throws IllegalArgumentException Si el flujo es nulo, el nombre no
+		 *                                  corresponde a ningún código conocido, o
+		 *                                  el tamaño de bloque no es válido.
+		 */
+		public Escritor(final OutputStream salida, final String nombreCodigo, final int bytesBloque) throws IOException {
+			this(salida, CodigoLineal.crear(nombreCodigo), bytesBloque, IntroductorErrores.ninguno());
+		}
+
+		/**
+		 * Crea un flujo que escribe un contenedor codificado con el código indicado,
+		 * introduciendo errores en los bloques codificados, y escribe la cabecera
+		 * del contenedor. La cabecera y el índice no se corrompen.
+		 *
+		 * @param salida             El flujo subyacente donde escribir el
+		 *                           contenedor.
+		 * @param codigo             El código con el que codificar.
+		 * @param bytesBloque        El número de bytes fuente de cada bloque.
+		 * @param introductorErrores El introductor de errores a usar. Los errores
+		 *                           se introducen según la posición de cada byte
+		 *                           en la sucesión de bloques codificados.
+		 * @throws IOException Si ocurre un error de E/S.
+		 * @throws IllegalArgumentException Si algún parámetro es nulo, o el tamaño
+		 *                                  de bloque no es válido.
+		 */
+		Escritor(
+			final OutputStream salida, final CodigoLineal codigo, final int bytesBloque,
+			final IntroductorErrores introductorErrores
+		) throws IOException {
+			super(salida);
+
+			if (salida == null || codigo == null || introductorErrores == null) {
+				throw new IllegalArgumentException("El flujo, el código y el introductor de errores no pueden ser nulos");
+			}
+
+			if (bytesBloque < 1 || codigo.getLongitudCodificada(bytesBloque) > Integer.MAX_VALUE - 8) {
+				throw new IllegalArgumentException("El tamaño de bloque del contenedor no es válido");
+			}
+
+			final byte[] nombreCodigo = codigo.getNombre().getBytes(StandardCharsets.US_ASCII);
+			if (nombreCodigo.length > 0xFF) {
+				throw new IllegalArgumentException("El nombre del código es demasiado largo");
+			}
+
+			this.codigo = codigo;
+			this.introductorErrores = introductorErrores;
+			this.bufferFuente = new byte[bytesBloque];
+			this.bufferCodigo = new byte[(int) codigo.getLongitudCodificada(bytesBloque)];
+
+			final ByteBuffer cabecera = ByteBuffer.allocate(BYTES_CABECERA_FIJA + nombreCodigo.length);
+			cabecera.put(MAGICO_CABECERA).put(VERSION).putInt(bytesBloque).put((byte) nombreCodigo.length).put(nombreCodigo);
+			escribir(cabecera.array(), cabecera.capacity());
+		}
+
+		/**
+		 * Obtiene el número de bytes fuente escritos en este flujo hasta el momento.
+		 *
+		 * @return El devandicho número.
+		 */
+		public long getBytesLeidos() {
+			return bytesLeidos;
+		}
+
+		/**
+		 * Obtiene el número de bytes del contenedor escritos en el flujo subyacente
+		 * hasta el momento.
+		 *
+		 * @return El devandicho número.
+		 */
+		public long getBytesEscritos() {
+			return bytesEscritos;
+		}
+
+		/**
+		 * Obtiene el número de errores (bits negados) introducidos en los bloques
+		 * codificados hasta el momento.
+		 *
+		 * @return El devandicho número.
+		 */
+		public long getErroresIntroducidos() {
+			return introductorErrores.getErroresIntroducidos();
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			if (off < 0 || len < 0 || off > b.length - len) {
+				throw new IndexOutOfBoundsException();
+			}
+
+			if (terminado) {
+				throw new IOException("No se pueden escribir más bytes en un contenedor terminado");
+			}
+
+			int copiados = 0;
+			while (copiados < len) {
+				final int copiadosBloque = Math.min(len - copiados, bufferFuente.length - bytesBufferFuente);
+
+				System.arraycopy(b, off + copiados, bufferFuente, bytesBufferFuente, copiadosBloque);
+				bytesBufferFuente += copiadosBloque;
+				copiados += copiadosBloque;
+
+				if (bytesBufferFuente == bufferFuente.length) {
+					escribirBloque();
+				}
+			}
+
+			bytesLeidos += len;
+		}
+
+		/**
+		 * Codifica y escribe el último bloque, si está incompleto, y el índice del
+		 * contenedor, sin cerrar el flujo subyacente. Después de terminar, no se
+		 * pueden escribir más bytes en este flujo. Si ya se ha terminado, no hace
+		 * nada.
+		 *
+		 * @throws IOException Si ocurre un error de E/S.
+		 */
+		public void terminar() throws IOException {
+			if (!terminado) {
+				if (bytesBufferFuente > 0) {
+					escribirBloque();
+				}
+
+				indice.flush();
+				final byte[] entradas = bytesIndice.toByteArray();
+				crc.reset();
+				crc.update(entradas);
+
+				final ByteBuffer pie = ByteBuffer.allocate(BYTES_PIE);
+				pie.putLong(numeroBloques).putInt((int) crc.getValue()).put(MAGICO_PIE);
+
+				escribir(entradas, entradas.length);
+				escribir(pie.array(), pie.capacity());
+
+				terminado = true;
+			}
+
+			out.flush();
+		}
+
+		/**
+		 * Termina este flujo, como {@link #terminar()}, y cierra el flujo
+		 * subyacente.
+		 *
+		 * @throws IOException Si ocurre un error de E/S.
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				terminar();
+			} finally {
+				out.close();
+			}
+		}
+
+		/**
+		 * Codifica el bloque del búfer interno, con su propio final de flujo, lo
+		 * escribe y añade su entrada al índice.
+		 *
+		 * @throws IOException Si ocurre un error de E/S.
+		 */
+		private void escribirBloque() throws IOException {
+			final int bytesBloques = bytesBufferFuente - bytesBufferFuente % codigo.getBytesBloqueFuente();
+
+			int codificados = codigo.codificar(bufferFuente, 0, bytesBloques, bufferCodigo, 0);
+			codificados += codigo.codificarFinal(
+				bufferFuente, bytesBloques, bytesBufferFuente - bytesBloques, bufferCodigo, codificados
+			);
+
+			introductorErrores.introducir(bufferCodigo, 0, codificados, bytesBloquesEscritos);
+			escribir(bufferCodigo, codificados);
+			bytesBloquesEscritos += codificados;
+
+			crc.reset();
+			crc.update(bufferFuente, 0, bytesBufferFuente);
+			indice.writeInt(bytesBufferFuente);
+			indice.writeInt((int) crc.getValue());
+
+			++numeroBloques;
+			bytesBufferFuente = 0;
+		}
+
+		private void escribir(final byte[] bytes, final int longitud) throws IOException {
+			out.write(bytes, 0, longitud);
+			bytesEscritos += longitud;
+		}
+	}
+}
@@ -0,0 +1,276 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Flujo de entrada que decodifica con un código lineal los bytes leídos del
+ * flujo subyacente, corrigiendo los errores que sea posible. El resultado es
+ * idéntico al de decodificar todos los bytes de una vez con la aplicación.
+ * <p>
+ * Los bytes codificados se leen y decodifican por bloques completos en un búfer
+ * interno, del que se sirven las lecturas. Como el final de un flujo codificado
+ * puede decodificarse de manera distinta al resto, los últimos bytes leídos del
+ * flujo subyacente no se decodifican hasta llegar a su final. Las estadísticas
+ * de la decodificación se pueden consultar en cualquier momento, y reflejan los
+ * bloques decodificados hasta entonces.
+ * </p>
+ * <p>
+ * Este flujo no admite marcas. Las instancias de esta clase no son seguras para
+ * su uso concurrente.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+public final class FlujoEntradaHamming extends FilterInputStream {
+	/**
+	 * El número aproximado de bytes codificados del búfer interno.
+	 */
+	static final int TAMANO_BUFFER = 64 * 1024;
+
+	private final CodigoLineal codigo;
+	private final EstadisticasDecodificacion estadisticas;
+	private final byte[] bufferCodigo;
+	private final byte[] bufferDecodificado;
+
+	private int bytesBufferCodigo = 0;
+	private int posicionBufferDecodificado = 0;
+	private int bytesBufferDecodificado = 0;
+	private long bytesDecodificados = 0;
+	private boolean finAlcanzado = false;
+
+	/**
+	 * Crea un flujo de entrada que decodifica con el código Hamming ampliado (3,
+	 * 2).
+	 *
+	 * @param entrada El flujo subyacente del que leer los bytes codificados.
+	 * @throws IllegalArgumentException Si el flujo es nulo.
+	 */
+	public FlujoEntradaHamming(final InputStream entrada) {
+		this(entrada, new HammingAmpliado3_2(), new EstadisticasDecodificacion());
+	}
+
+	/**
+	 * Crea un flujo de entrada que decodifica con el código indicado.
+	 *
+	 * @param entrada      El flujo subyacente del que leer los bytes
+	 *                     codificados.
+	 * @param nombreCodigo El nombre del código, como {@code hamming:4} o
+	 *                     {@code hamming-ampliado:3}, en el formato aceptado por la
+	 *                     opción {@code --codigo} de la aplicación.
+	 * @throws IllegalArgumentException Si el flujo es nulo, o el nombre no
+	 *                                  corresponde a ningún código conocido.
+	 */
+	public FlujoEntradaHamming(final InputStream entrada, final String nombreCodigo) {
+		this(entrada, CodigoLineal.crear(nombreCodigo), new EstadisticasDecodificacion());
+	}
+
+	/**
+	 * Crea un flujo de entrada que decodifica con el código indicado, acumulando
+	 * el resultado en las estadísticas dadas.
+	 *
+	 * @param entrada      El flujo subyacente del que leer los bytes
+	 *                     codificados.
+	 * @param codigo       El código con el que decodificar.
+	 * @param estadisticas Las estadísticas donde acumular el resultado de la
+	 *                     decodificación. Si conservan los borrados, los índices
+	 *                     de los bytes borrados son sus posiciones en este flujo.
+	 * @throws IllegalArgumentException Si algún parámetro es nulo.
+	 */
+	FlujoEntradaHamming(
+		final InputStream entrada, final CodigoLineal codigo, final EstadisticasDecodificacion estadisticas
+	) {
+		super(entrada);
+
+		if (entrada == null || codigo == null || estadisticas == null) {
+			throw new IllegalArgumentException("El flujo, el código y las estadísticas no pueden ser nulos");
+		}
+
+		final int bloques = Math.max(1, TAMANO_BUFFER / codigo.getBytesBloqueCodigo());
+
+		this.codigo = codigo;
+		this.estadisticas = estadisticas;
+		this.bufferCodigo = new byte[bloques * codigo.getBytesBloqueCodigo() + codigo.getBytesRetenidosDecodificacion()];
+		// El final del flujo puede decodificarse en un bloque fuente más
+		this.bufferDecodificado = new byte[(bloques + 1) * codigo.getBytesBloqueFuente()];
+	}
+
+	/**
+	 * Obtiene el número de palabras código decodificadas hasta el momento que no
+	 * tenían errores.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getPalabrasCorrectas() {
+		return estadisticas.getPalabrasCorrectas();
+	}
+
+	/**
+	 * Obtiene el número de palabras código decodificadas hasta el momento en las
+	 * que se han corregido errores.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getPalabrasCorregidas() {
+		return estadisticas.getPalabrasCorregidas();
+	}
+
+	/**
+	 * Obtiene el número de palabras código decodificadas hasta el momento con
+	 * errores que no se han podido corregir.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getPalabrasIncorregibles() {
+		return estadisticas.getPalabrasIncorregibles();
+	}
+
+	/**
+	 * Obtiene el número de bytes fuente descartados hasta el momento por
+	 * pertenecer a palabras código incorregibles.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getBytesDescartados() {
+		return estadisticas.getBytesDescartados();
+	}
+
+	/**
+	 * Obtiene las estadísticas donde se acumula el resultado de la
+	 * decodificación.
+	 *
+	 * @return Las devandichas estadísticas.
+	 */
+	EstadisticasDecodificacion getEstadisticas() {
+		return estadisticas;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (posicionBufferDecodificado == bytesBufferDecodificado && !rellenar()) {
+			return -1;
+		}
+
+		return bufferDecodificado[posicionBufferDecodificado++] & 0xFF;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+		if (off < 0 || len < 0 || off > b.length - len) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		if (len == 0) {
+			return 0;
+		}
+
+		if (posicionBufferDecodificado == bytesBufferDecodificado && !rellenar()) {
+			return -1;
+		}
+
+		final int leidos = Math.min(len, bytesBufferDecodificado - posicionBufferDecodificado);
+		System.arraycopy(bufferDecodificado, posicionBufferDecodificado, b, off, leidos);
+		posicionBufferDecodificado += leidos;
+
+		return leidos;
+	}
+
+	/**
+	 * Salta bytes decodificados de este flujo. Como los bytes decodificados no se
+	 * corresponden con un número fijo de bytes codificados, se leen y decodifican
+	 * los bytes saltados.
+	 *
+	 * @param n El número de bytes a saltar.
+	 * @return El número de bytes saltados, que solo es menor que {@code n} si se
+	 *         ha llegado al final del flujo.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	@Override
+	public long skip(final long n) throws IOException {
+		long saltados = 0;
+
+		while (saltados < n && (posicionBufferDecodificado < bytesBufferDecodificado || rellenar())) {
+			final int saltadosBuffer = (int) Math.min(n - saltados, bytesBufferDecodificado - posicionBufferDecodificado);
+			posicionBufferDecodificado += saltadosBuffer;
+			saltados += saltadosBuffer;
+		}
+
+		return saltados;
+	}
+
+	/**
+	 * Obtiene el número de bytes decodificados que se pueden leer sin bloquear,
+	 * que son los que quedan en el búfer interno.
+	 *
+	 * @return El devandicho número.
+	 */
+	@Override
+	public int available() {
+		return bytesBufferDecodificado - posicionBufferDecodificado;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public void mark(final int readlimit) {
+		// No se admiten marcas
+	}
+
+	@Override
+	public void reset() throws IOException {
+		throw new IOException("Este flujo no admite marcas");
+	}
+
+	/**
+	 * Lee bytes codificados del flujo subyacente y los decodifica en el búfer
+	 * interno, que debe de estar vacío, hasta obtener algún byte decodificado o
+	 * llegar al final del flujo.
+	 *
+	 * @return Verdadero si se han obtenido bytes decodificados, falso si se ha
+	 *         llegado al final del flujo.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private boolean rellenar() throws IOException {
+		posicionBufferDecodificado = 0;
+		bytesBufferDecodificado = 0;
+
+		while (bytesBufferDecodificado == 0 && !finAlcanzado) {
+			final int leidos = in.read(bufferCodigo, bytesBufferCodigo, bufferCodigo.length - bytesBufferCodigo);
+			final boolean esFinal = leidos < 0;
+
+			if (!esFinal) {
+				bytesBufferCodigo += leidos;
+			}
+
+			int procesables = Math.max(0, bytesBufferCodigo - codigo.getBytesRetenidosDecodificacion());
+			procesables -= procesables % codigo.getBytesBloqueCodigo();
+
+			estadisticas.setDesplazamientoBorrados(bytesDecodificados);
+
+			int decodificados = codigo.decodificar(bufferCodigo, 0, procesables, bufferDecodificado, 0, estadisticas);
+			if (esFinal) {
+				decodificados += codigo.decodificarFinal(
+					bufferCodigo, procesables, bytesBufferCodigo - procesables, bufferDecodificado, decodificados,
+					estadisticas
+				);
+				procesables = bytesBufferCodigo;
+				finAlcanzado = true;
+			}
+
+			// Conservar los bytes que no se han decodificado para la siguiente lectura
+			System.arraycopy(bufferCodigo, procesables, bufferCodigo, 0, bytesBufferCodigo - procesables);
+			bytesBufferCodigo -= procesables;
+
+			bytesBufferDecodificado = decodificados;
+			bytesDecodificados += decodificados;
+		}
+
+		return bytesBufferDecodificado > 0;
+	}
+}
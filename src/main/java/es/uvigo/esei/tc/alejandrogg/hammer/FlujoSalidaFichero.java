@@ -0,0 +1,65 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Flujo de salida que escribe en un fichero a través de un canal abierto para
+ * lectura y escritura. A diferencia del canal de un
+ * {@link java.io.FileOutputStream}, que solo admite escritura, este canal se
+ * puede proyectar en memoria para escribir directamente sobre él.
+ *
+ * @author Alejandro González García
+ */
+final class FlujoSalidaFichero extends OutputStream {
+	private final FileChannel canal;
+
+	/**
+	 * Crea un flujo de salida que escribe en el fichero especificado, creándolo si
+	 * no existe, o truncándolo si existe.
+	 *
+	 * @param ruta La ruta del fichero.
+	 * @throws IOException Si no se puede abrir el fichero.
+	 */
+	public FlujoSalidaFichero(final Path ruta) throws IOException {
+		this.canal = FileChannel.open(
+			ruta,
+			StandardOpenOption.READ, StandardOpenOption.WRITE,
+			StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING
+		);
+	}
+
+	/**
+	 * Obtiene el canal sobre el que escribe este flujo.
+	 *
+	 * @return El devandicho canal.
+	 */
+	public FileChannel getCanal() {
+		return canal;
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+
+		while (buffer.hasRemaining()) {
+			canal.write(buffer);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		canal.close();
+	}
+}
@@ -0,0 +1,267 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Flujo de salida que codifica con un código lineal los bytes que se escriben
+ * en él, antes de escribirlos en el flujo subyacente. El resultado es idéntico
+ * al de codificar todos los bytes de una vez con la aplicación, así que se puede
+ * decodificar con ella o con un {@link FlujoEntradaHamming}.
+ * <p>
+ * Los bytes escritos se acumulan en un búfer interno, y se codifican y escriben
+ * por bloques completos en cuanto se llena, o al vaciar el flujo. Las escrituras
+ * de arrays grandes se codifican directamente desde el array, sin copiarlas al
+ * búfer. Como los bytes que no completan un bloque solo se pueden codificar al
+ * final del flujo, deben de codificarse llamando a {@link #terminar()} o
+ * {@link #close()}.
+ * </p>
+ * <p>
+ * Las instancias de esta clase no son seguras para su uso concurrente.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+public final class FlujoSalidaHamming extends FilterOutputStream {
+	/**
+	 * El número aproximado de bytes fuente del búfer interno.
+	 */
+	static final int TAMANO_BUFFER = 64 * 1024;
+
+	private final CodigoLineal codigo;
+	private final IntroductorErrores introductorErrores;
+	private final byte[] bufferFuente;
+	private final byte[] bufferCodigo;
+
+	private int bytesBufferFuente = 0;
+	private long bytesLeidos = 0;
+	private long bytesEscritos = 0;
+	private boolean terminado = false;
+
+	/**
+	 * Crea un flujo de salida que codifica con el código Hamming ampliado (3, 2).
+	 *
+	 * @param salida El flujo subyacente donde escribir los bytes codificados.
+	 * @throws IllegalArgumentException Si el flujo es nulo.
+	 */
+	public FlujoSalidaHamming(final OutputStream salida) {
+		this(salida, new HammingAmpliado3_2(), IntroductorErrores.ninguno());
+	}
+
+	/**
+	 * Crea un flujo de salida que codifica con el código indicado.
+	 *
+	 * @param salida       El flujo subyacente donde escribir los bytes
+	 *                     codificados.
+	 * @param nombreCodigo El nombre del código, como {@code hamming:4} o
+	 *                     {@code hamming-ampliado:3}, en el formato aceptado por la
+	 *                     opción {@code --codigo} de la aplicación.
+	 * @throws IllegalArgumentException Si el flujo es nulo, o el nombre no
+	 *                                  corresponde a ningún código conocido.
+	 */
+	public FlujoSalidaHamming(final OutputStream salida, final String nombreCodigo) {
+		this(salida, CodigoLineal.crear(nombreCodigo), IntroductorErrores.ninguno());
+	}
+
+	/**
+	 * Crea un flujo de salida que codifica con el código indicado, introduciendo
+	 * errores en los bytes codificados.
+	 *
+	 * @param salida             El flujo subyacente donde escribir los bytes
+	 *                           codificados.
+	 * @param codigo             El código con el que codificar.
+	 * @param introductorErrores El introductor de errores a usar. Los errores
+	 *                           se introducen según la posición de cada byte en
+	 *                           el flujo subyacente.
+	 * @throws IllegalArgumentException Si algún parámetro es nulo.
+	 */
+	FlujoSalidaHamming(
+		final OutputStream salida, final CodigoLineal codigo, final IntroductorErrores introductorErrores
+	) {
+		super(salida);
+
+		if (salida == null || codigo == null || introductorErrores == null) {
+			throw new IllegalArgumentException("El flujo, el código y el introductor de errores no pueden ser nulos");
+		}
+
+		final int bloques = Math.max(1, TAMANO_BUFFER / codigo.getBytesBloqueFuente());
+
+		this.codigo = codigo;
+		this.introductorErrores = introductorErrores;
+		this.bufferFuente = new byte[bloques * codigo.getBytesBloqueFuente()];
+		// Al terminar, se codifica el final del flujo, que puede ocupar un bloque más
+		this.bufferCodigo = new byte[(bloques + 1) * codigo.getBytesBloqueCodigo()];
+	}
+
+	/**
+	 * Obtiene el número de bytes fuente escritos en este flujo hasta el momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getBytesLeidos() {
+		return bytesLeidos;
+	}
+
+	/**
+	 * Obtiene el número de bytes codificados escritos en el flujo subyacente hasta
+	 * el momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getBytesEscritos() {
+		return bytesEscritos;
+	}
+
+	/**
+	 * Obtiene el número de errores (bits negados) introducidos en los bytes
+	 * codificados hasta el momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getErroresIntroducidos() {
+		return introductorErrores.getErroresIntroducidos();
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		comprobarNoTerminado();
+
+		bufferFuente[bytesBufferFuente++] = (byte) b;
+		++bytesLeidos;
+
+		if (bytesBufferFuente == bufferFuente.length) {
+			escribirBloques(bufferFuente, 0, bytesBufferFuente);
+			bytesBufferFuente = 0;
+		}
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException {
+		if (off < 0 || len < 0 || off > b.length - len) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		comprobarNoTerminado();
+
+		int posicion = off;
+		int restantes = len;
+
+		// Completar primero el búfer, si tiene bytes pendientes
+		if (bytesBufferFuente > 0) {
+			final int copiados = Math.min(restantes, bufferFuente.length - bytesBufferFuente);
+
+			System.arraycopy(b, posicion, bufferFuente, bytesBufferFuente, copiados);
+			bytesBufferFuente += copiados;
+			posicion += copiados;
+			restantes -= copiados;
+
+			if (bytesBufferFuente < bufferFuente.length) {
+				bytesLeidos += len;
+				return;
+			}
+
+			escribirBloques(bufferFuente, 0, bytesBufferFuente);
+			bytesBufferFuente = 0;
+		}
+
+		// Codificar los bloques completos directamente desde el array
+		while (restantes >= bufferFuente.length) {
+			escribirBloques(b, posicion, bufferFuente.length);
+			posicion += bufferFuente.length;
+			restantes -= bufferFuente.length;
+		}
+
+		System.arraycopy(b, posicion, bufferFuente, 0, restantes);
+		bytesBufferFuente = restantes;
+		bytesLeidos += len;
+	}
+
+	/**
+	 * Codifica y escribe los bloques completos que haya en el búfer interno, y
+	 * vacía el flujo subyacente. Los bytes que no completan un bloque permanecen
+	 * en el búfer hasta que se completen o termine el flujo.
+	 *
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (!terminado) {
+			final int bytesBloques = bytesBufferFuente - bytesBufferFuente % codigo.getBytesBloqueFuente();
+
+			if (bytesBloques > 0) {
+				escribirBloques(bufferFuente, 0, bytesBloques);
+				System.arraycopy(bufferFuente, bytesBloques, bufferFuente, 0, bytesBufferFuente - bytesBloques);
+				bytesBufferFuente -= bytesBloques;
+			}
+		}
+
+		out.flush();
+	}
+
+	/**
+	 * Codifica y escribe el final del flujo, incluidos los bytes que no completan
+	 * un bloque, sin cerrar el flujo subyacente. Después de terminar, no se pueden
+	 * escribir más bytes en este flujo. Si ya se ha terminado, no hace nada.
+	 *
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	public void terminar() throws IOException {
+		if (!terminado) {
+			final int bytesBloques = bytesBufferFuente - bytesBufferFuente % codigo.getBytesBloqueFuente();
+
+			int codificados = codigo.codificar(bufferFuente, 0, bytesBloques, bufferCodigo, 0);
+			codificados += codigo.codificarFinal(
+				bufferFuente, bytesBloques, bytesBufferFuente - bytesBloques, bufferCodigo, codificados
+			);
+			escribirCodificados(codificados);
+
+			bytesBufferFuente = 0;
+			terminado = true;
+		}
+
+		out.flush();
+	}
+
+	/**
+	 * Termina este flujo, como {@link #terminar()}, y cierra el flujo subyacente.
+	 *
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			terminar();
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Codifica bloques completos de un array y los escribe en el flujo
+	 * subyacente.
+	 *
+	 * @param origen         El array con los bloques a codificar.
+	 * @param desplazamiento La posición del primer byte a codificar.
+	 * @param longitud       El número de bytes a codificar, múltiplo del tamaño de
+	 *                       los bloques fuente y no mayor que el búfer interno.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private void escribirBloques(final byte[] origen, final int desplazamiento, final int longitud) throws IOException {
+		escribirCodificados(codigo.codificar(origen, desplazamiento, longitud, bufferCodigo, 0));
+	}
+
+	private void escribirCodificados(final int codificados) throws IOException {
+		introductorErrores.introducir(bufferCodigo, 0, codificados, bytesEscritos);
+		out.write(bufferCodigo, 0, codificados);
+		bytesEscritos += codificados;
+	}
+
+	private void comprobarNoTerminado() throws IOException {
+		if (terminado) {
+			throw new IOException("No se pueden escribir más bytes en un flujo terminado");
+		}
+	}
+}
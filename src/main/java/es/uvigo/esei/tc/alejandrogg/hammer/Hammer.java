@@ -2,16 +2,18 @@
 
 package es.uvigo.esei.tc.alejandrogg.hammer;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.util.Random;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.SplittableRandom;
 
 import com.beust.jcommander.IStringConverter;
 import com.beust.jcommander.IValueValidator;
@@ -19,6 +21,9 @@ import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.converters.IntegerConverter;
+import com.beust.jcommander.converters.LongConverter;
+
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.ObjetoJson;
 
 /**
  * Clase principal de la aplicación.
@@ -27,18 +32,17 @@ import com.beust.jcommander.converters.IntegerConverter;
  */
 public final class Hammer {
 	@Parameter(
-		description = "Fichero de entrada (\"-\" para usar el flujo de entrada estándar)",
-		required = true,
+		description = "Fichero de entrada (\"-\" para usar el flujo de entrada estándar). Es obligatorio, salvo con --simular, --servidor o --lote",
 		converter = ConversorCadenaEntrada.class,
 		validateValueWith = ConversorCadenaEntrada.class
 	)
 	private InputStream entrada = null;
 
 	@Parameter(
-		description = "Fichero de salida al que codificar la entrada, usando un código Hamming ampliado (3, 2). Se puede indicar \"-\" para usar el flujo de salida estándar",
-		names = { "-c", "--codificar" },
-		converter = ConversorFlujoSalida.class
+		description = "Fichero de salida al que codificar la entrada, usando un código Hamming ampliado (3, 2), u otro indicado con --codigo o --matriz-control. Se puede indicar \"-\" para usar el flujo de salida estándar. Con --lote, es el directorio de salida",
+		names = { "-c", "--codificar" }
 	)
+	private String salidaCodificacion = null;
 	private OutputStream flujoSalidaCodificacion = null;
 
 	@Parameter(
@@ -62,18 +66,148 @@ public final class Hammer {
 	private boolean erroresNormalesLimitados = false;
 
 	@Parameter(
-		description = "Fichero de salida al que decodificar la entrada, previamente codificada con -c. Se puede indicar \"-\" para usar el flujo de salida estándar",
-		names = { "-d", "--decodificar" },
-		converter = ConversorFlujoSalida.class
+		description = "Modelo de canal con el que introducir errores en la codificación, en lugar de -e, -n o -l: \"bsc:p\" para un canal binario simétrico que niega cada bit con probabilidad p, \"fijo:k\" para negar k bits de cada byte, \"normal\" o \"normal-limitado\" para las distribuciones de -n y -l, o \"gilbert-elliott:b,g,pb,pm\" para un canal con ráfagas de errores, que pasa de un estado bueno a uno malo con probabilidad b, y vuelve con probabilidad g, tras cada bit, y niega cada bit con probabilidad pb en el estado bueno y pm en el malo",
+		names = { "--canal" },
+		validateValueWith = ValidadorModeloCanal.class
+	)
+	private String modeloCanal = null;
+
+	@Parameter(
+		description = "Semilla de los números pseudoaleatorios con los que se introducen errores en la codificación. Con la misma semilla, los errores introducidos son los mismos, sea cual sea el número de hilos o el tamaño de los trozos. Si no se indica, se elige una aleatoriamente, que se muestra en el resumen final",
+		names = { "--semilla" },
+		converter = LongConverter.class
+	)
+	private Long semilla = null;
+
+	@Parameter(
+		description = "Fichero de salida al que decodificar la entrada, previamente codificada con -c. Se puede indicar \"-\" para usar el flujo de salida estándar. Con --lote, es el directorio de salida",
+		names = { "-d", "--decodificar" }
 	)
+	private String salidaDecodificacion = null;
 	private OutputStream flujoSalidaDecodificacion = null;
 
+	@Parameter(
+		description = "Código a usar para codificar y decodificar: \"hamming:r\" para un código Hamming con r bits de redundancia, \"hamming-ampliado:r\" para su versión ampliada, que además detecta errores de dos bits (2 <= r <= 8), o \"hsiao\" para el código Hsiao (72, 64), que corrige errores de un bit y detecta errores de dos bits en palabras de 64 bits con un 12,5 % de redundancia. Por defecto se usa \"hamming-ampliado:3\", el código Hamming ampliado (3, 2)",
+		names = { "--codigo" },
+		converter = ConversorCodigo.class,
+		validateValueWith = ConversorCodigo.class
+	)
+	private CodigoLineal codigo = null;
+
+	@Parameter(
+		description = "Fichero de texto con la matriz control de paridad de un código lineal 1-corrector a usar para codificar y decodificar, con una fila por línea, formada por ceros y unos. Las últimas columnas deben de ser linealmente independientes",
+		names = { "--matriz-control" },
+		converter = ConversorMatrizControl.class,
+		validateValueWith = ConversorMatrizControl.class
+	)
+	private CodigoLineal codigoMatrizControl = null;
+
+	@Parameter(
+		description = "Número de hilos entre los que repartir la codificación o decodificación, o 0 para usar tantos como procesadores haya. La salida es idéntica a la obtenida con un único hilo, que es el valor por defecto, salvo con --simular y --lote, que por defecto usan todos los procesadores",
+		names = { "--hilos" },
+		converter = IntegerConverter.class,
+		validateValueWith = ValidadorNumeroNoNegativo.class
+	)
+	private Integer hilos = null;
+
+	@Parameter(
+		description = "Número aproximado de bytes fuente de cada uno de los trozos en los que se divide la entrada para repartirla entre los hilos (por defecto, 1048576, es decir, 1 MiB). Con --contenedor, es además el número de bytes fuente de cada bloque del contenedor, y con --lote, el tamaño a partir del cual cada fichero se divide en trozos",
+		names = { "--tam-bloque" },
+		converter = IntegerConverter.class,
+		validateValueWith = ValidadorNumeroPositivo.class
+	)
+	private Integer tamanoTrozo = Procesador.TAMANO_TROZO_PREDETERMINADO;
+
+	@Parameter(
+		description = "Al codificar, escribe un contenedor: una cabecera con el código usado, la entrada codificada en bloques independientes de --tam-bloque bytes fuente y un índice con la longitud y el CRC-32 de cada bloque. Al decodificar, lee un contenedor, que debe de ser un fichero, comprobando la integridad de cada bloque",
+		names = { "--contenedor" }
+	)
+	private boolean contenedor = false;
+
+	@Parameter(
+		description = "Al decodificar un contenedor, posición del primer byte del original a decodificar, que no puede superar su longitud. Solo se leen y decodifican los bloques que contienen el intervalo pedido",
+		names = { "--desde" },
+		converter = LongConverter.class,
+		validateValueWith = ValidadorNumeroLargoNoNegativo.class
+	)
+	private Long desde = 0L;
+
+	@Parameter(
+		description = "Al decodificar un contenedor, posición siguiente al último byte del original a decodificar. Por defecto, se decodifica hasta el final",
+		names = { "--hasta" },
+		converter = LongConverter.class,
+		validateValueWith = ValidadorNumeroLargoNoNegativo.class
+	)
+	private Long hasta = null;
+
+	@Parameter(
+		description = "En lugar de codificar o decodificar una entrada, simula en memoria la transmisión de palabras código aleatorias por un canal binario simétrico con cada una de las probabilidades de error de bit indicadas, separadas por comas, y muestra las tasas de palabras corregidas, incorregibles (con errores detectados) y mal decodificadas (sin detectar errores), con sus intervalos de confianza del 95 % y sus valores exactos, calculados a partir de la distribución de pesos del código",
+		names = { "--simular" },
+		converter = ConversorProbabilidades.class,
+		validateValueWith = ConversorProbabilidades.class
+	)
+	private double[] probabilidadesSimulacion = null;
+
+	@Parameter(
+		description = "Número de palabras código a simular con cada probabilidad de error de --simular (por defecto, 1000000)",
+		names = { "--palabras" },
+		converter = LongConverter.class,
+		validateValueWith = ValidadorNumeroLargoPositivo.class
+	)
+	private Long palabrasSimulacion = null;
+
+	@Parameter(
+		description = "En lugar de codificar o decodificar una entrada, atiende peticiones de codificación y decodificación de clientes lanzados con --cliente, hasta que se termine la aplicación, evitando que cada uno tenga que arrancar una máquina virtual. La dirección es un número de puerto TCP de la interfaz de bucle local o, con Java 21 o posterior, la ruta de un socket de dominio Unix, que se borra al terminar. Con Java 21 o posterior, cada conexión se atiende en un hilo virtual",
+		names = { "--servidor" }
+	)
+	private String direccionServidor = null;
+
+	@Parameter(
+		description = "Número máximo de conexiones que atiende a la vez --servidor (por defecto, 64). Las siguientes esperan a que termine alguna",
+		names = { "--max-conexiones" },
+		converter = IntegerConverter.class,
+		validateValueWith = ValidadorNumeroPositivo.class
+	)
+	private Integer maximoConexiones = null;
+
+	@Parameter(
+		description = "Codifica o decodifica la entrada enviándola a un servidor lanzado con --servidor, que escucha en la dirección indicada, en lugar de en esta máquina virtual. El resultado es el mismo, salvo que no se pueden introducir errores",
+		names = { "--cliente" }
+	)
+	private String direccionCliente = null;
+
+	@Parameter(
+		description = "En lugar de una única entrada, codifica (-c) o decodifica (-d) todos los ficheros indicados, que pueden ser ficheros, directorios, que se recorren recursivamente, o patrones como \"datos/**/*.raw\", en el directorio de salida de -c o -d, reproduciendo la estructura de directorios de la entrada. Los ficheros se reparten entre los hilos de --hilos, y los que superan --tam-bloque bytes se dividen además en trozos. Al terminar, se muestra un único resumen de todos los ficheros",
+		names = { "--lote" },
+		variableArity = true
+	)
+	private List<String> entradasLote = null;
+
+	@Parameter(
+		description = "Muestra cada segundo, en una línea que se sobrescribe, la velocidad de procesamiento, el porcentaje completado y el tiempo restante, si la entrada es un fichero o un lote, y, al decodificar, la proporción de palabras corregidas hasta el momento. No se muestra con -q",
+		names = { "--progreso" }
+	)
+	private boolean mostrarProgreso = false;
+	private Progreso progreso = Progreso.ninguno();
+
 	@Parameter(
 		description = "Suprime la salida de la mayor parte del texto por el flujo de errores",
 		names = { "-q", "-s", "--quiet", "--silencioso" }
 	)
 	private boolean modoSilencioso = false;
 
+	@Parameter(
+		description = "Al decodificar, en lugar de descartar los bytes que no se pueden recuperar por contener errores incorregibles, escribe en su lugar un byte nulo, de manera que no se desplazan los siguientes, y guarda sus posiciones en el fichero indicado, como rachas de bytes consecutivos",
+		names = { "--borrados" }
+	)
+	private String ficheroBorrados = null;
+
+	@Parameter(
+		description = "Muestra el resumen final en formato JSON, en una única línea, por el flujo de errores, incluso con -q. Al decodificar, incluye los histogramas de síndromes y de posiciones de los bits corregidos",
+		names = { "--json" }
+	)
+	private boolean resumenJson = false;
+
 	@Parameter(
 		description = "Muestra los parámetros aceptados por la aplicación",
 		names = { "-h", "--help", "--ayuda" },
@@ -81,13 +215,6 @@ public final class Hammer {
 	)
 	private boolean mostrarAyuda = false;
 
-	private final Random prng = new Random();
-
-	private final byte[] posicionesError = new byte[] { 0, 1, 2, 3, 4, 5, 6, 7 };
-
-	private int erroresIntroducidos = 0;
-	
-
 	/**
 	 * Punto de entrada de la aplicación, ejecutado por la JVM.
 	 *
@@ -108,17 +235,58 @@ public final class Hammer {
 			.programName(getClass().getSimpleName() + ".jar")
 			.build();
 
-		jCommander.setUsageFormatter(new FormateadorSintaxisParametros(jCommander));
-
 		try {
 			jCommander.parse(args);
 
 			if (!mostrarAyuda) {
-				int byteLeido;
-				int bytesLeidos = 0;
-
 				// No permitir ciertas combinaciones de argumentos ambigüas o sin sentido
-				if (flujoSalidaCodificacion != null && flujoSalidaDecodificacion != null) {
+				if (salidaCodificacion != null && salidaDecodificacion != null) {
+					throw new ParameterException("");
+				}
+
+				final boolean simular = probabilidadesSimulacion != null;
+				final boolean servir = direccionServidor != null;
+				final boolean cliente = direccionCliente != null;
+				final boolean lote = entradasLote != null;
+
+				if ((simular ? 1 : 0) + (servir ? 1 : 0) + (cliente ? 1 : 0) + (lote ? 1 : 0) > 1) {
+					throw new ParameterException("");
+				}
+
+				// La simulación, el servidor y los lotes no tienen una única entrada, y
+				// no introducen errores
+				if ((simular || servir || lote) == (entrada != null)) {
+					throw new ParameterException("");
+				}
+
+				if ((simular || servir || cliente || lote) && (
+					contenedor || modeloCanal != null || numeroErrores != 0 || erroresNormales || erroresNormalesLimitados
+				)) {
+					throw new ParameterException("");
+				}
+
+				if ((simular || servir) && (salidaCodificacion != null || salidaDecodificacion != null)) {
+					throw new ParameterException("");
+				}
+
+				// El servidor crea los códigos a partir de su nombre
+				if (cliente && (ficheroBorrados != null || codigoMatrizControl != null)) {
+					throw new ParameterException("");
+				}
+
+				if (lote && (entradasLote.isEmpty() || ficheroBorrados != null)) {
+					throw new ParameterException("");
+				}
+
+				if (maximoConexiones != null && !servir) {
+					throw new ParameterException("");
+				}
+
+				if (palabrasSimulacion != null && !simular) {
+					throw new ParameterException("");
+				}
+
+				if (codigo != null && codigoMatrizControl != null) {
 					throw new ParameterException("");
 				}
 
@@ -126,10 +294,65 @@ public final class Hammer {
 					throw new ParameterException("");
 				}
 
-				if (flujoSalidaCodificacion == null && flujoSalidaDecodificacion == null) {
+				if (modeloCanal != null && (numeroErrores != 0 || erroresNormales || erroresNormalesLimitados)) {
+					throw new ParameterException("");
+				}
+
+				if (salidaCodificacion == null && salidaDecodificacion == null && !simular && !servir) {
 					throw new ParameterException("");
 				}
 
+				if (ficheroBorrados != null && salidaDecodificacion == null) {
+					throw new ParameterException("");
+				}
+
+				final boolean decodificarContenedor = contenedor && salidaDecodificacion != null;
+
+				// Los contenedores se leen con lecturas posicionales, y conservan siempre
+				// los borrados dentro de cada bloque
+				if (decodificarContenedor && (!(entrada instanceof FileInputStream) || ficheroBorrados != null)) {
+					throw new ParameterException("");
+				}
+
+				if ((desde != 0 || hasta != null) && !decodificarContenedor) {
+					throw new ParameterException("");
+				}
+
+				if (hasta != null && hasta < desde) {
+					throw new ParameterException("");
+				}
+
+				// Solo se muestra el progreso de lo que se procesa localmente por búferes
+				if (mostrarProgreso && (simular || servir || cliente || decodificarContenedor)) {
+					throw new ParameterException("");
+				}
+
+				// Los contenedores indican el código con el que se han codificado y la
+				// longitud del original, que limita el intervalo a decodificar
+				final FicheroHammer contenedorEntrada = decodificarContenedor ? new FicheroHammer(
+					((FileInputStream) entrada).getChannel(), codigo != null ? codigo : codigoMatrizControl,
+					FicheroHammer.BLOQUES_CACHE_PREDETERMINADOS
+				) : null;
+
+				if (contenedorEntrada != null && desde > contenedorEntrada.getLongitud()) {
+					throw new ParameterException("");
+				}
+
+				if (contenedorEntrada != null) {
+					codigo = contenedorEntrada.getCodigo();
+				} else if (codigo == null) {
+					codigo = codigoMatrizControl != null ? codigoMatrizControl : new HammingAmpliado3_2();
+				}
+
+				// Con --lote, la salida es un directorio
+				if (!lote) {
+					flujoSalidaCodificacion = abrirSalida(salidaCodificacion);
+					flujoSalidaDecodificacion = abrirSalida(salidaDecodificacion);
+				}
+
+				// El resumen en JSON se muestra aunque se suprima el resto del texto
+				final PrintStream flujoResumen = System.err;
+
 				if (modoSilencioso) {
 					System.setErr(new PrintStream(new OutputStream() {
 						@Override
@@ -139,82 +362,217 @@ public final class Hammer {
 					}));
 				}
 
-				if (flujoSalidaCodificacion != null) {
-					final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
+				if (semilla == null) {
+					semilla = new SplittableRandom().nextLong();
+				}
+
+				if (simular) {
+					simular(flujoResumen);
+					return;
+				}
 
-					// Codificar cada byte del flujo de entrada al flujo de salida
-					while ((byteLeido = entrada.read()) != -1) {
-						for (int i = 0; i < 2; ++i) {
-							final byte nibbleActual = (byte) (byteLeido >>> (4 * i));
+				if (servir) {
+					servir();
+					return;
+				}
 
-							flujoSalidaCodificacion.write(
-								introducirErrores(codigo.codificarNibble(nibbleActual))
-							);
+				if (cliente) {
+					procesarEnServidor(flujoResumen);
+					return;
+				}
+
+				if (lote) {
+					procesarLote(flujoResumen);
+					return;
+				}
+
+				if (modeloCanal == null) {
+					modeloCanal = erroresNormales ? CanalNormal.NOMBRE :
+						erroresNormalesLimitados ? CanalNormal.NOMBRE_LIMITADO :
+						CanalPesoFijo.NOMBRE + ":" + numeroErrores;
+				}
+
+				final IntroductorErrores introductorErrores = IntroductorErrores.crear(modeloCanal, semilla);
+				final Procesador procesador = new Procesador(
+					codigo,
+					introductorErrores,
+					hilos == null ? 1 : hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors(),
+					tamanoTrozo
+				);
+
+				final ObjetoJson resumen = new ObjetoJson()
+					.anadir("operacion", flujoSalidaCodificacion != null ? "codificacion" : "decodificacion")
+					.anadir("codigo", codigo.getNombre());
+
+				if (mostrarProgreso && !modoSilencioso) {
+					progreso = new Progreso(System.err, getLongitudEntrada(), flujoSalidaDecodificacion != null);
+					procesador.setProgreso(progreso);
+					progreso.iniciar();
+				}
+
+				if (flujoSalidaCodificacion != null) {
+					final long bytesLeidos;
+					final long bytesEscritos;
+					final long erroresIntroducidos;
+
+					if (contenedor) {
+						// Los bloques del contenedor se codifican secuencialmente
+						final FicheroHammer.Escritor escritor = new FicheroHammer.Escritor(
+							flujoSalidaCodificacion, codigo, tamanoTrozo, introductorErrores
+						);
+						final byte[] buffer = new byte[FlujoSalidaHamming.TAMANO_BUFFER];
+						int leidos;
+						while ((leidos = entrada.read(buffer)) >= 0) {
+							escritor.write(buffer, 0, leidos);
+							progreso.registrar(leidos);
 						}
+						escritor.terminar();
 
-						++bytesLeidos;
+						bytesLeidos = escritor.getBytesLeidos();
+						bytesEscritos = escritor.getBytesEscritos();
+						erroresIntroducidos = escritor.getErroresIntroducidos();
+					} else {
+						procesador.codificar(entrada, flujoSalidaCodificacion);
+
+						bytesLeidos = procesador.getBytesLeidos();
+						bytesEscritos = procesador.getBytesEscritos();
+						erroresIntroducidos = procesador.getErroresIntroducidos();
 					}
 
-					System.err.printf(
-						"> Se han codificado %d bytes de entrada en %d bytes, introduciendo un total de %d errores (%.2f errores/byte)" + System.lineSeparator(),
-						bytesLeidos, bytesLeidos * 2, erroresIntroducidos, erroresIntroducidos / (double) (bytesLeidos * 2)
-					);
+					progreso.close();
+
+					resumen
+						.anadir("bytesLeidos", bytesLeidos)
+						.anadir("bytesEscritos", bytesEscritos)
+						.anadir("erroresIntroducidos", erroresIntroducidos)
+						.anadir("semilla", semilla);
+
+					if (!resumenJson) {
+						System.err.printf(
+							"> Se han codificado %d bytes de entrada en %d bytes, introduciendo un total de %d errores (%.2f errores/byte)" + System.lineSeparator(),
+							bytesLeidos, bytesEscritos, erroresIntroducidos, erroresIntroducidos / (double) bytesEscritos
+						);
+
+						if (erroresIntroducidos > 0) {
+							System.err.printf(
+								"> Los errores se pueden volver a introducir con --semilla %d" + System.lineSeparator(), semilla
+							);
+						}
+					}
 				} else {
-					final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
-
-					// Decodificar cada byte del flujo de entrada al flujo de salida
-					int bytesRecuperados = 0;
-					byte palabraFuenteActual = 0;
-					boolean saltarByte = false;
-
-					while ((byteLeido = entrada.read()) != -1) {
-						if (!saltarByte) {
-							try {
-								final int nibbleActual = bytesLeidos % 2;
-
-								// Añadir este nibble a la palabra fuente actual
-								palabraFuenteActual |= codigo.decodificarPalabraCodigo((byte) byteLeido) << (4 * nibbleActual);
-
-								if (nibbleActual % 2 == 1) {
-									// Nibble completo si el siguiente byte a leer es par.
-									// Reestablecer la palabra fuente actual a 0, tras
-									// escribirla en el flujo de salida
-									flujoSalidaDecodificacion.write(palabraFuenteActual);
-									palabraFuenteActual = 0;
-									++bytesRecuperados;
-								}
-							} catch (final DecodificacionImposibleException exc) {
-								// Si este nibble era el primero de un byte, ignorar el siguiente byte,
-								// que contiene el segundo nibble del byte (no podemos recuperar el byte
-								// original)
-								if (bytesLeidos % 2 == 0) {
-									saltarByte = true;
-								}
-
-								palabraFuenteActual = 0;
+					final EstadisticasDecodificacion estadisticas;
+					final long bytesLeidos;
+					final long bytesEscritos;
+					final double porcentajeRecuperado;
+
+					if (contenedorEntrada != null) {
+						bytesEscritos = contenedorEntrada.transferir(
+							desde, hasta != null ? hasta : Long.MAX_VALUE, flujoSalidaDecodificacion
+						);
+
+						estadisticas = contenedorEntrada.getEstadisticas();
+						bytesLeidos = contenedorEntrada.getBytesLeidos();
+						porcentajeRecuperado = 100.0 *
+							(contenedorEntrada.getBytesDecodificados() - contenedorEntrada.getBytesBorrados()) /
+							Math.max(1, contenedorEntrada.getBytesDecodificados());
+
+						resumen
+							.anadir("bloquesIntegros", contenedorEntrada.getBloquesIntegros())
+							.anadir("bloquesDanados", contenedorEntrada.getBloquesDanados());
+					} else {
+						estadisticas = new EstadisticasDecodificacion(ficheroBorrados != null ? new MapaBorrados() : null);
+
+						procesador.decodificar(entrada, flujoSalidaDecodificacion, estadisticas);
+
+						if (ficheroBorrados != null) {
+							try (OutputStream salidaBorrados = new BufferedOutputStream(Files.newOutputStream(Paths.get(ficheroBorrados)))) {
+								estadisticas.getBorrados().escribir(salidaBorrados);
 							}
-						} else {
-							saltarByte = false;
 						}
 
-						++bytesLeidos;
+						bytesLeidos = procesador.getBytesLeidos();
+						bytesEscritos = procesador.getBytesEscritos();
+						porcentajeRecuperado =
+							(100.0 * (bytesEscritos - estadisticas.getBytesBorrados()) * codigo.getBytesBloqueCodigo()) /
+							(bytesLeidos * codigo.getBytesBloqueFuente());
+					}
+
+					progreso.close();
+
+					final long[] histogramaSindromes = estadisticas.getHistogramaSindromes();
+					final long[] histogramaPosiciones = estadisticas.getHistogramaPosicionesError(codigo);
+
+					resumen
+						.anadir("bytesLeidos", bytesLeidos)
+						.anadir("bytesEscritos", bytesEscritos)
+						.anadir("porcentajeRecuperado", porcentajeRecuperado)
+						.anadir("palabrasCorrectas", estadisticas.getPalabrasCorrectas())
+						.anadir("palabrasCorregidas", estadisticas.getPalabrasCorregidas())
+						.anadir("palabrasIncorregibles", estadisticas.getPalabrasIncorregibles())
+						.anadir("bytesDescartados", estadisticas.getBytesDescartados())
+						.anadir("bytesBorrados", estadisticas.getBytesBorrados())
+						.anadir("histogramaSindromes", histogramaSindromes)
+						.anadir("histogramaPosicionesError", histogramaPosiciones);
+
+					if (!resumenJson) {
+						System.err.printf(
+							"> Se han decodificado %d bytes de entrada en %d bytes, pudiendo recuperarse el %.2f%% del mensaje original" + System.lineSeparator(),
+							bytesLeidos, bytesEscritos, porcentajeRecuperado
+						);
+						System.err.printf(
+							"> Palabras código: %d sin errores, %d con un error corregido, %d con errores detectados no corregibles" + System.lineSeparator(),
+							estadisticas.getPalabrasCorrectas(), estadisticas.getPalabrasCorregidas(), estadisticas.getPalabrasIncorregibles()
+						);
+
+						if (contenedorEntrada != null) {
+							System.err.printf(
+								"> Bloques del contenedor: %d íntegros, %d dañados (con un CRC-32 distinto al original)" + System.lineSeparator(),
+								contenedorEntrada.getBloquesIntegros(), contenedorEntrada.getBloquesDanados()
+							);
+						}
+
+						if (ficheroBorrados != null) {
+							System.err.printf(
+								"> Se han conservado como borrados %d bytes, en %d rachas, cuyas posiciones se han guardado en %s" + System.lineSeparator(),
+								estadisticas.getBytesBorrados(), estadisticas.getBorrados().getRachas(), ficheroBorrados
+							);
+						}
+
+						if (estadisticas.getPalabrasCorregidas() + estadisticas.getPalabrasIncorregibles() > 0) {
+							System.err.println("> Síndromes no nulos (síndrome: palabras): " + formatearHistograma(histogramaSindromes, 1));
+							System.err.println("> Posiciones de los bits corregidos (posición: palabras): " + formatearHistograma(histogramaPosiciones, 0));
+						}
 					}
+				}
 
-					System.err.printf(
-						"> Se han decodificado %d bytes de entrada en %d bytes, pudiendo recuperarse el %.2f%% del mensaje original" + System.lineSeparator(),
-						bytesLeidos, bytesRecuperados, (200 * bytesRecuperados) / (double) bytesLeidos
+				// Los contadores de la canalización solo interesan al analizar el
+				// rendimiento, por lo que solo figuran en el resumen en JSON
+				final Canalizacion canalizacion = procesador.getCanalizacion();
+				if (canalizacion != null) {
+					resumen.anadir("canalizacion", new ObjetoJson()
+						.anadir("esperasLectura", canalizacion.getEsperasLectura())
+						.anadir("esperasTransformacion", canalizacion.getEsperasTransformacion())
+						.anadir("esperasEscritura", canalizacion.getEsperasEscritura())
+						.anadir("ocupacionMediaEntradas", canalizacion.getOcupacionMediaEntradas())
+						.anadir("ocupacionMediaSalidas", canalizacion.getOcupacionMediaSalidas())
 					);
 				}
+
+				if (resumenJson) {
+					flujoResumen.println(resumen);
+				}
 			} else {
-				jCommander.usage();
+				mostrarSintaxis(jCommander);
 			}
 		} catch (final ParameterException exc) {
 			System.err.println("Algún parámetro falta o es incorrecto");
-			jCommander.usage();
+			mostrarSintaxis(jCommander);
 		} catch (final Exception exc) {
 			System.err.println("! Ha ocurrido un error durante la ejecución de la aplicación. Detalles:");
 			exc.printStackTrace();
 		} finally {
+			progreso.close();
+
 			if (entrada != null) {
 				try {
 					entrada.close();
@@ -236,59 +594,311 @@ public final class Hammer {
 	}
 
 	/**
-	 * Introduce errores a la palabra código especificada, según lo deseado por el
-	 * usuario, incrementando el contador de errores introducidos apropiadamente.
+	 * Obtiene la longitud de la entrada, si es un fichero regular.
+	 *
+	 * @return La devandicha longitud, o -1 si no se conoce.
+	 */
+	private long getLongitudEntrada() {
+		if (entrada instanceof FileInputStream) {
+			try {
+				final long longitud = ((FileInputStream) entrada).getChannel().size();
+				return longitud > 0 ? longitud : -1;
+			} catch (final IOException exc) {
+				// La longitud no se conoce
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Muestra la sintaxis de los parámetros de la aplicación. El formateador se
+	 * crea aquí, y no con el resto de JCommander, para no cargar sus clases en
+	 * las ejecuciones que no muestran la ayuda, que son la mayoría.
+	 *
+	 * @param jCommander El analizador de los parámetros.
+	 */
+	private static void mostrarSintaxis(final JCommander jCommander) {
+		jCommander.setUsageFormatter(new FormateadorSintaxisParametros(jCommander));
+		jCommander.usage();
+	}
+
+	/**
+	 * Simula la transmisión de palabras código por un canal binario simétrico con
+	 * cada una de las probabilidades de error de bit indicadas, y muestra el
+	 * resultado.
+	 *
+	 * @param flujoResumen El flujo donde mostrar el resumen en formato JSON.
+	 * @throws InterruptedException Si se interrumpe la simulación.
+	 */
+	private void simular(final PrintStream flujoResumen) throws InterruptedException {
+		final long palabras = palabrasSimulacion != null ? palabrasSimulacion : Simulador.PALABRAS_PREDETERMINADAS;
+		final Simulador simulador = new Simulador(
+			codigo, hilos == null || hilos == 0 ? Runtime.getRuntime().availableProcessors() : hilos, semilla
+		);
+
+		if (!resumenJson) {
+			System.err.printf(
+				"> Simulando %d palabras código de %s por cada probabilidad de error de bit, con intervalos de confianza del %.0f%% (semilla %d)" + System.lineSeparator(),
+				palabras, codigo.getNombre(), 100 * Simulador.CONFIANZA, semilla
+			);
+		}
+
+		final ObjetoJson[] puntos = new ObjetoJson[probabilidadesSimulacion.length];
+		for (int i = 0; i < puntos.length; ++i) {
+			final Simulador.Resultado resultado = simulador.simular(probabilidadesSimulacion[i], palabras);
+
+			if (!resumenJson) {
+				System.err.printf(
+					"> p = %s: %d palabras sin errores. Tasas simuladas [intervalo de confianza], y exactas:" + System.lineSeparator(),
+					resultado.getProbabilidadError(), resultado.getPalabrasSinErrores()
+				);
+			}
+
+			puntos[i] = new ObjetoJson()
+				.anadir("probabilidadError", resultado.getProbabilidadError())
+				.anadir("palabrasSinErrores", resultado.getPalabrasSinErrores())
+				.anadir("palabrasCorregidas", resultado.getPalabrasCorregidas())
+				.anadir("palabrasIncorregibles", resultado.getPalabrasIncorregibles())
+				.anadir("palabrasMalDecodificadas", resultado.getPalabrasMalDecodificadas())
+				.anadir("tasaCorregidas", resumirTasa(
+					"Corregidas", resultado.getPalabrasCorregidas(), palabras, resultado.getProbabilidadExactaCorregida()
+				))
+				.anadir("tasaIncorregibles", resumirTasa(
+					"Incorregibles", resultado.getPalabrasIncorregibles(), palabras, resultado.getProbabilidadExactaIncorregible()
+				))
+				.anadir("tasaMalDecodificadas", resumirTasa(
+					"Mal decodificadas", resultado.getPalabrasMalDecodificadas(), palabras,
+					resultado.getProbabilidadExactaMalDecodificada()
+				));
+		}
+
+		if (resumenJson) {
+			flujoResumen.println(new ObjetoJson()
+				.anadir("operacion", "simulacion")
+				.anadir("codigo", codigo.getNombre())
+				.anadir("palabras", palabras)
+				.anadir("confianza", Simulador.CONFIANZA)
+				.anadir("semilla", semilla)
+				.anadir("puntos", puntos)
+			);
+		}
+	}
+
+	/**
+	 * Atiende peticiones de clientes en la dirección indicada, hasta que se
+	 * termine la aplicación.
 	 *
-	 * @param palabraCodigo La palabra código a corromper.
-	 * @return La palabra código, potencialmente corrupta.
+	 * @throws IOException Si ocurre un error de E/S al aceptar conexiones.
 	 */
-	private byte introducirErrores(byte palabraCodigo) {
-		reordenarPosicionesError(posicionesError);
-
-		final int numeroErrores;
-		if (erroresNormales) {
-			numeroErrores = (int) Math.abs(Math.floor(prng.nextGaussian()));
-		} else if (erroresNormalesLimitados) {
-			numeroErrores = ((int) Math.abs(Math.floor(prng.nextGaussian()))) % 3;
+	private void servir() throws IOException {
+		final Servidor servidor = new Servidor(
+			direccionServidor, maximoConexiones != null ? maximoConexiones : Servidor.MAXIMO_CONEXIONES_PREDETERMINADO,
+			System.err
+		);
+
+		// Borrar el socket de dominio Unix al terminar la aplicación
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				servidor.close();
+			} catch (final IOException ignorada) {}
+		}));
+
+		System.err.println("> Atendiendo peticiones en " + servidor.getDireccion());
+		servidor.servir();
+	}
+
+	/**
+	 * Codifica o decodifica la entrada enviándola a un servidor, y muestra el
+	 * resumen de la petición.
+	 *
+	 * @param flujoResumen El flujo donde mostrar el resumen en formato JSON.
+	 * @throws IOException Si ocurre un error de E/S, o el servidor responde con
+	 *                     un error.
+	 */
+	private void procesarEnServidor(final PrintStream flujoResumen) throws IOException {
+		final boolean codificar = flujoSalidaCodificacion != null;
+		final ProtocoloServidor.Resumen resumenServidor;
+
+		try (Cliente cliente = new Cliente(direccionCliente)) {
+			resumenServidor = cliente.procesar(
+				codificar ? ProtocoloServidor.OPERACION_CODIFICAR : ProtocoloServidor.OPERACION_DECODIFICAR,
+				codigo.getNombre(), entrada, codificar ? flujoSalidaCodificacion : flujoSalidaDecodificacion
+			);
+		}
+
+		if (resumenJson) {
+			flujoResumen.println(resumenServidor.anadirA(new ObjetoJson()
+				.anadir("operacion", codificar ? "codificacion" : "decodificacion")
+				.anadir("codigo", codigo.getNombre())
+			));
 		} else {
-			numeroErrores = this.numeroErrores;
+			System.err.printf(
+				"> El servidor ha %s %d bytes de entrada en %d bytes, en %.3f ms" + System.lineSeparator(),
+				codificar ? "codificado" : "decodificado", resumenServidor.getBytesLeidos(),
+				resumenServidor.getBytesEscritos(), resumenServidor.getNanosegundos() / 1e6
+			);
+
+			if (!codificar) {
+				System.err.printf(
+					"> Palabras código: %d sin errores, %d con un error corregido, %d con errores detectados no corregibles" + System.lineSeparator(),
+					resumenServidor.getPalabrasCorrectas(), resumenServidor.getPalabrasCorregidas(),
+					resumenServidor.getPalabrasIncorregibles()
+				);
+			}
 		}
+	}
+
+	/**
+	 * Codifica o decodifica todos los ficheros de --lote en el directorio de
+	 * salida, y muestra el resumen de todos ellos.
+	 *
+	 * @param flujoResumen El flujo donde mostrar el resumen en formato JSON.
+	 * @throws IOException Si ocurre un error de E/S, o alguna entrada no existe.
+	 */
+	private void procesarLote(final PrintStream flujoResumen) throws IOException {
+		final boolean codificar = salidaCodificacion != null;
+		final Lote procesadorLote = new Lote(
+			codigo, hilos == null || hilos == 0 ? Runtime.getRuntime().availableProcessors() : hilos, tamanoTrozo
+		);
+		final long inicio = System.nanoTime();
 
-		for (int i = 0; i < posicionesError.length && i < numeroErrores; ++i) {
-			// Negar bit (introducir error) en la posición indicada
-			palabraCodigo ^= 1 << posicionesError[i];
-			++erroresIntroducidos;
+		final ObjetoJson resumen = new ObjetoJson()
+			.anadir("operacion", codificar ? "codificacion" : "decodificacion")
+			.anadir("codigo", codigo.getNombre());
+
+		if (mostrarProgreso && !modoSilencioso) {
+			progreso = new Progreso(System.err, -1, !codificar);
+			procesadorLote.setProgreso(progreso);
+			progreso.iniciar();
 		}
 
-		return palabraCodigo;
+		final EstadisticasDecodificacion estadisticas = codificar ? null : new EstadisticasDecodificacion();
+		if (codificar) {
+			procesadorLote.codificar(entradasLote, Paths.get(salidaCodificacion));
+		} else {
+			procesadorLote.decodificar(entradasLote, Paths.get(salidaDecodificacion), estadisticas);
+		}
+
+		progreso.close();
+
+		final double segundos = (System.nanoTime() - inicio) / 1e9;
+
+		resumen
+			.anadir("ficheros", procesadorLote.getFicheros())
+			.anadir("ficherosTroceados", procesadorLote.getFicherosTroceados())
+			.anadir("bytesLeidos", procesadorLote.getBytesLeidos())
+			.anadir("bytesEscritos", procesadorLote.getBytesEscritos())
+			.anadir("segundos", segundos);
+
+		if (!resumenJson) {
+			System.err.printf(
+				"> Se han %s %d ficheros (%d divididos en trozos), con %d bytes de entrada y %d bytes de salida, en %.3f s (%.1f ficheros/s)" + System.lineSeparator(),
+				codificar ? "codificado" : "decodificado", procesadorLote.getFicheros(), procesadorLote.getFicherosTroceados(),
+				procesadorLote.getBytesLeidos(), procesadorLote.getBytesEscritos(), segundos,
+				procesadorLote.getFicheros() / Math.max(segundos, 1e-9)
+			);
+		}
+
+		if (estadisticas != null) {
+			resumen
+				.anadir("palabrasCorrectas", estadisticas.getPalabrasCorrectas())
+				.anadir("palabrasCorregidas", estadisticas.getPalabrasCorregidas())
+				.anadir("palabrasIncorregibles", estadisticas.getPalabrasIncorregibles())
+				.anadir("bytesDescartados", estadisticas.getBytesDescartados());
+
+			if (!resumenJson) {
+				System.err.printf(
+					"> Palabras código: %d sin errores, %d con un error corregido, %d con errores detectados no corregibles" + System.lineSeparator(),
+					estadisticas.getPalabrasCorrectas(), estadisticas.getPalabrasCorregidas(), estadisticas.getPalabrasIncorregibles()
+				);
+			}
+		}
+
+		if (resumenJson) {
+			flujoResumen.println(resumen);
+		}
 	}
 
 	/**
-	 * Reordena aleatoriamente las posiciones de error para un byte contenidas en el
-	 * array. El array recibido como parámetro es modificado directamente.
-	 * <p>
-	 * La implementación de este método sigue el algoritmo de Fisher–Yates,
-	 * documentado en <a href=
-	 * "https://en.wikipedia.org/wiki/Fisher%E2%80%93Yates_shuffle">Wikipedia</a>.
-	 * </p>
+	 * Calcula el intervalo de confianza de la tasa de una clase de palabras
+	 * código simuladas, y la muestra junto a su valor exacto si no se ha pedido
+	 * el resumen en formato JSON.
 	 *
-	 * @param posiciones El array de posiciones a reordenar.
+	 * @param clase      El nombre de la clase de palabras, para mostrarlo.
+	 * @param palabras   El número de palabras simuladas de la clase.
+	 * @param total      El número total de palabras simuladas.
+	 * @param tasaExacta El valor exacto de la tasa.
+	 * @return La tasa simulada, su intervalo de confianza y su valor exacto, como
+	 *         objeto JSON.
 	 */
-	private void reordenarPosicionesError(final byte[] posiciones) {
-		for (int i = posiciones.length - 1; i >= 1; --i) {
-			final byte j = (byte) prng.nextInt(i + 1);
+	private ObjetoJson resumirTasa(final String clase, final long palabras, final long total, final double tasaExacta) {
+		final double tasa = palabras / (double) total;
+		final double[] intervalo = Simulador.intervaloWilson(palabras, total);
 
-			byte temp = posiciones[i];
-			posiciones[i] = posiciones[j];
-			posiciones[j] = temp;
+		if (!resumenJson) {
+			System.err.printf(
+				">   %-18s %.4e [%.4e, %.4e], exacta %.4e" + System.lineSeparator(),
+				clase + ":", tasa, intervalo[0], intervalo[1], tasaExacta
+			);
 		}
+
+		return new ObjetoJson()
+			.anadir("simulada", tasa)
+			.anadir("minima", intervalo[0])
+			.anadir("maxima", intervalo[1])
+			.anadir("exacta", tasaExacta);
+	}
+
+	/**
+	 * Abre el fichero de salida indicado por un parámetro.
+	 *
+	 * @param ruta La ruta del fichero, {@code "-"} para usar el flujo de salida
+	 *             estándar, o {@code null} si no se ha indicado el parámetro.
+	 * @return El flujo de salida, o {@code null} si no se ha indicado el
+	 *         parámetro.
+	 * @throws ParameterException Si no se puede abrir el fichero.
+	 */
+	private static OutputStream abrirSalida(final String ruta) {
+		if (ruta == null) {
+			return null;
+		}
+
+		try {
+			return "-".equals(ruta) ? System.out : new FlujoSalidaFichero(Paths.get(ruta));
+		} catch (final IOException | InvalidPathException exc) {
+			throw new ParameterException("");
+		}
+	}
+
+	/**
+	 * Da formato a los elementos no nulos de un histograma, como una lista de
+	 * parejas índice: valor.
+	 *
+	 * @param histograma El histograma.
+	 * @param desde      El primer índice a considerar.
+	 * @return La lista, separada por comas.
+	 */
+	private static String formatearHistograma(final long[] histograma, final int desde) {
+		final StringBuilder resultado = new StringBuilder();
+
+		for (int i = desde; i < histograma.length; ++i) {
+			if (histograma[i] > 0) {
+				if (resultado.length() > 0) {
+					resultado.append(", ");
+				}
+				resultado.append(i).append(": ").append(histograma[i]);
+			}
+		}
+
+		return resultado.length() > 0 ? resultado.toString() : "ninguno";
 	}
 
 	public static final class ConversorCadenaEntrada implements IStringConverter<InputStream>, IValueValidator<InputStream> {
 		@Override
 		public InputStream convert(final String value) {
 			try {
-				return "-".equals(value) ? System.in : new BufferedInputStream(new FileInputStream(value));
+				return "-".equals(value) ? System.in : new FileInputStream(value);
 			} catch (final FileNotFoundException exc) {
 				return null;
 			}
@@ -302,18 +912,65 @@ public final class Hammer {
 		}
 	}
 
-	public static final class ConversorFlujoSalida implements IStringConverter<OutputStream>, IValueValidator<OutputStream> {
+	public static final class ConversorCodigo implements IStringConverter<CodigoLineal>, IValueValidator<CodigoLineal> {
 		@Override
-		public OutputStream convert(final String value) {
+		public CodigoLineal convert(final String value) {
 			try {
-				return "-".equals(value) ? System.out : new BufferedOutputStream(new FileOutputStream(value));
-			} catch (final FileNotFoundException exc) {
+				return CodigoLineal.crear(value);
+			} catch (final IllegalArgumentException exc) {
+				return null;
+			}
+		}
+
+		@Override
+		public void validate(final String name, final CodigoLineal value) throws ParameterException {
+			if (value == null) {
+				throw new ParameterException("");
+			}
+		}
+	}
+
+	public static final class ConversorMatrizControl implements IStringConverter<CodigoLineal>, IValueValidator<CodigoLineal> {
+		@Override
+		public CodigoLineal convert(final String value) {
+			try {
+				return CodigoHamming.desdeMatrizControl(CodigoHamming.leerMatrizControl(Paths.get(value)));
+			} catch (final IOException | IllegalArgumentException exc) {
+				return null;
+			}
+		}
+
+		@Override
+		public void validate(final String name, final CodigoLineal value) throws ParameterException {
+			if (value == null) {
+				throw new ParameterException("");
+			}
+		}
+	}
+
+	public static final class ConversorProbabilidades implements IStringConverter<double[]>, IValueValidator<double[]> {
+		@Override
+		public double[] convert(final String value) {
+			final String[] elementos = value.split(",");
+			final double[] probabilidades = new double[elementos.length];
+
+			try {
+				for (int i = 0; i < elementos.length; ++i) {
+					probabilidades[i] = Double.parseDouble(elementos[i].trim());
+
+					if (!(probabilidades[i] >= 0 && probabilidades[i] <= 1)) {
+						return null;
+					}
+				}
+			} catch (final NumberFormatException exc) {
 				return null;
 			}
+
+			return probabilidades;
 		}
 
 		@Override
-		public void validate(final String name, final OutputStream value) throws ParameterException {
+		public void validate(final String name, final double[] value) throws ParameterException {
 			if (value == null) {
 				throw new ParameterException("");
 			}
@@ -328,4 +985,51 @@ public final class Hammer {
 			}
 		}
 	}
+
+	public static final class ValidadorModeloCanal implements IValueValidator<String> {
+		@Override
+		public void validate(final String name, final String value) throws ParameterException {
+			try {
+				IntroductorErrores.crear(value, 0);
+			} catch (final IllegalArgumentException exc) {
+				throw new ParameterException("");
+			}
+		}
+	}
+
+	public static final class ValidadorNumeroNoNegativo implements IValueValidator<Integer> {
+		@Override
+		public void validate(final String name, final Integer value) throws ParameterException {
+			if (value != null && value < 0) {
+				throw new ParameterException("");
+			}
+		}
+	}
+
+	public static final class ValidadorNumeroLargoNoNegativo implements IValueValidator<Long> {
+		@Override
+		public void validate(final String name, final Long value) throws ParameterException {
+			if (value != null && value < 0) {
+				throw new ParameterException("");
+			}
+		}
+	}
+
+	public static final class ValidadorNumeroLargoPositivo implements IValueValidator<Long> {
+		@Override
+		public void validate(final String name, final Long value) throws ParameterException {
+			if (value != null && value < 1) {
+				throw new ParameterException("");
+			}
+		}
+	}
+
+	public static final class ValidadorNumeroPositivo implements IValueValidator<Integer> {
+		@Override
+		public void validate(final String name, final Integer value) throws ParameterException {
+			if (value != null && value < 1) {
+				throw new ParameterException("");
+			}
+		}
+	}
 }
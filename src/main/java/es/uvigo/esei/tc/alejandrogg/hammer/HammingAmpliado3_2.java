@@ -2,6 +2,10 @@
 
 package es.uvigo.esei.tc.alejandrogg.hammer;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import es.uvigo.esei.tc.alejandrogg.hammer.lib.EmpaquetamientoBits;
 import es.uvigo.esei.tc.alejandrogg.hammer.lib.MatrizZ2;
 
@@ -9,14 +13,23 @@ import es.uvigo.esei.tc.alejandrogg.hammer.lib.MatrizZ2;
  * Representa un código Hamming ampliado (3, 2), un código lineal sistemático
  * (4, 8, 4) capaz de corregir errores de un bit, y detectar errores de dos
  * bits.
+ * <p>
+ * Se trata del código de la familia {@link CodigoHamming} con tres bits de
+ * redundancia, ampliado, pero como cada byte fuente se codifica en dos bytes,
+ * su codificación y decodificación masiva usa los núcleos específicos de
+ * {@link NucleoHammingAmpliado3_2}, más eficientes. Además, a diferencia del
+ * resto de códigos de la familia, los bytes fuente con alguna palabra código
+ * que no se puede corregir se descartan, salvo que las
+ * {@link EstadisticasDecodificacion} conserven los borrados.
+ * </p>
  *
  * @author Alejandro González García
  */
-final class HammingAmpliado3_2 {
+final class HammingAmpliado3_2 extends CodigoHamming {
 	/**
 	 * La matriz generadora del código.
 	 */
-	private static final MatrizZ2 G = new MatrizZ2(new byte[][] {
+	static final MatrizZ2 G = new MatrizZ2(new byte[][] {
 		{ 1, 0, 0, 0, 0, 1, 1, 1 },
 		{ 0, 1, 0, 0, 1, 0, 1, 1 },
 		{ 0, 0, 1, 0, 1, 1, 0, 1 },
@@ -26,7 +39,7 @@ final class HammingAmpliado3_2 {
 	/**
 	 * La matriz control de paridad del código, traspuesta.
 	 */
-	private static final MatrizZ2 H_TR = new MatrizZ2(new byte[][] {
+	static final MatrizZ2 H_TR = new MatrizZ2(new byte[][] {
 		{ 0, 1, 1, 1 },
 		{ 1, 0, 1, 1 },
 		{ 1, 1, 0, 1 },
@@ -67,6 +80,81 @@ final class HammingAmpliado3_2 {
 		new MatrizZ2(new byte[][] { { 1, 0, 0, 0, 1, 0, 0, 0 } })
 	};
 
+	/**
+	 * La propiedad del sistema que permite forzar el uso de los núcleos de
+	 * codificación y decodificación escalares ({@value #NUCLEO_ESCALAR}) o
+	 * vectoriales ({@value #NUCLEO_VECTORIAL}), por ejemplo, para comparar su
+	 * rendimiento. Por defecto, se usan los vectoriales si están disponibles.
+	 */
+	static final String PROPIEDAD_NUCLEO = "hammer.nucleo";
+	static final String NUCLEO_ESCALAR = "escalar";
+	static final String NUCLEO_VECTORIAL = "vectorial";
+
+	/**
+	 * La tabla de codificación, que asocia a cada nibble su palabra código.
+	 */
+	private static final byte[] TABLA_CODIFICACION = new byte[16];
+
+	/**
+	 * La tabla de decodificación, que asocia a cada palabra código recibida un
+	 * valor cuyos 4 bits de menor peso contienen el nibble decodificado, y los dos
+	 * siguientes bits el estado de la decodificación ({@link #ESTADO_CORRECTA},
+	 * {@link #ESTADO_CORREGIDA} o {@link #ESTADO_INCORREGIBLE}).
+	 */
+	private static final byte[] TABLA_DECODIFICACION = new byte[256];
+
+	/**
+	 * La tabla de síndromes, que asocia a cada palabra código recibida su
+	 * síndrome, interpretado como un número binario, para registrarlo en las
+	 * estadísticas de decodificación.
+	 */
+	private static final byte[] TABLA_SINDROMES_PALABRAS = new byte[256];
+
+	static {
+		// Las tablas se calculan a partir de las matrices del código, para que sean
+		// correctas por construcción. Como el producto matricial es lineal, se
+		// multiplican a la vez todas las palabras, cada una en una fila, en lugar de
+		// usar la implementación de referencia palabra a palabra, cuyos cientos de
+		// productos de una fila dominaban el tiempo de arranque de la aplicación
+		final byte[][] nibbles = new byte[TABLA_CODIFICACION.length][];
+		for (int nibble = 0; nibble < nibbles.length; ++nibble) {
+			nibbles[nibble] = EmpaquetamientoBits.bitsABytes((byte) nibble, 4);
+		}
+
+		final MatrizZ2 palabrasCodigo = new MatrizZ2(nibbles).multiplicarPor(G);
+		for (int nibble = 0; nibble < nibbles.length; ++nibble) {
+			TABLA_CODIFICACION[nibble] = EmpaquetamientoBits.bytesABits(palabrasCodigo.getFila(nibble));
+		}
+
+		final byte[][] palabras = new byte[TABLA_DECODIFICACION.length][];
+		for (int palabra = 0; palabra < palabras.length; ++palabra) {
+			palabras[palabra] = EmpaquetamientoBits.bitsABytes((byte) palabra, 8);
+		}
+
+		final MatrizZ2 sindromes = new MatrizZ2(palabras).multiplicarPor(H_TR);
+		for (int palabra = 0; palabra < palabras.length; ++palabra) {
+			final int sindrome = Byte.toUnsignedInt(EmpaquetamientoBits.bytesABits(sindromes.getFila(palabra)));
+
+			TABLA_SINDROMES_PALABRAS[palabra] = (byte) sindrome;
+			TABLA_DECODIFICACION[palabra] = (byte) corregirMatricial((byte) palabra, sindrome);
+		}
+	}
+
+	/**
+	 * Indica si usar los núcleos de {@link NucleoVectorialHammingAmpliado3_2} en
+	 * lugar de los de {@link NucleoHammingAmpliado3_2}. Debe de declararse tras el
+	 * bloque estático que calcula las tablas, pues los núcleos vectoriales las
+	 * copian al inicializarse.
+	 */
+	private static final boolean USAR_NUCLEO_VECTORIAL = usarNucleoVectorial();
+
+	/**
+	 * Crea el código Hamming ampliado (3, 2).
+	 */
+	public HammingAmpliado3_2() {
+		super(3, true);
+	}
+
 	/**
 	 * Codifica un nibble (palabra de 4 bits), devolviendo una palabra código de 8
 	 * bits (un byte).
@@ -75,20 +163,37 @@ final class HammingAmpliado3_2 {
 	 * @return La palabra código correspondiente al nibble.
 	 */
 	public byte codificarNibble(final byte nibble) {
-		return EmpaquetamientoBits.bytesABits(
-			new MatrizZ2(
-				new byte[][] { EmpaquetamientoBits.bitsABytes(nibble, 4) }
-			).multiplicarPor(G).getFila(0)
-		);
+		return TABLA_CODIFICACION[nibble & 0xF];
+	}
+
+	/**
+	 * Consulta la palabra código de un nibble en la tabla de codificación, para
+	 * los núcleos de codificación masiva, que no acceden directamente a las
+	 * tablas para que no las puedan modificar.
+	 *
+	 * @param nibble El nibble, en los 4 bits de menor peso.
+	 * @return La palabra código del nibble.
+	 */
+	static byte palabraCodigo(final int nibble) {
+		return TABLA_CODIFICACION[nibble & 0xF];
+	}
+
+	/**
+	 * Consulta el síndrome de una palabra código recibida, para que los núcleos
+	 * de decodificación masiva lo registren en las estadísticas.
+	 *
+	 * @param palabra La palabra código recibida, en los 8 bits de menor peso.
+	 * @return El síndrome de la palabra, interpretado como un número binario.
+	 */
+	static byte sindromePalabra(final int palabra) {
+		return TABLA_SINDROMES_PALABRAS[palabra & 0xFF];
 	}
 
 	/**
 	 * Decodifica una palabra código de 8 bits (un byte) al nibble original,
-	 * corrigiendo errores de un bit.
-	 * <p>
-	 * Si se detectan errores de uno o dos bits, se mostrará un mensaje por el flujo
-	 * de salida estándar.
-	 * </p>
+	 * corrigiendo errores de un bit. No se muestra ningún mensaje: para saber si se
+	 * ha corregido algún error, deben de usarse los métodos que acumulan
+	 * {@link EstadisticasDecodificacion}.
 	 *
 	 * @param palabra La palabra código a decodificar.
 	 * @return El nibble decodificado, donde los 4 bits de menor peso contienen el
@@ -99,16 +204,312 @@ final class HammingAmpliado3_2 {
 	 *                                          posiblemente porque han ocurrido
 	 *                                          demasiados errores en la
 	 *                                          transmisión.
+	 * @see #decodificarNibble(byte)
 	 */
 	public byte decodificarPalabraCodigo(final byte palabra) throws DecodificacionImposibleException {
-		final MatrizZ2 r = new MatrizZ2(
-			new byte[][] { EmpaquetamientoBits.bitsABytes(palabra, 8) }
+		final int decodificacion = decodificarNibble(palabra);
+		final int estado = decodificacion >>> 4 & 0x3;
+
+		// Código 2-detector, 1-corrector
+		if (estado == ESTADO_INCORREGIBLE) {
+			throw new DecodificacionImposibleException();
+		}
+
+		return (byte) (decodificacion & 0xF);
+	}
+
+	/**
+	 * Decodifica una palabra código de 8 bits (un byte) al nibble original,
+	 * corrigiendo errores de un bit, con una única consulta a una tabla
+	 * precalculada y sin lanzar excepciones, de manera que es adecuado para
+	 * decodificar palabras código una a una en bucles.
+	 *
+	 * @param palabra La palabra código a decodificar.
+	 * @return Un valor cuyos 4 bits de menor peso contienen el nibble
+	 *         decodificado, y los dos siguientes bits el estado de la
+	 *         decodificación. El nibble solo es válido si el estado no es
+	 *         {@link #ESTADO_INCORREGIBLE}.
+	 */
+	public int decodificarNibble(final byte palabra) {
+		return TABLA_DECODIFICACION[palabra & 0xFF];
+	}
+
+	/**
+	 * Decodifica las dos palabras código correspondientes a un byte fuente, con
+	 * una única consulta a una tabla precalculada, sin mostrar mensajes ni lanzar
+	 * excepciones.
+	 *
+	 * @param primera La palabra código del nibble de menor peso.
+	 * @param segunda La palabra código del nibble de mayor peso.
+	 * @return Un valor cuyos 8 bits de menor peso contienen el byte decodificado,
+	 *         los dos siguientes bits el estado de decodificación de la primera
+	 *         palabra código, y los dos siguientes el de la segunda. El byte
+	 *         decodificado solo es válido si ninguno de los estados es
+	 *         {@link #ESTADO_INCORREGIBLE}.
+	 */
+	int decodificarPar(final byte primera, final byte segunda) {
+		return TablaPares.TABLA[(primera & 0xFF) << 8 | segunda & 0xFF];
+	}
+
+	/**
+	 * Codifica los bytes de un array a otro array. Cada byte fuente se codifica en
+	 * dos bytes: primero la palabra código de su nibble de menor peso, y después la
+	 * de su nibble de mayor peso.
+	 *
+	 * @param origen                El array que contiene los bytes a codificar.
+	 * @param desplazamiento        La posición del primer byte a codificar.
+	 * @param longitud              El número de bytes a codificar.
+	 * @param destino               El array donde escribir las palabras código.
+	 * @param desplazamientoDestino La posición de {@code destino} a partir de la
+	 *                              cual escribir.
+	 * @return El número de bytes escritos en {@code destino}, que siempre es el
+	 *         doble de {@code longitud}.
+	 * @throws IllegalArgumentException Si algún array es nulo, o los intervalos
+	 *                                  indicados no están contenidos en ellos.
+	 */
+	@Override
+	public int codificar(
+		final byte[] origen, final int desplazamiento, final int longitud,
+		final byte[] destino, final int desplazamientoDestino
+	) {
+		comprobarIntervalo(origen, desplazamiento, longitud);
+		comprobarIntervalo(destino, desplazamientoDestino, longitud * 2);
+
+		if (USAR_NUCLEO_VECTORIAL) {
+			return NucleoVectorialHammingAmpliado3_2.codificar(
+				origen, desplazamiento, longitud, destino, desplazamientoDestino
+			);
+		}
+
+		return NucleoHammingAmpliado3_2.codificar(
+			envolver(origen), desplazamiento, longitud,
+			envolver(destino), desplazamientoDestino
 		);
+	}
+
+	/**
+	 * Decodifica las palabras código de un array a otro array, corrigiendo errores
+	 * de un bit. Las palabras código se decodifican por parejas, cada una
+	 * correspondiente a un byte fuente; si en alguna de ellas se detectan errores
+	 * que no se pueden corregir, el byte fuente se descarta, o se sustituye por
+	 * {@link EstadisticasDecodificacion#BYTE_BORRADO} si las estadísticas
+	 * conservan los borrados. Si {@code longitud} es impar, el último byte no se
+	 * decodifica, y debe de volver a proporcionarse junto con el siguiente.
+	 *
+	 * @param origen                El array que contiene las palabras código.
+	 * @param desplazamiento        La posición de la primera palabra código.
+	 * @param longitud              El número de palabras código disponibles.
+	 * @param destino               El array donde escribir los bytes
+	 *                              decodificados. Debe de tener espacio para, al
+	 *                              menos, {@code longitud / 2} bytes.
+	 * @param desplazamientoDestino La posición de {@code destino} a partir de la
+	 *                              cual escribir.
+	 * @param estadisticas          Las estadísticas donde acumular el resultado de
+	 *                              la decodificación.
+	 * @return El número de bytes decodificados escritos en {@code destino}.
+	 * @throws IllegalArgumentException Si algún array o las estadísticas son
+	 *                                  nulos, o los intervalos indicados no están
+	 *                                  contenidos en los arrays.
+	 */
+	@Override
+	public int decodificar(
+		final byte[] origen, final int desplazamiento, final int longitud,
+		final byte[] destino, final int desplazamientoDestino,
+		final EstadisticasDecodificacion estadisticas
+	) {
+		final int pares = longitud / 2;
+
+		comprobarIntervalo(origen, desplazamiento, longitud);
+		comprobarIntervalo(destino, desplazamientoDestino, pares);
+		comprobarEstadisticas(estadisticas);
+
+		final int escritos = USAR_NUCLEO_VECTORIAL ?
+			NucleoVectorialHammingAmpliado3_2.decodificar(
+				origen, desplazamiento, pares, destino, desplazamientoDestino, estadisticas
+			) :
+			NucleoHammingAmpliado3_2.decodificar(
+				envolver(origen), desplazamiento, pares,
+				envolver(destino), desplazamientoDestino, estadisticas
+			);
+
+		estadisticas.registrar(0, 0, 0, pares - escritos);
 
+		return escritos;
+	}
+
+	/**
+	 * Codifica los bytes restantes de un búfer a otro búfer, como
+	 * {@link #codificar(byte[], int, int, byte[], int)}. Se codifican tantos bytes
+	 * como quepan en el búfer de destino, y las posiciones de ambos búferes avanzan
+	 * de acuerdo a lo leído y escrito. Los búferes pueden ser directos o no.
+	 *
+	 * @param origen  El búfer que contiene los bytes a codificar.
+	 * @param destino El búfer donde escribir las palabras código.
+	 * @return El número de bytes escritos en {@code destino}.
+	 * @throws IllegalArgumentException Si algún búfer es nulo.
+	 */
+	@Override
+	public int codificar(final ByteBuffer origen, final ByteBuffer destino) {
+		if (origen == null || destino == null) {
+			throw new IllegalArgumentException("Los búferes no pueden ser nulos");
+		}
+
+		final int longitud = Math.min(origen.remaining(), destino.remaining() / 2);
+		final int posicionOrigen = origen.position();
+		final int posicionDestino = destino.position();
+
+		if (USAR_NUCLEO_VECTORIAL && origen.hasArray() && destino.hasArray()) {
+			NucleoVectorialHammingAmpliado3_2.codificar(
+				origen.array(), origen.arrayOffset() + posicionOrigen, longitud,
+				destino.array(), destino.arrayOffset() + posicionDestino
+			);
+		} else {
+			NucleoHammingAmpliado3_2.codificar(
+				origen.duplicate().order(ByteOrder.LITTLE_ENDIAN), posicionOrigen, longitud,
+				destino.duplicate().order(ByteOrder.LITTLE_ENDIAN), posicionDestino
+			);
+		}
+
+		// Conversión a Buffer por compatibilidad binaria con Java 8
+		((Buffer) origen).position(posicionOrigen + longitud);
+		((Buffer) destino).position(posicionDestino + longitud * 2);
+
+		return longitud * 2;
+	}
+
+	/**
+	 * Decodifica las palabras código restantes de un búfer a otro búfer, como
+	 * {@link #decodificar(byte[], int, int, byte[], int, EstadisticasDecodificacion)}.
+	 * Se decodifican tantas parejas de palabras código como quepan en el búfer de
+	 * destino, y las posiciones de ambos búferes avanzan de acuerdo a lo leído y
+	 * escrito. Si queda una palabra código sin pareja, no se consume del búfer de
+	 * origen. Los búferes pueden ser directos o no.
+	 *
+	 * @param origen       El búfer que contiene las palabras código.
+	 * @param destino      El búfer donde escribir los bytes decodificados.
+	 * @param estadisticas Las estadísticas donde acumular el resultado de la
+	 *                     decodificación.
+	 * @return El número de bytes decodificados escritos en {@code destino}.
+	 * @throws IllegalArgumentException Si algún búfer o las estadísticas son
+	 *                                  nulos.
+	 */
+	@Override
+	public int decodificar(final ByteBuffer origen, final ByteBuffer destino, final EstadisticasDecodificacion estadisticas) {
+		if (origen == null || destino == null) {
+			throw new IllegalArgumentException("Los búferes no pueden ser nulos");
+		}
+
+		final int pares = Math.min(origen.remaining() / 2, destino.remaining());
+		final int posicionOrigen = origen.position();
+		final int posicionDestino = destino.position();
+
+		comprobarEstadisticas(estadisticas);
+
+		final int escritos;
+		if (USAR_NUCLEO_VECTORIAL && origen.hasArray() && destino.hasArray()) {
+			// Los núcleos vectoriales registran los bytes borrados con índices del
+			// array, que se adelantan a los del búfer en su desplazamiento
+			final long desplazamientoBorrados = estadisticas.getDesplazamientoBorrados();
+			estadisticas.setDesplazamientoBorrados(desplazamientoBorrados - destino.arrayOffset());
+
+			escritos = NucleoVectorialHammingAmpliado3_2.decodificar(
+				origen.array(), origen.arrayOffset() + posicionOrigen, pares,
+				destino.array(), destino.arrayOffset() + posicionDestino, estadisticas
+			);
+
+			estadisticas.setDesplazamientoBorrados(desplazamientoBorrados);
+		} else {
+			escritos = NucleoHammingAmpliado3_2.decodificar(
+				origen.duplicate().order(ByteOrder.LITTLE_ENDIAN), posicionOrigen, pares,
+				destino.duplicate().order(ByteOrder.LITTLE_ENDIAN), posicionDestino, estadisticas
+			);
+		}
+
+		estadisticas.registrar(0, 0, 0, pares - escritos);
+
+		((Buffer) origen).position(posicionOrigen + pares * 2);
+		((Buffer) destino).position(posicionDestino + escritos);
+
+		return escritos;
+	}
+
+	/**
+	 * Decide si usar los núcleos vectoriales, de acuerdo a su disponibilidad y a
+	 * la propiedad del sistema {@value #PROPIEDAD_NUCLEO}.
+	 *
+	 * @return Verdadero si se deben de usar los núcleos vectoriales, falso si se
+	 *         deben de usar los escalares.
+	 */
+	private static boolean usarNucleoVectorial() {
+		final String nucleo = System.getProperty(PROPIEDAD_NUCLEO, "");
+		final boolean disponible = NucleoVectorialHammingAmpliado3_2.disponible();
+
+		if (NUCLEO_VECTORIAL.equals(nucleo) && !disponible) {
+			System.err.println(
+				"! El núcleo vectorial no está disponible, pues requiere Java 21 o posterior y la " +
+				"opción --add-modules jdk.incubator.vector. Se usará el núcleo escalar"
+			);
+		}
+
+		return disponible && !NUCLEO_ESCALAR.equals(nucleo);
+	}
+
+	/**
+	 * Envuelve un array en un búfer con el orden de bytes que esperan los núcleos
+	 * de {@link NucleoHammingAmpliado3_2}.
+	 *
+	 * @param array El array a envolver.
+	 * @return El búfer, cuyos índices coinciden con los del array.
+	 */
+	private static ByteBuffer envolver(final byte[] array) {
+		return ByteBuffer.wrap(array).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Codifica un nibble mediante el producto matricial de la palabra fuente por la
+	 * matriz generadora. Se trata de la implementación de referencia a partir de la
+	 * cual se calculan las tablas del código.
+	 *
+	 * @param nibble El nibble a codificar, correspondiente a los 4 bits de menor
+	 *               peso del byte.
+	 * @return La palabra código correspondiente al nibble.
+	 */
+	static byte codificarNibbleMatricial(final byte nibble) {
+		return EmpaquetamientoBits.bytesABits(
+			new MatrizZ2(
+				new byte[][] { EmpaquetamientoBits.bitsABytes(nibble, 4) }
+			).multiplicarPor(G).getFila(0)
+		);
+	}
+
+	/**
+	 * Decodifica una palabra código mediante el cálculo matricial de su síndrome y
+	 * la consulta de la tabla de síndromes. Se trata de la implementación de
+	 * referencia a partir de la cual se calculan las tablas del código.
+	 *
+	 * @param palabra La palabra código a decodificar.
+	 * @return Un valor cuyos 4 bits de menor peso contienen el nibble decodificado,
+	 *         y los dos siguientes bits el estado de la decodificación.
+	 */
+	static int decodificarPalabraCodigoMatricial(final byte palabra) {
 		// Al interpretar el síndrome como un número binario, tenemos el índice del representante
-		final int indiceRepresentante = Byte.toUnsignedInt(EmpaquetamientoBits.bytesABits(
-			r.multiplicarPor(H_TR).getFila(0)
-		));
+		return corregirMatricial(palabra, calcularSindromeMatricial(palabra));
+	}
+
+	/**
+	 * Decodifica una palabra código cuyo síndrome ya se conoce, restándole el
+	 * representante de su síndrome.
+	 *
+	 * @param palabra             La palabra código a decodificar.
+	 * @param indiceRepresentante El síndrome de la palabra, interpretado como un
+	 *                            número binario.
+	 * @return Un valor cuyos 4 bits de menor peso contienen el nibble decodificado,
+	 *         y los dos siguientes bits el estado de la decodificación.
+	 */
+	private static int corregirMatricial(final byte palabra, final int indiceRepresentante) {
+		final MatrizZ2 r = new MatrizZ2(
+			new byte[][] { EmpaquetamientoBits.bitsABytes(palabra, 8) }
+		);
 
 		// Considerar representante = error. Entonces, las posiciones a 1 del vector representan
 		// errores detectados
@@ -121,18 +522,6 @@ final class HammingAmpliado3_2 {
 			erroresDetectados += vectorError[i];
 		}
 
-		if (erroresDetectados > 0) {
-			System.err.printf(
-				"! Se ha detectado un error de transmisión de %d bit(s)" + System.lineSeparator(),
-				erroresDetectados
-			);
-
-			// Código 2-detector, 1-corrector
-			if (erroresDetectados > 1) {
-				throw new DecodificacionImposibleException();
-			}
-		}
-
 		// c = r - error
 		final byte c = EmpaquetamientoBits.bytesABits(
 			r.sumar(error).getFila(0)
@@ -140,7 +529,66 @@ final class HammingAmpliado3_2 {
 
 		// Se trata de un código sistemático, donde los primeros 4 bits son la
 		// palabra fuente. Por tanto, obtener la palabra fuente a partir de
-		// la palabra código se reduce a quedarse con los 4 bits más significativos
-		return (byte) (((int) c & 0xFF) >>> 4);
+		// la palabra código se reduce a quedarse con los 4 bits más significativos.
+		// El número de errores detectados coincide con el estado de decodificación
+		return ((int) c & 0xFF) >>> 4 | erroresDetectados << 4;
+	}
+
+	/**
+	 * Calcula el síndrome de una palabra código mediante el producto matricial de
+	 * la palabra por la matriz control de paridad traspuesta.
+	 *
+	 * @param palabra La palabra código.
+	 * @return El síndrome, interpretado como un número binario cuyo bit de mayor
+	 *         peso es el primer elemento del vector síndrome.
+	 */
+	static int calcularSindromeMatricial(final byte palabra) {
+		return Byte.toUnsignedInt(EmpaquetamientoBits.bytesABits(
+			new MatrizZ2(
+				new byte[][] { EmpaquetamientoBits.bitsABytes(palabra, 8) }
+			).multiplicarPor(H_TR).getFila(0)
+		));
+	}
+
+	/**
+	 * Contiene la tabla de decodificación de pares de palabras código, que solo se
+	 * calcula, al cargar esta clase, la primera vez que se decodifica, pues no se
+	 * necesita para codificar.
+	 */
+	static final class TablaPares {
+		/**
+		 * La tabla de decodificación de pares de palabras código, indexada por la
+		 * palabra código del nibble de menor peso seguida de la palabra código del
+		 * nibble de mayor peso. Cada elemento contiene en sus 8 bits de menor peso el
+		 * byte fuente decodificado, en los dos siguientes bits el estado de
+		 * decodificación de la primera palabra código, y en los dos siguientes el de
+		 * la segunda.
+		 */
+		private static final char[] TABLA = new char[65536];
+
+		static {
+			for (int par = 0; par < TABLA.length; ++par) {
+				final int primera = TABLA_DECODIFICACION[par >>> 8];
+				final int segunda = TABLA_DECODIFICACION[par & 0xFF];
+
+				TABLA[par] = (char) (
+					(primera & 0xF) | (segunda & 0xF) << 4 |
+					(primera >>> 4 & 0x3) << 8 | (segunda >>> 4 & 0x3) << 10
+				);
+			}
+		}
+
+		private TablaPares() {}
+
+		/**
+		 * Consulta la decodificación de un par de palabras código.
+		 *
+		 * @param par La palabra código del nibble de menor peso, en los bits 8 a 15,
+		 *            seguida de la del nibble de mayor peso.
+		 * @return El elemento de la tabla para el par.
+		 */
+		static char consultar(final int par) {
+			return TABLA[par & 0xFFFF];
+		}
 	}
 }
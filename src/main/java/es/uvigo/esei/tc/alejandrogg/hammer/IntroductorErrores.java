@@ -0,0 +1,378 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+/**
+ * Introduce errores en los bytes de un flujo codificado, según un modelo de
+ * canal, llevando la cuenta de cuántos se han introducido.
+ * <p>
+ * Cada modelo de canal genera la secuencia de bytes con errores como una
+ * sucesión de saltos: cuántos bytes se dejan intactos antes del siguiente byte
+ * con errores, y qué bits de éste se niegan. Así, los canales con una tasa de
+ * errores baja no necesitan generar números pseudoaleatorios para cada byte,
+ * sino solo para los que corrompen, y la introducción de errores se limita a
+ * recorrer los bytes afectados.
+ * </p>
+ * <p>
+ * Los errores que se introducen en cada byte dependen solo de la semilla y de
+ * la posición del byte en el flujo codificado, y no de cómo se divida el flujo
+ * en llamadas. Para ello, el flujo se divide en segmentos de
+ * {@link #BYTES_SEGMENTO} bytes, y el canal empieza cada uno de ellos de nuevo,
+ * con un generador de números pseudoaleatorios cuya semilla se obtiene de la
+ * semilla del introductor y del índice del segmento. Así, la misma semilla
+ * produce la misma salida corrupta con cualquier número de hilos y tamaño de
+ * los trozos.
+ * </p>
+ * <p>
+ * Las instancias de esta clase no son seguras para su uso concurrente. Para
+ * introducir errores desde varios hilos, cada uno debe de usar su propia
+ * instancia, obtenida con {@link #derivar()}.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+abstract class IntroductorErrores {
+	/**
+	 * Las máscaras de un byte con cada número de bits a uno, de 0 a 8, agrupadas
+	 * por dicho número. Permiten elegir los bits a negar en un byte con un único
+	 * número pseudoaleatorio.
+	 */
+	private static final int[][] MASCARAS_PESO = new int[9][];
+
+	/**
+	 * El salto que indica que no se introducirán más errores.
+	 */
+	static final long SIN_MAS_ERRORES = Long.MAX_VALUE >>> 8;
+
+	/**
+	 * El número de bytes de cada segmento del flujo codificado con su propia
+	 * secuencia de números pseudoaleatorios.
+	 */
+	static final int BYTES_SEGMENTO = 64 * 1024;
+
+	static {
+		final int[] mascarasPorPeso = new int[9];
+		for (int mascara = 0; mascara < 256; ++mascara) {
+			++mascarasPorPeso[Integer.bitCount(mascara)];
+		}
+
+		for (int peso = 0; peso < MASCARAS_PESO.length; ++peso) {
+			MASCARAS_PESO[peso] = new int[mascarasPorPeso[peso]];
+			mascarasPorPeso[peso] = 0;
+		}
+
+		for (int mascara = 0; mascara < 256; ++mascara) {
+			final int peso = Integer.bitCount(mascara);
+			MASCARAS_PESO[peso][mascarasPorPeso[peso]++] = mascara;
+		}
+	}
+
+	/**
+	 * La semilla de la que se obtienen las de los generadores de números
+	 * pseudoaleatorios de cada segmento.
+	 */
+	final long semilla;
+	/**
+	 * El generador de números pseudoaleatorios del segmento actual.
+	 */
+	SplittableRandom prng = null;
+
+	private long erroresIntroducidos = 0;
+	private long bytesHastaError = -1;
+	private int mascaraError = 0;
+	/**
+	 * La posición en el flujo codificado del siguiente byte a recorrer, o -1 si
+	 * aún no se ha recorrido ninguno.
+	 */
+	private long posicion = -1;
+
+	/**
+	 * Crea un nuevo introductor de errores.
+	 *
+	 * @param semilla La semilla de los números pseudoaleatorios a usar.
+	 */
+	IntroductorErrores(final long semilla) {
+		this.semilla = semilla;
+	}
+
+	/**
+	 * Crea un introductor de errores a partir de la descripción de su modelo de
+	 * canal. Se admiten las descripciones {@code bsc:p}, para un canal binario
+	 * simétrico con probabilidad de error por bit p, {@code fijo:k}, para negar k
+	 * bits de cada byte, {@code normal} y {@code normal-limitado}, para que el
+	 * número de errores por byte siga las distribuciones de {@link CanalNormal},
+	 * y {@code gilbert-elliott:b,g,pb,pm}, para un canal de Gilbert–Elliott con
+	 * probabilidades de transición b (del estado bueno al malo) y g (del malo al
+	 * bueno), y probabilidades de error por bit pb y pm en cada estado.
+	 *
+	 * @param descripcion La descripción del modelo de canal.
+	 * @param semilla     La semilla de los números pseudoaleatorios a usar.
+	 * @return El introductor de errores correspondiente.
+	 * @throws IllegalArgumentException Si la descripción es nula o no corresponde
+	 *                                  a ningún modelo de canal válido.
+	 */
+	static IntroductorErrores crear(final String descripcion, final long semilla) {
+		if (descripcion == null) {
+			throw new IllegalArgumentException("La descripción del canal no puede ser nula");
+		}
+
+		final int separador = descripcion.indexOf(':');
+		final String modelo = separador < 0 ? descripcion : descripcion.substring(0, separador);
+		final String[] parametros = separador < 0 ? new String[0] : descripcion.substring(separador + 1).split(",", -1);
+
+		try {
+			switch (modelo) {
+				case CanalBinarioSimetrico.NOMBRE:
+					comprobarNumeroParametros(parametros, 1);
+					return new CanalBinarioSimetrico(Double.parseDouble(parametros[0]), semilla);
+				case CanalPesoFijo.NOMBRE:
+					comprobarNumeroParametros(parametros, 1);
+					return new CanalPesoFijo(Integer.parseInt(parametros[0]), semilla);
+				case CanalNormal.NOMBRE:
+					comprobarNumeroParametros(parametros, 0);
+					return new CanalNormal(false, semilla);
+				case CanalNormal.NOMBRE_LIMITADO:
+					comprobarNumeroParametros(parametros, 0);
+					return new CanalNormal(true, semilla);
+				case CanalGilbertElliott.NOMBRE:
+					comprobarNumeroParametros(parametros, 4);
+					return new CanalGilbertElliott(
+						Double.parseDouble(parametros[0]), Double.parseDouble(parametros[1]),
+						Double.parseDouble(parametros[2]), Double.parseDouble(parametros[3]),
+						semilla
+					);
+				default:
+					throw new IllegalArgumentException("El modelo de canal indicado no es conocido");
+			}
+		} catch (final NumberFormatException exc) {
+			throw new IllegalArgumentException("Algún parámetro del modelo de canal no es un número");
+		}
+	}
+
+	/**
+	 * Crea un introductor de errores que no introduce ninguno.
+	 *
+	 * @return El devandicho introductor de errores.
+	 */
+	static IntroductorErrores ninguno() {
+		return new CanalPesoFijo(0, 0);
+	}
+
+	/**
+	 * Crea un nuevo introductor de errores con el mismo modelo de canal y semilla
+	 * que éste, de manera que introduce los mismos errores en cada posición del
+	 * flujo codificado, pero con su propio estado. El introductor creado empieza
+	 * con su cuenta de errores introducidos a cero.
+	 *
+	 * @return El introductor de errores derivado.
+	 */
+	abstract IntroductorErrores derivar();
+
+	/**
+	 * Comprueba si este introductor de errores puede llegar a introducir alguno.
+	 *
+	 * @return Verdadero si puede introducir errores, falso en otro caso.
+	 */
+	abstract boolean introduceErrores();
+
+	/**
+	 * Genera el siguiente byte con errores del canal.
+	 *
+	 * @return El número de bytes sin errores que preceden al siguiente byte con
+	 *         errores, desplazado 8 bits a la izquierda, junto a los bits a negar
+	 *         de ese byte, en los 8 bits de menor peso. Si no se van a introducir
+	 *         más errores, el número de bytes es {@link #SIN_MAS_ERRORES}.
+	 */
+	abstract long siguienteError();
+
+	/**
+	 * Devuelve el modelo de canal a su estado inicial, al empezar un segmento.
+	 * Las subclases con estado propio deben de redefinir este método, invocando
+	 * a la implementación de la superclase.
+	 */
+	void reiniciarEstado() {
+		// Sin estado propio
+	}
+
+	/**
+	 * Obtiene el número de errores (bits negados) introducidos hasta el momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	final long getErroresIntroducidos() {
+		return erroresIntroducidos;
+	}
+
+	/**
+	 * Introduce errores a cada una de las palabras código de un array, según el
+	 * modelo de canal.
+	 *
+	 * @param palabrasCodigo El array de palabras código a corromper.
+	 * @param desplazamiento La posición de la primera palabra código a corromper.
+	 * @param longitud       El número de palabras código a corromper.
+	 * @param posicion       La posición de la primera palabra código a corromper
+	 *                       en el flujo codificado.
+	 */
+	final void introducir(
+		final byte[] palabrasCodigo, final int desplazamiento, final int longitud, final long posicion
+	) {
+		if (introduceErrores()) {
+			final int fin = desplazamiento + longitud;
+
+			situar(posicion);
+			for (int i = siguienteByteErroneo(desplazamiento, fin, true); i < fin; i = siguienteByteErroneo(i + 1, fin, true)) {
+				palabrasCodigo[i] ^= mascaraError;
+			}
+		}
+	}
+
+	/**
+	 * Introduce errores a cada una de las palabras código de un búfer, según el
+	 * modelo de canal, sin modificar su posición.
+	 *
+	 * @param palabrasCodigo El búfer de palabras código a corromper.
+	 * @param desplazamiento La posición de la primera palabra código a corromper.
+	 * @param longitud       El número de palabras código a corromper.
+	 * @param posicion       La posición de la primera palabra código a corromper
+	 *                       en el flujo codificado.
+	 */
+	final void introducir(
+		final ByteBuffer palabrasCodigo, final int desplazamiento, final int longitud, final long posicion
+	) {
+		if (introduceErrores()) {
+			final int fin = desplazamiento + longitud;
+
+			situar(posicion);
+			for (int i = siguienteByteErroneo(desplazamiento, fin, true); i < fin; i = siguienteByteErroneo(i + 1, fin, true)) {
+				palabrasCodigo.put(i, (byte) (palabrasCodigo.get(i) ^ mascaraError));
+			}
+		}
+	}
+
+	/**
+	 * Elige aleatoriamente, con equiprobabilidad, una máscara de un byte con el
+	 * número de bits a uno indicado.
+	 *
+	 * @param peso El número de bits a uno de la máscara, entre 0 y 8.
+	 * @return La máscara elegida.
+	 */
+	final int mascaraAleatoria(final int peso) {
+		final int[] mascaras = MASCARAS_PESO[peso];
+		return mascaras.length > 1 ? mascaras[prng.nextInt(mascaras.length)] : mascaras[0];
+	}
+
+	/**
+	 * Sitúa el canal en una posición del flujo codificado. Si no es la siguiente a
+	 * la última recorrida, se vuelve a empezar el segmento que la contiene y se
+	 * descartan los errores de los bytes anteriores a ella.
+	 *
+	 * @param posicion La posición en la que situar el canal.
+	 * @throws IllegalArgumentException Si la posición es negativa.
+	 */
+	private void situar(final long posicion) {
+		if (posicion < 0) {
+			throw new IllegalArgumentException("La posición en el flujo codificado no puede ser negativa");
+		}
+
+		if (posicion != this.posicion) {
+			final int bytesDescartados = (int) (posicion % BYTES_SEGMENTO);
+
+			reiniciar(posicion / BYTES_SEGMENTO);
+
+			int i = siguienteByteErroneo(0, bytesDescartados, false);
+			while (i < bytesDescartados) {
+				i = siguienteByteErroneo(i + 1, bytesDescartados, false);
+			}
+		}
+	}
+
+	/**
+	 * Busca el siguiente byte con errores entre los próximos bytes a recorrer,
+	 * dejando sus bits a negar en {@code mascaraError} y avanzando la posición del
+	 * canal hasta después de él, o hasta después del último byte a recorrer si no
+	 * hay ninguno.
+	 *
+	 * @param inicio El índice del primer byte a recorrer.
+	 * @param fin    El índice siguiente al del último byte a recorrer.
+	 * @param contar Si se deben de contar los errores del byte encontrado como
+	 *               introducidos.
+	 * @return El índice del byte con errores encontrado, o {@code fin} si no hay
+	 *         ninguno.
+	 */
+	private int siguienteByteErroneo(final int inicio, final int fin, final boolean contar) {
+		int i = inicio;
+
+		while (i < fin) {
+			// Los errores de cada segmento no pasan al siguiente
+			final int finTramo = (int) Math.min(fin, i + (BYTES_SEGMENTO - posicion % BYTES_SEGMENTO));
+
+			if (bytesHastaError < 0) {
+				final long error = siguienteError();
+				bytesHastaError = error >>> 8;
+				mascaraError = (int) error & 0xFF;
+			}
+
+			if (bytesHastaError < finTramo - i) {
+				final int erroneo = i + (int) bytesHastaError;
+
+				if (contar) {
+					erroresIntroducidos += Integer.bitCount(mascaraError);
+				}
+				bytesHastaError = -1;
+				avanzarPosicion(erroneo + 1 - i);
+
+				return erroneo;
+			}
+
+			if (bytesHastaError != SIN_MAS_ERRORES) {
+				bytesHastaError -= finTramo - i;
+			}
+			avanzarPosicion(finTramo - i);
+			i = finTramo;
+		}
+
+		return fin;
+	}
+
+	private void avanzarPosicion(final int bytes) {
+		posicion += bytes;
+		if (posicion % BYTES_SEGMENTO == 0) {
+			reiniciar(posicion / BYTES_SEGMENTO);
+		}
+	}
+
+	/**
+	 * Empieza un segmento del flujo codificado, con un generador de números
+	 * pseudoaleatorios propio.
+	 *
+	 * @param segmento El índice del segmento.
+	 */
+	private void reiniciar(final long segmento) {
+		prng = new SplittableRandom(semillaSegmento(semilla, segmento));
+		bytesHastaError = -1;
+		posicion = segmento * BYTES_SEGMENTO;
+		reiniciarEstado();
+	}
+
+	/**
+	 * Obtiene la semilla del generador de números pseudoaleatorios de un segmento,
+	 * mezclando los bits de la semilla del introductor y del índice del segmento
+	 * con la función de finalización de MurmurHash3, de manera que segmentos
+	 * contiguos tienen semillas sin relación aparente.
+	 */
+	private static long semillaSegmento(final long semilla, final long segmento) {
+		long z = semilla + (segmento + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+		z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return z ^ (z >>> 33);
+	}
+
+	private static void comprobarNumeroParametros(final String[] parametros, final int numeroParametros) {
+		if (parametros.length != numeroParametros) {
+			throw new IllegalArgumentException("El número de parámetros del modelo de canal no es correcto");
+		}
+	}
+}
@@ -0,0 +1,91 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+/**
+ * Introduce errores según un modelo de canal que decide, bit a bit, si cada bit
+ * se niega. En lugar de muestrear cada bit, los modelos generan directamente el
+ * número de bits sin errores hasta el siguiente bit erróneo, de manera que el
+ * coste es proporcional al número de errores, y no al de bits.
+ *
+ * @author Alejandro González García
+ */
+abstract class IntroductorErroresBits extends IntroductorErrores {
+	/**
+	 * El número máximo de bits sin errores entre dos errores, que evita
+	 * desbordamientos con probabilidades de error ínfimas. Equivale a que no se
+	 * introduzcan más errores.
+	 */
+	static final long MAXIMO_BITS_SIN_ERRORES = SIN_MAS_ERRORES << 3;
+
+	/**
+	 * El número de bits sin errores que preceden al siguiente bit erróneo,
+	 * contados desde el principio del byte siguiente al último byte con errores.
+	 */
+	private long bitsHastaError = -1;
+
+	/**
+	 * Crea un nuevo introductor de errores bit a bit.
+	 *
+	 * @param semilla La semilla de los números pseudoaleatorios a usar.
+	 */
+	IntroductorErroresBits(final long semilla) {
+		super(semilla);
+	}
+
+	/**
+	 * Genera el número de bits sin errores que preceden al siguiente bit erróneo,
+	 * contados desde el bit siguiente al último bit erróneo generado.
+	 *
+	 * @return El devandicho número, que no supera
+	 *         {@link #MAXIMO_BITS_SIN_ERRORES}.
+	 */
+	abstract long bitsSinErrores();
+
+	@Override
+	void reiniciarEstado() {
+		super.reiniciarEstado();
+
+		bitsHastaError = -1;
+	}
+
+	@Override
+	final long siguienteError() {
+		if (bitsHastaError < 0) {
+			bitsHastaError = bitsSinErrores();
+		}
+
+		if (bitsHastaError >= MAXIMO_BITS_SIN_ERRORES) {
+			return SIN_MAS_ERRORES << 8;
+		}
+
+		// Agrupar en una máscara todos los bits erróneos que caen en el mismo byte
+		final long bytesSinErrores = bitsHastaError >>> 3;
+		long bit = bitsHastaError & 7;
+		int mascara = 0;
+		do {
+			mascara |= 1 << bit;
+			bit += 1 + Math.min(bitsSinErrores(), MAXIMO_BITS_SIN_ERRORES);
+		} while (bit < 8);
+		bitsHastaError = bit - 8;
+
+		return bytesSinErrores << 8 | mascara;
+	}
+
+	/**
+	 * Muestrea una distribución geométrica, que modela el número de fracasos que
+	 * preceden al primer éxito en una sucesión de experimentos de Bernoulli
+	 * independientes, mediante el método de la inversión.
+	 *
+	 * @param logaritmoFracaso El logaritmo neperiano de la probabilidad de
+	 *                         fracaso de cada experimento, que debe de ser
+	 *                         negativo.
+	 * @return El número de fracasos muestreado, que no supera
+	 *         {@link #MAXIMO_BITS_SIN_ERRORES}.
+	 */
+	final long geometrica(final double logaritmoFracaso) {
+		// 1 - nextDouble() está en (0, 1], así que su logaritmo es finito
+		final double fracasos = Math.floor(Math.log(1 - prng.nextDouble()) / logaritmoFracaso);
+		return fracasos < MAXIMO_BITS_SIN_ERRORES ? (long) fracasos : MAXIMO_BITS_SIN_ERRORES;
+	}
+}
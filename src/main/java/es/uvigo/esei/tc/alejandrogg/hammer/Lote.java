@@ -0,0 +1,501 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+/**
+ * Codifica y decodifica lotes de ficheros con un código lineal, escribiendo el
+ * resultado de cada uno en un directorio de salida que reproduce la estructura
+ * de directorios de la entrada.
+ * <p>
+ * Los ficheros se procesan a la vez en un grupo de hilos. Los que no superan el
+ * tamaño de un trozo se leen, transforman y escriben de una vez, como una
+ * única tarea; los demás se procesan con un {@link Procesador} que reparte sus
+ * trozos en el mismo grupo de hilos. En ambos casos el resultado es idéntico al
+ * de procesar cada fichero por separado. Como no hace falta arrancar una
+ * máquina virtual por fichero, el coste de procesar muchos ficheros pequeños
+ * queda limitado por el del sistema de ficheros.
+ * </p>
+ * <p>
+ * Las instancias de esta clase no son seguras para su uso concurrente.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class Lote {
+	/**
+	 * El número de ficheros por hilo que se pueden estar procesando, o esperando a
+	 * ser contabilizados, a la vez. Limita la memoria usada por los ficheros
+	 * pequeños, que se leen completos.
+	 */
+	private static final int FICHEROS_EN_VUELO_POR_HILO = 2;
+
+	private final CodigoLineal codigo;
+	private final int hilos;
+	private final int tamanoTrozo;
+
+	private long ficheros = 0;
+	private long ficherosTroceados = 0;
+	private long bytesLeidos = 0;
+	private long bytesEscritos = 0;
+	private Progreso progreso = Progreso.ninguno();
+
+	/**
+	 * Crea un nuevo procesador de lotes de ficheros.
+	 *
+	 * @param codigo      El código con el que codificar y decodificar.
+	 * @param hilos       El número de hilos entre los que repartir los ficheros.
+	 *                    Con un único hilo, los ficheros se procesan en el hilo
+	 *                    que invoca los métodos de esta clase.
+	 * @param tamanoTrozo El número aproximado de bytes fuente de cada trozo. Los
+	 *                    ficheros que no lo superan se procesan como una única
+	 *                    tarea.
+	 * @throws IllegalArgumentException Si el código es nulo, o el número de hilos
+	 *                                  o el tamaño de los trozos no son positivos.
+	 */
+	Lote(final CodigoLineal codigo, final int hilos, final int tamanoTrozo) {
+		if (codigo == null) {
+			throw new IllegalArgumentException("El código no puede ser nulo");
+		}
+
+		if (hilos < 1) {
+			throw new IllegalArgumentException("El número de hilos debe de ser positivo");
+		}
+
+		if (tamanoTrozo < 1) {
+			throw new IllegalArgumentException("El tamaño de los trozos debe de ser positivo");
+		}
+
+		this.codigo = codigo;
+		this.hilos = hilos;
+		this.tamanoTrozo = Math.min(tamanoTrozo, Procesador.TAMANO_TROZO_MAXIMO);
+	}
+
+	/**
+	 * Establece el progreso en el que registrar los bytes de entrada procesados
+	 * y, al decodificar, las palabras corregidas. Al empezar a procesar un lote,
+	 * su número de bytes totales pasa a ser el de todos sus ficheros.
+	 *
+	 * @param progreso El progreso.
+	 * @throws IllegalArgumentException Si el progreso es nulo.
+	 */
+	void setProgreso(final Progreso progreso) {
+		if (progreso == null) {
+			throw new IllegalArgumentException("El progreso no puede ser nulo");
+		}
+
+		this.progreso = progreso;
+	}
+
+	/**
+	 * Obtiene el número de ficheros procesados hasta el momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getFicheros() {
+		return ficheros;
+	}
+
+	/**
+	 * Obtiene el número de ficheros procesados hasta el momento que se han
+	 * dividido en trozos, por superar el tamaño de un trozo.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getFicherosTroceados() {
+		return ficherosTroceados;
+	}
+
+	/**
+	 * Obtiene el número de bytes leídos de los ficheros de entrada hasta el
+	 * momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getBytesLeidos() {
+		return bytesLeidos;
+	}
+
+	/**
+	 * Obtiene el número de bytes escritos en los ficheros de salida hasta el
+	 * momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getBytesEscritos() {
+		return bytesEscritos;
+	}
+
+	/**
+	 * Codifica un lote de ficheros.
+	 *
+	 * @param entradas         Las entradas del lote (véase
+	 *                         {@link #expandir(List, Path)}).
+	 * @param directorioSalida El directorio donde escribir los ficheros
+	 *                         codificados, que se crea si no existe.
+	 * @throws IOException Si ocurre un error de E/S, o alguna entrada no existe.
+	 */
+	void codificar(final List<String> entradas, final Path directorioSalida) throws IOException {
+		procesar(entradas, directorioSalida, null);
+	}
+
+	/**
+	 * Decodifica un lote de ficheros.
+	 *
+	 * @param entradas         Las entradas del lote (véase
+	 *                         {@link #expandir(List, Path)}).
+	 * @param directorioSalida El directorio donde escribir los ficheros
+	 *                         decodificados, que se crea si no existe.
+	 * @param estadisticas     Las estadísticas donde acumular el resultado de la
+	 *                         decodificación de todos los ficheros.
+	 * @throws IOException Si ocurre un error de E/S, o alguna entrada no existe.
+	 */
+	void decodificar(
+		final List<String> entradas, final Path directorioSalida, final EstadisticasDecodificacion estadisticas
+	) throws IOException {
+		procesar(entradas, directorioSalida, estadisticas);
+	}
+
+	/**
+	 * Obtiene los ficheros que forman un lote, y los ficheros de salida que les
+	 * corresponden. Cada entrada puede ser un fichero, que se escribe con su
+	 * nombre en el directorio de salida; un directorio, cuyos ficheros se
+	 * recorren recursivamente y se escriben con su ruta relativa a él; o un
+	 * patrón con la sintaxis de {@link FileSystems#getDefault()}
+	 * {@code .getPathMatcher("glob:...")}, cuyos ficheros se escriben con su ruta
+	 * relativa al directorio que precede al primer componente con comodines. Se
+	 * omite el contenido del directorio de salida, por si está dentro de alguno
+	 * de entrada.
+	 *
+	 * @param entradas         Las entradas del lote.
+	 * @param directorioSalida El directorio donde escribir los ficheros de
+	 *                         salida.
+	 * @return Las parejas de ficheros de entrada y salida, en el orden de las
+	 *         entradas.
+	 * @throws IOException Si ocurre un error de E/S, alguna entrada no existe o
+	 *                     no coincide con ningún fichero, o varias entradas
+	 *                     corresponden al mismo fichero de salida.
+	 */
+	static List<Path[]> expandir(final List<String> entradas, final Path directorioSalida) throws IOException {
+		final Path salida = directorioSalida.toAbsolutePath().normalize();
+		final List<Path[]> ficheros = new ArrayList<>();
+		final Set<Path> destinos = new HashSet<>();
+
+		for (final String entrada : entradas) {
+			final int primerFichero = ficheros.size();
+
+			if (esPatron(entrada) && !existe(entrada)) {
+				// El directorio base termina en el último separador anterior al primer comodín
+				final int comodin = primerComodin(entrada);
+				final int separador = Math.max(
+					entrada.lastIndexOf('/', comodin), entrada.lastIndexOf(File.separatorChar, comodin)
+				);
+				final Path base = Paths.get(separador < 0 ? "." : entrada.substring(0, separador + 1));
+				final PathMatcher patron = FileSystems.getDefault().getPathMatcher(
+					"glob:" + entrada.substring(separador + 1)
+				);
+
+				if (Files.isDirectory(base)) {
+					recorrer(base, salida, ficheros, patron::matches);
+				}
+
+				if (ficheros.size() == primerFichero) {
+					throw new NoSuchFileException(entrada, null, "El patrón no coincide con ningún fichero");
+				}
+			} else {
+				final Path ruta = Paths.get(entrada);
+
+				if (Files.isDirectory(ruta)) {
+					recorrer(ruta, salida, ficheros, relativa -> true);
+				} else if (Files.isRegularFile(ruta)) {
+					ficheros.add(new Path[] { ruta, ruta.getFileName() });
+				} else {
+					throw new NoSuchFileException(entrada);
+				}
+			}
+
+			for (int i = primerFichero; i < ficheros.size(); ++i) {
+				final Path[] fichero = ficheros.get(i);
+				fichero[1] = salida.resolve(fichero[1].toString());
+
+				if (!destinos.add(fichero[1])) {
+					throw new IOException("Varios ficheros de entrada corresponden al fichero de salida " + fichero[1]);
+				}
+			}
+		}
+
+		return ficheros;
+	}
+
+	/**
+	 * Codifica o decodifica los ficheros de un lote, repartiéndolos en un grupo de
+	 * hilos, y contabiliza el resultado en el orden de las entradas.
+	 *
+	 * @param entradas         Las entradas del lote.
+	 * @param directorioSalida El directorio donde escribir los ficheros de
+	 *                         salida.
+	 * @param estadisticas     Las estadísticas donde acumular el resultado de la
+	 *                         decodificación, o {@code null} para codificar.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private void procesar(
+		final List<String> entradas, final Path directorioSalida, final EstadisticasDecodificacion estadisticas
+	) throws IOException {
+		final List<Path[]> lote = expandir(entradas, directorioSalida);
+
+		// Obtener el tamaño de todos los ficheros solo si se va a mostrar
+		if (progreso != Progreso.ninguno()) {
+			long bytesTotales = 0;
+			for (final Path[] fichero : lote) {
+				bytesTotales += Files.size(fichero[0]);
+			}
+
+			progreso.setBytesTotales(bytesTotales);
+		}
+
+		final Set<Path> directoriosCreados = new HashSet<>();
+		final ForkJoinPool ejecutor = hilos > 1 ? new ForkJoinPool(hilos) : null;
+		final int maximoEnVuelo = ejecutor == null ? 1 : hilos * FICHEROS_EN_VUELO_POR_HILO;
+		final Deque<Future<Fichero>> enVuelo = new ArrayDeque<>(maximoEnVuelo);
+
+		try {
+			for (final Path[] fichero : lote) {
+				final Path origen = fichero[0];
+				final Path destino = fichero[1];
+				final EstadisticasDecodificacion estadisticasFichero =
+					estadisticas != null ? estadisticas.crearParciales() : null;
+
+				// Muchos ficheros comparten directorio, así que se evita volver a crearlo
+				final Path directorio = destino.getParent();
+				if (directoriosCreados.add(directorio)) {
+					Files.createDirectories(directorio);
+				}
+
+				enVuelo.add(Procesador.enviar(ejecutor, () -> procesarFichero(
+					origen, destino, estadisticasFichero, ejecutor
+				)));
+				if (enVuelo.size() >= maximoEnVuelo) {
+					contabilizar(Procesador.obtener(enVuelo.poll()), estadisticas);
+				}
+			}
+
+			while (!enVuelo.isEmpty()) {
+				contabilizar(Procesador.obtener(enVuelo.poll()), estadisticas);
+			}
+		} finally {
+			if (ejecutor != null) {
+				ejecutor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Codifica o decodifica un fichero. Si no supera el tamaño de un trozo, se lee
+	 * y se transforma completo en memoria; si no, se procesa por trozos con un
+	 * {@link Procesador} que comparte el grupo de hilos del lote.
+	 *
+	 * @param origen       El fichero de entrada.
+	 * @param destino      El fichero de salida.
+	 * @param estadisticas Las estadísticas propias del fichero, o {@code null}
+	 *                     para codificar.
+	 * @param ejecutor     El grupo de hilos del lote, o {@code null} si se usa un
+	 *                     único hilo.
+	 * @return El fichero procesado.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private Fichero procesarFichero(
+		final Path origen, final Path destino, final EstadisticasDecodificacion estadisticas, final ForkJoinPool ejecutor
+	) throws IOException {
+		if (Files.size(origen) > tamanoTrozo) {
+			final Procesador procesador = new Procesador(codigo, IntroductorErrores.ninguno(), ejecutor, tamanoTrozo);
+			procesador.setProgreso(progreso);
+
+			try (
+				FileInputStream entrada = new FileInputStream(origen.toFile());
+				FlujoSalidaFichero salida = new FlujoSalidaFichero(destino)
+			) {
+				if (estadisticas == null) {
+					procesador.codificar(entrada, salida);
+				} else {
+					procesador.decodificar(entrada, salida, estadisticas);
+				}
+			}
+
+			return new Fichero(procesador.getBytesLeidos(), procesador.getBytesEscritos(), true, estadisticas);
+		}
+
+		final EventosJfr.EntradaSalida lectura = EventosJfr.EntradaSalida.iniciar();
+		final byte[] entrada = Files.readAllBytes(origen);
+		lectura.terminarLectura(entrada.length);
+
+		final byte[] salida;
+		final int longitud;
+		final EventosJfr.Bloque evento;
+
+		if (estadisticas == null) {
+			evento = EventosJfr.Bloque.iniciarCodificacion();
+			final int consumidos = entrada.length - entrada.length % codigo.getBytesBloqueFuente();
+			salida = new byte[(int) codigo.getLongitudCodificada(entrada.length)];
+
+			final int codificados = codigo.codificar(entrada, 0, entrada.length, salida, 0);
+			longitud = codificados + codigo.codificarFinal(
+				entrada, consumidos, entrada.length - consumidos, salida, codificados
+			);
+		} else {
+			evento = EventosJfr.Bloque.iniciarDecodificacion(estadisticas);
+			final int bytesBloqueCodigo = codigo.getBytesBloqueCodigo();
+			int procesables = Math.max(0, entrada.length - codigo.getBytesRetenidosDecodificacion());
+			procesables -= procesables % bytesBloqueCodigo;
+			salida = new byte[(entrada.length / bytesBloqueCodigo + 1) * codigo.getBytesBloqueFuente()];
+
+			final int decodificados = codigo.decodificar(entrada, 0, procesables, salida, 0, estadisticas);
+			longitud = decodificados + codigo.decodificarFinal(
+				entrada, procesables, entrada.length - procesables, salida, decodificados, estadisticas
+			);
+		}
+
+		evento.terminar(codigo, 0, entrada.length, longitud);
+
+		// Las estadísticas son propias del fichero, así que contienen solo sus palabras
+		if (estadisticas == null) {
+			progreso.registrar(entrada.length);
+		} else {
+			progreso.registrar(entrada.length, estadisticas.getPalabras(), estadisticas.getPalabrasCorregidas());
+		}
+
+		final EventosJfr.EntradaSalida escritura = EventosJfr.EntradaSalida.iniciar();
+		try (OutputStream flujoSalida = Files.newOutputStream(destino)) {
+			flujoSalida.write(salida, 0, longitud);
+		}
+		escritura.terminarEscritura(longitud);
+
+		return new Fichero(entrada.length, longitud, false, estadisticas);
+	}
+
+	/**
+	 * Suma los bytes y las estadísticas de decodificación de un fichero procesado
+	 * a los totales.
+	 *
+	 * @param fichero      El fichero procesado.
+	 * @param estadisticas Las estadísticas donde acumular las del fichero, o
+	 *                     {@code null} si se está codificando.
+	 */
+	private void contabilizar(final Fichero fichero, final EstadisticasDecodificacion estadisticas) {
+		++ficheros;
+		if (fichero.troceado) {
+			++ficherosTroceados;
+		}
+
+		bytesLeidos += fichero.bytesLeidos;
+		bytesEscritos += fichero.bytesEscritos;
+
+		if (estadisticas != null) {
+			estadisticas.acumular(fichero.estadisticas);
+		}
+	}
+
+	/**
+	 * Añade a una lista los ficheros regulares de un árbol de directorios cuya
+	 * ruta relativa a su raíz cumpla un filtro, junto a esa ruta relativa.
+	 *
+	 * @param raiz             La raíz del árbol.
+	 * @param directorioSalida El directorio de salida, absoluto y normalizado,
+	 *                         cuyo contenido se omite.
+	 * @param ficheros         La lista donde añadir los ficheros.
+	 * @param filtro           El filtro de las rutas relativas.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private static void recorrer(
+		final Path raiz, final Path directorioSalida, final List<Path[]> ficheros, final Predicate<Path> filtro
+	) throws IOException {
+		Files.walkFileTree(raiz, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(final Path directorio, final BasicFileAttributes atributos) {
+				return directorio.toAbsolutePath().normalize().equals(directorioSalida) ?
+					FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(final Path fichero, final BasicFileAttributes atributos) {
+				final Path relativa = raiz.relativize(fichero);
+
+				if (atributos.isRegularFile() && filtro.test(relativa)) {
+					ficheros.add(new Path[] { fichero, relativa });
+				}
+
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private static boolean esPatron(final String entrada) {
+		return primerComodin(entrada) >= 0;
+	}
+
+	private static int primerComodin(final String entrada) {
+		for (int i = 0; i < entrada.length(); ++i) {
+			final char c = entrada.charAt(i);
+
+			if (c == '*' || c == '?' || c == '[' || c == '{') {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private static boolean existe(final String entrada) {
+		try {
+			return Files.exists(Paths.get(entrada));
+		} catch (final InvalidPathException exc) {
+			return false;
+		}
+	}
+
+	/**
+	 * El resultado de codificar o decodificar un fichero del lote.
+	 */
+	private static final class Fichero {
+		private final long bytesLeidos;
+		private final long bytesEscritos;
+		private final boolean troceado;
+		/**
+		 * Las estadísticas de decodificación del fichero, o {@code null} si se ha
+		 * codificado.
+		 */
+		private final EstadisticasDecodificacion estadisticas;
+
+		private Fichero(
+			final long bytesLeidos, final long bytesEscritos, final boolean troceado,
+			final EstadisticasDecodificacion estadisticas
+		) {
+			this.bytesLeidos = bytesLeidos;
+			this.bytesEscritos = bytesEscritos;
+			this.troceado = troceado;
+			this.estadisticas = estadisticas;
+		}
+	}
+}
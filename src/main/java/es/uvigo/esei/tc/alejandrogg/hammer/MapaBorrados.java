@@ -0,0 +1,267 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Registra qué bytes de una salida decodificada son borrados, es decir, bytes
+ * fuente que no se han podido recuperar por contener palabras código con
+ * errores incorregibles, pero que se conservan en la salida para no desplazar a
+ * los siguientes. Los bytes borrados se guardan como rachas de posiciones
+ * consecutivas, ordenadas y sin solapamientos.
+ * <p>
+ * El formato del fichero de borrados que escribe {@link #escribir(OutputStream)}
+ * consiste en los 4 bytes ASCII {@code HMBR}, seguidos de una pareja de enteros
+ * por cada racha: el número de bytes no borrados entre el final de la racha
+ * anterior (o el principio de la salida) y el principio de la racha, y el
+ * número de bytes de la racha. Cada entero se codifica en grupos de 7 bits,
+ * empezando por los de menor peso, en bytes cuyo bit de mayor peso indica si
+ * siguen más grupos.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class MapaBorrados {
+	private static final byte[] CABECERA = { 'H', 'M', 'B', 'R' };
+
+	private long[] inicios = new long[16];
+	private long[] longitudes = new long[16];
+	private int rachas = 0;
+	private long bytesBorrados = 0;
+
+	/**
+	 * Registra una racha de bytes borrados. Si empieza donde termina la última
+	 * registrada, o se solapa con ella, ambas se unen.
+	 *
+	 * @param posicion La posición del primer byte borrado de la racha.
+	 * @param longitud El número de bytes de la racha.
+	 * @throws IllegalArgumentException Si la posición es negativa, la longitud no
+	 *                                  es positiva, o la racha empieza antes que
+	 *                                  la última registrada.
+	 */
+	void registrar(final long posicion, final long longitud) {
+		if (posicion < 0 || longitud < 1) {
+			throw new IllegalArgumentException("La racha de bytes borrados no es válida");
+		}
+
+		if (rachas > 0 && posicion < inicios[rachas - 1]) {
+			throw new IllegalArgumentException("Las rachas de bytes borrados deben de registrarse en orden");
+		}
+
+		anadir(posicion, longitud);
+	}
+
+	/**
+	 * Suma las rachas de otro mapa a las de éste, en orden.
+	 *
+	 * @param otro El mapa a sumar.
+	 * @throws IllegalArgumentException Si el mapa es nulo.
+	 */
+	void acumular(final MapaBorrados otro) {
+		if (otro == null) {
+			throw new IllegalArgumentException("El mapa de borrados no puede ser nulo");
+		}
+
+		// Lo habitual es que las rachas del otro mapa sigan a las de éste
+		if (rachas == 0 || otro.rachas == 0 || otro.inicios[0] >= inicios[rachas - 1]) {
+			for (int i = 0; i < otro.rachas; ++i) {
+				anadir(otro.inicios[i], otro.longitudes[i]);
+			}
+
+			return;
+		}
+
+		final long[] iniciosPropios = Arrays.copyOf(inicios, rachas);
+		final long[] longitudesPropias = Arrays.copyOf(longitudes, rachas);
+		final int rachasPropias = rachas;
+
+		rachas = 0;
+		bytesBorrados = 0;
+
+		int i = 0;
+		int j = 0;
+		while (i < rachasPropias || j < otro.rachas) {
+			if (j == otro.rachas || i < rachasPropias && iniciosPropios[i] <= otro.inicios[j]) {
+				anadir(iniciosPropios[i], longitudesPropias[i]);
+				++i;
+			} else {
+				anadir(otro.inicios[j], otro.longitudes[j]);
+				++j;
+			}
+		}
+	}
+
+	/**
+	 * Descarta los bytes borrados a partir de una posición, que ya no forman
+	 * parte de la salida.
+	 *
+	 * @param fin La primera posición a descartar.
+	 */
+	void recortar(final long fin) {
+		while (rachas > 0 && inicios[rachas - 1] >= fin) {
+			--rachas;
+			bytesBorrados -= longitudes[rachas];
+		}
+
+		if (rachas > 0 && inicios[rachas - 1] + longitudes[rachas - 1] > fin) {
+			bytesBorrados -= inicios[rachas - 1] + longitudes[rachas - 1] - fin;
+			longitudes[rachas - 1] = fin - inicios[rachas - 1];
+		}
+	}
+
+	/**
+	 * Comprueba si un byte está borrado.
+	 *
+	 * @param posicion La posición del byte.
+	 * @return Verdadero si está borrado, falso en otro caso.
+	 */
+	boolean contiene(final long posicion) {
+		int racha = Arrays.binarySearch(inicios, 0, rachas, posicion);
+		if (racha < 0) {
+			racha = -racha - 2;
+		}
+
+		return racha >= 0 && posicion < inicios[racha] + longitudes[racha];
+	}
+
+	/**
+	 * Obtiene el número de rachas de bytes borrados.
+	 *
+	 * @return El devandicho número.
+	 */
+	int getRachas() {
+		return rachas;
+	}
+
+	/**
+	 * Obtiene el número total de bytes borrados.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getBytesBorrados() {
+		return bytesBorrados;
+	}
+
+	/**
+	 * Escribe las rachas de bytes borrados en un flujo, en el formato descrito en
+	 * la documentación de la clase.
+	 *
+	 * @param salida El flujo donde escribir.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	void escribir(final OutputStream salida) throws IOException {
+		final byte[] buffer = new byte[8192];
+		int longitud = 0;
+		long finAnterior = 0;
+
+		salida.write(CABECERA);
+
+		for (int i = 0; i < rachas; ++i) {
+			// Cada racha ocupa, como mucho, dos enteros de 10 bytes
+			if (longitud > buffer.length - 20) {
+				salida.write(buffer, 0, longitud);
+				longitud = 0;
+			}
+
+			longitud = escribirEntero(inicios[i] - finAnterior, buffer, longitud);
+			longitud = escribirEntero(longitudes[i], buffer, longitud);
+			finAnterior = inicios[i] + longitudes[i];
+		}
+
+		salida.write(buffer, 0, longitud);
+	}
+
+	/**
+	 * Lee un mapa de borrados de un flujo, escrito con {@link #escribir(OutputStream)}.
+	 *
+	 * @param entrada El flujo del que leer, hasta su final.
+	 * @return El mapa leído.
+	 * @throws IOException Si ocurre un error de E/S, o el flujo no contiene un mapa
+	 *                     de borrados válido.
+	 */
+	static MapaBorrados leer(final InputStream entrada) throws IOException {
+		final MapaBorrados mapa = new MapaBorrados();
+
+		for (final byte b : CABECERA) {
+			if (entrada.read() != b) {
+				throw new IOException("El fichero no contiene un mapa de borrados");
+			}
+		}
+
+		long finAnterior = 0;
+		int primerByte;
+		while ((primerByte = entrada.read()) >= 0) {
+			final long inicio = finAnterior + leerEntero(primerByte, entrada);
+			final long longitud = leerEntero(entrada.read(), entrada);
+
+			if (longitud < 1) {
+				throw new IOException("El mapa de borrados contiene una racha vacía");
+			}
+
+			mapa.anadir(inicio, longitud);
+			finAnterior = inicio + longitud;
+		}
+
+		return mapa;
+	}
+
+	private void anadir(final long posicion, final long longitud) {
+		if (rachas > 0 && posicion <= inicios[rachas - 1] + longitudes[rachas - 1]) {
+			final long fin = Math.max(inicios[rachas - 1] + longitudes[rachas - 1], posicion + longitud);
+
+			bytesBorrados += fin - (inicios[rachas - 1] + longitudes[rachas - 1]);
+			longitudes[rachas - 1] = fin - inicios[rachas - 1];
+			return;
+		}
+
+		if (rachas == inicios.length) {
+			inicios = Arrays.copyOf(inicios, rachas * 2);
+			longitudes = Arrays.copyOf(longitudes, rachas * 2);
+		}
+
+		inicios[rachas] = posicion;
+		longitudes[rachas] = longitud;
+		++rachas;
+		bytesBorrados += longitud;
+	}
+
+	private static int escribirEntero(final long valor, final byte[] buffer, final int posicion) {
+		long restante = valor;
+		int i = posicion;
+
+		while ((restante & ~0x7FL) != 0) {
+			buffer[i++] = (byte) (restante & 0x7F | 0x80);
+			restante >>>= 7;
+		}
+		buffer[i++] = (byte) restante;
+
+		return i;
+	}
+
+	private static long leerEntero(final int primerByte, final InputStream entrada) throws IOException {
+		long valor = 0;
+		int actual = primerByte;
+
+		for (int desplazamiento = 0; ; desplazamiento += 7) {
+			if (actual < 0) {
+				throw new EOFException("El mapa de borrados está truncado");
+			}
+
+			if (desplazamiento > 63) {
+				throw new IOException("El mapa de borrados contiene un entero demasiado grande");
+			}
+
+			valor |= (long) (actual & 0x7F) << desplazamiento;
+			if ((actual & 0x80) == 0) {
+				return valor;
+			}
+
+			actual = entrada.read();
+		}
+	}
+}
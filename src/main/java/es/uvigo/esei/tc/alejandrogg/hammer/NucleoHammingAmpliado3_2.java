@@ -0,0 +1,370 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Núcleos de codificación y decodificación masiva del código Hamming ampliado
+ * (3, 2), que operan sobre varias palabras código a la vez dentro de un
+ * {@code long} (SWAR, <i>SIMD within a register</i>).
+ * <p>
+ * Las palabras código de este código cumplen una propiedad que facilita
+ * calcular su síndrome con operaciones de bits: los 4 bits de paridad son el
+ * nibble de datos con todos sus bits invertidos si la paridad de ese nibble es
+ * impar. Por tanto, el síndrome de una palabra recibida es el resultado de
+ * sumar sus dos nibbles y la paridad de su nibble de mayor peso, replicada en
+ * los 4 bits, y se puede calcular simultáneamente para las 8 palabras código
+ * que caben en un {@code long}.
+ * </p>
+ * <p>
+ * Como la mayoría de palabras código se suelen recibir sin errores, los
+ * núcleos de decodificación comprueban primero si todos los síndromes de un
+ * grupo de palabras son nulos, y en tal caso extraen directamente los bytes
+ * fuente de sus nibbles de mayor peso. Solo las parejas de palabras código de
+ * los grupos con algún síndrome no nulo se decodifican mediante la tabla de
+ * pares de {@link HammingAmpliado3_2}, y solo para ellas se registran sus
+ * síndromes en las estadísticas.
+ * </p>
+ * <p>
+ * Todos los métodos leen y escriben los búferes con índices absolutos, sin
+ * modificar sus posiciones, y esperan que su orden de bytes sea
+ * {@link java.nio.ByteOrder#LITTLE_ENDIAN}, de manera que el byte de menor
+ * índice de un {@code long} leído sea el de menor peso.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class NucleoHammingAmpliado3_2 {
+	private static final long NIBBLES_BAJOS = 0x0F0F0F0F0F0F0F0FL;
+	private static final long BITS_BAJOS = 0x0101010101010101L;
+
+	/**
+	 * El número de palabras código que procesa de una vez el núcleo bitsliced.
+	 */
+	static final int PALABRAS_BITSLICED = Long.SIZE;
+
+	private NucleoHammingAmpliado3_2() {}
+
+	/**
+	 * Codifica bytes de un búfer a otro, de 8 en 8, calculando las palabras código
+	 * de cada 4 bytes con operaciones de bits sobre un {@code long}.
+	 *
+	 * @param origen          El búfer que contiene los bytes a codificar.
+	 * @param posicionOrigen  La posición del primer byte a codificar.
+	 * @param longitud        El número de bytes a codificar.
+	 * @param destino         El búfer donde escribir las palabras código.
+	 * @param posicionDestino La posición donde escribir la primera palabra código.
+	 * @return El número de bytes escritos, que siempre es el doble de
+	 *         {@code longitud}.
+	 */
+	static int codificar(
+		final ByteBuffer origen, final int posicionOrigen, final int longitud,
+		final ByteBuffer destino, final int posicionDestino
+	) {
+		final int longitudVectorizable = longitud & ~7;
+		int i = 0;
+
+		for (; i < longitudVectorizable; i += 8) {
+			final long bytesFuente = origen.getLong(posicionOrigen + i);
+
+			destino.putLong(posicionDestino + 2 * i, codificarCuatroBytes((int) bytesFuente));
+			destino.putLong(posicionDestino + 2 * i + 8, codificarCuatroBytes((int) (bytesFuente >>> 32)));
+		}
+
+		for (; i < longitud; ++i) {
+			final int byteFuente = origen.get(posicionOrigen + i);
+
+			destino.put(posicionDestino + 2 * i, HammingAmpliado3_2.palabraCodigo(byteFuente));
+			destino.put(posicionDestino + 2 * i + 1, HammingAmpliado3_2.palabraCodigo(byteFuente >>> 4));
+		}
+
+		return longitud * 2;
+	}
+
+	/**
+	 * Decodifica parejas de palabras código de un búfer a otro con el núcleo más
+	 * rápido disponible, descartando los bytes fuente con alguna palabra código
+	 * incorregible, o sustituyéndolos por {@link EstadisticasDecodificacion#BYTE_BORRADO}
+	 * si las estadísticas conservan los borrados.
+	 * <p>
+	 * Se usa el núcleo SWAR: aunque el bitsliced calcula más síndromes por
+	 * operación, el coste de trasponer las palabras código es mayor que el
+	 * ahorro, de manera que resulta en torno a dos veces más lento con datos sin
+	 * errores.
+	 * </p>
+	 *
+	 * @param origen          El búfer que contiene las palabras código.
+	 * @param posicionOrigen  La posición de la primera palabra código.
+	 * @param pares           El número de parejas de palabras código a decodificar.
+	 * @param destino         El búfer donde escribir los bytes decodificados.
+	 * @param posicionDestino La posición donde escribir el primer byte.
+	 * @param estadisticas    Las estadísticas donde acumular el resultado de la
+	 *                        decodificación.
+	 * @return El número de bytes decodificados escritos.
+	 */
+	static int decodificar(
+		final ByteBuffer origen, final int posicionOrigen, final int pares,
+		final ByteBuffer destino, final int posicionDestino, final EstadisticasDecodificacion estadisticas
+	) {
+		return decodificarSwar(origen, posicionOrigen, pares, destino, posicionDestino, estadisticas);
+	}
+
+	/**
+	 * Decodifica parejas de palabras código de un búfer a otro, calculando los
+	 * síndromes de 8 palabras código a la vez. Tiene los mismos parámetros y
+	 * resultado que
+	 * {@link #decodificar(ByteBuffer, int, int, ByteBuffer, int, EstadisticasDecodificacion)}.
+	 */
+	static int decodificarSwar(
+		final ByteBuffer origen, final int posicionOrigen, final int pares,
+		final ByteBuffer destino, final int posicionDestino, final EstadisticasDecodificacion estadisticas
+	) {
+		final int paresVectorizables = pares & ~3;
+		int escritos = 0;
+		int i = 0;
+
+		for (; i < paresVectorizables; i += 4) {
+			final long palabrasCodigo = origen.getLong(posicionOrigen + 2 * i);
+
+			if (sindromes(palabrasCodigo) == 0) {
+				destino.putInt(posicionDestino + escritos, extraerBytesFuente(palabrasCodigo));
+				escritos += 4;
+				estadisticas.registrarCorrectas(8);
+			} else {
+				escritos += decodificarConTabla(
+					origen, posicionOrigen + 2 * i, 4, destino, posicionDestino + escritos, estadisticas
+				);
+			}
+		}
+
+		return escritos + decodificarConTabla(
+			origen, posicionOrigen + 2 * i, pares - i, destino, posicionDestino + escritos, estadisticas
+		);
+	}
+
+	/**
+	 * Decodifica parejas de palabras código de un búfer a otro, trasponiendo
+	 * grupos de 64 palabras código a 8 {@code long}, cada uno con un bit de cada
+	 * palabra, para calcular sus 64 síndromes con unas pocas operaciones. Tiene los
+	 * mismos parámetros y resultado que
+	 * {@link #decodificar(ByteBuffer, int, int, ByteBuffer, int, EstadisticasDecodificacion)}.
+	 */
+	static int decodificarBitsliced(
+		final ByteBuffer origen, final int posicionOrigen, final int pares,
+		final ByteBuffer destino, final int posicionDestino, final EstadisticasDecodificacion estadisticas
+	) {
+		final int paresPorGrupo = PALABRAS_BITSLICED / 2;
+		final int paresVectorizables = pares - pares % paresPorGrupo;
+		final long[] grupo = new long[8];
+		int escritos = 0;
+		int i = 0;
+
+		for (; i < paresVectorizables; i += paresPorGrupo) {
+			final int posicionGrupo = posicionOrigen + 2 * i;
+
+			for (int j = 0; j < grupo.length; ++j) {
+				grupo[j] = origen.getLong(posicionGrupo + 8 * j);
+			}
+
+			final long sucias = palabrasConErrores(grupo);
+
+			if (sucias == 0) {
+				for (int j = 0; j < grupo.length; ++j) {
+					destino.putInt(posicionDestino + escritos, extraerBytesFuente(origen.getLong(posicionGrupo + 8 * j)));
+					escritos += 4;
+				}
+
+				estadisticas.registrarCorrectas(PALABRAS_BITSLICED);
+			} else {
+				// Decodificar con la tabla solo los long con alguna palabra sucia
+				for (int j = 0; j < grupo.length; ++j) {
+					if ((sucias >>> 8 * j & 0xFF) == 0) {
+						destino.putInt(posicionDestino + escritos, extraerBytesFuente(origen.getLong(posicionGrupo + 8 * j)));
+						escritos += 4;
+						estadisticas.registrarCorrectas(8);
+					} else {
+						escritos += decodificarConTabla(
+							origen, posicionGrupo + 8 * j, 4, destino, posicionDestino + escritos, estadisticas
+						);
+					}
+				}
+			}
+		}
+
+		return escritos + decodificarSwar(
+			origen, posicionOrigen + 2 * i, pares - i, destino, posicionDestino + escritos, estadisticas
+		);
+	}
+
+	/**
+	 * Decodifica parejas de palabras código de un búfer a otro consultando la
+	 * tabla de pares de {@link HammingAmpliado3_2}. Tiene los mismos parámetros y
+	 * resultado que
+	 * {@link #decodificar(ByteBuffer, int, int, ByteBuffer, int, EstadisticasDecodificacion)}.
+	 */
+	static int decodificarConTabla(
+		final ByteBuffer origen, final int posicionOrigen, final int pares,
+		final ByteBuffer destino, final int posicionDestino, final EstadisticasDecodificacion estadisticas
+	) {
+		int escritos = 0;
+
+		for (int i = 0, j = posicionOrigen; i < pares; ++i, j += 2) {
+			final int primera = origen.get(j) & 0xFF;
+			final int segunda = origen.get(j + 1) & 0xFF;
+			final int par = HammingAmpliado3_2.TablaPares.consultar(primera << 8 | segunda);
+			final int estadoPrimera = par >>> 8 & 0x3;
+			final int estadoSegunda = par >>> 10 & 0x3;
+
+			estadisticas.registrarPalabra(estadoPrimera, HammingAmpliado3_2.sindromePalabra(primera));
+			estadisticas.registrarPalabra(estadoSegunda, HammingAmpliado3_2.sindromePalabra(segunda));
+
+			if (estadoPrimera != HammingAmpliado3_2.ESTADO_INCORREGIBLE && estadoSegunda != HammingAmpliado3_2.ESTADO_INCORREGIBLE) {
+				destino.put(posicionDestino + escritos++, (byte) par);
+			} else if (estadisticas.conservaBorrados()) {
+				estadisticas.registrarBorrado(posicionDestino + escritos, 1);
+				destino.put(posicionDestino + escritos++, EstadisticasDecodificacion.BYTE_BORRADO);
+			}
+		}
+
+		return escritos;
+	}
+
+	/**
+	 * Codifica 4 bytes fuente en sus 8 palabras código.
+	 *
+	 * @param bytesFuente Los bytes fuente, empezando por el de menor peso.
+	 * @return Las palabras código, empezando por el byte de menor peso, en el
+	 *         orden del flujo codificado.
+	 */
+	static long codificarCuatroBytes(final int bytesFuente) {
+		// Separar los 4 bytes en los bytes pares, y después sus nibbles de mayor peso
+		// en los bytes impares
+		long datos = bytesFuente & 0xFFFFFFFFL;
+		datos = (datos | datos << 16) & 0x0000FFFF0000FFFFL;
+		datos = (datos | datos << 8) & 0x00FF00FF00FF00FFL;
+		datos = (datos | datos << 4) & NIBBLES_BAJOS;
+
+		return datos << 4 | datos ^ paridadNibbles(datos) * 0xF;
+	}
+
+	/**
+	 * Calcula los síndromes de 8 palabras código.
+	 *
+	 * @param palabrasCodigo Las palabras código.
+	 * @return Un valor cuyo byte i contiene, en sus 4 bits de menor peso, el
+	 *         síndrome de la palabra código del byte i de {@code palabrasCodigo}.
+	 */
+	static long sindromes(final long palabrasCodigo) {
+		final long datos = palabrasCodigo >>> 4 & NIBBLES_BAJOS;
+
+		return palabrasCodigo & NIBBLES_BAJOS ^ datos ^ paridadNibbles(datos) * 0xF;
+	}
+
+	/**
+	 * Extrae los 4 bytes fuente de 8 palabras código, suponiendo que no tienen
+	 * errores.
+	 *
+	 * @param palabrasCodigo Las palabras código.
+	 * @return Los bytes fuente, empezando por el de menor peso.
+	 */
+	static int extraerBytesFuente(final long palabrasCodigo) {
+		// Juntar en los bytes pares los nibbles de datos de cada pareja, y
+		// compactar los bytes pares
+		long datos = palabrasCodigo >>> 4 & NIBBLES_BAJOS;
+		datos = (datos | datos >>> 4) & 0x00FF00FF00FF00FFL;
+		datos = (datos | datos >>> 8) & 0x0000FFFF0000FFFFL;
+
+		return (int) (datos | datos >>> 16);
+	}
+
+	/**
+	 * Calcula qué palabras código de un grupo de 64 tienen un síndrome no nulo,
+	 * trasponiendo el grupo para tener en cada {@code long} un mismo bit de todas
+	 * las palabras. El grupo se modifica en el proceso.
+	 *
+	 * @param grupo Un array de 8 {@code long} con las palabras código, en el orden
+	 *              del flujo codificado.
+	 * @return Un valor cuyo bit i está a 1 si la palabra código i tiene errores.
+	 */
+	static long palabrasConErrores(final long[] grupo) {
+		// Tras trasponer cada long como una matriz de 8x8 bits, su byte b contiene
+		// el bit b de sus palabras. Al trasponer el grupo como una matriz de 8x8
+		// bytes, el long b contiene el bit b de todas las palabras del grupo
+		for (int i = 0; i < grupo.length; ++i) {
+			grupo[i] = trasponerBits(grupo[i]);
+		}
+		trasponerBytes(grupo);
+
+		// Los bits de las palabras, de mayor a menor peso, son r1, ..., r8, de
+		// manera que r1 es el bit 7 y r8 el bit 0
+		final long s1 = grupo[6] ^ grupo[5] ^ grupo[4] ^ grupo[3];
+		final long s2 = grupo[7] ^ grupo[5] ^ grupo[4] ^ grupo[2];
+		final long s3 = grupo[7] ^ grupo[6] ^ grupo[4] ^ grupo[1];
+		final long s4 = grupo[7] ^ grupo[6] ^ grupo[5] ^ grupo[0];
+
+		return s1 | s2 | s3 | s4;
+	}
+
+	/**
+	 * Calcula la paridad de los nibbles de menor peso de cada byte.
+	 *
+	 * @param nibbles Un valor cuyos bytes solo tienen a 1 bits de su nibble de
+	 *                menor peso.
+	 * @return Un valor cuyo byte i vale 1 si el nibble del byte i de
+	 *         {@code nibbles} tiene un número impar de bits a 1, y 0 en otro caso.
+	 */
+	private static long paridadNibbles(final long nibbles) {
+		final long paridad = nibbles ^ nibbles >>> 2;
+		return (paridad ^ paridad >>> 1) & BITS_BAJOS;
+	}
+
+	/**
+	 * Traspone un {@code long} interpretado como una matriz de 8x8 bits, donde cada
+	 * byte es una fila, de manera que el bit j del byte i pasa a ser el bit i del
+	 * byte j.
+	 */
+	private static long trasponerBits(long x) {
+		long t;
+
+		t = (x ^ x >>> 7) & 0x00AA00AA00AA00AAL;
+		x ^= t ^ t << 7;
+		t = (x ^ x >>> 14) & 0x0000CCCC0000CCCCL;
+		x ^= t ^ t << 14;
+		t = (x ^ x >>> 28) & 0x00000000F0F0F0F0L;
+		x ^= t ^ t << 28;
+
+		return x;
+	}
+
+	/**
+	 * Traspone 8 {@code long} interpretados como una matriz de 8x8 bytes, donde
+	 * cada {@code long} es una fila, de manera que el byte j del {@code long} i
+	 * pasa a ser el byte i del {@code long} j.
+	 */
+	private static void trasponerBytes(final long[] m) {
+		for (int i = 0; i < 4; ++i) {
+			final long a = m[i];
+			final long b = m[i + 4];
+
+			m[i] = a & 0x00000000FFFFFFFFL | b << 32;
+			m[i + 4] = a >>> 32 | b & 0xFFFFFFFF00000000L;
+		}
+
+		for (int i = 0; i < 8; i += (i & 1) == 0 ? 1 : 3) {
+			final long a = m[i];
+			final long b = m[i + 2];
+
+			m[i] = a & 0x0000FFFF0000FFFFL | (b & 0x0000FFFF0000FFFFL) << 16;
+			m[i + 2] = a >>> 16 & 0x0000FFFF0000FFFFL | b & 0xFFFF0000FFFF0000L;
+		}
+
+		for (int i = 0; i < 8; i += 2) {
+			final long a = m[i];
+			final long b = m[i + 1];
+
+			m[i] = a & 0x00FF00FF00FF00FFL | (b & 0x00FF00FF00FF00FFL) << 8;
+			m[i + 1] = a >>> 8 & 0x00FF00FF00FF00FFL | b & 0xFF00FF00FF00FF00L;
+		}
+	}
+}
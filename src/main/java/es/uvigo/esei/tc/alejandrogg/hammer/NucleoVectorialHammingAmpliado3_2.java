@@ -0,0 +1,61 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+/**
+ * Núcleos de codificación y decodificación masiva del código Hamming ampliado
+ * (3, 2) que usan instrucciones SIMD mediante la API de vectores de Java.
+ * <p>
+ * Esta API solo está disponible a partir de Java 21, así que esta versión de la
+ * clase, para Java 8, nunca está disponible. El JAR de la aplicación incluye
+ * otra versión en {@code META-INF/versions/21}, que la máquina virtual usa en
+ * su lugar si es compatible. Los métodos de esta clase tienen los mismos
+ * parámetros, precondiciones y resultados que los de
+ * {@link NucleoHammingAmpliado3_2}, pero operan sobre arrays.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class NucleoVectorialHammingAmpliado3_2 {
+	private NucleoVectorialHammingAmpliado3_2() {}
+
+	/**
+	 * Comprueba si los núcleos vectoriales se pueden usar en esta máquina
+	 * virtual.
+	 *
+	 * @return Verdadero si se pueden usar, falso en otro caso.
+	 */
+	static boolean disponible() {
+		return false;
+	}
+
+	/**
+	 * Codifica bytes de un array a otro.
+	 *
+	 * @see NucleoHammingAmpliado3_2#codificar(java.nio.ByteBuffer, int, int,
+	 *      java.nio.ByteBuffer, int)
+	 * @throws UnsupportedOperationException Si los núcleos vectoriales no están
+	 *                                       disponibles.
+	 */
+	static int codificar(
+		final byte[] origen, final int desplazamiento, final int longitud,
+		final byte[] destino, final int desplazamientoDestino
+	) {
+		throw new UnsupportedOperationException("Los núcleos vectoriales requieren Java 21 o posterior");
+	}
+
+	/**
+	 * Decodifica parejas de palabras código de un array a otro.
+	 *
+	 * @see NucleoHammingAmpliado3_2#decodificar(java.nio.ByteBuffer, int, int,
+	 *      java.nio.ByteBuffer, int, EstadisticasDecodificacion)
+	 * @throws UnsupportedOperationException Si los núcleos vectoriales no están
+	 *                                       disponibles.
+	 */
+	static int decodificar(
+		final byte[] origen, final int desplazamiento, final int pares,
+		final byte[] destino, final int desplazamientoDestino, final EstadisticasDecodificacion estadisticas
+	) {
+		throw new UnsupportedOperationException("Los núcleos vectoriales requieren Java 21 o posterior");
+	}
+}
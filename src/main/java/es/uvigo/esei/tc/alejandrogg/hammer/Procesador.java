@@ -0,0 +1,961 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.ReservaBuffers;
+
+/**
+ * Codifica y decodifica una entrada completa a una salida con un código lineal,
+ * repartiendo el trabajo entre varios hilos si así se desea.
+ * <p>
+ * La entrada se divide en trozos de un número entero de bloques del código, que
+ * se procesan de manera independiente y se escriben en la salida en el mismo
+ * orden en el que aparecen en la entrada, de modo que el resultado es idéntico
+ * al obtenido con un único hilo. Cuando la entrada y la salida son ficheros
+ * regulares, se proyectan en memoria por trozos. Al codificar, cada trozo se
+ * escribe directamente en su posición del fichero de salida, que se conoce de
+ * antemano; al decodificar, como se pueden descartar bytes fuente, la posición
+ * de cada trozo es la suma de las longitudes decodificadas de los anteriores.
+ * Con los flujos que no admiten acceso aleatorio, como la entrada y la salida
+ * estándar, los trozos se leen, transforman y escriben mediante una
+ * {@link Canalizacion}, que solapa la E/S con la codificación o decodificación.
+ * </p>
+ * <p>
+ * Las instancias de esta clase no son seguras para su uso concurrente.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class Procesador {
+	/**
+	 * El número de bytes fuente predeterminado de cada trozo de la entrada.
+	 */
+	static final int TAMANO_TROZO_PREDETERMINADO = 1024 * 1024;
+
+	/**
+	 * El número máximo de bytes fuente de cada trozo, para que los trozos
+	 * proyectados en memoria no superen el límite de 2 GiB de
+	 * {@link MappedByteBuffer}.
+	 */
+	static final int TAMANO_TROZO_MAXIMO = 64 * 1024 * 1024;
+
+	/**
+	 * El número de bytes fuente que se procesan de una vez dentro de un trozo
+	 * proyectado en memoria.
+	 */
+	private static final int TAMANO_BUFFER = 64 * 1024;
+
+	/**
+	 * El número de trozos por hilo que se pueden estar procesando, o esperando a
+	 * ser escritos, a la vez. Limita la memoria usada cuando la salida es más
+	 * lenta que el procesamiento.
+	 */
+	private static final int TROZOS_EN_VUELO_POR_HILO = 2;
+
+	private final CodigoLineal codigo;
+	private final IntroductorErrores introductorErrores;
+	private final int hilos;
+	/**
+	 * El grupo de hilos compartido en el que repartir los trozos, o {@code null}
+	 * si cada operación crea el suyo.
+	 */
+	private final ForkJoinPool ejecutorCompartido;
+	private final int bloquesTrozo;
+
+	private long bytesLeidos = 0;
+	private long bytesEscritos = 0;
+	private long erroresIntroducidos = 0;
+	private Canalizacion canalizacion = null;
+	private Progreso progreso = Progreso.ninguno();
+	/**
+	 * Los búferes directos donde se decodifican los trozos proyectados en memoria
+	 * con varios hilos hasta que se escriben, o {@code null} si todavía no se han
+	 * necesitado.
+	 */
+	private ReservaBuffers reservaTrozos = null;
+
+	/**
+	 * Crea un nuevo procesador.
+	 *
+	 * @param codigo             El código con el que codificar y decodificar.
+	 * @param introductorErrores El introductor de errores a usar al codificar.
+	 *                           Cada trozo o hilo usa uno derivado de él, así
+	 *                           que los errores introducidos dependen solo de
+	 *                           su semilla, y no de cómo se reparta el trabajo.
+	 * @param hilos              El número de hilos entre los que repartir los
+	 *                           trozos. Con un único hilo, los trozos de los
+	 *                           ficheros proyectados en memoria se procesan en el
+	 *                           hilo que invoca los métodos del procesador.
+	 * @param tamanoTrozo        El número aproximado de bytes fuente de cada
+	 *                           trozo, que se redondea a un número entero de
+	 *                           bloques y no supera {@link #TAMANO_TROZO_MAXIMO}.
+	 * @throws IllegalArgumentException Si el código o el introductor de errores
+	 *                                  son nulos, o el número de hilos o el tamaño
+	 *                                  de los trozos no son positivos.
+	 */
+	Procesador(
+		final CodigoLineal codigo, final IntroductorErrores introductorErrores,
+		final int hilos, final int tamanoTrozo
+	) {
+		this(codigo, introductorErrores, hilos, null, tamanoTrozo);
+	}
+
+	/**
+	 * Crea un nuevo procesador que reparte los trozos de los ficheros proyectados
+	 * en memoria en un grupo de hilos existente, que no se cierra al terminar, de
+	 * manera que varios procesadores pueden compartirlo. El grupo puede ser el
+	 * del hilo que invoca los métodos del procesador, pues sus hilos ayudan a
+	 * ejecutar otras tareas mientras esperan por los trozos.
+	 *
+	 * @param codigo             El código con el que codificar y decodificar.
+	 * @param introductorErrores El introductor de errores a usar al codificar.
+	 * @param ejecutor           El grupo de hilos, o {@code null} para procesar
+	 *                           los trozos en el hilo que invoca los métodos del
+	 *                           procesador.
+	 * @param tamanoTrozo        El número aproximado de bytes fuente de cada
+	 *                           trozo.
+	 * @throws IllegalArgumentException Si el código o el introductor de errores
+	 *                                  son nulos, o el tamaño de los trozos no es
+	 *                                  positivo.
+	 */
+	Procesador(
+		final CodigoLineal codigo, final IntroductorErrores introductorErrores,
+		final ForkJoinPool ejecutor, final int tamanoTrozo
+	) {
+		this(codigo, introductorErrores, ejecutor != null ? ejecutor.getParallelism() : 1, ejecutor, tamanoTrozo);
+	}
+
+	private Procesador(
+		final CodigoLineal codigo, final IntroductorErrores introductorErrores,
+		final int hilos, final ForkJoinPool ejecutorCompartido, final int tamanoTrozo
+	) {
+		if (codigo == null || introductorErrores == null) {
+			throw new IllegalArgumentException("El código y el introductor de errores no pueden ser nulos");
+		}
+
+		if (hilos < 1) {
+			throw new IllegalArgumentException("El número de hilos debe de ser positivo");
+		}
+
+		if (tamanoTrozo < 1) {
+			throw new IllegalArgumentException("El tamaño de los trozos debe de ser positivo");
+		}
+
+		this.codigo = codigo;
+		this.introductorErrores = introductorErrores;
+		this.hilos = hilos;
+		this.ejecutorCompartido = ejecutorCompartido;
+		this.bloquesTrozo = Math.max(1, Math.min(tamanoTrozo, TAMANO_TROZO_MAXIMO) / codigo.getBytesBloqueFuente());
+	}
+
+	/**
+	 * Establece el progreso en el que registrar los bytes de entrada procesados
+	 * y, al decodificar, las palabras corregidas, a medida que se procesa cada
+	 * búfer.
+	 *
+	 * @param progreso El progreso.
+	 * @throws IllegalArgumentException Si el progreso es nulo.
+	 */
+	void setProgreso(final Progreso progreso) {
+		if (progreso == null) {
+			throw new IllegalArgumentException("El progreso no puede ser nulo");
+		}
+
+		this.progreso = progreso;
+	}
+
+	/**
+	 * Obtiene el número de bytes leídos de la entrada hasta el momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getBytesLeidos() {
+		return bytesLeidos;
+	}
+
+	/**
+	 * Obtiene el número de bytes escritos en la salida hasta el momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getBytesEscritos() {
+		return bytesEscritos;
+	}
+
+	/**
+	 * Obtiene el número de errores introducidos al codificar hasta el momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getErroresIntroducidos() {
+		return erroresIntroducidos;
+	}
+
+	/**
+	 * Obtiene la canalización usada para procesar la entrada, que permite conocer
+	 * las esperas de cada una de sus etapas.
+	 *
+	 * @return La canalización, o {@code null} si no se ha procesado ninguna
+	 *         entrada, o la entrada y la salida se han proyectado en memoria.
+	 */
+	Canalizacion getCanalizacion() {
+		return canalizacion;
+	}
+
+	/**
+	 * Codifica una entrada completa a una salida. Si ambas son ficheros regulares,
+	 * se proyectan en memoria.
+	 *
+	 * @param entrada La entrada a codificar.
+	 * @param salida  La salida donde escribir la codificación.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	void codificar(final InputStream entrada, final OutputStream salida) throws IOException {
+		final FileChannel canalEntrada = canalProyectable(entrada);
+		final FileChannel canalSalida = canalProyectable(salida);
+
+		if (
+			canalEntrada == null || canalSalida == null ||
+			!redimensionar(canalSalida, codigo.getLongitudCodificada(canalEntrada.size()))
+		) {
+			codificarFlujos(entrada, salida);
+		} else {
+			final ExecutorService ejecutor = crearEjecutor();
+
+			try {
+				codificarProyectando(canalEntrada, canalSalida, ejecutor);
+			} finally {
+				liberarEjecutor(ejecutor);
+			}
+		}
+	}
+
+	/**
+	 * Decodifica una entrada completa a una salida. Si ambas son ficheros
+	 * regulares, se proyectan en memoria.
+	 *
+	 * @param entrada      La entrada a decodificar.
+	 * @param salida       La salida donde escribir la decodificación.
+	 * @param estadisticas Las estadísticas donde acumular el resultado de la
+	 *                     decodificación.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	void decodificar(
+		final InputStream entrada, final OutputStream salida, final EstadisticasDecodificacion estadisticas
+	) throws IOException {
+		final FileChannel canalEntrada = canalProyectable(entrada);
+		final FileChannel canalSalida = canalProyectable(salida);
+
+		if (
+			canalEntrada == null || canalSalida == null ||
+			!redimensionar(canalSalida, getLongitudDecodificadaMaxima(canalEntrada.size()))
+		) {
+			decodificarFlujos(entrada, salida, estadisticas);
+		} else {
+			final ExecutorService ejecutor = crearEjecutor();
+
+			try {
+				decodificarProyectando(canalEntrada, canalSalida, estadisticas, ejecutor);
+			} finally {
+				liberarEjecutor(ejecutor);
+			}
+		}
+	}
+
+	/**
+	 * Codifica un flujo de entrada a un flujo de salida, por trozos que se leen y
+	 * escriben en orden con las operaciones de los flujos, mediante una
+	 * {@link Canalizacion} con tantos hilos de transformación como hilos tenga el
+	 * procesador.
+	 *
+	 * @param entrada El flujo de entrada.
+	 * @param salida  El flujo de salida.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private void codificarFlujos(final InputStream entrada, final OutputStream salida) throws IOException {
+		final TransformacionCodificacion[] transformaciones = new TransformacionCodificacion[hilos];
+		for (int i = 0; i < hilos; ++i) {
+			transformaciones[i] = new TransformacionCodificacion();
+		}
+
+		canalizacion = new Canalizacion(
+			bloquesTrozo * codigo.getBytesBloqueFuente(), 0, (bloquesTrozo + 1) * codigo.getBytesBloqueCodigo(),
+			transformaciones
+		);
+		canalizacion.ejecutar(entrada, salida);
+
+		bytesLeidos += canalizacion.getBytesLeidos();
+		bytesEscritos += canalizacion.getBytesEscritos();
+		for (final TransformacionCodificacion transformacion : transformaciones) {
+			erroresIntroducidos += transformacion.introductor.getErroresIntroducidos();
+		}
+	}
+
+	/**
+	 * Codifica un fichero de entrada a un fichero de salida, proyectando en
+	 * memoria trozos de ambos y codificando directamente sobre ellos. El fichero
+	 * de salida ya debe de tener la longitud de la codificación.
+	 *
+	 * @param canalEntrada El canal del fichero de entrada.
+	 * @param canalSalida  El canal del fichero de salida.
+	 * @param ejecutor     El ejecutor de los trozos, o {@code null} para
+	 *                     procesarlos en el hilo actual.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private void codificarProyectando(
+		final FileChannel canalEntrada, final FileChannel canalSalida, final ExecutorService ejecutor
+	) throws IOException {
+		final int bytesBloqueFuente = codigo.getBytesBloqueFuente();
+		final int bytesBloqueCodigo = codigo.getBytesBloqueCodigo();
+		final long longitudEntrada = canalEntrada.size();
+		final long bloques = longitudEntrada / bytesBloqueFuente;
+		final int maximoEnVuelo = getMaximoTrozosEnVuelo(ejecutor);
+		final Deque<Future<Trozo>> enVuelo = new ArrayDeque<>(maximoEnVuelo);
+
+		// La posición de cada trozo en el fichero de salida solo depende de su
+		// posición en el de entrada, así que se escriben directamente en ella
+		for (long bloque = 0; bloque < bloques; bloque += bloquesTrozo) {
+			final long primerBloque = bloque;
+			final int bloquesRegion = (int) Math.min(bloquesTrozo, bloques - bloque);
+			final IntroductorErrores introductor = introductorErrores.derivar();
+
+			enVuelo.add(enviar(ejecutor, () -> codificarRegion(
+				canalEntrada, canalSalida, primerBloque, bloquesRegion, introductor
+			)));
+			if (enVuelo.size() >= maximoEnVuelo) {
+				contabilizar(obtener(enVuelo.poll()), null);
+			}
+		}
+
+		while (!enVuelo.isEmpty()) {
+			contabilizar(obtener(enVuelo.poll()), null);
+		}
+
+		// Codificar los bytes que no completan un bloque
+		final long consumidos = bloques * bytesBloqueFuente;
+		final byte[] bufferEntrada = new byte[(int) (longitudEntrada - consumidos)];
+		final byte[] bufferSalida = new byte[bytesBloqueCodigo];
+		final IntroductorErrores introductor = introductorErrores.derivar();
+
+		leerCompletamente(canalEntrada, ByteBuffer.wrap(bufferEntrada), consumidos);
+		final int codificados = codigo.codificarFinal(bufferEntrada, 0, bufferEntrada.length, bufferSalida, 0);
+		introductor.introducir(bufferSalida, 0, codificados, bloques * bytesBloqueCodigo);
+		escribirCompletamente(canalSalida, ByteBuffer.wrap(bufferSalida, 0, codificados), bloques * bytesBloqueCodigo);
+		progreso.registrar(bufferEntrada.length);
+
+		bytesLeidos += longitudEntrada;
+		bytesEscritos += codificados;
+		erroresIntroducidos += introductor.getErroresIntroducidos();
+	}
+
+	/**
+	 * Codifica un trozo de un fichero de entrada en su posición del fichero de
+	 * salida, proyectando ambos en memoria.
+	 *
+	 * @param canalEntrada  El canal del fichero de entrada.
+	 * @param canalSalida   El canal del fichero de salida.
+	 * @param primerBloque  El índice del primer bloque del trozo.
+	 * @param bloquesRegion El número de bloques del trozo.
+	 * @param introductor   El introductor de errores del trozo.
+	 * @return El trozo codificado, sin sus datos, que ya están en el fichero.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private Trozo codificarRegion(
+		final FileChannel canalEntrada, final FileChannel canalSalida,
+		final long primerBloque, final int bloquesRegion, final IntroductorErrores introductor
+	) throws IOException {
+		final int bytesBloqueFuente = codigo.getBytesBloqueFuente();
+		final int bytesBloqueCodigo = codigo.getBytesBloqueCodigo();
+		final MappedByteBuffer regionEntrada = canalEntrada.map(
+			MapMode.READ_ONLY, primerBloque * bytesBloqueFuente, (long) bloquesRegion * bytesBloqueFuente
+		);
+		final MappedByteBuffer regionSalida = canalSalida.map(
+			MapMode.READ_WRITE, primerBloque * bytesBloqueCodigo, (long) bloquesRegion * bytesBloqueCodigo
+		);
+		final EventosJfr.Bloque evento = EventosJfr.Bloque.iniciarCodificacion();
+
+		// Codificar la región por partes, para que los códigos que no operan
+		// directamente sobre búferes directos no necesiten copias tan grandes
+		while (regionEntrada.hasRemaining()) {
+			final int posicionEntrada = regionEntrada.position();
+			final int posicionSalida = regionSalida.position();
+			// Conversión a Buffer por compatibilidad binaria con Java 8
+			((Buffer) regionEntrada).limit(
+				regionEntrada.position() + Math.min(regionEntrada.remaining(), TAMANO_BUFFER - TAMANO_BUFFER % bytesBloqueFuente)
+			);
+
+			final int codificados = codigo.codificar(regionEntrada, regionSalida);
+			introductor.introducir(regionSalida, posicionSalida, codificados, primerBloque * bytesBloqueCodigo + posicionSalida);
+			progreso.registrar(regionEntrada.position() - posicionEntrada);
+
+			((Buffer) regionEntrada).limit(regionEntrada.capacity());
+		}
+
+		evento.terminar(codigo, primerBloque * bytesBloqueFuente, regionEntrada.capacity(), regionSalida.position());
+
+		return new Trozo(null, regionSalida.position(), introductor.getErroresIntroducidos(), null);
+	}
+
+	/**
+	 * Decodifica un flujo de entrada a un flujo de salida, por trozos que se leen
+	 * y escriben en orden con las operaciones de los flujos, mediante una
+	 * {@link Canalizacion} con tantos hilos de transformación como hilos tenga el
+	 * procesador.
+	 *
+	 * @param entrada      El flujo de entrada.
+	 * @param salida       El flujo de salida.
+	 * @param estadisticas Las estadísticas donde acumular el resultado de la
+	 *                     decodificación.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private void decodificarFlujos(
+		final InputStream entrada, final OutputStream salida, final EstadisticasDecodificacion estadisticas
+	) throws IOException {
+		final int bytesTrozo = bloquesTrozo * codigo.getBytesBloqueCodigo();
+		final int bytesRetenidos = codigo.getBytesRetenidosDecodificacion();
+		final TransformacionDecodificacion[] transformaciones = new TransformacionDecodificacion[hilos];
+		for (int i = 0; i < hilos; ++i) {
+			transformaciones[i] = new TransformacionDecodificacion(estadisticas.crearParciales());
+		}
+
+		// Los bytes retenidos del final de la entrada se decodifican con el último
+		// trozo, que puede contener hasta un bloque más que los demás
+		canalizacion = new Canalizacion(
+			bytesTrozo, bytesRetenidos,
+			((bytesTrozo + bytesRetenidos) / codigo.getBytesBloqueCodigo() + 1) * codigo.getBytesBloqueFuente(),
+			transformaciones
+		);
+		canalizacion.ejecutar(entrada, salida);
+
+		bytesLeidos += canalizacion.getBytesLeidos();
+		bytesEscritos += canalizacion.getBytesEscritos();
+		for (final TransformacionDecodificacion transformacion : transformaciones) {
+			estadisticas.acumular(transformacion.estadisticas);
+		}
+	}
+
+	/**
+	 * Decodifica un fichero de entrada a un fichero de salida, proyectando en
+	 * memoria trozos de ambos. El fichero de salida ya debe de tener, al menos, la
+	 * longitud máxima de la decodificación, y al terminar se trunca a la longitud
+	 * real.
+	 * <p>
+	 * Con un único hilo, cada trozo se decodifica directamente sobre la región
+	 * del fichero de salida que empieza donde terminó el anterior. Con varios, se
+	 * decodifica a un búfer en memoria, y se escribe en el fichero en cuanto se
+	 * conoce la longitud decodificada de todos los anteriores.
+	 * </p>
+	 *
+	 * @param canalEntrada El canal del fichero de entrada.
+	 * @param canalSalida  El canal del fichero de salida.
+	 * @param estadisticas Las estadísticas donde acumular el resultado de la
+	 *                     decodificación.
+	 * @param ejecutor     El ejecutor de los trozos, o {@code null} para
+	 *                     procesarlos en el hilo actual.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private void decodificarProyectando(
+		final FileChannel canalEntrada, final FileChannel canalSalida, final EstadisticasDecodificacion estadisticas,
+		final ExecutorService ejecutor
+	) throws IOException {
+		final int bytesBloqueFuente = codigo.getBytesBloqueFuente();
+		final int bytesBloqueCodigo = codigo.getBytesBloqueCodigo();
+		final long longitudEntrada = canalEntrada.size();
+		final long bloques = Math.max(0, longitudEntrada - codigo.getBytesRetenidosDecodificacion()) / bytesBloqueCodigo;
+
+		if (ejecutor == null) {
+			for (long bloque = 0; bloque < bloques; bloque += bloquesTrozo) {
+				final int bloquesRegion = (int) Math.min(bloquesTrozo, bloques - bloque);
+				final MappedByteBuffer regionSalida = canalSalida.map(
+					MapMode.READ_WRITE, bytesEscritos, (long) bloquesRegion * bytesBloqueFuente
+				);
+
+				estadisticas.setDesplazamientoBorrados(bytesEscritos);
+				bytesEscritos += decodificarRegion(canalEntrada, bloque, bloquesRegion, regionSalida, estadisticas);
+			}
+		} else {
+			final int maximoEnVuelo = getMaximoTrozosEnVuelo(ejecutor);
+			final Deque<Future<Trozo>> enVuelo = new ArrayDeque<>(maximoEnVuelo);
+			final Deque<Future<Trozo>> escrituras = new ArrayDeque<>(maximoEnVuelo);
+			final ReservaBuffers reserva = getReservaTrozos(maximoEnVuelo);
+
+			for (long bloque = 0; bloque < bloques; bloque += bloquesTrozo) {
+				final long primerBloque = bloque;
+				final int bloquesRegion = (int) Math.min(bloquesTrozo, bloques - bloque);
+
+				enVuelo.add(enviar(ejecutor, () -> {
+					final EstadisticasDecodificacion estadisticasTrozo = estadisticas.crearParciales();
+					final ByteBuffer decodificado = reserva.tomar();
+					// Si se conservan los borrados, no se descarta ningún byte, así que la
+					// posición del trozo decodificado solo depende de la del codificado
+					estadisticasTrozo.setDesplazamientoBorrados(primerBloque * bytesBloqueFuente);
+					final int decodificados = decodificarRegion(
+						canalEntrada, primerBloque, bloquesRegion, decodificado, estadisticasTrozo
+					);
+					((Buffer) decodificado).flip();
+
+					return new Trozo(decodificado, decodificados, 0, estadisticasTrozo);
+				}));
+				if (enVuelo.size() >= maximoEnVuelo) {
+					escribir(obtener(enVuelo.poll()), canalSalida, estadisticas, ejecutor, escrituras, reserva);
+				}
+			}
+
+			while (!enVuelo.isEmpty()) {
+				escribir(obtener(enVuelo.poll()), canalSalida, estadisticas, ejecutor, escrituras, reserva);
+			}
+
+			while (!escrituras.isEmpty()) {
+				obtener(escrituras.poll());
+			}
+		}
+
+		// Decodificar los bytes retenidos y los que no completan un bloque
+		final long consumidos = bloques * bytesBloqueCodigo;
+		final byte[] bufferEntrada = new byte[(int) (longitudEntrada - consumidos)];
+		final byte[] bufferSalida = new byte[(bufferEntrada.length / bytesBloqueCodigo + 1) * bytesBloqueFuente];
+
+		leerCompletamente(canalEntrada, ByteBuffer.wrap(bufferEntrada), consumidos);
+		estadisticas.setDesplazamientoBorrados(bytesEscritos);
+		final long palabras = estadisticas.getPalabras();
+		final long palabrasCorregidas = estadisticas.getPalabrasCorregidas();
+		final int decodificados = codigo.decodificarFinal(
+			bufferEntrada, 0, bufferEntrada.length, bufferSalida, 0, estadisticas
+		);
+		progreso.registrar(
+			bufferEntrada.length, estadisticas.getPalabras() - palabras,
+			estadisticas.getPalabrasCorregidas() - palabrasCorregidas
+		);
+		escribirCompletamente(canalSalida, ByteBuffer.wrap(bufferSalida, 0, decodificados), bytesEscritos);
+
+		bytesLeidos += longitudEntrada;
+		bytesEscritos += decodificados;
+
+		canalSalida.truncate(bytesEscritos);
+	}
+
+	/**
+	 * Decodifica un trozo de un fichero de entrada, proyectándolo en memoria, a un
+	 * búfer.
+	 *
+	 * @param canalEntrada  El canal del fichero de entrada.
+	 * @param primerBloque  El índice del primer bloque del trozo.
+	 * @param bloquesRegion El número de bloques del trozo.
+	 * @param destino       El búfer donde escribir los bytes decodificados, con
+	 *                      espacio para los bytes fuente de todos los bloques.
+	 * @param estadisticas  Las estadísticas donde acumular el resultado de la
+	 *                      decodificación.
+	 * @return El número de bytes decodificados.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private int decodificarRegion(
+		final FileChannel canalEntrada, final long primerBloque, final int bloquesRegion,
+		final ByteBuffer destino, final EstadisticasDecodificacion estadisticas
+	) throws IOException {
+		final int bytesBloqueCodigo = codigo.getBytesBloqueCodigo();
+		final MappedByteBuffer regionEntrada = canalEntrada.map(
+			MapMode.READ_ONLY, primerBloque * bytesBloqueCodigo, (long) bloquesRegion * bytesBloqueCodigo
+		);
+		final EventosJfr.Bloque evento = EventosJfr.Bloque.iniciarDecodificacion(estadisticas);
+		int decodificados = 0;
+
+		while (regionEntrada.hasRemaining()) {
+			((Buffer) regionEntrada).limit(
+				regionEntrada.position() + Math.min(regionEntrada.remaining(), TAMANO_BUFFER - TAMANO_BUFFER % bytesBloqueCodigo)
+			);
+
+			final int posicionEntrada = regionEntrada.position();
+			final long palabras = estadisticas.getPalabras();
+			final long palabrasCorregidas = estadisticas.getPalabrasCorregidas();
+
+			decodificados += codigo.decodificar(regionEntrada, destino, estadisticas);
+			progreso.registrar(
+				regionEntrada.position() - posicionEntrada, estadisticas.getPalabras() - palabras,
+				estadisticas.getPalabrasCorregidas() - palabrasCorregidas
+			);
+
+			((Buffer) regionEntrada).limit(regionEntrada.capacity());
+		}
+
+		evento.terminar(codigo, primerBloque * bytesBloqueCodigo, regionEntrada.capacity(), decodificados);
+
+		return decodificados;
+	}
+
+	/**
+	 * Escribe un trozo decodificado en un fichero de salida, a continuación de los
+	 * anteriores, contabilizándolo. La escritura se encarga al ejecutor, y se
+	 * espera a que terminen las anteriores si hay demasiadas pendientes.
+	 *
+	 * @param trozo        El trozo a escribir.
+	 * @param canalSalida  El canal del fichero de salida.
+	 * @param estadisticas Las estadísticas donde acumular las del trozo.
+	 * @param ejecutor     El ejecutor de la escritura.
+	 * @param escrituras   Las escrituras pendientes.
+	 * @param reserva      La reserva a la que devolver el búfer del trozo una vez
+	 *                     escrito.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private void escribir(
+		final Trozo trozo, final FileChannel canalSalida, final EstadisticasDecodificacion estadisticas,
+		final ExecutorService ejecutor, final Deque<Future<Trozo>> escrituras, final ReservaBuffers reserva
+	) throws IOException {
+		final long posicion = bytesEscritos;
+
+		escrituras.add(enviar(ejecutor, () -> {
+			escribirCompletamente(canalSalida, trozo.datos, posicion);
+			reserva.devolver(trozo.datos);
+			return trozo;
+		}));
+		contabilizar(trozo, estadisticas);
+
+		if (escrituras.size() >= getMaximoTrozosEnVuelo(ejecutor)) {
+			obtener(escrituras.poll());
+		}
+	}
+
+	/**
+	 * Suma los bytes escritos, los errores introducidos y las estadísticas de
+	 * decodificación de un trozo procesado a los totales.
+	 *
+	 * @param trozo        El trozo procesado.
+	 * @param estadisticas Las estadísticas donde acumular las del trozo, o
+	 *                     {@code null} si se está codificando.
+	 */
+	private void contabilizar(final Trozo trozo, final EstadisticasDecodificacion estadisticas) {
+		bytesEscritos += trozo.longitud;
+		erroresIntroducidos += trozo.erroresIntroducidos;
+
+		if (estadisticas != null) {
+			estadisticas.acumular(trozo.estadisticas);
+		}
+	}
+
+	/**
+	 * Crea el ejecutor de los trozos, o devuelve el compartido.
+	 *
+	 * @return El ejecutor, o {@code null} si se usa un único hilo.
+	 */
+	private ExecutorService crearEjecutor() {
+		return ejecutorCompartido != null ? ejecutorCompartido : hilos > 1 ? new ForkJoinPool(hilos) : null;
+	}
+
+	/**
+	 * Cierra el ejecutor de los trozos, salvo que sea el compartido.
+	 *
+	 * @param ejecutor El ejecutor, o {@code null}.
+	 */
+	private void liberarEjecutor(final ExecutorService ejecutor) {
+		if (ejecutor != null && ejecutor != ejecutorCompartido) {
+			ejecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Calcula el número de trozos que se pueden estar procesando a la vez.
+	 *
+	 * @param ejecutor El ejecutor de los trozos, o {@code null} si se procesan en
+	 *                 el hilo actual.
+	 * @return El devandicho número.
+	 */
+	private int getMaximoTrozosEnVuelo(final ExecutorService ejecutor) {
+		return ejecutor == null ? 1 : hilos * TROZOS_EN_VUELO_POR_HILO;
+	}
+
+	/**
+	 * Obtiene la reserva de los búferes en los que se decodifican los trozos
+	 * proyectados en memoria con varios hilos, creándola si todavía no existe.
+	 * Los búferes son directos, para que el canal del fichero de salida no los
+	 * tenga que copiar a otro búfer directo al escribirlos.
+	 *
+	 * @param maximoEnVuelo El número de trozos que se pueden estar procesando a
+	 *                      la vez.
+	 * @return La devandicha reserva.
+	 */
+	private ReservaBuffers getReservaTrozos(final int maximoEnVuelo) {
+		if (reservaTrozos == null) {
+			// Hay tantos trozos decodificándose como escribiéndose, más el que pasa
+			// de una etapa a otra
+			reservaTrozos = new ReservaBuffers(bloquesTrozo * codigo.getBytesBloqueFuente(), 2 * maximoEnVuelo + 1, true);
+		}
+
+		return reservaTrozos;
+	}
+
+	/**
+	 * Calcula la longitud máxima que puede tener la decodificación de un flujo
+	 * codificado.
+	 *
+	 * @param longitudCodificada La longitud del flujo codificado.
+	 * @return La devandicha longitud máxima.
+	 */
+	private long getLongitudDecodificadaMaxima(final long longitudCodificada) {
+		return (longitudCodificada / codigo.getBytesBloqueCodigo() + 1) * codigo.getBytesBloqueFuente();
+	}
+
+	/**
+	 * Encarga una tarea a un ejecutor, o la ejecuta inmediatamente en el hilo
+	 * actual si no hay ejecutor.
+	 *
+	 * @param <T>      El tipo del resultado de la tarea.
+	 * @param ejecutor El ejecutor, o {@code null}.
+	 * @param tarea    La tarea.
+	 * @return El resultado futuro de la tarea.
+	 */
+	static <T> Future<T> enviar(final ExecutorService ejecutor, final Callable<T> tarea) {
+		if (ejecutor != null) {
+			return ejecutor.submit(tarea);
+		}
+
+		final FutureTask<T> futuro = new FutureTask<>(tarea);
+		futuro.run();
+
+		return futuro;
+	}
+
+	/**
+	 * Espera a que termine una tarea y obtiene su resultado, relanzando las
+	 * excepciones que haya lanzado.
+	 *
+	 * @param <T>    El tipo del resultado de la tarea.
+	 * @param futuro El resultado futuro de la tarea.
+	 * @return El resultado de la tarea.
+	 * @throws IOException Si la tarea ha lanzado una excepción de E/S, o se
+	 *                     interrumpe la espera.
+	 */
+	static <T> T obtener(final Future<T> futuro) throws IOException {
+		try {
+			return futuro.get();
+		} catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (final ExecutionException exc) {
+			final Throwable causa = exc.getCause();
+
+			if (causa instanceof IOException) {
+				throw (IOException) causa;
+			} else if (causa instanceof RuntimeException) {
+				throw (RuntimeException) causa;
+			} else if (causa instanceof Error) {
+				throw (Error) causa;
+			} else {
+				throw new IOException(causa);
+			}
+		}
+	}
+
+	/**
+	 * Obtiene el canal de un flujo de un fichero, si es posible proyectarlo en
+	 * memoria. Solo se pueden proyectar los ficheros regulares, que admiten
+	 * cambiar la posición de lectura o escritura; no así las tuberías, los
+	 * terminales o los flujos estándar.
+	 *
+	 * @param flujo El flujo del que obtener el canal.
+	 * @return El canal, o {@code null} si no es posible proyectarlo en memoria.
+	 */
+	private static FileChannel canalProyectable(final Closeable flujo) {
+		final FileChannel canal;
+
+		if (flujo instanceof FileInputStream) {
+			canal = ((FileInputStream) flujo).getChannel();
+		} else if (flujo instanceof FlujoSalidaFichero) {
+			canal = ((FlujoSalidaFichero) flujo).getCanal();
+		} else {
+			return null;
+		}
+
+		try {
+			// Los ficheros de dispositivos de caracteres, como /dev/zero, admiten
+			// cambiar la posición pero tienen longitud cero; de los ficheros de
+			// entrada vacíos no hay nada que proyectar
+			canal.position(canal.position());
+			return flujo instanceof FileInputStream && canal.size() == 0 ? null : canal;
+		} catch (final IOException exc) {
+			return null;
+		}
+	}
+
+	/**
+	 * Extiende un fichero hasta la longitud indicada, comprobando que lo admite.
+	 *
+	 * @param canal    El canal del fichero, que debe de estar vacío.
+	 * @param longitud La longitud deseada.
+	 * @return Verdadero si el fichero tiene ahora la longitud indicada, y por
+	 *         tanto se puede proyectar en memoria, falso en otro caso.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private static boolean redimensionar(final FileChannel canal, final long longitud) throws IOException {
+		if (longitud > 0) {
+			escribirCompletamente(canal, ByteBuffer.allocate(1), longitud - 1);
+		}
+
+		return canal.size() == longitud;
+	}
+
+	/**
+	 * Lee de un canal, a partir de la posición indicada, hasta llenar un búfer.
+	 *
+	 * @param canal    El canal del que leer.
+	 * @param buffer   El búfer a llenar.
+	 * @param posicion La posición del canal a partir de la cual leer.
+	 * @throws IOException Si ocurre un error de E/S, o el canal termina antes de
+	 *                     llenar el búfer.
+	 */
+	static void leerCompletamente(final FileChannel canal, final ByteBuffer buffer, final long posicion) throws IOException {
+		long posicionActual = posicion;
+
+		while (buffer.hasRemaining()) {
+			final EventosJfr.EntradaSalida evento = EventosJfr.EntradaSalida.iniciar();
+			final int leidos = canal.read(buffer, posicionActual);
+			evento.terminarLectura(leidos);
+
+			if (leidos < 0) {
+				throw new IOException("El fichero ha terminado antes de lo esperado");
+			}
+
+			posicionActual += leidos;
+		}
+	}
+
+	/**
+	 * Escribe en un canal, a partir de la posición indicada, los bytes restantes
+	 * de un búfer.
+	 *
+	 * @param canal    El canal en el que escribir.
+	 * @param buffer   El búfer a escribir.
+	 * @param posicion La posición del canal a partir de la cual escribir.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private static void escribirCompletamente(final FileChannel canal, final ByteBuffer buffer, final long posicion) throws IOException {
+		long posicionActual = posicion;
+
+		while (buffer.hasRemaining()) {
+			final EventosJfr.EntradaSalida evento = EventosJfr.EntradaSalida.iniciar();
+			final int escritos = canal.write(buffer, posicionActual);
+			evento.terminarEscritura(escritos);
+
+			posicionActual += escritos;
+		}
+	}
+
+	/**
+	 * El resultado de codificar o decodificar un trozo de la entrada.
+	 */
+	private static final class Trozo {
+		/**
+		 * Los bytes procesados, entre la posición y el límite del búfer, o
+		 * {@code null} si ya se han escrito en la salida.
+		 */
+		private final ByteBuffer datos;
+		private final int longitud;
+		private final long erroresIntroducidos;
+		/**
+		 * Las estadísticas de decodificación del trozo, o {@code null} si se ha
+		 * codificado.
+		 */
+		private final EstadisticasDecodificacion estadisticas;
+
+		private Trozo(
+			final ByteBuffer datos, final int longitud, final long erroresIntroducidos,
+			final EstadisticasDecodificacion estadisticas
+		) {
+			this.datos = datos;
+			this.longitud = longitud;
+			this.erroresIntroducidos = erroresIntroducidos;
+			this.estadisticas = estadisticas;
+		}
+	}
+
+	/**
+	 * Codifica los trozos de una {@link Canalizacion}, introduciendo errores en
+	 * ellos con su propio introductor de errores derivado, que lleva la cuenta de
+	 * los errores introducidos por el hilo que la ejecuta.
+	 */
+	private final class TransformacionCodificacion implements Canalizacion.Transformacion {
+		private final IntroductorErrores introductor = introductorErrores.derivar();
+
+		@Override
+		public int transformar(
+			final long posicion, final byte[] entrada, final int longitud, final boolean esFinal, final byte[] salida
+		) {
+			final EventosJfr.Bloque evento = EventosJfr.Bloque.iniciarCodificacion();
+			final int bytesBloqueFuente = codigo.getBytesBloqueFuente();
+			final int consumidos = longitud - longitud % bytesBloqueFuente;
+
+			int codificados = codigo.codificar(entrada, 0, longitud, salida, 0);
+			if (esFinal) {
+				codificados += codigo.codificarFinal(entrada, consumidos, longitud - consumidos, salida, codificados);
+			}
+
+			introductor.introducir(salida, 0, codificados, posicion / bytesBloqueFuente * codigo.getBytesBloqueCodigo());
+
+			evento.terminar(codigo, posicion, longitud, codificados);
+			progreso.registrar(longitud);
+
+			return codificados;
+		}
+	}
+
+	/**
+	 * Decodifica los trozos de una {@link Canalizacion}, acumulando el resultado en
+	 * sus propias estadísticas.
+	 */
+	private final class TransformacionDecodificacion implements Canalizacion.Transformacion {
+		private final EstadisticasDecodificacion estadisticas;
+
+		private TransformacionDecodificacion(final EstadisticasDecodificacion estadisticas) {
+			this.estadisticas = estadisticas;
+		}
+
+		@Override
+		public int transformar(
+			final long posicion, final byte[] entrada, final int longitud, final boolean esFinal, final byte[] salida
+		) {
+			final EventosJfr.Bloque evento = EventosJfr.Bloque.iniciarDecodificacion(estadisticas);
+			final long palabras = estadisticas.getPalabras();
+			final long palabrasCorregidas = estadisticas.getPalabrasCorregidas();
+			final int bytesBloqueCodigo = codigo.getBytesBloqueCodigo();
+
+			// Si se conservan los borrados, no se descarta ningún byte, así que la
+			// posición del trozo decodificado solo depende de la del codificado
+			estadisticas.setDesplazamientoBorrados(posicion / bytesBloqueCodigo * codigo.getBytesBloqueFuente());
+
+			int procesables = esFinal ? Math.max(0, longitud - codigo.getBytesRetenidosDecodificacion()) : longitud;
+			procesables -= procesables % bytesBloqueCodigo;
+
+			int decodificados = codigo.decodificar(entrada, 0, procesables, salida, 0, estadisticas);
+			if (esFinal) {
+				decodificados += codigo.decodificarFinal(
+					entrada, procesables, longitud - procesables, salida, decodificados, estadisticas
+				);
+			}
+
+			evento.terminar(codigo, posicion, longitud, decodificados);
+			progreso.registrar(
+				longitud, estadisticas.getPalabras() - palabras, estadisticas.getPalabrasCorregidas() - palabrasCorregidas
+			);
+
+			return decodificados;
+		}
+	}
+}
@@ -0,0 +1,252 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Muestra periódicamente el progreso de un procesamiento largo en una única
+ * línea, que se sobrescribe: su velocidad, el porcentaje completado y el tiempo
+ * restante, si se conoce el tamaño de la entrada, y, al decodificar, la
+ * proporción de palabras corregidas hasta el momento.
+ * <p>
+ * Los bucles de codificación y decodificación solo suman a unos contadores
+ * repartidos ({@link LongAdder}) los bytes y palabras de cada búfer que
+ * procesan, de manera que los hilos no compiten por ellos. Un hilo demonio
+ * aparte los muestrea cada {@link #INTERVALO_MUESTREO_MS} milisegundos y da
+ * formato a la línea.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class Progreso implements Closeable {
+	/**
+	 * El intervalo entre las muestras del progreso, en milisegundos.
+	 */
+	static final long INTERVALO_MUESTREO_MS = 1000;
+
+	private static final Progreso NINGUNO = new Progreso(null, -1, false);
+
+	private final PrintStream salida;
+	private final boolean decodificacion;
+	private volatile long bytesTotales;
+
+	private final LongAdder bytes = new LongAdder();
+	private final LongAdder palabras = new LongAdder();
+	private final LongAdder palabrasCorregidas = new LongAdder();
+
+	private Thread hiloMuestreo = null;
+	private final long inicio = System.nanoTime();
+	private long instanteMuestraAnterior = inicio;
+	private long bytesMuestraAnterior = 0;
+	private int longitudLineaAnterior = 0;
+
+	/**
+	 * Crea un nuevo progreso, sin empezar a mostrarlo. Las velocidades se miden
+	 * desde este momento.
+	 *
+	 * @param salida         El flujo donde mostrar el progreso.
+	 * @param bytesTotales   El número de bytes de entrada a procesar, o un número
+	 *                       negativo si no se conoce.
+	 * @param decodificacion Verdadero si se está decodificando, de manera que se
+	 *                       muestra la proporción de palabras corregidas.
+	 */
+	Progreso(final PrintStream salida, final long bytesTotales, final boolean decodificacion) {
+		this.salida = salida;
+		this.bytesTotales = bytesTotales;
+		this.decodificacion = decodificacion;
+	}
+
+	/**
+	 * Obtiene un progreso que no se muestra, y en el que registrar bytes y
+	 * palabras no tiene efecto.
+	 *
+	 * @return El devandicho progreso.
+	 */
+	static Progreso ninguno() {
+		return NINGUNO;
+	}
+
+	/**
+	 * Cambia el número de bytes de entrada a procesar, para cuando solo se conoce
+	 * una vez empezado el procesamiento.
+	 *
+	 * @param bytesTotales El número de bytes, o un número negativo si no se
+	 *                     conoce.
+	 */
+	void setBytesTotales(final long bytesTotales) {
+		this.bytesTotales = bytesTotales;
+	}
+
+	/**
+	 * Registra los bytes de entrada de un búfer procesado.
+	 *
+	 * @param bytesProcesados El número de bytes.
+	 */
+	void registrar(final long bytesProcesados) {
+		if (this != NINGUNO) {
+			bytes.add(bytesProcesados);
+		}
+	}
+
+	/**
+	 * Registra los bytes de entrada y las palabras código de un búfer
+	 * decodificado.
+	 *
+	 * @param bytesProcesados          El número de bytes.
+	 * @param palabrasDecodificadas    El número de palabras código decodificadas.
+	 * @param palabrasCorregidasBuffer El número de esas palabras en las que se ha
+	 *                                 corregido un error.
+	 */
+	void registrar(final long bytesProcesados, final long palabrasDecodificadas, final long palabrasCorregidasBuffer) {
+		if (this != NINGUNO) {
+			bytes.add(bytesProcesados);
+			palabras.add(palabrasDecodificadas);
+			palabrasCorregidas.add(palabrasCorregidasBuffer);
+		}
+	}
+
+	/**
+	 * Obtiene el número de bytes de entrada procesados hasta el momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getBytes() {
+		return bytes.sum();
+	}
+
+	/**
+	 * Empieza a mostrar el progreso, desde un hilo demonio.
+	 *
+	 * @throws IllegalStateException Si ya se ha empezado a mostrar, o es el
+	 *                               progreso que no se muestra.
+	 */
+	synchronized void iniciar() {
+		if (this == NINGUNO || hiloMuestreo != null) {
+			throw new IllegalStateException("El progreso ya se está mostrando, o no se puede mostrar");
+		}
+
+		hiloMuestreo = new Thread(() -> {
+			try {
+				while (true) {
+					Thread.sleep(INTERVALO_MUESTREO_MS);
+
+					synchronized (this) {
+						if (Thread.currentThread().isInterrupted()) {
+							break;
+						}
+
+						mostrar(muestrear(System.nanoTime()));
+					}
+				}
+			} catch (final InterruptedException exc) {
+				// Se ha terminado de mostrar el progreso
+			}
+		}, "hammer-progreso");
+		hiloMuestreo.setDaemon(true);
+		hiloMuestreo.start();
+	}
+
+	/**
+	 * Deja de mostrar el progreso y borra su línea, para que el resumen final se
+	 * muestre en su lugar.
+	 */
+	@Override
+	public void close() {
+		final Thread hilo;
+
+		synchronized (this) {
+			hilo = hiloMuestreo;
+			if (hilo == null) {
+				return;
+			}
+
+			hilo.interrupt();
+			if (longitudLineaAnterior > 0) {
+				mostrar("");
+			}
+			hiloMuestreo = null;
+		}
+
+		try {
+			hilo.join();
+		} catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Toma una muestra de los contadores y da formato a la línea del progreso. La
+	 * velocidad es la del intervalo desde la muestra anterior, y el tiempo
+	 * restante se estima con la velocidad media desde el inicio.
+	 *
+	 * @param ahora El instante de la muestra, de {@link System#nanoTime()}.
+	 * @return La línea del progreso.
+	 */
+	synchronized String muestrear(final long ahora) {
+		final long bytesMuestra = bytes.sum();
+		final long total = bytesTotales;
+		final double segundosIntervalo = Math.max(ahora - instanteMuestraAnterior, 1) / 1e9;
+		final double segundosTotales = Math.max(ahora - inicio, 1) / 1e9;
+
+		final StringBuilder linea = new StringBuilder(96).append(String.format(
+			"> %.1f MB/s", (bytesMuestra - bytesMuestraAnterior) / segundosIntervalo / 1e6
+		));
+
+		if (total > 0) {
+			linea.append(String.format(
+				", %.1f %% de %.1f MB", 100.0 * Math.min(bytesMuestra, total) / total, total / 1e6
+			));
+
+			if (bytesMuestra > 0) {
+				final long segundosRestantes = Math.round(
+					Math.max(total - bytesMuestra, 0) * segundosTotales / bytesMuestra
+				);
+
+				linea.append(String.format(
+					", quedan %d:%02d:%02d", TimeUnit.SECONDS.toHours(segundosRestantes),
+					TimeUnit.SECONDS.toMinutes(segundosRestantes) % 60, segundosRestantes % 60
+				));
+			}
+		} else {
+			linea.append(String.format(", %.1f MB", bytesMuestra / 1e6));
+		}
+
+		if (decodificacion) {
+			linea.append(String.format(
+				", %.3f %% de palabras corregidas",
+				100.0 * palabrasCorregidas.sum() / Math.max(palabras.sum(), 1)
+			));
+		}
+
+		instanteMuestraAnterior = ahora;
+		bytesMuestraAnterior = bytesMuestra;
+
+		return linea.toString();
+	}
+
+	/**
+	 * Sobrescribe la línea del progreso con otra, rellenándola con espacios si es
+	 * más corta que la anterior.
+	 *
+	 * @param linea La nueva línea.
+	 */
+	private void mostrar(final String linea) {
+		final StringBuilder texto = new StringBuilder(longitudLineaAnterior + 2).append('\r').append(linea);
+		for (int i = linea.length(); i < longitudLineaAnterior; ++i) {
+			texto.append(' ');
+		}
+
+		// Dejar el cursor al principio de la línea borrada, para escribir sobre ella
+		if (linea.isEmpty()) {
+			texto.append('\r');
+		}
+
+		salida.print(texto);
+		salida.flush();
+		longitudLineaAnterior = linea.length();
+	}
+}
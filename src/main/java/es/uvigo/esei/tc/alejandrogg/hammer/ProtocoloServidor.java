@@ -0,0 +1,375 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.ObjetoJson;
+
+/**
+ * Define el protocolo con el que los clientes piden al {@link Servidor} que
+ * codifique o decodifique datos. Una conexión puede transportar cualquier
+ * número de peticiones, una tras otra.
+ * <p>
+ * Cada petición empieza por un byte con la operación
+ * ({@link #OPERACION_CODIFICAR} o {@link #OPERACION_DECODIFICAR}) y el nombre
+ * del código, en el formato de {@link DataOutputStream#writeUTF(String)}, que
+ * puede estar vacío para usar el código Hamming ampliado (3, 2). Le siguen los
+ * datos a procesar, en tramas formadas por su longitud, como un entero de 4
+ * bytes, y sus bytes. Una trama vacía indica el final de los datos.
+ * </p>
+ * <p>
+ * La respuesta está formada por mensajes que empiezan por un byte con su tipo.
+ * Los mensajes de tipo {@link #MENSAJE_DATOS} son tramas con los datos
+ * procesados, que el servidor envía a medida que los procesa. La respuesta
+ * termina con un mensaje de tipo {@link #MENSAJE_RESUMEN}, con las estadísticas
+ * de la petición, o de tipo {@link #MENSAJE_ERROR}, con una descripción del
+ * error en el formato de {@link DataOutputStream#writeUTF(String)}. Aunque la
+ * petición sea errónea, el servidor lee todos sus datos antes de responder con
+ * el error, así que la conexión se puede seguir usando.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class ProtocoloServidor {
+	/**
+	 * La operación que codifica los datos de la petición.
+	 */
+	static final byte OPERACION_CODIFICAR = 'c';
+	/**
+	 * La operación que decodifica los datos de la petición.
+	 */
+	static final byte OPERACION_DECODIFICAR = 'd';
+
+	/**
+	 * El tipo de los mensajes de respuesta con datos procesados.
+	 */
+	static final byte MENSAJE_DATOS = 'b';
+	/**
+	 * El tipo del mensaje que termina una respuesta con sus estadísticas.
+	 */
+	static final byte MENSAJE_RESUMEN = 'r';
+	/**
+	 * El tipo del mensaje que termina una respuesta con un error.
+	 */
+	static final byte MENSAJE_ERROR = 'e';
+
+	/**
+	 * El número máximo de bytes de las tramas que se envían.
+	 */
+	static final int TAMANO_TRAMA = 64 * 1024;
+
+	private ProtocoloServidor() {}
+
+	/**
+	 * Crea un flujo de entrada que lee de un canal en modo bloqueante. A
+	 * diferencia de los de {@link java.nio.channels.Channels}, se puede leer de
+	 * él mientras otro hilo escribe en el mismo canal.
+	 *
+	 * @param canal El canal.
+	 * @return El flujo.
+	 */
+	static InputStream flujoEntrada(final ReadableByteChannel canal) {
+		return new InputStream() {
+			@Override
+			public int read() throws IOException {
+				final byte[] b = new byte[1];
+				return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+			}
+
+			@Override
+			public int read(final byte[] b, final int off, final int len) throws IOException {
+				return len == 0 ? 0 : canal.read(ByteBuffer.wrap(b, off, len));
+			}
+		};
+	}
+
+	/**
+	 * Crea un flujo de salida que escribe en un canal en modo bloqueante. A
+	 * diferencia de los de {@link java.nio.channels.Channels}, se puede escribir
+	 * en él mientras otro hilo lee del mismo canal.
+	 *
+	 * @param canal El canal.
+	 * @return El flujo.
+	 */
+	static OutputStream flujoSalida(final WritableByteChannel canal) {
+		return new OutputStream() {
+			@Override
+			public void write(final int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len) throws IOException {
+				final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+				while (buffer.hasRemaining()) {
+					canal.write(buffer);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Flujo de entrada que lee los datos de una petición, trama a trama, hasta la
+	 * trama vacía que los termina. Cerrarlo no cierra el flujo subyacente.
+	 */
+	static final class FlujoEntradaTramas extends InputStream {
+		private final DataInputStream entrada;
+		private int restantesTrama = 0;
+		private boolean finAlcanzado = false;
+		private long bytesLeidos = 0;
+
+		FlujoEntradaTramas(final DataInputStream entrada) {
+			this.entrada = entrada;
+		}
+
+		/**
+		 * Obtiene el número de bytes de datos leídos hasta el momento.
+		 *
+		 * @return El devandicho número.
+		 */
+		long getBytesLeidos() {
+			return bytesLeidos;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+
+			while (restantesTrama == 0 && !finAlcanzado) {
+				restantesTrama = entrada.readInt();
+
+				if (restantesTrama < 0) {
+					throw new IOException("La longitud de la trama no es válida");
+				}
+				finAlcanzado = restantesTrama == 0;
+			}
+
+			if (finAlcanzado) {
+				return -1;
+			}
+
+			final int leidos = entrada.read(b, off, Math.min(len, restantesTrama));
+			if (leidos < 0) {
+				throw new EOFException("La conexión se ha cerrado antes del final de los datos");
+			}
+
+			restantesTrama -= leidos;
+			bytesLeidos += leidos;
+
+			return leidos;
+		}
+
+		/**
+		 * Lee y descarta los datos restantes, hasta la trama que los termina.
+		 *
+		 * @throws IOException Si ocurre un error de E/S.
+		 */
+		void descartar() throws IOException {
+			final byte[] buffer = new byte[TAMANO_TRAMA];
+			while (read(buffer, 0, buffer.length) >= 0) {
+				// Descartar los bytes
+			}
+		}
+
+		@Override
+		public void close() {
+			// El flujo subyacente es el de la conexión
+		}
+	}
+
+	/**
+	 * Flujo de salida que escribe datos como tramas, precedidas por el tipo de
+	 * mensaje indicado. Cerrarlo no cierra el flujo subyacente.
+	 */
+	static final class FlujoSalidaTramas extends OutputStream {
+		private final DataOutputStream salida;
+		private final byte tipoMensaje;
+		private long bytesEscritos = 0;
+
+		/**
+		 * Crea un flujo de salida de tramas.
+		 *
+		 * @param salida      El flujo subyacente.
+		 * @param tipoMensaje El byte que precede a cada trama, o -1 para no
+		 *                    escribir ninguno, como en las tramas de las
+		 *                    peticiones.
+		 */
+		FlujoSalidaTramas(final DataOutputStream salida, final int tipoMensaje) {
+			this.salida = salida;
+			this.tipoMensaje = (byte) tipoMensaje;
+		}
+
+		/**
+		 * Obtiene el número de bytes de datos escritos hasta el momento.
+		 *
+		 * @return El devandicho número.
+		 */
+		long getBytesEscritos() {
+			return bytesEscritos;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			int escritos = 0;
+
+			// Las tramas vacías terminan los datos, así que no se escriben
+			while (escritos < len) {
+				final int longitud = Math.min(len - escritos, TAMANO_TRAMA);
+
+				if (tipoMensaje >= 0) {
+					salida.writeByte(tipoMensaje);
+				}
+				salida.writeInt(longitud);
+				salida.write(b, off + escritos, longitud);
+
+				escritos += longitud;
+			}
+
+			bytesEscritos += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			salida.flush();
+		}
+
+		@Override
+		public void close() {
+			// El flujo subyacente es el de la conexión
+		}
+	}
+
+	/**
+	 * Las estadísticas de una petición atendida, que el servidor envía en el
+	 * mensaje de tipo {@link #MENSAJE_RESUMEN}.
+	 */
+	static final class Resumen {
+		private final long bytesLeidos;
+		private final long bytesEscritos;
+		private final long palabrasCorrectas;
+		private final long palabrasCorregidas;
+		private final long palabrasIncorregibles;
+		private final long bytesDescartados;
+		private final long nanosegundos;
+
+		Resumen(
+			final long bytesLeidos, final long bytesEscritos, final long palabrasCorrectas,
+			final long palabrasCorregidas, final long palabrasIncorregibles, final long bytesDescartados,
+			final long nanosegundos
+		) {
+			this.bytesLeidos = bytesLeidos;
+			this.bytesEscritos = bytesEscritos;
+			this.palabrasCorrectas = palabrasCorrectas;
+			this.palabrasCorregidas = palabrasCorregidas;
+			this.palabrasIncorregibles = palabrasIncorregibles;
+			this.bytesDescartados = bytesDescartados;
+			this.nanosegundos = nanosegundos;
+		}
+
+		/**
+		 * Lee un resumen de un flujo, a continuación del byte con el tipo del
+		 * mensaje.
+		 *
+		 * @param entrada El flujo.
+		 * @return El resumen leído.
+		 * @throws IOException Si ocurre un error de E/S.
+		 */
+		static Resumen leer(final DataInputStream entrada) throws IOException {
+			return new Resumen(
+				entrada.readLong(), entrada.readLong(), entrada.readLong(), entrada.readLong(),
+				entrada.readLong(), entrada.readLong(), entrada.readLong()
+			);
+		}
+
+		/**
+		 * Escribe este resumen en un flujo, precedido del byte con el tipo del
+		 * mensaje.
+		 *
+		 * @param salida El flujo.
+		 * @throws IOException Si ocurre un error de E/S.
+		 */
+		void escribir(final DataOutputStream salida) throws IOException {
+			salida.writeByte(MENSAJE_RESUMEN);
+			salida.writeLong(bytesLeidos);
+			salida.writeLong(bytesEscritos);
+			salida.writeLong(palabrasCorrectas);
+			salida.writeLong(palabrasCorregidas);
+			salida.writeLong(palabrasIncorregibles);
+			salida.writeLong(bytesDescartados);
+			salida.writeLong(nanosegundos);
+		}
+
+		long getBytesLeidos() {
+			return bytesLeidos;
+		}
+
+		long getBytesEscritos() {
+			return bytesEscritos;
+		}
+
+		long getPalabrasCorrectas() {
+			return palabrasCorrectas;
+		}
+
+		long getPalabrasCorregidas() {
+			return palabrasCorregidas;
+		}
+
+		long getPalabrasIncorregibles() {
+			return palabrasIncorregibles;
+		}
+
+		long getBytesDescartados() {
+			return bytesDescartados;
+		}
+
+		/**
+		 * Obtiene el tiempo que el servidor ha tardado en atender la petición,
+		 * desde que leyó su cabecera.
+		 *
+		 * @return El devandicho tiempo, en nanosegundos.
+		 */
+		long getNanosegundos() {
+			return nanosegundos;
+		}
+
+		/**
+		 * Añade las estadísticas de este resumen a un objeto JSON.
+		 *
+		 * @param objeto El objeto.
+		 * @return El mismo objeto.
+		 */
+		ObjetoJson anadirA(final ObjetoJson objeto) {
+			return objeto
+				.anadir("bytesLeidos", bytesLeidos)
+				.anadir("bytesEscritos", bytesEscritos)
+				.anadir("palabrasCorrectas", palabrasCorrectas)
+				.anadir("palabrasCorregidas", palabrasCorregidas)
+				.anadir("palabrasIncorregibles", palabrasIncorregibles)
+				.anadir("bytesDescartados", bytesDescartados)
+				.anadir("segundosServidor", nanosegundos / 1e9);
+		}
+	}
+}
@@ -0,0 +1,278 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor local que atiende peticiones de codificación y decodificación de
+ * clientes con el {@link ProtocoloServidor}, de manera que no tienen que pagar
+ * el coste de arrancar una máquina virtual por cada fichero.
+ * <p>
+ * Cada conexión se atiende en su propio hilo (virtual, con Java 21 o
+ * posterior; véase {@link ConexionesLocales}), hasta un número máximo de
+ * conexiones simultáneas. Mientras se alcanza ese máximo, no se aceptan más
+ * conexiones, que esperan en la cola del socket. Los códigos se crean una única
+ * vez por nombre y se comparten entre todas las conexiones, pues no tienen
+ * estado mutable.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class Servidor implements Closeable {
+	/**
+	 * El número máximo predeterminado de conexiones que se atienden a la vez.
+	 */
+	static final int MAXIMO_CONEXIONES_PREDETERMINADO = 64;
+	/**
+	 * El nombre del código que se usa si la petición no indica ninguno.
+	 */
+	private static final String CODIGO_PREDETERMINADO = CodigoHamming.NOMBRE_HAMMING_AMPLIADO + ":3";
+
+	private final ServerSocketChannel canal;
+	private final String direccion;
+	private final ExecutorService ejecutor;
+	private final Semaphore conexionesDisponibles;
+	private final PrintStream registro;
+	private final ConcurrentMap<String, CodigoLineal> codigos = new ConcurrentHashMap<>();
+
+	private final AtomicLong peticionesAtendidas = new AtomicLong();
+	private final AtomicLong peticionesErroneas = new AtomicLong();
+
+	/**
+	 * Crea un servidor que escucha en una dirección local, sin empezar a aceptar
+	 * conexiones.
+	 *
+	 * @param direccion        Un número de puerto TCP de la interfaz de bucle
+	 *                         local, o la ruta de un socket de dominio Unix, que
+	 *                         no debe de existir.
+	 * @param maximoConexiones El número máximo de conexiones que se atienden a la
+	 *                         vez.
+	 * @param registro         El flujo donde mostrar una línea por petición
+	 *                         atendida.
+	 * @throws IOException              Si ocurre un error de E/S al abrir el
+	 *                                  socket.
+	 * @throws IllegalArgumentException Si algún parámetro es nulo, o el número de
+	 *                                  conexiones no es positivo.
+	 */
+	Servidor(final String direccion, final int maximoConexiones, final PrintStream registro) throws IOException {
+		if (direccion == null || registro == null) {
+			throw new IllegalArgumentException("La dirección y el registro no pueden ser nulos");
+		}
+
+		if (maximoConexiones < 1) {
+			throw new IllegalArgumentException("El número máximo de conexiones debe de ser positivo");
+		}
+
+		this.canal = ConexionesLocales.escuchar(direccion);
+		this.direccion = ConexionesLocales.getDireccionLocal(canal, direccion);
+		this.ejecutor = ConexionesLocales.crearEjecutor(maximoConexiones);
+		this.conexionesDisponibles = new Semaphore(maximoConexiones);
+		this.registro = registro;
+	}
+
+	/**
+	 * Obtiene la dirección en la que escucha este servidor. Si se creó con el
+	 * puerto 0, es el puerto elegido.
+	 *
+	 * @return La devandicha dirección.
+	 */
+	String getDireccion() {
+		return direccion;
+	}
+
+	/**
+	 * Obtiene el número de peticiones atendidas hasta el momento, incluidas las
+	 * erróneas.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getPeticionesAtendidas() {
+		return peticionesAtendidas.get();
+	}
+
+	/**
+	 * Obtiene el número de peticiones que se han respondido con un error hasta el
+	 * momento.
+	 *
+	 * @return El devandicho número.
+	 */
+	long getPeticionesErroneas() {
+		return peticionesErroneas.get();
+	}
+
+	/**
+	 * Acepta y atiende conexiones hasta que se cierre el servidor.
+	 *
+	 * @throws IOException Si ocurre un error de E/S al aceptar conexiones.
+	 */
+	void servir() throws IOException {
+		while (canal.isOpen()) {
+			try {
+				conexionesDisponibles.acquire();
+			} catch (final InterruptedException exc) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+
+			final SocketChannel conexion;
+			try {
+				conexion = canal.accept();
+			} catch (final ClosedChannelException exc) {
+				conexionesDisponibles.release();
+				return;
+			} catch (final IOException exc) {
+				conexionesDisponibles.release();
+				throw exc;
+			}
+
+			ejecutor.execute(() -> atender(conexion));
+		}
+	}
+
+	/**
+	 * Deja de aceptar conexiones, interrumpe las que se estén atendiendo y, si el
+	 * socket es de dominio Unix, borra su fichero.
+	 *
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (canal.isOpen()) {
+			try {
+				canal.close();
+			} finally {
+				ejecutor.shutdownNow();
+
+				if (!ConexionesLocales.esPuerto(direccion)) {
+					Files.deleteIfExists(Paths.get(direccion));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Atiende todas las peticiones de una conexión, hasta que el cliente la
+	 * cierre.
+	 *
+	 * @param conexion La conexión.
+	 */
+	private void atender(final SocketChannel conexion) {
+		try (SocketChannel conexionAtendida = conexion) {
+			final DataInputStream entrada = new DataInputStream(
+				new BufferedInputStream(ProtocoloServidor.flujoEntrada(conexionAtendida), ProtocoloServidor.TAMANO_TRAMA)
+			);
+			final DataOutputStream salida = new DataOutputStream(
+				new BufferedOutputStream(ProtocoloServidor.flujoSalida(conexionAtendida), ProtocoloServidor.TAMANO_TRAMA)
+			);
+
+			int operacion;
+			while ((operacion = entrada.read()) >= 0) {
+				atenderPeticion((byte) operacion, entrada, salida);
+			}
+		} catch (final IOException exc) {
+			registro.println("! Se ha cerrado una conexión por un error de E/S: " + exc);
+		} finally {
+			conexionesDisponibles.release();
+		}
+	}
+
+	/**
+	 * Atiende una petición, cuyo byte de operación ya se ha leído.
+	 *
+	 * @param operacion La operación pedida.
+	 * @param entrada   El flujo de entrada de la conexión.
+	 * @param salida    El flujo de salida de la conexión.
+	 * @throws IOException Si ocurre un error de E/S.
+	 */
+	private void atenderPeticion(
+		final byte operacion, final DataInputStream entrada, final DataOutputStream salida
+	) throws IOException {
+		final String nombreCodigo = entrada.readUTF();
+		final long inicio = System.nanoTime();
+		final ProtocoloServidor.FlujoEntradaTramas datos = new ProtocoloServidor.FlujoEntradaTramas(entrada);
+		final ProtocoloServidor.FlujoSalidaTramas resultado = new ProtocoloServidor.FlujoSalidaTramas(
+			salida, ProtocoloServidor.MENSAJE_DATOS
+		);
+
+		peticionesAtendidas.incrementAndGet();
+
+		final CodigoLineal codigo;
+		try {
+			if (operacion != ProtocoloServidor.OPERACION_CODIFICAR && operacion != ProtocoloServidor.OPERACION_DECODIFICAR) {
+				throw new IllegalArgumentException("La operación pedida no es conocida");
+			}
+
+			codigo = codigos.computeIfAbsent(
+				nombreCodigo.isEmpty() ? CODIGO_PREDETERMINADO : nombreCodigo, CodigoLineal::crear
+			);
+		} catch (final IllegalArgumentException exc) {
+			// Leer los datos de la petición, para poder atender la siguiente
+			datos.descartar();
+			responderError(salida, exc.getMessage());
+			return;
+		}
+
+		final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+		if (operacion == ProtocoloServidor.OPERACION_CODIFICAR) {
+			final FlujoSalidaHamming flujo = new FlujoSalidaHamming(resultado, codigo, IntroductorErrores.ninguno());
+			final byte[] buffer = new byte[FlujoSalidaHamming.TAMANO_BUFFER];
+
+			int leidos;
+			while ((leidos = datos.read(buffer)) >= 0) {
+				flujo.write(buffer, 0, leidos);
+			}
+			flujo.terminar();
+		} else {
+			final FlujoEntradaHamming flujo = new FlujoEntradaHamming(datos, codigo, estadisticas);
+			final byte[] buffer = new byte[FlujoEntradaHamming.TAMANO_BUFFER];
+
+			int leidos;
+			while ((leidos = flujo.read(buffer)) >= 0) {
+				resultado.write(buffer, 0, leidos);
+			}
+		}
+
+		final ProtocoloServidor.Resumen resumen = new ProtocoloServidor.Resumen(
+			datos.getBytesLeidos(), resultado.getBytesEscritos(), estadisticas.getPalabrasCorrectas(),
+			estadisticas.getPalabrasCorregidas(), estadisticas.getPalabrasIncorregibles(),
+			estadisticas.getBytesDescartados(), System.nanoTime() - inicio
+		);
+		resumen.escribir(salida);
+		salida.flush();
+
+		registro.printf(
+			"> %s con %s de %d bytes en %d bytes, en %.3f ms (%d palabras corregidas, %d incorregibles)" + System.lineSeparator(),
+			operacion == ProtocoloServidor.OPERACION_CODIFICAR ? "Codificación" : "Decodificación",
+			codigo.getNombre(), resumen.getBytesLeidos(), resumen.getBytesEscritos(), resumen.getNanosegundos() / 1e6,
+			resumen.getPalabrasCorregidas(), resumen.getPalabrasIncorregibles()
+		);
+	}
+
+	private void responderError(final DataOutputStream salida, final String mensaje) throws IOException {
+		peticionesErroneas.incrementAndGet();
+
+		salida.writeByte(ProtocoloServidor.MENSAJE_ERROR);
+		salida.writeUTF(mensaje);
+		salida.flush();
+
+		registro.println("! Petición errónea: " + mensaje);
+	}
+}
@@ -0,0 +1,512 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.MatrizZ2;
+
+/**
+ * Estima mediante el método de Monte Carlo el comportamiento de un código
+ * lineal sobre un canal binario simétrico, codificando, corrompiendo y
+ * decodificando palabras aleatorias en memoria, repartidas entre varios hilos.
+ * <p>
+ * Cada palabra código decodificada se clasifica como sin errores, corregida
+ * (se han corregido los errores y la palabra fuente es la original),
+ * incorregible (se han detectado errores que no se pueden corregir) o mal
+ * decodificada (la palabra fuente no es la original, pero el decodificador no
+ * ha detectado errores incorregibles). Junto a cada tasa simulada se calcula su
+ * intervalo de confianza de Wilson y su valor exacto, que se deduce de la
+ * distribución de pesos del código, obtenida a partir de la de su código dual
+ * mediante la identidad de MacWilliams.
+ * </p>
+ * <p>
+ * Los errores se introducen según la posición de cada palabra código en un
+ * flujo virtual, como en {@link Procesador}, de manera que, con la misma
+ * semilla, el resultado de cada probabilidad es el mismo sea cual sea el
+ * número de hilos y el resto de probabilidades simuladas.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class Simulador {
+	/**
+	 * El número de palabras código que se simulan por defecto para cada
+	 * probabilidad de error.
+	 */
+	static final long PALABRAS_PREDETERMINADAS = 1_000_000;
+	/**
+	 * El nivel de confianza de los intervalos calculados.
+	 */
+	static final double CONFIANZA = 0.95;
+	/**
+	 * El cuantil de la distribución normal estándar correspondiente a
+	 * {@link #CONFIANZA}.
+	 */
+	private static final double CUANTIL_CONFIANZA = 1.959963984540054;
+	/**
+	 * El número de palabras código de cada trozo en los que se divide la
+	 * simulación para repartirla entre los hilos.
+	 */
+	private static final int PALABRAS_TROZO = 16 * 1024;
+
+	private final CodigoLineal codigo;
+	private final int hilos;
+	private final long semilla;
+	private final int bytesPalabraFuente;
+	private final int bytesPalabraCodigo;
+	/**
+	 * El número de palabras código de cada peso.
+	 */
+	private final double[] distribucionPesos;
+
+	/**
+	 * Crea un nuevo simulador.
+	 *
+	 * @param codigo  El código a simular.
+	 * @param hilos   El número de hilos entre los que repartir la simulación.
+	 * @param semilla La semilla de los números pseudoaleatorios a usar.
+	 * @throws IllegalArgumentException Si el código es nulo o el número de hilos
+	 *                                  no es positivo.
+	 */
+	Simulador(final CodigoLineal codigo, final int hilos, final long semilla) {
+		if (codigo == null) {
+			throw new IllegalArgumentException("El código no puede ser nulo");
+		}
+
+		if (hilos < 1) {
+			throw new IllegalArgumentException("El número de hilos debe de ser positivo");
+		}
+
+		this.codigo = codigo;
+		this.hilos = hilos;
+		this.semilla = semilla;
+		this.bytesPalabraFuente = (codigo.getDimension() + 7) / 8;
+		this.bytesPalabraCodigo = (codigo.getLongitud() + 7) / 8;
+		this.distribucionPesos = calcularDistribucionPesos(codigo.getMatrizControl());
+	}
+
+	/**
+	 * Obtiene la distribución de pesos del código: el número de palabras código
+	 * de cada peso, entre 0 y la longitud del código.
+	 *
+	 * @return La devandicha distribución.
+	 */
+	double[] getDistribucionPesos() {
+		return distribucionPesos.clone();
+	}
+
+	/**
+	 * Simula la transmisión de palabras código aleatorias por un canal binario
+	 * simétrico.
+	 *
+	 * @param probabilidadError La probabilidad de que el canal niegue cada bit.
+	 * @param palabras          El número de palabras código a simular.
+	 * @return El resultado de la simulación.
+	 * @throws InterruptedException     Si se interrumpe la espera a los hilos.
+	 * @throws IllegalArgumentException Si la probabilidad no está entre 0 y 1, o
+	 *                                  el número de palabras no es positivo.
+	 */
+	Resultado simular(final double probabilidadError, final long palabras) throws InterruptedException {
+		if (palabras < 1) {
+			throw new IllegalArgumentException("El número de palabras a simular debe de ser positivo");
+		}
+
+		final IntroductorErrores introductorErrores = new CanalBinarioSimetrico(probabilidadError, semilla);
+		final long[] recuento = new long[4];
+
+		if (hilos > 1) {
+			final List<Callable<long[]>> trozos = new ArrayList<>();
+			for (long primera = 0; primera < palabras; primera += PALABRAS_TROZO) {
+				final long primeraPalabra = primera;
+				final int palabrasTrozo = (int) Math.min(PALABRAS_TROZO, palabras - primera);
+
+				trozos.add(() -> simularTrozo(introductorErrores.derivar(), primeraPalabra, palabrasTrozo));
+			}
+
+			final ForkJoinPool ejecutor = new ForkJoinPool(hilos);
+			try {
+				for (final Future<long[]> futuro : ejecutor.invokeAll(trozos)) {
+					acumular(recuento, obtener(futuro));
+				}
+			} finally {
+				ejecutor.shutdownNow();
+			}
+		} else {
+			for (long primera = 0; primera < palabras; primera += PALABRAS_TROZO) {
+				acumular(recuento, simularTrozo(
+					introductorErrores, primera, (int) Math.min(PALABRAS_TROZO, palabras - primera)
+				));
+			}
+		}
+
+		return new Resultado(probabilidadError, palabras, recuento, calcularProbabilidadesExactas(probabilidadError));
+	}
+
+	/**
+	 * Simula la transmisión de un trozo de palabras código consecutivas.
+	 *
+	 * @param introductorErrores El introductor de errores propio del trozo.
+	 * @param primeraPalabra     El índice de la primera palabra del trozo.
+	 * @param palabras           El número de palabras del trozo.
+	 * @return El número de palabras sin errores, corregidas, incorregibles y mal
+	 *         decodificadas del trozo, en ese orden.
+	 */
+	private long[] simularTrozo(
+		final IntroductorErrores introductorErrores, final long primeraPalabra, final int palabras
+	) {
+		// Los datos fuente de cada trozo dependen solo de su posición
+		final SplittableRandom prng = new SplittableRandom(semilla ^ primeraPalabra * 0x9E3779B97F4A7C15L);
+		final byte[] fuentes = new byte[palabras * bytesPalabraFuente];
+		final byte[] palabrasCodigo = new byte[palabras * bytesPalabraCodigo];
+		final byte[] fuente = new byte[bytesPalabraFuente];
+		final byte[] palabra = new byte[bytesPalabraCodigo];
+		final int mascaraFuente = mascaraUltimoByte(codigo.getDimension());
+		final int mascaraCodigo = mascaraUltimoByte(codigo.getLongitud());
+
+		for (int i = 0; i < palabras; ++i) {
+			for (int b = 0; b < bytesPalabraFuente; ++b) {
+				fuente[b] = (byte) prng.nextInt(256);
+			}
+			fuente[bytesPalabraFuente - 1] &= mascaraFuente;
+
+			codigo.codificarPalabra(fuente, palabra);
+			System.arraycopy(fuente, 0, fuentes, i * bytesPalabraFuente, bytesPalabraFuente);
+			System.arraycopy(palabra, 0, palabrasCodigo, i * bytesPalabraCodigo, bytesPalabraCodigo);
+		}
+
+		// Cada palabra código ocupa un número entero de bytes en el flujo virtual.
+		// Los errores en los bits sobrantes de su último byte se descartan, de
+		// manera que cada bit de la palabra se niega con la probabilidad del canal
+		introductorErrores.introducir(palabrasCodigo, 0, palabrasCodigo.length, primeraPalabra * bytesPalabraCodigo);
+
+		final long[] recuento = new long[4];
+		for (int i = 0; i < palabras; ++i) {
+			System.arraycopy(palabrasCodigo, i * bytesPalabraCodigo, palabra, 0, bytesPalabraCodigo);
+			palabra[bytesPalabraCodigo - 1] &= mascaraCodigo;
+
+			final int estado = codigo.decodificarPalabra(palabra, fuente);
+			if (estado == CodigoLineal.ESTADO_INCORREGIBLE) {
+				++recuento[2];
+			} else if (!esFuenteOriginal(fuente, fuentes, i * bytesPalabraFuente)) {
+				++recuento[3];
+			} else {
+				++recuento[estado == CodigoLineal.ESTADO_CORREGIDA ? 1 : 0];
+			}
+		}
+
+		return recuento;
+	}
+
+	/**
+	 * Calcula las probabilidades exactas de cada clase de palabra decodificada.
+	 * El código corrige todos los errores de un bit, así que su distancia mínima
+	 * es al menos 3, y una palabra se decodifica mal si y solo si el patrón de
+	 * errores está a distancia 0 o 1 de una palabra código no nula.
+	 *
+	 * @param p La probabilidad de error de cada bit.
+	 * @return Las probabilidades de que una palabra llegue sin errores, se
+	 *         corrija, sea incorregible o se decodifique mal, en ese orden.
+	 */
+	private double[] calcularProbabilidadesExactas(final double p) {
+		final int n = codigo.getLongitud();
+		final double logaritmoError = Math.log(p);
+		final double logaritmoAcierto = Math.log1p(-p);
+
+		final double sinErrores = Math.exp(potencia(logaritmoAcierto, n));
+		final double corregida = n * Math.exp(potencia(logaritmoError, 1) + potencia(logaritmoAcierto, n - 1));
+
+		double malDecodificada = 0;
+		for (int w = 1; w <= n; ++w) {
+			if (distribucionPesos[w] > 0) {
+				final double logaritmoPalabras = Math.log(distribucionPesos[w]);
+
+				malDecodificada += Math.exp(logaritmoPalabras + potencia(logaritmoError, w) + potencia(logaritmoAcierto, n - w));
+				malDecodificada += w * Math.exp(
+					logaritmoPalabras + potencia(logaritmoError, w - 1) + potencia(logaritmoAcierto, n - w + 1)
+				);
+				if (w < n) {
+					malDecodificada += (n - w) * Math.exp(
+						logaritmoPalabras + potencia(logaritmoError, w + 1) + potencia(logaritmoAcierto, n - w - 1)
+					);
+				}
+			}
+		}
+
+		// 1 - (1 - p)^n, sin perder precisión con probabilidades pequeñas
+		final double conErrores = -Math.expm1(potencia(logaritmoAcierto, n));
+		final double incorregible = Math.max(0, conErrores - corregida - malDecodificada);
+
+		return new double[] { sinErrores, corregida, incorregible, malDecodificada };
+	}
+
+	/**
+	 * Calcula la distribución de pesos de un código a partir de su matriz control
+	 * de paridad, enumerando las palabras de su código dual, generado por las
+	 * filas de la matriz, y aplicando la identidad de MacWilliams: el polinomio
+	 * enumerador de pesos del código es W(x, y) = W<sub>dual</sub>(x + y, x -
+	 * y) / 2<sup>r</sup>, donde r es el número de filas de la matriz.
+	 *
+	 * @param matrizControl La matriz control de paridad, de filas linealmente
+	 *                      independientes.
+	 * @return El número de palabras código de cada peso.
+	 */
+	static double[] calcularDistribucionPesos(final MatrizZ2 matrizControl) {
+		final int n = matrizControl.getNumeroColumnas();
+		final int r = matrizControl.getNumeroFilas();
+
+		final long[][] filas = new long[r][(n + 63) / 64];
+		for (int i = 0; i < r; ++i) {
+			for (int j = 0; j < n; ++j) {
+				filas[i][j >>> 6] |= (long) matrizControl.getElemento(i, j) << (j & 63);
+			}
+		}
+
+		// Recorrer el código dual en orden de Gray, sumando una fila en cada paso
+		final long[] distribucionDual = new long[n + 1];
+		final long[] palabra = new long[(n + 63) / 64];
+		distribucionDual[0] = 1;
+		for (int i = 1; i < 1 << r; ++i) {
+			final long[] fila = filas[Integer.numberOfTrailingZeros(i)];
+			int peso = 0;
+
+			for (int b = 0; b < palabra.length; ++b) {
+				palabra[b] ^= fila[b];
+				peso += Long.bitCount(palabra[b]);
+			}
+
+			++distribucionDual[peso];
+		}
+
+		final BigInteger[] distribucion = new BigInteger[n + 1];
+		for (int w = 0; w <= n; ++w) {
+			distribucion[w] = BigInteger.ZERO;
+		}
+
+		// Sumar los coeficientes de (x + y)^(n - j) (x - y)^j por cada palabra dual
+		// de peso j, donde el de x^(n - w) y^w corresponde al peso w
+		for (int j = 0; j <= n; ++j) {
+			if (distribucionDual[j] > 0) {
+				final BigInteger[] coeficientes = new BigInteger[n + 1];
+				coeficientes[0] = BigInteger.ONE;
+				for (int grado = 1; grado <= n; ++grado) {
+					coeficientes[grado] = BigInteger.ZERO;
+					for (int w = grado; w > 0; --w) {
+						coeficientes[w] = grado <= n - j ?
+							coeficientes[w].add(coeficientes[w - 1]) :
+							coeficientes[w].subtract(coeficientes[w - 1]);
+					}
+				}
+
+				final BigInteger palabrasDuales = BigInteger.valueOf(distribucionDual[j]);
+				for (int w = 0; w <= n; ++w) {
+					distribucion[w] = distribucion[w].add(coeficientes[w].multiply(palabrasDuales));
+				}
+			}
+		}
+
+		final double[] resultado = new double[n + 1];
+		for (int w = 0; w <= n; ++w) {
+			resultado[w] = distribucion[w].shiftRight(r).doubleValue();
+		}
+
+		return resultado;
+	}
+
+	/**
+	 * Calcula el intervalo de confianza de Wilson de una proporción, con el nivel
+	 * de confianza {@link #CONFIANZA}.
+	 *
+	 * @param exitos El número de éxitos observados.
+	 * @param total  El número de experimentos.
+	 * @return Los extremos inferior y superior del intervalo.
+	 */
+	static double[] intervaloWilson(final long exitos, final long total) {
+		final double z2 = CUANTIL_CONFIANZA * CUANTIL_CONFIANZA;
+		final double denominador = total + z2;
+		final double centro = (exitos + z2 / 2) / denominador;
+		final double semiamplitud = CUANTIL_CONFIANZA / denominador *
+			Math.sqrt(exitos * (double) (total - exitos) / total + z2 / 4);
+
+		return new double[] { Math.max(0, centro - semiamplitud), Math.min(1, centro + semiamplitud) };
+	}
+
+	/**
+	 * Calcula el logaritmo de una potencia, considerando que cualquier base
+	 * elevada a 0 es 1, aunque sea nula.
+	 */
+	private static double potencia(final double logaritmoBase, final int exponente) {
+		return exponente == 0 ? 0 : exponente * logaritmoBase;
+	}
+
+	private static int mascaraUltimoByte(final int bits) {
+		return (bits & 7) == 0 ? 0xFF : 0xFF << (8 - (bits & 7)) & 0xFF;
+	}
+
+	private static boolean esFuenteOriginal(final byte[] fuente, final byte[] fuentes, final int desplazamiento) {
+		for (int b = 0; b < fuente.length; ++b) {
+			if (fuente[b] != fuentes[desplazamiento + b]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static void acumular(final long[] recuento, final long[] recuentoTrozo) {
+		for (int i = 0; i < recuento.length; ++i) {
+			recuento[i] += recuentoTrozo[i];
+		}
+	}
+
+	/**
+	 * Espera a que termine un trozo y obtiene su resultado, relanzando las
+	 * excepciones no comprobadas que haya lanzado.
+	 */
+	private static long[] obtener(final Future<long[]> futuro) throws InterruptedException {
+		try {
+			return futuro.get();
+		} catch (final ExecutionException exc) {
+			final Throwable causa = exc.getCause();
+
+			if (causa instanceof RuntimeException) {
+				throw (RuntimeException) causa;
+			} else if (causa instanceof Error) {
+				throw (Error) causa;
+			} else {
+				throw new IllegalStateException(causa);
+			}
+		}
+	}
+
+	/**
+	 * El resultado de simular el código con una probabilidad de error.
+	 */
+	static final class Resultado {
+		private final double probabilidadError;
+		private final long palabras;
+		/**
+		 * El número de palabras sin errores, corregidas, incorregibles y mal
+		 * decodificadas.
+		 */
+		private final long[] recuento;
+		/**
+		 * Las probabilidades exactas de cada clase de palabra, en el mismo orden
+		 * que el recuento.
+		 */
+		private final double[] probabilidadesExactas;
+
+		private Resultado(
+			final double probabilidadError, final long palabras, final long[] recuento,
+			final double[] probabilidadesExactas
+		) {
+			this.probabilidadError = probabilidadError;
+			this.palabras = palabras;
+			this.recuento = recuento;
+			this.probabilidadesExactas = probabilidadesExactas;
+		}
+
+		/**
+		 * Obtiene la probabilidad de error de cada bit simulada.
+		 *
+		 * @return El devandicho valor.
+		 */
+		double getProbabilidadError() {
+			return probabilidadError;
+		}
+
+		/**
+		 * Obtiene el número de palabras código simuladas.
+		 *
+		 * @return El devandicho valor.
+		 */
+		long getPalabras() {
+			return palabras;
+		}
+
+		/**
+		 * Obtiene el número de palabras código que han llegado sin errores.
+		 *
+		 * @return El devandicho valor.
+		 */
+		long getPalabrasSinErrores() {
+			return recuento[0];
+		}
+
+		/**
+		 * Obtiene el número de palabras código cuyos errores se han corregido.
+		 *
+		 * @return El devandicho valor.
+		 */
+		long getPalabrasCorregidas() {
+			return recuento[1];
+		}
+
+		/**
+		 * Obtiene el número de palabras código con errores detectados que no se
+		 * pueden corregir.
+		 *
+		 * @return El devandicho valor.
+		 */
+		long getPalabrasIncorregibles() {
+			return recuento[2];
+		}
+
+		/**
+		 * Obtiene el número de palabras código decodificadas en una palabra fuente
+		 * distinta de la original, sin detectar errores incorregibles.
+		 *
+		 * @return El devandicho valor.
+		 */
+		long getPalabrasMalDecodificadas() {
+			return recuento[3];
+		}
+
+		/**
+		 * Obtiene la probabilidad exacta de que una palabra código llegue sin
+		 * errores.
+		 *
+		 * @return El devandicho valor.
+		 */
+		double getProbabilidadExactaSinErrores() {
+			return probabilidadesExactas[0];
+		}
+
+		/**
+		 * Obtiene la probabilidad exacta de que se corrijan los errores de una
+		 * palabra código.
+		 *
+		 * @return El devandicho valor.
+		 */
+		double getProbabilidadExactaCorregida() {
+			return probabilidadesExactas[1];
+		}
+
+		/**
+		 * Obtiene la probabilidad exacta de que una palabra código sea
+		 * incorregible.
+		 *
+		 * @return El devandicho valor.
+		 */
+		double getProbabilidadExactaIncorregible() {
+			return probabilidadesExactas[2];
+		}
+
+		/**
+		 * Obtiene la probabilidad exacta de que una palabra código se decodifique
+		 * mal.
+		 *
+		 * @return El devandicho valor.
+		 */
+		double getProbabilidadExactaMalDecodificada() {
+			return probabilidadesExactas[3];
+		}
+	}
+}
@@ -0,0 +1,241 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer.lib;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Una cola acotada, implementada sobre un búfer circular, para comunicar un
+ * único hilo productor con un único hilo consumidor sin usar cerrojos.
+ * <p>
+ * Cada extremo de la cola solo puede ser usado por un hilo a la vez. Las
+ * operaciones bloqueantes esperan activamente durante un tiempo breve, y luego
+ * se suspenden durante intervalos cortos hasta que pueden completarse. Además,
+ * la cola lleva la cuenta de las veces que cada extremo ha tenido que esperar y
+ * de su ocupación, lo que permite identificar cuál de los dos hilos es más lento.
+ * </p>
+ *
+ * @param <E> El tipo de los elementos de la cola.
+ * @author Alejandro González García
+ */
+public final class ColaCircular<E> {
+	/**
+	 * El número de veces que se cede el procesador antes de suspender el hilo en
+	 * una operación bloqueante.
+	 */
+	private static final int ESPERAS_ACTIVAS = 64;
+
+	/**
+	 * El tiempo, en nanosegundos, que se suspende el hilo en cada intento de una
+	 * operación bloqueante tras las esperas activas.
+	 */
+	private static final long NANOSEGUNDOS_SUSPENSION = 50_000;
+
+	private final Object[] elementos;
+	private final int mascara;
+
+	/**
+	 * El índice del siguiente elemento a extraer, que solo modifica el consumidor.
+	 */
+	private final AtomicLong cabeza = new AtomicLong();
+
+	/**
+	 * El índice del siguiente elemento a insertar, que solo modifica el productor.
+	 */
+	private final AtomicLong cola = new AtomicLong();
+
+	// Contadores del productor
+	private long esperasProductor = 0;
+	private long elementosInsertados = 0;
+	private long sumaOcupacion = 0;
+	private int ocupacionMaxima = 0;
+
+	// Contadores del consumidor
+	private long esperasConsumidor = 0;
+
+	/**
+	 * Crea una nueva cola vacía.
+	 *
+	 * @param capacidad El número mínimo de elementos que debe de poder contener
+	 *                  la cola. La capacidad real es la menor potencia de dos que
+	 *                  no es menor que ésta.
+	 * @throws IllegalArgumentException Si la capacidad no es positiva o es
+	 *                                  demasiado grande.
+	 */
+	public ColaCircular(final int capacidad) {
+		if (capacidad < 1 || capacidad > 1 << 30) {
+			throw new IllegalArgumentException("La capacidad de la cola no es válida");
+		}
+
+		int capacidadReal = 1;
+		while (capacidadReal < capacidad) {
+			capacidadReal <<= 1;
+		}
+
+		this.elementos = new Object[capacidadReal];
+		this.mascara = capacidadReal - 1;
+	}
+
+	/**
+	 * Obtiene el número máximo de elementos que puede contener la cola.
+	 *
+	 * @return La capacidad de la cola.
+	 */
+	public int getCapacidad() {
+		return elementos.length;
+	}
+
+	/**
+	 * Inserta un elemento al final de la cola, si cabe. Solo puede llamarse desde
+	 * el hilo productor.
+	 *
+	 * @param elemento El elemento a insertar.
+	 * @return Verdadero si se ha insertado el elemento, falso si la cola está
+	 *         llena.
+	 * @throws IllegalArgumentException Si el elemento es nulo.
+	 */
+	public boolean ofrecer(final E elemento) {
+		if (elemento == null) {
+			throw new IllegalArgumentException("No se pueden insertar elementos nulos en la cola");
+		}
+
+		final long indice = cola.get();
+		final int ocupacion = (int) (indice - cabeza.get());
+
+		if (ocupacion == elementos.length) {
+			return false;
+		}
+
+		elementos[(int) indice & mascara] = elemento;
+		// La escritura diferida del índice basta para que el consumidor vea el
+		// elemento, y es más barata que una escritura volátil
+		cola.lazySet(indice + 1);
+
+		++elementosInsertados;
+		sumaOcupacion += ocupacion + 1;
+		ocupacionMaxima = Math.max(ocupacionMaxima, ocupacion + 1);
+
+		return true;
+	}
+
+	/**
+	 * Extrae el primer elemento de la cola, si hay alguno. Solo puede llamarse
+	 * desde el hilo consumidor.
+	 *
+	 * @return El elemento extraído, o {@code null} si la cola está vacía.
+	 */
+	@SuppressWarnings("unchecked")
+	public E extraer() {
+		final long indice = cabeza.get();
+
+		if (indice == cola.get()) {
+			return null;
+		}
+
+		final int posicion = (int) indice & mascara;
+		final E elemento = (E) elementos[posicion];
+		elementos[posicion] = null;
+		cabeza.lazySet(indice + 1);
+
+		return elemento;
+	}
+
+	/**
+	 * Inserta un elemento al final de la cola, esperando a que haya espacio para
+	 * él. Solo puede llamarse desde el hilo productor.
+	 *
+	 * @param elemento El elemento a insertar.
+	 * @throws InterruptedException     Si se interrumpe el hilo mientras espera.
+	 * @throws IllegalArgumentException Si el elemento es nulo.
+	 */
+	public void poner(final E elemento) throws InterruptedException {
+		if (!ofrecer(elemento)) {
+			++esperasProductor;
+
+			int intento = 0;
+			do {
+				esperar(intento++);
+			} while (!ofrecer(elemento));
+		}
+	}
+
+	/**
+	 * Extrae el primer elemento de la cola, esperando a que haya alguno. Solo
+	 * puede llamarse desde el hilo consumidor.
+	 *
+	 * @return El elemento extraído.
+	 * @throws InterruptedException Si se interrumpe el hilo mientras espera.
+	 */
+	public E tomar() throws InterruptedException {
+		E elemento = extraer();
+
+		if (elemento == null) {
+			++esperasConsumidor;
+
+			int intento = 0;
+			do {
+				esperar(intento++);
+			} while ((elemento = extraer()) == null);
+		}
+
+		return elemento;
+	}
+
+	/**
+	 * Obtiene el número de veces que el productor ha tenido que esperar a que
+	 * hubiese espacio en la cola, porque el consumidor es más lento.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getEsperasProductor() {
+		return esperasProductor;
+	}
+
+	/**
+	 * Obtiene el número de veces que el consumidor ha tenido que esperar a que
+	 * hubiese elementos en la cola, porque el productor es más lento.
+	 *
+	 * @return El devandicho número.
+	 */
+	public long getEsperasConsumidor() {
+		return esperasConsumidor;
+	}
+
+	/**
+	 * Obtiene el número medio de elementos que había en la cola justo después de
+	 * cada inserción.
+	 *
+	 * @return La devandicha media, o 0 si no se ha insertado ningún elemento.
+	 */
+	public double getOcupacionMedia() {
+		return elementosInsertados > 0 ? sumaOcupacion / (double) elementosInsertados : 0;
+	}
+
+	/**
+	 * Obtiene el número máximo de elementos que ha llegado a contener la cola.
+	 *
+	 * @return El devandicho número.
+	 */
+	public int getOcupacionMaxima() {
+		return ocupacionMaxima;
+	}
+
+	/**
+	 * Espera un poco antes de volver a intentar una operación bloqueante.
+	 *
+	 * @param intento El número de intentos anteriores de la operación.
+	 * @throws InterruptedException Si el hilo ha sido interrumpido.
+	 */
+	private static void esperar(final int intento) throws InterruptedException {
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+
+		if (intento < ESPERAS_ACTIVAS) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(NANOSEGUNDOS_SUSPENSION);
+		}
+	}
+}
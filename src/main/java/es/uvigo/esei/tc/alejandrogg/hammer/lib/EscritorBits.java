@@ -0,0 +1,136 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer.lib;
+
+/**
+ * Empaqueta secuencias de bits de longitud arbitraria, de manera consecutiva, en
+ * un array de bytes. Los bits se escriben empezando por el de mayor peso de cada
+ * byte, de manera que una secuencia de bits que no ocupa un número entero de
+ * bytes continúa en el siguiente byte, sin dejar huecos.
+ *
+ * @author Alejandro González García
+ */
+public final class EscritorBits {
+	private byte[] destino;
+	private int posicion;
+	private long acumulador;
+	private int bitsAcumulados;
+
+	/**
+	 * Crea un nuevo escritor de bits sobre un array.
+	 *
+	 * @param destino        El array donde escribir los bits.
+	 * @param desplazamiento La posición del primer byte a escribir.
+	 * @throws IllegalArgumentException Si {@code destino} es nulo, o el
+	 *                                  desplazamiento no es válido.
+	 */
+	public EscritorBits(final byte[] destino, final int desplazamiento) {
+		reiniciar(destino, desplazamiento);
+	}
+
+	/**
+	 * Descarta los bits pendientes de escribir y pasa a escribir en el array y la
+	 * posición especificados, permitiendo reutilizar este objeto.
+	 *
+	 * @param destino        El array donde escribir los bits.
+	 * @param desplazamiento La posición del primer byte a escribir.
+	 * @throws IllegalArgumentException Si {@code destino} es nulo, o el
+	 *                                  desplazamiento no es válido.
+	 */
+	public void reiniciar(final byte[] destino, final int desplazamiento) {
+		if (destino == null) {
+			throw new IllegalArgumentException("El array de destino no puede ser nulo");
+		}
+
+		if (desplazamiento < 0 || desplazamiento > destino.length) {
+			throw new IllegalArgumentException("El desplazamiento no es válido");
+		}
+
+		this.destino = destino;
+		this.posicion = desplazamiento;
+		this.acumulador = 0;
+		this.bitsAcumulados = 0;
+	}
+
+	/**
+	 * Escribe los {@code numeroBits} bits de menor peso de un valor, empezando por
+	 * el de mayor peso de ellos.
+	 *
+	 * @param bits       El valor que contiene los bits a escribir.
+	 * @param numeroBits El número de bits a escribir.
+	 * @throws IllegalArgumentException Si {@code numeroBits} no está en el
+	 *                                  intervalo [0, 64].
+	 */
+	public void escribir(final long bits, final int numeroBits) {
+		if (numeroBits < 0 || numeroBits > 64) {
+			throw new IllegalArgumentException("El número de bits no es válido");
+		}
+
+		// El acumulador nunca contiene más de 7 bits entre llamadas, así que caben
+		// 32 bits más sin desbordarlo
+		if (numeroBits > 32) {
+			escribirAcumulando(bits >>> 32, numeroBits - 32);
+			escribirAcumulando(bits, 32);
+		} else {
+			escribirAcumulando(bits, numeroBits);
+		}
+	}
+
+	/**
+	 * Escribe los bits de un array de bytes, empezando por el de mayor peso del
+	 * primer byte.
+	 *
+	 * @param bits       El array que contiene los bits a escribir.
+	 * @param numeroBits El número de bits a escribir.
+	 */
+	public void escribir(final byte[] bits, final int numeroBits) {
+		final int bytesCompletos = numeroBits >>> 3;
+		final int bitsRestantes = numeroBits & 7;
+
+		for (int i = 0; i < bytesCompletos; ++i) {
+			escribirAcumulando(bits[i], 8);
+		}
+
+		if (bitsRestantes > 0) {
+			escribirAcumulando((bits[bytesCompletos] & 0xFF) >>> (8 - bitsRestantes), bitsRestantes);
+		}
+	}
+
+	/**
+	 * Escribe los bits pendientes, rellenando con ceros el último byte si no está
+	 * completo.
+	 */
+	public void completar() {
+		if (bitsAcumulados > 0) {
+			destino[posicion++] = (byte) (acumulador << (8 - bitsAcumulados));
+			acumulador = 0;
+			bitsAcumulados = 0;
+		}
+	}
+
+	/**
+	 * Obtiene la posición del array donde se escribirá el siguiente byte
+	 * completo.
+	 *
+	 * @return La devandicha posición.
+	 */
+	public int getPosicion() {
+		return posicion;
+	}
+
+	/**
+	 * Añade bits al acumulador, y escribe en el array los bytes que se completen.
+	 *
+	 * @param bits       El valor que contiene los bits a escribir.
+	 * @param numeroBits El número de bits a escribir, que no debe de superar 32.
+	 */
+	private void escribirAcumulando(final long bits, final int numeroBits) {
+		acumulador = acumulador << numeroBits | bits & ((1L << numeroBits) - 1);
+		bitsAcumulados += numeroBits;
+
+		while (bitsAcumulados >= 8) {
+			bitsAcumulados -= 8;
+			destino[posicion++] = (byte) (acumulador >>> bitsAcumulados);
+		}
+	}
+}
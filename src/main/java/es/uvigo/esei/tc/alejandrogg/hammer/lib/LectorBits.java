@@ -0,0 +1,127 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer.lib;
+
+/**
+ * Lee secuencias de bits de longitud arbitraria, de manera consecutiva, de un
+ * array de bytes. Es la operación recíproca de {@link EscritorBits}: los bits se
+ * leen empezando por el de mayor peso de cada byte.
+ *
+ * @author Alejandro González García
+ */
+public final class LectorBits {
+	private byte[] origen;
+	private int posicion;
+	private long acumulador;
+	private int bitsAcumulados;
+
+	/**
+	 * Crea un nuevo lector de bits sobre un array.
+	 *
+	 * @param origen         El array del que leer los bits.
+	 * @param desplazamiento La posición del primer byte a leer.
+	 * @throws IllegalArgumentException Si {@code origen} es nulo, o el
+	 *                                  desplazamiento no es válido.
+	 */
+	public LectorBits(final byte[] origen, final int desplazamiento) {
+		reiniciar(origen, desplazamiento);
+	}
+
+	/**
+	 * Descarta los bits pendientes de leer y pasa a leer del array y la posición
+	 * especificados, permitiendo reutilizar este objeto.
+	 *
+	 * @param origen         El array del que leer los bits.
+	 * @param desplazamiento La posición del primer byte a leer.
+	 * @throws IllegalArgumentException Si {@code origen} es nulo, o el
+	 *                                  desplazamiento no es válido.
+	 */
+	public void reiniciar(final byte[] origen, final int desplazamiento) {
+		if (origen == null) {
+			throw new IllegalArgumentException("El array de origen no puede ser nulo");
+		}
+
+		if (desplazamiento < 0 || desplazamiento > origen.length) {
+			throw new IllegalArgumentException("El desplazamiento no es válido");
+		}
+
+		this.origen = origen;
+		this.posicion = desplazamiento;
+		this.acumulador = 0;
+		this.bitsAcumulados = 0;
+	}
+
+	/**
+	 * Lee el número de bits especificado.
+	 *
+	 * @param numeroBits El número de bits a leer.
+	 * @return Un valor cuyos {@code numeroBits} bits de menor peso contienen los
+	 *         bits leídos, siendo el de mayor peso de ellos el primero leído.
+	 * @throws IllegalArgumentException  Si {@code numeroBits} no está en el
+	 *                                   intervalo [0, 64].
+	 * @throws IndexOutOfBoundsException Si no quedan suficientes bits en el array.
+	 */
+	public long leer(final int numeroBits) {
+		if (numeroBits < 0 || numeroBits > 64) {
+			throw new IllegalArgumentException("El número de bits no es válido");
+		}
+
+		// El acumulador nunca contiene más de 7 bits entre llamadas, así que caben
+		// 32 bits más sin desbordarlo
+		if (numeroBits > 32) {
+			final long mayorPeso = leerAcumulando(numeroBits - 32);
+			return mayorPeso << 32 | leerAcumulando(32);
+		} else {
+			return leerAcumulando(numeroBits);
+		}
+	}
+
+	/**
+	 * Lee el número de bits especificado a un array de bytes, empezando por el bit
+	 * de mayor peso del primer byte. Los bits sobrantes del último byte se ponen a
+	 * 0.
+	 *
+	 * @param bits       El array donde almacenar los bits leídos.
+	 * @param numeroBits El número de bits a leer.
+	 * @throws IndexOutOfBoundsException Si no quedan suficientes bits en el array
+	 *                                   de origen.
+	 */
+	public void leer(final byte[] bits, final int numeroBits) {
+		final int bytesCompletos = numeroBits >>> 3;
+		final int bitsRestantes = numeroBits & 7;
+
+		for (int i = 0; i < bytesCompletos; ++i) {
+			bits[i] = (byte) leerAcumulando(8);
+		}
+
+		if (bitsRestantes > 0) {
+			bits[bytesCompletos] = (byte) (leerAcumulando(bitsRestantes) << (8 - bitsRestantes));
+		}
+	}
+
+	/**
+	 * Obtiene la posición del array del siguiente byte que se cargará.
+	 *
+	 * @return La devandicha posición.
+	 */
+	public int getPosicion() {
+		return posicion;
+	}
+
+	/**
+	 * Lee bits del acumulador, cargando en él los bytes del array necesarios.
+	 *
+	 * @param numeroBits El número de bits a leer, que no debe de superar 32.
+	 * @return Los bits leídos.
+	 */
+	private long leerAcumulando(final int numeroBits) {
+		while (bitsAcumulados < numeroBits) {
+			acumulador = acumulador << 8 | origen[posicion++] & 0xFF;
+			bitsAcumulados += 8;
+		}
+
+		bitsAcumulados -= numeroBits;
+
+		return acumulador >>> bitsAcumulados & ((1L << numeroBits) - 1);
+	}
+}
@@ -3,14 +3,28 @@
 package es.uvigo.esei.tc.alejandrogg.hammer.lib;
 
 import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Una matriz cuyos elementos están en Z<sub>2</sub>.
+ * <p>
+ * Internamente, cada fila se almacena empaquetada en un array de {@code long},
+ * donde el elemento de la columna j ocupa el bit {@code j % 64} de la palabra
+ * {@code j / 64}. Así, la suma de filas se reduce a operaciones XOR sobre
+ * palabras completas, y el producto de matrices se implementa con el método de
+ * los cuatro rusos.
+ * </p>
  *
  * @author Alejandro González García
  */
 public final class MatrizZ2 {
-	private final byte[][] elementos;
+	/**
+	 * El número de filas de la matriz operando derecha que se combinan en cada
+	 * tabla del método de los cuatro rusos.
+	 */
+	private static final int BITS_TABLA_CUATRO_RUSOS = 8;
+
+	private final long[][] palabras;
 	private final int filas;
 	private final int columnas;
 
@@ -42,9 +56,92 @@ public final class MatrizZ2 {
 			ultimoNumeroColumnas = fila.length;
 		}
 
-		this.elementos = elementos;
 		this.filas = elementos.length;
 		this.columnas = elementos[0].length;
+		this.palabras = new long[filas][palabrasPorFila(columnas)];
+
+		for (int i = 0; i < filas; ++i) {
+			for (int j = 0; j < columnas; ++j) {
+				if (elementos[i][j] != 0) {
+					palabras[i][j >>> 6] |= 1L << j;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Crea una nueva matriz en Z<sub>2</sub> a partir de sus filas ya
+	 * empaquetadas, que pasan a pertenecer a la matriz.
+	 *
+	 * @param palabras Las filas empaquetadas de la matriz.
+	 * @param columnas El número de columnas de la matriz.
+	 */
+	private MatrizZ2(final long[][] palabras, final int columnas) {
+		this.palabras = palabras;
+		this.filas = palabras.length;
+		this.columnas = columnas;
+	}
+
+	/**
+	 * Crea una nueva matriz en Z<sub>2</sub> cuyos elementos son todos 0.
+	 *
+	 * @param filas    El número de filas de la matriz.
+	 * @param columnas El número de columnas de la matriz.
+	 * @return La devandicha matriz.
+	 * @throws IllegalArgumentException Si el número de filas o columnas no es
+	 *                                  positivo.
+	 */
+	public static MatrizZ2 ceros(final int filas, final int columnas) {
+		if (filas <= 0 || columnas <= 0) {
+			throw new IllegalArgumentException("La matriz debe de tener al menos una fila y una columna");
+		}
+
+		return new MatrizZ2(new long[filas][palabrasPorFila(columnas)], columnas);
+	}
+
+	/**
+	 * Crea la matriz identidad de la dimensión especificada.
+	 *
+	 * @param dimension El número de filas y columnas de la matriz.
+	 * @return La devandicha matriz.
+	 * @throws IllegalArgumentException Si la dimensión no es positiva.
+	 */
+	public static MatrizZ2 identidad(final int dimension) {
+		final MatrizZ2 identidad = ceros(dimension, dimension);
+
+		for (int i = 0; i < dimension; ++i) {
+			identidad.palabras[i][i >>> 6] = 1L << i;
+		}
+
+		return identidad;
+	}
+
+	/**
+	 * Crea una matriz cuyos elementos se eligen de manera uniforme y aleatoria.
+	 *
+	 * @param filas    El número de filas de la matriz.
+	 * @param columnas El número de columnas de la matriz.
+	 * @param prng     El generador de números pseudoaleatorios a usar.
+	 * @return La devandicha matriz.
+	 * @throws IllegalArgumentException Si el número de filas o columnas no es
+	 *                                  positivo, o {@code prng} es nulo.
+	 */
+	public static MatrizZ2 aleatoria(final int filas, final int columnas, final Random prng) {
+		if (prng == null) {
+			throw new IllegalArgumentException("El generador de números pseudoaleatorios no puede ser nulo");
+		}
+
+		final MatrizZ2 matriz = ceros(filas, columnas);
+
+		for (final long[] fila : matriz.palabras) {
+			for (int w = 0; w < fila.length; ++w) {
+				fila[w] = prng.nextLong();
+			}
+
+			matriz.limpiarBitsSobrantes(fila);
+		}
+
+		return matriz;
 	}
 
 	/**
@@ -81,7 +178,7 @@ public final class MatrizZ2 {
 			throw new IllegalArgumentException("El número de columna es inválido");
 		}
 
-		return elementos[n][m];
+		return (byte) (palabras[n][m >>> 6] >>> m & 1);
 	}
 
 	/**
@@ -107,7 +204,11 @@ public final class MatrizZ2 {
 			throw new IllegalArgumentException("El valor del elemento no es válido");
 		}
 
-		elementos[n][m] = v;
+		if (v == 0) {
+			palabras[n][m >>> 6] &= ~(1L << m);
+		} else {
+			palabras[n][m >>> 6] |= 1L << m;
+		}
 	}
 
 	/**
@@ -125,8 +226,10 @@ public final class MatrizZ2 {
 	}
 
 	/**
-	 * Obtiene la fila especificada de esta matriz, siendo la primera fila la 0.
-	 * Cualquier cambio que se haga al array devuelto se propagará a la matriz.
+	 * Obtiene la fila especificada de esta matriz, siendo la primera fila la 0,
+	 * desempaquetada a un byte por elemento. Como la matriz almacena sus filas
+	 * empaquetadas, el array devuelto es una copia, y los cambios que se le hagan
+	 * no se propagarán a la matriz.
 	 *
 	 * @param n El número de fila a obtener.
 	 * @return La devandicha fila.
@@ -137,13 +240,26 @@ public final class MatrizZ2 {
 			throw new IllegalArgumentException("El número de fila es inválido");
 		}
 
-		return elementos[n];
+		final byte[] fila = new byte[columnas];
+		for (int j = 0; j < columnas; ++j) {
+			fila[j] = (byte) (palabras[n][j >>> 6] >>> j & 1);
+		}
+
+		return fila;
 	}
 
 	/**
 	 * Calcula el producto de esta matriz con otra matriz en Z<sub>2</sub>. Los
 	 * elementos de la nueva matriz resultante, devuelta por el método, están
 	 * también en Z<sub>2</sub>.
+	 * <p>
+	 * El producto se calcula mediante el método de los cuatro rusos: las filas de
+	 * la matriz operando se agrupan de ocho en ocho, y para cada grupo se
+	 * precalculan, siguiendo un código Gray, las 256 combinaciones lineales de sus
+	 * filas. Después, cada fila del resultado acumula, con una única operación XOR
+	 * por palabra, la combinación que indican los ocho bits correspondientes de la
+	 * fila de esta matriz.
+	 * </p>
 	 *
 	 * @param matriz La matriz por la que multiplicar.
 	 * @return La matriz resultado de la multiplicación.
@@ -153,8 +269,6 @@ public final class MatrizZ2 {
 	 *                                  o {@code matriz} es nula.
 	 */
 	public MatrizZ2 multiplicarPor(final MatrizZ2 matriz) {
-		byte[][] elementosResultado;
-
 		if (matriz == null) {
 			throw new IllegalArgumentException("La matriz binaria por la que se multiplica no puede ser nula");
 		}
@@ -163,18 +277,48 @@ public final class MatrizZ2 {
 			throw new IllegalArgumentException("El número de columnas de esta matriz debe de coincidir con el número de filas de la matriz operando");
 		}
 
-		elementosResultado = new byte[this.filas][matriz.columnas];
+		final int palabrasResultado = palabrasPorFila(matriz.columnas);
+		final long[][] resultado = new long[this.filas][palabrasResultado];
+		final long[][] tabla = new long[1 << BITS_TABLA_CUATRO_RUSOS][palabrasResultado];
+
+		for (int k = 0; k < this.columnas; k += BITS_TABLA_CUATRO_RUSOS) {
+			final int bitsGrupo = Math.min(BITS_TABLA_CUATRO_RUSOS, this.columnas - k);
+			final int combinaciones = 1 << bitsGrupo;
+
+			// Recorrer las combinaciones en el orden de un código Gray, de manera que
+			// cada entrada de la tabla difiere de la anterior en una única fila
+			for (int i = 1; i < combinaciones; ++i) {
+				final int gray = i ^ (i >>> 1);
+				final int grayAnterior = (i - 1) ^ ((i - 1) >>> 1);
+				final long[] filaOperando = matriz.palabras[k + Integer.numberOfTrailingZeros(gray ^ grayAnterior)];
+				final long[] entrada = tabla[gray];
+				final long[] entradaAnterior = tabla[grayAnterior];
+
+				for (int w = 0; w < palabrasResultado; ++w) {
+					entrada[w] = entradaAnterior[w] ^ filaOperando[w];
+				}
+			}
+
+			// Como k es múltiplo de 8, los bits del grupo nunca ocupan dos palabras
+			final int palabraGrupo = k >>> 6;
+			final int desplazamientoGrupo = k & 63;
+			final int mascaraGrupo = combinaciones - 1;
 
-		for (int i = 0; i < this.filas; ++i) {
-			for (int j = 0; j < matriz.columnas; ++j) {
-				for (int k = 0; k < this.columnas; ++k) {
-					// XOR equivale a suma módulo 2 (el contenido inicial de cada elemento es 0)
-					elementosResultado[i][j] ^= (byte) (elementos[i][k] * matriz.elementos[k][j]);
+			for (int i = 0; i < this.filas; ++i) {
+				final int indice = (int) (this.palabras[i][palabraGrupo] >>> desplazamientoGrupo) & mascaraGrupo;
+
+				if (indice != 0) {
+					final long[] entrada = tabla[indice];
+					final long[] filaResultado = resultado[i];
+
+					for (int w = 0; w < palabrasResultado; ++w) {
+						filaResultado[w] ^= entrada[w];
+					}
 				}
 			}
 		}
 
-		return new MatrizZ2(elementosResultado);
+		return new MatrizZ2(resultado, matriz.columnas);
 	}
 
 	/**
@@ -191,40 +335,343 @@ public final class MatrizZ2 {
 	 *                                  nula.
 	 */
 	public MatrizZ2 sumar(final MatrizZ2 matriz) {
-		byte[][] elementosResultado;
-
 		if (matriz == null) {
 			throw new IllegalArgumentException("La matriz binaria por la que se multiplica no puede ser nula");
 		}
 
-		if (this.filas != matriz.filas && this.columnas != matriz.columnas) {
+		if (this.filas != matriz.filas || this.columnas != matriz.columnas) {
 			throw new IllegalArgumentException("El número de filas y columnas de las matrices deben de coincidir");
 		}
 
-		elementosResultado = new byte[filas][columnas];
+		final long[][] resultado = new long[filas][];
+		for (int i = 0; i < filas; ++i) {
+			resultado[i] = this.palabras[i].clone();
+
+			for (int w = 0; w < resultado[i].length; ++w) {
+				resultado[i][w] ^= matriz.palabras[i][w];
+			}
+		}
+
+		return new MatrizZ2(resultado, columnas);
+	}
+
+	/**
+	 * Calcula la traspuesta de esta matriz.
+	 *
+	 * @return Una nueva matriz, traspuesta de esta.
+	 */
+	public MatrizZ2 traspuesta() {
+		final MatrizZ2 traspuesta = ceros(columnas, filas);
 
 		for (int i = 0; i < filas; ++i) {
-			for (int j = 0; j < columnas; ++j) {
-				elementosResultado[i][j] = (byte) (this.elementos[i][j] ^ matriz.elementos[i][j]);
+			for (int w = 0; w < palabras[i].length; ++w) {
+				long palabra = palabras[i][w];
+
+				// Recorrer solo los bits a 1 de la palabra
+				while (palabra != 0) {
+					final int j = (w << 6) + Long.numberOfTrailingZeros(palabra);
+
+					traspuesta.palabras[j][i >>> 6] |= 1L << i;
+					palabra &= palabra - 1;
+				}
+			}
+		}
+
+		return traspuesta;
+	}
+
+	/**
+	 * Obtiene una submatriz de esta matriz, formada por las columnas del intervalo
+	 * especificado.
+	 *
+	 * @param primeraColumna La primera columna de la submatriz.
+	 * @param numeroColumnas El número de columnas de la submatriz.
+	 * @return Una nueva matriz, con las filas de esta y las columnas indicadas.
+	 * @throws IllegalArgumentException Si el intervalo de columnas no es válido.
+	 */
+	public MatrizZ2 getColumnas(final int primeraColumna, final int numeroColumnas) {
+		if (primeraColumna < 0 || numeroColumnas <= 0 || primeraColumna > columnas - numeroColumnas) {
+			throw new IllegalArgumentException("El intervalo de columnas es inválido");
+		}
+
+		final MatrizZ2 submatriz = ceros(filas, numeroColumnas);
+
+		for (int i = 0; i < filas; ++i) {
+			for (int j = 0; j < numeroColumnas; ++j) {
+				final int columna = primeraColumna + j;
+
+				submatriz.palabras[i][j >>> 6] |= (palabras[i][columna >>> 6] >>> columna & 1) << j;
+			}
+		}
+
+		return submatriz;
+	}
+
+	/**
+	 * Crea una nueva matriz que contiene las columnas de esta matriz seguidas de
+	 * las columnas de otra matriz con el mismo número de filas.
+	 *
+	 * @param matriz La matriz cuyas columnas añadir a la derecha.
+	 * @return La devandicha matriz.
+	 * @throws IllegalArgumentException Si {@code matriz} es nula, o su número de
+	 *                                  filas no coincide con el de esta matriz.
+	 */
+	public MatrizZ2 concatenarColumnas(final MatrizZ2 matriz) {
+		if (matriz == null) {
+			throw new IllegalArgumentException("La matriz a concatenar no puede ser nula");
+		}
+
+		if (this.filas != matriz.filas) {
+			throw new IllegalArgumentException("El número de filas de las matrices debe de coincidir");
+		}
+
+		final MatrizZ2 resultado = ceros(filas, this.columnas + matriz.columnas);
+
+		for (int i = 0; i < filas; ++i) {
+			System.arraycopy(this.palabras[i], 0, resultado.palabras[i], 0, this.palabras[i].length);
+
+			for (int j = 0; j < matriz.columnas; ++j) {
+				final int columna = this.columnas + j;
+
+				resultado.palabras[i][columna >>> 6] |= (matriz.palabras[i][j >>> 6] >>> j & 1) << columna;
+			}
+		}
+
+		return resultado;
+	}
+
+	/**
+	 * Calcula el rango de esta matriz, mediante eliminación gaussiana.
+	 *
+	 * @return El rango de la matriz.
+	 */
+	public int rango() {
+		return copiarPalabras().reducirPorFilas(null, null);
+	}
+
+	/**
+	 * Calcula la forma escalonada reducida por filas de esta matriz.
+	 *
+	 * @return Una nueva matriz, con la forma escalonada reducida por filas de esta.
+	 */
+	public MatrizZ2 formaEscalonadaReducida() {
+		final MatrizZ2 escalonada = copiarPalabras();
+		escalonada.reducirPorFilas(null, null);
+
+		return escalonada;
+	}
+
+	/**
+	 * Transforma esta matriz, mediante operaciones elementales de filas, a forma
+	 * sistemática: una matriz identidad seguida de otra matriz (como suele ocurrir
+	 * con una matriz generadora), o bien otra matriz seguida de una matriz
+	 * identidad (como suele ocurrir con una matriz control de paridad). Como solo
+	 * se realizan operaciones de filas, la matriz resultante genera el mismo
+	 * espacio de filas que esta.
+	 *
+	 * @param identidadALaDerecha Si es verdadero, la matriz identidad ocupa las
+	 *                            últimas columnas; en otro caso, las primeras.
+	 * @return Una nueva matriz, en forma sistemática.
+	 * @throws ArithmeticException Si la matriz tiene más filas que columnas, o las
+	 *                             columnas que deben de contener la matriz
+	 *                             identidad no son linealmente independientes.
+	 */
+	public MatrizZ2 formaSistematica(final boolean identidadALaDerecha) {
+		if (filas > columnas) {
+			throw new ArithmeticException("Una matriz con más filas que columnas no puede tener forma sistemática");
+		}
+
+		final int[] columnasPivote = new int[filas];
+		for (int i = 0; i < filas; ++i) {
+			columnasPivote[i] = identidadALaDerecha ? columnas - filas + i : i;
+		}
+
+		final MatrizZ2 sistematica = copiarPalabras();
+		if (sistematica.reducirPorFilas(columnasPivote, null) < filas) {
+			throw new ArithmeticException("Las columnas de la matriz identidad no son linealmente independientes");
+		}
+
+		return sistematica;
+	}
+
+	/**
+	 * Calcula la inversa de esta matriz, mediante eliminación de Gauss-Jordan.
+	 *
+	 * @return Una nueva matriz, inversa de esta.
+	 * @throws ArithmeticException Si la matriz no es cuadrada o no es invertible.
+	 */
+	public MatrizZ2 inversa() {
+		if (filas != columnas) {
+			throw new ArithmeticException("Una matriz que no es cuadrada no es invertible");
+		}
+
+		final MatrizZ2 ampliada;
+		try {
+			ampliada = concatenarColumnas(identidad(filas)).formaSistematica(false);
+		} catch (final ArithmeticException exc) {
+			throw new ArithmeticException("La matriz no es invertible");
+		}
+
+		return ampliada.getColumnas(columnas, columnas);
+	}
+
+	/**
+	 * Calcula una base del núcleo de esta matriz, formado por los vectores x que
+	 * cumplen que el producto de esta matriz por x<sup>T</sup> es nulo. Por
+	 * ejemplo, el núcleo de una matriz control de paridad es el código que define.
+	 *
+	 * @return Una nueva matriz cuyas filas forman una base del núcleo, o
+	 *         {@code null} si el núcleo solo contiene el vector nulo.
+	 */
+	public MatrizZ2 nucleo() {
+		final MatrizZ2 escalonada = copiarPalabras();
+		final int[] pivotes = new int[filas];
+		final int rango = escalonada.reducirPorFilas(null, pivotes);
+
+		if (rango == columnas) {
+			return null;
+		}
+
+		final boolean[] esPivote = new boolean[columnas];
+		for (int i = 0; i < rango; ++i) {
+			esPivote[pivotes[i]] = true;
+		}
+
+		// Cada columna libre da lugar a un vector de la base, con un 1 en esa
+		// columna y, en cada columna pivote, el elemento de la columna libre en la
+		// fila de ese pivote
+		final MatrizZ2 base = ceros(columnas - rango, columnas);
+		int vector = 0;
+
+		for (int libre = 0; libre < columnas; ++libre) {
+			if (!esPivote[libre]) {
+				final long[] fila = base.palabras[vector++];
+				fila[libre >>> 6] |= 1L << libre;
+
+				for (int i = 0; i < rango; ++i) {
+					fila[pivotes[i] >>> 6] |= (escalonada.palabras[i][libre >>> 6] >>> libre & 1) << pivotes[i];
+				}
+			}
+		}
+
+		return base;
+	}
+
+	/**
+	 * Reduce esta matriz, en el sitio, mediante eliminación de Gauss-Jordan, de
+	 * manera que cada pivote sea el único elemento a 1 de su columna.
+	 *
+	 * @param columnasPivote Las columnas donde buscar, en orden, un pivote para
+	 *                       cada fila, o {@code null} para recorrer todas las
+	 *                       columnas de izquierda a derecha, obteniendo la forma
+	 *                       escalonada reducida.
+	 * @param pivotes        Si no es nulo, array donde almacenar la columna del
+	 *                       pivote de cada fila no nula.
+	 * @return El rango de la matriz, o el número de pivotes encontrados si se
+	 *         indican las columnas donde buscarlos.
+	 */
+	private int reducirPorFilas(final int[] columnasPivote, final int[] pivotes) {
+		final int columnasCandidatas = columnasPivote != null ? columnasPivote.length : columnas;
+		int rango = 0;
+
+		for (int c = 0; rango < filas && c < columnasCandidatas; ++c) {
+			final int columna = columnasPivote != null ? columnasPivote[c] : c;
+			final int palabra = columna >>> 6;
+			final long mascara = 1L << columna;
+
+			// Buscar una fila con un 1 en la columna, a partir de la fila actual
+			int filaPivote = rango;
+			while (filaPivote < filas && (palabras[filaPivote][palabra] & mascara) == 0) {
+				++filaPivote;
+			}
+
+			if (filaPivote < filas) {
+				final long[] pivote = palabras[filaPivote];
+				palabras[filaPivote] = palabras[rango];
+				palabras[rango] = pivote;
+
+				// Si las columnas se recorren en orden, las palabras de la fila pivote
+				// anteriores a la del pivote son nulas, y no es necesario sumarlas
+				final int primeraPalabra = columnasPivote != null ? 0 : palabra;
+
+				// Anular la columna en el resto de filas, sumándoles la fila pivote
+				for (int i = 0; i < filas; ++i) {
+					if (i != rango && (palabras[i][palabra] & mascara) != 0) {
+						final long[] fila = palabras[i];
+
+						for (int w = primeraPalabra; w < fila.length; ++w) {
+							fila[w] ^= pivote[w];
+						}
+					}
+				}
+
+				if (pivotes != null) {
+					pivotes[rango] = columna;
+				}
+
+				++rango;
 			}
 		}
 
-		return new MatrizZ2(elementosResultado);
+		return rango;
+	}
+
+	/**
+	 * Crea una copia de esta matriz, con sus propias filas empaquetadas.
+	 *
+	 * @return La devandicha copia.
+	 */
+	private MatrizZ2 copiarPalabras() {
+		final long[][] copia = new long[filas][];
+		for (int i = 0; i < filas; ++i) {
+			copia[i] = palabras[i].clone();
+		}
+
+		return new MatrizZ2(copia, columnas);
+	}
+
+	/**
+	 * Pone a 0 los bits de la última palabra de una fila que no corresponden a
+	 * ninguna columna.
+	 *
+	 * @param fila La fila a limpiar.
+	 */
+	private void limpiarBitsSobrantes(final long[] fila) {
+		if ((columnas & 63) != 0) {
+			fila[fila.length - 1] &= (1L << columnas) - 1;
+		}
+	}
+
+	/**
+	 * Calcula el número de palabras necesarias para almacenar una fila
+	 * empaquetada.
+	 *
+	 * @param columnas El número de columnas de la fila.
+	 * @return El devandicho número de palabras.
+	 */
+	private static int palabrasPorFila(final int columnas) {
+		return (columnas + 63) >>> 6;
 	}
 
 	@Override
 	public boolean equals(final Object obj) {
 		return obj instanceof MatrizZ2 &&
-			Arrays.deepEquals(this.elementos, ((MatrizZ2) obj).elementos);
+			this.columnas == ((MatrizZ2) obj).columnas &&
+			Arrays.deepEquals(this.palabras, ((MatrizZ2) obj).palabras);
 	}
 
 	@Override
 	public int hashCode() {
-		return Arrays.deepHashCode(elementos);
+		return 31 * columnas + Arrays.deepHashCode(palabras);
 	}
 
 	@Override
 	public String toString() {
+		final byte[][] elementos = new byte[filas][];
+		for (int i = 0; i < filas; ++i) {
+			elementos[i] = getFila(i);
+		}
+
 		return Arrays.deepToString(elementos);
 	}
 }
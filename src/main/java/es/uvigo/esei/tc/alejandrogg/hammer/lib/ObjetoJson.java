@@ -0,0 +1,168 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer.lib;
+
+/**
+ * Construye la representación textual de un objeto JSON, miembro a miembro, en
+ * el orden en el que se añaden. Solo admite los tipos de valores que necesita
+ * la aplicación para mostrar resúmenes legibles por otros programas: números,
+ * cadenas, arrays de números, otros objetos y arrays de objetos.
+ *
+ * @author Alejandro González García
+ */
+public final class ObjetoJson {
+	private final StringBuilder miembros = new StringBuilder();
+
+	/**
+	 * Añade un miembro con un valor entero.
+	 *
+	 * @param nombre El nombre del miembro.
+	 * @param valor  El valor del miembro.
+	 * @return Este objeto, para encadenar llamadas.
+	 * @throws IllegalArgumentException Si el nombre es nulo.
+	 */
+	public ObjetoJson anadir(final String nombre, final long valor) {
+		return anadirValor(nombre, Long.toString(valor));
+	}
+
+	/**
+	 * Añade un miembro con un valor real. Los valores no finitos, que JSON no
+	 * admite, se representan como {@code null}.
+	 *
+	 * @param nombre El nombre del miembro.
+	 * @param valor  El valor del miembro.
+	 * @return Este objeto, para encadenar llamadas.
+	 * @throws IllegalArgumentException Si el nombre es nulo.
+	 */
+	public ObjetoJson anadir(final String nombre, final double valor) {
+		return anadirValor(
+			nombre, Double.isNaN(valor) || Double.isInfinite(valor) ? "null" : Double.toString(valor)
+		);
+	}
+
+	/**
+	 * Añade un miembro con un valor de tipo cadena.
+	 *
+	 * @param nombre El nombre del miembro.
+	 * @param valor  El valor del miembro, que puede ser nulo.
+	 * @return Este objeto, para encadenar llamadas.
+	 * @throws IllegalArgumentException Si el nombre es nulo.
+	 */
+	public ObjetoJson anadir(final String nombre, final String valor) {
+		return anadirValor(nombre, valor == null ? "null" : entrecomillar(valor));
+	}
+
+	/**
+	 * Añade un miembro cuyo valor es un array de enteros.
+	 *
+	 * @param nombre  El nombre del miembro.
+	 * @param valores Los elementos del array.
+	 * @return Este objeto, para encadenar llamadas.
+	 * @throws IllegalArgumentException Si el nombre o el array son nulos.
+	 */
+	public ObjetoJson anadir(final String nombre, final long[] valores) {
+		if (valores == null) {
+			throw new IllegalArgumentException("El array no puede ser nulo");
+		}
+
+		final StringBuilder array = new StringBuilder("[");
+		for (int i = 0; i < valores.length; ++i) {
+			if (i > 0) {
+				array.append(',');
+			}
+			array.append(valores[i]);
+		}
+
+		return anadirValor(nombre, array.append(']').toString());
+	}
+
+	/**
+	 * Añade un miembro cuyo valor es otro objeto JSON.
+	 *
+	 * @param nombre El nombre del miembro.
+	 * @param valor  El objeto.
+	 * @return Este objeto, para encadenar llamadas.
+	 * @throws IllegalArgumentException Si el nombre o el objeto son nulos.
+	 */
+	public ObjetoJson anadir(final String nombre, final ObjetoJson valor) {
+		if (valor == null) {
+			throw new IllegalArgumentException("El objeto no puede ser nulo");
+		}
+
+		return anadirValor(nombre, valor.toString());
+	}
+
+	/**
+	 * Añade un miembro cuyo valor es un array de otros objetos JSON.
+	 *
+	 * @param nombre  El nombre del miembro.
+	 * @param valores Los elementos del array.
+	 * @return Este objeto, para encadenar llamadas.
+	 * @throws IllegalArgumentException Si el nombre, el array o alguno de sus
+	 *                                  elementos son nulos.
+	 */
+	public ObjetoJson anadir(final String nombre, final ObjetoJson[] valores) {
+		if (valores == null) {
+			throw new IllegalArgumentException("El array no puede ser nulo");
+		}
+
+		final StringBuilder array = new StringBuilder("[");
+		for (int i = 0; i < valores.length; ++i) {
+			if (valores[i] == null) {
+				throw new IllegalArgumentException("Los elementos del array no pueden ser nulos");
+			}
+
+			if (i > 0) {
+				array.append(',');
+			}
+			array.append(valores[i]);
+		}
+
+		return anadirValor(nombre, array.append(']').toString());
+	}
+
+	/**
+	 * Obtiene la representación textual de este objeto, en una única línea.
+	 *
+	 * @return La devandicha representación.
+	 */
+	@Override
+	public String toString() {
+		return "{" + miembros + "}";
+	}
+
+	private ObjetoJson anadirValor(final String nombre, final String valor) {
+		if (nombre == null) {
+			throw new IllegalArgumentException("El nombre del miembro no puede ser nulo");
+		}
+
+		if (miembros.length() > 0) {
+			miembros.append(',');
+		}
+		miembros.append(entrecomillar(nombre)).append(':').append(valor);
+
+		return this;
+	}
+
+	/**
+	 * Entrecomilla una cadena, escapando los caracteres que JSON no admite en
+	 * ella.
+	 */
+	private static String entrecomillar(final String cadena) {
+		final StringBuilder resultado = new StringBuilder(cadena.length() + 2).append('"');
+
+		for (int i = 0; i < cadena.length(); ++i) {
+			final char c = cadena.charAt(i);
+
+			if (c == '"' || c == '\\') {
+				resultado.append('\\').append(c);
+			} else if (c < 0x20) {
+				resultado.append(String.format("\\u%04x", (int) c));
+			} else {
+				resultado.append(c);
+			}
+		}
+
+		return resultado.append('"').toString();
+	}
+}
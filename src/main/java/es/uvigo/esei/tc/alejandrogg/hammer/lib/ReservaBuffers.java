@@ -0,0 +1,125 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer.lib;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Una reserva de búferes del mismo tamaño, en memoria del montículo o
+ * directos, que se reutilizan en lugar de crear uno nuevo para cada operación.
+ * <p>
+ * Si no hay ningún búfer libre al tomar uno, se crea otro, así que la reserva
+ * nunca hace esperar; y si al devolver un búfer ya hay tantos libres como el
+ * máximo, se descarta. De esta manera, una vez que la reserva contiene tantos
+ * búferes como se usan a la vez, tomarlos y devolverlos no reserva memoria. Las
+ * instancias de esta clase son seguras para su uso concurrente.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+public final class ReservaBuffers {
+	private final int bytesBuffers;
+	private final boolean directos;
+
+	/**
+	 * Los búferes libres, apilados en las primeras {@link #numeroLibres}
+	 * posiciones, de manera que se reutiliza primero el último devuelto.
+	 */
+	private final ByteBuffer[] libres;
+	private int numeroLibres = 0;
+	private long buffersCreados = 0;
+
+	/**
+	 * Crea una nueva reserva vacía.
+	 *
+	 * @param bytesBuffers El número de bytes de cada búfer.
+	 * @param maximoLibres El número máximo de búferes libres que se conservan.
+	 * @param directos     Verdadero si los búferes deben de ser directos, falso si
+	 *                     deben de estar respaldados por un array.
+	 * @throws IllegalArgumentException Si el número de bytes de los búferes o el
+	 *                                  máximo de búferes libres no son positivos.
+	 */
+	public ReservaBuffers(final int bytesBuffers, final int maximoLibres, final boolean directos) {
+		if (bytesBuffers < 1) {
+			throw new IllegalArgumentException("El número de bytes de los búferes debe de ser positivo");
+		}
+
+		if (maximoLibres < 1) {
+			throw new IllegalArgumentException("El número máximo de búferes libres debe de ser positivo");
+		}
+
+		this.bytesBuffers = bytesBuffers;
+		this.directos = directos;
+		this.libres = new ByteBuffer[maximoLibres];
+	}
+
+	/**
+	 * Obtiene el número de bytes de cada búfer de la reserva.
+	 *
+	 * @return El devandicho número.
+	 */
+	public int getBytesBuffers() {
+		return bytesBuffers;
+	}
+
+	/**
+	 * Toma un búfer de la reserva, o crea uno nuevo si no queda ninguno libre. El
+	 * búfer está vacío: su posición es cero y su límite, su capacidad. Su
+	 * contenido es indefinido.
+	 *
+	 * @return El búfer, que se debe de devolver con {@link #devolver(ByteBuffer)}
+	 *         cuando ya no se use.
+	 */
+	public ByteBuffer tomar() {
+		ByteBuffer buffer = null;
+
+		synchronized (this) {
+			if (numeroLibres > 0) {
+				buffer = libres[--numeroLibres];
+				libres[numeroLibres] = null;
+			} else {
+				++buffersCreados;
+			}
+		}
+
+		if (buffer == null) {
+			return directos ? ByteBuffer.allocateDirect(bytesBuffers) : ByteBuffer.allocate(bytesBuffers);
+		}
+
+		// Conversión a Buffer por compatibilidad binaria con Java 8
+		((Buffer) buffer).clear();
+
+		return buffer;
+	}
+
+	/**
+	 * Devuelve a la reserva un búfer tomado de ella, que no se debe de seguir
+	 * usando.
+	 *
+	 * @param buffer El búfer a devolver.
+	 * @throws IllegalArgumentException Si el búfer es nulo, o no tiene la
+	 *                                  capacidad o el tipo de los de la reserva.
+	 */
+	public void devolver(final ByteBuffer buffer) {
+		if (buffer == null || buffer.capacity() != bytesBuffers || buffer.isDirect() != directos) {
+			throw new IllegalArgumentException("El búfer no pertenece a esta reserva");
+		}
+
+		synchronized (this) {
+			if (numeroLibres < libres.length) {
+				libres[numeroLibres++] = buffer;
+			}
+		}
+	}
+
+	/**
+	 * Obtiene el número de búferes que ha tenido que crear la reserva porque no
+	 * había ninguno libre.
+	 *
+	 * @return El devandicho número.
+	 */
+	public synchronized long getBuffersCreados() {
+		return buffersCreados;
+	}
+}
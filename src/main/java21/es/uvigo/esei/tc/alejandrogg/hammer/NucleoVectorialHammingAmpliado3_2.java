@@ -0,0 +1,231 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Núcleos de codificación y decodificación masiva del código Hamming ampliado
+ * (3, 2) que usan instrucciones SIMD mediante la API de vectores de Java.
+ * <p>
+ * La codificación usa cada nibble de los bytes fuente como índice de un vector
+ * con las 16 palabras código, y extiende las palabras código de ambos nibbles a
+ * {@code short}, de manera que cada {@code short} resultante contiene la pareja
+ * de palabras código de un byte fuente. La decodificación calcula los síndromes
+ * de un vector de palabras código como {@link NucleoHammingAmpliado3_2},
+ * consultando la paridad de los nibbles de datos en otro vector de 16
+ * elementos, y si son todos nulos extrae los bytes fuente de los nibbles de
+ * mayor peso. En otro caso, decodifica ese vector con el núcleo escalar.
+ * </p>
+ * <p>
+ * La API de vectores está en incubación, así que su módulo solo está
+ * disponible si se añade al lanzar la máquina virtual, con
+ * {@code --add-modules jdk.incubator.vector}. Para que esta clase se pueda
+ * cargar aunque no sea así, todo el código que usa la API está en una clase
+ * anidada, que solo se carga tras comprobar que el módulo está disponible.
+ * </p>
+ *
+ * @author Alejandro González García
+ */
+final class NucleoVectorialHammingAmpliado3_2 {
+	private static final String MODULO_VECTORES = "jdk.incubator.vector";
+
+	/**
+	 * El número mínimo de elementos que deben de tener los vectores, para que
+	 * quepan las tablas de 16 elementos.
+	 */
+	private static final int ELEMENTOS_MINIMOS = 16;
+
+	private NucleoVectorialHammingAmpliado3_2() {}
+
+	/**
+	 * Comprueba si los núcleos vectoriales se pueden usar en esta máquina
+	 * virtual: el módulo de la API de vectores debe de estar disponible, y el
+	 * procesador debe de admitir vectores de al menos 128 bits.
+	 *
+	 * @return Verdadero si se pueden usar, falso en otro caso.
+	 */
+	static boolean disponible() {
+		return ModuleLayer.boot().findModule(MODULO_VECTORES).isPresent() &&
+			Nucleo.ESPECIE.length() >= ELEMENTOS_MINIMOS;
+	}
+
+	/**
+	 * Codifica bytes de un array a otro.
+	 *
+	 * @see NucleoHammingAmpliado3_2#codificar(ByteBuffer, int, int, ByteBuffer,
+	 *      int)
+	 */
+	static int codificar(
+		final byte[] origen, final int desplazamiento, final int longitud,
+		final byte[] destino, final int desplazamientoDestino
+	) {
+		return Nucleo.codificar(origen, desplazamiento, longitud, destino, desplazamientoDestino);
+	}
+
+	/**
+	 * Decodifica parejas de palabras código de un array a otro.
+	 *
+	 * @see NucleoHammingAmpliado3_2#decodificar(ByteBuffer, int, int, ByteBuffer,
+	 *      int, EstadisticasDecodificacion)
+	 */
+	static int decodificar(
+		final byte[] origen, final int desplazamiento, final int pares,
+		final byte[] destino, final int desplazamientoDestino, final EstadisticasDecodificacion estadisticas
+	) {
+		return Nucleo.decodificar(origen, desplazamiento, pares, destino, desplazamientoDestino, estadisticas);
+	}
+
+	/**
+	 * Implementación de los núcleos con la API de vectores.
+	 */
+	private static final class Nucleo {
+		static final VectorSpecies<Byte> ESPECIE = ByteVector.SPECIES_PREFERRED;
+
+		/**
+		 * La especie de los vectores de bytes decodificados, con la mitad de
+		 * elementos que {@link #ESPECIE}.
+		 */
+		private static final VectorSpecies<Byte> ESPECIE_DECODIFICADA = VectorSpecies.of(
+			byte.class, VectorShape.forBitSize(Math.max(ESPECIE.vectorBitSize() / 2, 64))
+		);
+
+		/**
+		 * La especie de los vectores de parejas de palabras código, con tantos bits
+		 * como {@link #ESPECIE}.
+		 */
+		private static final VectorSpecies<Short> ESPECIE_PAREJAS = VectorSpecies.of(short.class, ESPECIE.vectorShape());
+
+		/**
+		 * Asocia a cada nibble su palabra código. Es un vector de bytes, y no de
+		 * {@code short}, para que tenga al menos 16 elementos también con vectores
+		 * de 128 bits.
+		 */
+		private static final ByteVector TABLA_CODIFICACION;
+
+		/**
+		 * Asocia a cada nibble 0xF si tiene un número impar de bits a 1, y 0 en otro
+		 * caso.
+		 */
+		private static final ByteVector TABLA_PARIDAD;
+
+		static {
+			final byte[] paridad = new byte[ELEMENTOS_MINIMOS];
+			for (int nibble = 0; nibble < paridad.length; ++nibble) {
+				paridad[nibble] = (byte) ((Integer.bitCount(nibble) & 1) * 0xF);
+			}
+
+			TABLA_PARIDAD = ByteVector.fromArray(ESPECIE, repetir(paridad), 0);
+
+			final byte[] codificacion = new byte[ELEMENTOS_MINIMOS];
+			for (int nibble = 0; nibble < codificacion.length; ++nibble) {
+				codificacion[nibble] = HammingAmpliado3_2.palabraCodigo(nibble);
+			}
+
+			TABLA_CODIFICACION = ByteVector.fromArray(ESPECIE, repetir(codificacion), 0);
+		}
+
+		private Nucleo() {}
+
+		static int codificar(
+			final byte[] origen, final int desplazamiento, final int longitud,
+			final byte[] destino, final int desplazamientoDestino
+		) {
+			final int limite = ESPECIE.loopBound(longitud);
+			int i = 0;
+
+			for (; i < limite; i += ESPECIE.length()) {
+				final ByteVector bytesFuente = ByteVector.fromArray(ESPECIE, origen, desplazamiento + i);
+				final ByteVector palabrasBajas = bytesFuente.and((byte) 0xF).selectFrom(TABLA_CODIFICACION);
+				final ByteVector palabrasAltas = bytesFuente.lanewise(VectorOperators.LSHR, 4).selectFrom(TABLA_CODIFICACION);
+
+				// Cada mitad de los vectores de palabras código se extiende a un vector de
+				// short, donde se juntan las dos palabras código de cada byte fuente
+				for (int parte = 0; parte < 2; ++parte) {
+					final ShortVector parejas = ((ShortVector) palabrasBajas.convertShape(
+						VectorOperators.B2S, ESPECIE_PAREJAS, parte
+					)).and((short) 0xFF).or(((ShortVector) palabrasAltas.convertShape(
+						VectorOperators.B2S, ESPECIE_PAREJAS, parte
+					)).lanewise(VectorOperators.LSHL, 8));
+
+					parejas.reinterpretAsBytes().intoArray(
+						destino, desplazamientoDestino + 2 * i + parte * ESPECIE.length()
+					);
+				}
+			}
+
+			NucleoHammingAmpliado3_2.codificar(
+				envolver(origen), desplazamiento + i, longitud - i,
+				envolver(destino), desplazamientoDestino + 2 * i
+			);
+
+			return longitud * 2;
+		}
+
+		static int decodificar(
+			final byte[] origen, final int desplazamiento, final int pares,
+			final byte[] destino, final int desplazamientoDestino, final EstadisticasDecodificacion estadisticas
+		) {
+			final ByteBuffer bufOrigen = envolver(origen);
+			final ByteBuffer bufDestino = envolver(destino);
+			final int limite = ESPECIE.loopBound(pares * 2);
+			int escritos = 0;
+			int i = 0;
+
+			for (; i < limite; i += ESPECIE.length()) {
+				final ByteVector palabrasCodigo = ByteVector.fromArray(ESPECIE, origen, desplazamiento + i);
+				final ByteVector datos = palabrasCodigo.lanewise(VectorOperators.LSHR, 4);
+				final ByteVector sindromes = palabrasCodigo.and((byte) 0xF)
+					.lanewise(VectorOperators.XOR, datos)
+					.lanewise(VectorOperators.XOR, datos.selectFrom(TABLA_PARIDAD));
+
+				if (sindromes.compare(VectorOperators.NE, (byte) 0).anyTrue()) {
+					escritos += NucleoHammingAmpliado3_2.decodificarSwar(
+						bufOrigen, desplazamiento + i, ESPECIE.length() / 2,
+						bufDestino, desplazamientoDestino + escritos, estadisticas
+					);
+				} else {
+					// Cada short contiene una pareja de palabras código, con la del nibble
+					// de menor peso en su byte de menor peso
+					final ShortVector parejas = palabrasCodigo.reinterpretAsShorts();
+					final ShortVector bytesFuente = parejas.lanewise(VectorOperators.LSHR, 4).and((short) 0x000F)
+						.or(parejas.lanewise(VectorOperators.LSHR, 8).and((short) 0x00F0));
+
+					((ByteVector) bytesFuente.castShape(ESPECIE_DECODIFICADA, 0))
+						.intoArray(destino, desplazamientoDestino + escritos);
+
+					escritos += ESPECIE.length() / 2;
+					estadisticas.registrarCorrectas(ESPECIE.length());
+				}
+			}
+
+			return escritos + NucleoHammingAmpliado3_2.decodificarSwar(
+				bufOrigen, desplazamiento + i, pares - i / 2,
+				bufDestino, desplazamientoDestino + escritos, estadisticas
+			);
+		}
+
+		/**
+		 * Repite una tabla de 16 elementos hasta completar un vector.
+		 */
+		private static byte[] repetir(final byte[] tabla) {
+			final byte[] repetida = new byte[Math.max(ESPECIE.length(), tabla.length)];
+			for (int i = 0; i < repetida.length; ++i) {
+				repetida[i] = tabla[i % tabla.length];
+			}
+
+			return repetida;
+		}
+
+		private static ByteBuffer envolver(final byte[] array) {
+			return ByteBuffer.wrap(array).order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+}
@@ -0,0 +1,331 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas de regresión de la memoria que reservan la codificación y la
+ * decodificación en régimen estacionario, que no debe de crecer con el número de
+ * bytes procesados. Cada operación se ejecuta con entradas de dos tamaños
+ * distintos, repetidamente para que el compilador JIT la optimice y se creen los
+ * búferes reutilizados, y se comprueba que la diferencia entre los bytes que
+ * reserva el hilo que la ejecuta con una y otra, dividida por la diferencia de
+ * tamaños, no supera un presupuesto fijo por MiB. Así, lo que se reserva una
+ * vez por operación, como los búferes de los flujos, no cuenta.
+ *
+ * @author Alejandro González García
+ */
+public class AsignacionesTest {
+	/**
+	 * Los bytes que se pueden reservar por cada MiB procesado: los de unos pocos
+	 * objetos por trozo proyectado o por llamada a los núcleos, que procesan
+	 * decenas de KiB, pero ninguno por palabra código.
+	 */
+	private static final long PRESUPUESTO_POR_MIB = 16 * 1024;
+
+	private static final int MIB = 1024 * 1024;
+	private static final int MIB_PEQUENA = 1;
+	private static final int MIB_GRANDE = 2;
+	private static final int REPETICIONES_CALENTAMIENTO = 3;
+
+	/**
+	 * Las repeticiones de calentamiento de la codificación y decodificación de
+	 * arrays, que pueden usar los núcleos vectoriales. Estos procesan cada MiB en
+	 * una sola llamada, y hasta que el compilador JIT sustituye sus primeras
+	 * compilaciones, que sí reservan memoria para los vectores, pasan más
+	 * llamadas que con el resto de operaciones.
+	 */
+	private static final int REPETICIONES_CALENTAMIENTO_ARRAYS = 10;
+
+	private static final int REPETICIONES = 2;
+	private static final String[] CODIGOS = { "hamming-ampliado:3", "hamming:4", "hsiao" };
+
+	private com.sun.management.ThreadMXBean hilos;
+	private Path directorio;
+
+	@Before
+	public void setUp() throws IOException {
+		final java.lang.management.ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+		assumeTrue(hilos instanceof com.sun.management.ThreadMXBean);
+
+		this.hilos = (com.sun.management.ThreadMXBean) hilos;
+		assumeTrue(this.hilos.isThreadAllocatedMemorySupported());
+		this.hilos.setThreadAllocatedMemoryEnabled(true);
+
+		directorio = Files.createTempDirectory("hammer");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (directorio != null) {
+			try (final Stream<Path> ficheros = Files.list(directorio)) {
+				for (final Path fichero : (Iterable<Path>) ficheros::iterator) {
+					Files.delete(fichero);
+				}
+			}
+			Files.delete(directorio);
+		}
+	}
+
+	@Test
+	public void testCodificacionYDecodificacionDeArrays() throws IOException {
+		for (final String nombreCodigo : CODIGOS) {
+			final CodigoLineal codigo = CodigoLineal.crear(nombreCodigo);
+			final byte[] fuente = generarFuente(codigo, MIB);
+			final byte[] codificado = new byte[fuente.length / codigo.getBytesBloqueFuente() * codigo.getBytesBloqueCodigo()];
+			final byte[] decodificado = new byte[fuente.length];
+			final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+
+			comprobarPresupuesto(nombreCodigo, REPETICIONES_CALENTAMIENTO_ARRAYS, mib -> {
+				for (int i = 0; i < mib; ++i) {
+					codigo.codificar(fuente, 0, fuente.length, codificado, 0);
+					codigo.decodificar(codificado, 0, codificado.length, decodificado, 0, estadisticas);
+				}
+			});
+
+			assertArrayEquals(nombreCodigo, fuente, decodificado);
+		}
+	}
+
+	@Test
+	public void testCodificacionYDecodificacionDeBuffersDirectos() throws IOException {
+		for (final String nombreCodigo : CODIGOS) {
+			final CodigoLineal codigo = CodigoLineal.crear(nombreCodigo);
+			final byte[] fuente = generarFuente(codigo, MIB);
+			final ByteBuffer origen = ByteBuffer.allocateDirect(fuente.length).put(fuente);
+			final ByteBuffer codificado = ByteBuffer.allocateDirect(
+				fuente.length / codigo.getBytesBloqueFuente() * codigo.getBytesBloqueCodigo()
+			);
+			final ByteBuffer decodificado = ByteBuffer.allocateDirect(fuente.length);
+			final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+
+			comprobarPresupuesto(nombreCodigo, REPETICIONES_CALENTAMIENTO, mib -> {
+				for (int i = 0; i < mib; ++i) {
+					// Conversión a Buffer por compatibilidad binaria con Java 8
+					((Buffer) origen).clear();
+					((Buffer) codificado).clear();
+					((Buffer) decodificado).clear();
+
+					codigo.codificar(origen, codificado);
+					((Buffer) codificado).flip();
+					codigo.decodificar(codificado, decodificado, estadisticas);
+				}
+			});
+
+			final byte[] resultado = new byte[fuente.length];
+			((Buffer) decodificado).flip();
+			decodificado.get(resultado);
+			assertArrayEquals(nombreCodigo, fuente, resultado);
+		}
+	}
+
+	@Test
+	public void testFlujosHamming() throws IOException {
+		for (final String nombreCodigo : CODIGOS) {
+			final CodigoLineal codigo = CodigoLineal.crear(nombreCodigo);
+			final byte[] fuente = generarFuente(codigo, MIB);
+			final byte[] codificado = new byte[fuente.length / codigo.getBytesBloqueFuente() * codigo.getBytesBloqueCodigo()];
+			codigo.codificar(fuente, 0, fuente.length, codificado, 0);
+
+			final byte[] buffer = new byte[64 * 1024];
+			final SalidaNula salida = new SalidaNula();
+
+			comprobarPresupuesto(nombreCodigo, REPETICIONES_CALENTAMIENTO, mib -> {
+				try (final FlujoSalidaHamming flujo = new FlujoSalidaHamming(salida, codigo, IntroductorErrores.ninguno())) {
+					for (int i = 0; i < mib; ++i) {
+						flujo.write(fuente);
+					}
+				}
+
+				// Como la fuente ocupa un número entero de bloques, su codificación
+				// repetida es la de la fuente repetida, aunque sin el bloque final
+				try (
+					final FlujoEntradaHamming flujo = new FlujoEntradaHamming(
+						new EntradaRepetida(codificado, mib), codigo, new EstadisticasDecodificacion()
+					)
+				) {
+					while (flujo.read(buffer) >= 0) {
+						// Descartar los bytes decodificados
+					}
+				}
+			});
+		}
+	}
+
+	@Test
+	public void testProcesadorDeFicherosProyectados() throws IOException {
+		for (final String nombreCodigo : CODIGOS) {
+			final CodigoLineal codigo = CodigoLineal.crear(nombreCodigo);
+			final Path ficheroCodificado = directorio.resolve("codificado");
+			final Path ficheroDecodificado = directorio.resolve("decodificado");
+			final Path[] ficherosFuente = new Path[MIB_GRANDE + 1];
+			for (final int mib : new int[] { MIB_PEQUENA, MIB_GRANDE }) {
+				ficherosFuente[mib] = directorio.resolve("fuente" + mib);
+				Files.write(ficherosFuente[mib], generarFuente(codigo, mib * MIB));
+			}
+
+			comprobarPresupuesto(nombreCodigo, REPETICIONES_CALENTAMIENTO, mib -> {
+				// Como en la aplicación, cada operación usa su propio procesador
+				try (
+					final InputStream entrada = new FileInputStream(ficherosFuente[mib].toFile());
+					final OutputStream salida = new FlujoSalidaFichero(ficheroCodificado)
+				) {
+					new Procesador(codigo, IntroductorErrores.ninguno(), 1, MIB).codificar(entrada, salida);
+				}
+
+				try (
+					final InputStream entrada = new FileInputStream(ficheroCodificado.toFile());
+					final OutputStream salida = new FlujoSalidaFichero(ficheroDecodificado)
+				) {
+					new Procesador(codigo, IntroductorErrores.ninguno(), 1, MIB).decodificar(
+						entrada, salida, new EstadisticasDecodificacion()
+					);
+				}
+			});
+
+			assertArrayEquals(nombreCodigo, Files.readAllBytes(ficherosFuente[MIB_GRANDE]), Files.readAllBytes(ficheroDecodificado));
+		}
+	}
+
+	/**
+	 * Ejecuta una operación repetidamente con entradas de dos tamaños, y
+	 * comprueba que los bytes que reserva el hilo actual por cada MiB adicional
+	 * procesado no superan el presupuesto.
+	 *
+	 * @param descripcion   La descripción de la operación, para los mensajes.
+	 * @param calentamiento Las repeticiones de calentamiento con cada tamaño.
+	 * @param operacion     La operación.
+	 * @throws IOException Si la operación lanza una excepción.
+	 */
+	private void comprobarPresupuesto(
+		final String descripcion, final int calentamiento, final Operacion operacion
+	) throws IOException {
+		for (int i = 0; i < calentamiento; ++i) {
+			operacion.ejecutar(MIB_PEQUENA);
+			operacion.ejecutar(MIB_GRANDE);
+		}
+
+		final long reservadosPequena = medir(operacion, MIB_PEQUENA);
+		final long reservadosGrande = medir(operacion, MIB_GRANDE);
+		final double bytesPorMib = (double) (reservadosGrande - reservadosPequena) / (MIB_GRANDE - MIB_PEQUENA);
+
+		assertTrue(
+			descripcion + ": " + Math.round(bytesPorMib) + " bytes reservados por MiB",
+			bytesPorMib <= PRESUPUESTO_POR_MIB
+		);
+	}
+
+	/**
+	 * Mide los bytes que reserva el hilo actual al ejecutar una operación, como
+	 * la media de varias ejecuciones.
+	 *
+	 * @param operacion La operación.
+	 * @param mib       Los MiB que procesa.
+	 * @return Los bytes reservados.
+	 * @throws IOException Si la operación lanza una excepción.
+	 */
+	private long medir(final Operacion operacion, final int mib) throws IOException {
+		final long id = Thread.currentThread().getId();
+		final long inicio = hilos.getThreadAllocatedBytes(id);
+
+		for (int i = 0; i < REPETICIONES; ++i) {
+			operacion.ejecutar(mib);
+		}
+
+		return (hilos.getThreadAllocatedBytes(id) - inicio) / REPETICIONES;
+	}
+
+	/**
+	 * Genera bytes fuente aleatorios que ocupan un número entero de bloques.
+	 *
+	 * @param codigo El código de los bloques.
+	 * @param bytes  El número aproximado de bytes.
+	 * @return Los bytes generados.
+	 */
+	private static byte[] generarFuente(final CodigoLineal codigo, final int bytes) {
+		final byte[] fuente = new byte[bytes - bytes % codigo.getBytesBloqueFuente()];
+		new Random(24).nextBytes(fuente);
+
+		return fuente;
+	}
+
+	/**
+	 * Una operación cuyas reservas de memoria se miden.
+	 */
+	private interface Operacion {
+		/**
+		 * Ejecuta la operación.
+		 *
+		 * @param mib Los MiB fuente a procesar.
+		 * @throws IOException Si ocurre un error de E/S.
+		 */
+		void ejecutar(int mib) throws IOException;
+	}
+
+	/**
+	 * Un flujo de salida que descarta lo que se escribe en él.
+	 */
+	private static final class SalidaNula extends OutputStream {
+		@Override
+		public void write(final int b) {}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {}
+	}
+
+	/**
+	 * Un flujo de entrada que lee un array repetido varias veces, sin reservar
+	 * memoria.
+	 */
+	private static final class EntradaRepetida extends InputStream {
+		private final byte[] array;
+		private int repeticionesRestantes;
+		private int posicion = 0;
+
+		private EntradaRepetida(final byte[] array, final int repeticiones) {
+			this.array = array;
+			this.repeticionesRestantes = repeticiones;
+		}
+
+		@Override
+		public int read() {
+			final byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) {
+			if (posicion == array.length) {
+				if (--repeticionesRestantes <= 0) {
+					return -1;
+				}
+				posicion = 0;
+			}
+
+			final int leidos = Math.min(len, array.length - posicion);
+			System.arraycopy(array, posicion, b, off, leidos);
+			posicion += leidos;
+
+			return leidos;
+		}
+	}
+}
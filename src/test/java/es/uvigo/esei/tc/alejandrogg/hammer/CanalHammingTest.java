@@ -0,0 +1,150 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link CanalCodificacionHamming} y
+ * {@link CanalDecodificacionHamming}.
+ *
+ * @author Alejandro González García
+ */
+public class CanalHammingTest {
+	private static final String[] CODIGOS = { "hamming-ampliado:3", "hamming:4", "hamming-ampliado:5" };
+
+	@Test
+	public void testEquivalenAFlujos() throws IOException {
+		final Random prng = new Random(30);
+
+		for (final String nombreCodigo : CODIGOS) {
+			final byte[] fuente = new byte[300_007];
+			prng.nextBytes(fuente);
+
+			final ByteArrayOutputStream codificadoFlujo = new ByteArrayOutputStream();
+			try (final FlujoSalidaHamming flujo = new FlujoSalidaHamming(
+				codificadoFlujo, CodigoLineal.crear(nombreCodigo), IntroductorErrores.crear("bsc:0.005", 31)
+			)) {
+				flujo.write(fuente);
+			}
+
+			// Escribir búferes directos y no directos de tamaños variados
+			final ByteArrayOutputStream codificadoCanal = new ByteArrayOutputStream();
+			try (final CanalCodificacionHamming canal = new CanalCodificacionHamming(
+				Channels.newChannel(codificadoCanal), CodigoLineal.crear(nombreCodigo),
+				IntroductorErrores.crear("bsc:0.005", 31)
+			)) {
+				int i = 0;
+				while (i < fuente.length) {
+					final int longitud = Math.min(fuente.length - i, 1 + prng.nextInt(prng.nextBoolean() ? 100 : 200_000));
+					final ByteBuffer buffer = prng.nextBoolean() ? ByteBuffer.allocateDirect(longitud) : ByteBuffer.allocate(longitud);
+
+					buffer.put(fuente, i, longitud);
+					// Conversión a Buffer por compatibilidad binaria con Java 8
+					((Buffer) buffer).flip();
+					assertEquals(longitud, canal.write(buffer));
+					assertFalse(buffer.hasRemaining());
+
+					i += longitud;
+				}
+			}
+
+			final byte[] codificado = codificadoFlujo.toByteArray();
+			assertArrayEquals(nombreCodigo, codificado, codificadoCanal.toByteArray());
+
+			final ByteArrayOutputStream decodificadoFlujo = new ByteArrayOutputStream();
+			final FlujoEntradaHamming flujo = new FlujoEntradaHamming(new ByteArrayInputStream(codificado), nombreCodigo);
+			final byte[] buffer = new byte[10_000];
+			int leidos;
+			while ((leidos = flujo.read(buffer)) >= 0) {
+				decodificadoFlujo.write(buffer, 0, leidos);
+			}
+
+			final ByteArrayOutputStream decodificadoCanal = new ByteArrayOutputStream();
+			try (final CanalDecodificacionHamming canal = new CanalDecodificacionHamming(
+				Channels.newChannel(new ByteArrayInputStream(codificado)), nombreCodigo
+			)) {
+				final ByteBuffer bufferDirecto = ByteBuffer.allocateDirect(200_000);
+
+				do {
+					// Conversión a Buffer por compatibilidad binaria con Java 8
+					((Buffer) bufferDirecto).clear().limit(1 + prng.nextInt(bufferDirecto.capacity()));
+					leidos = canal.read(bufferDirecto);
+
+					final byte[] leido = new byte[((Buffer) bufferDirecto).flip().remaining()];
+					bufferDirecto.get(leido);
+					decodificadoCanal.write(leido);
+				} while (leidos >= 0);
+
+				assertEquals(flujo.getPalabrasCorregidas(), canal.getPalabrasCorregidas());
+				assertEquals(flujo.getPalabrasIncorregibles(), canal.getPalabrasIncorregibles());
+				assertEquals(flujo.getBytesDescartados(), canal.getBytesDescartados());
+			}
+
+			assertArrayEquals(nombreCodigo, decodificadoFlujo.toByteArray(), decodificadoCanal.toByteArray());
+		}
+	}
+
+	@Test
+	public void testTransferirEntreFicheros() throws IOException {
+		final byte[] fuente = new byte[1_000_003];
+		new Random(32).nextBytes(fuente);
+
+		final Path ficheroFuente = Files.createTempFile("hammer", ".fuente");
+		final Path ficheroCodificado = Files.createTempFile("hammer", ".codificado");
+		final Path ficheroDecodificado = Files.createTempFile("hammer", ".decodificado");
+		try {
+			Files.write(ficheroFuente, fuente);
+
+			try (
+				final FileChannel origen = FileChannel.open(ficheroFuente);
+				final CanalCodificacionHamming canal = new CanalCodificacionHamming(
+					FileChannel.open(ficheroCodificado, StandardOpenOption.WRITE), "hamming:4"
+				)
+			) {
+				assertEquals(fuente.length, canal.transferirDesde(origen));
+			}
+
+			try (
+				final CanalDecodificacionHamming canal = new CanalDecodificacionHamming(
+					FileChannel.open(ficheroCodificado), "hamming:4"
+				);
+				final FileChannel destino = FileChannel.open(ficheroDecodificado, StandardOpenOption.WRITE)
+			) {
+				assertEquals(fuente.length, canal.transferirA(destino));
+				assertEquals(0, canal.getPalabrasCorregidas() + canal.getPalabrasIncorregibles());
+			}
+
+			assertArrayEquals(fuente, Files.readAllBytes(ficheroDecodificado));
+		} finally {
+			Files.delete(ficheroFuente);
+			Files.delete(ficheroCodificado);
+			Files.delete(ficheroDecodificado);
+		}
+	}
+
+	@Test(expected = ClosedChannelException.class)
+	public void testEscribirTrasCerrar() throws IOException {
+		final CanalCodificacionHamming canal = new CanalCodificacionHamming(Channels.newChannel(new ByteArrayOutputStream()));
+
+		canal.close();
+		canal.write(ByteBuffer.allocate(1));
+	}
+}
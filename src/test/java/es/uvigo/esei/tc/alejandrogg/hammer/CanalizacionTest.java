@@ -0,0 +1,69 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link Canalizacion}.
+ *
+ * @author Alejandro González García
+ */
+public class CanalizacionTest {
+	@Test
+	public void testConservaElOrdenDeLosTrozos() throws IOException {
+		final byte[] entrada = new byte[10_007];
+		new Random(17).nextBytes(entrada);
+
+		for (int hilos = 1; hilos <= 4; ++hilos) {
+			for (final int bytesRetenidos : new int[] { 0, 3 }) {
+				final Canalizacion.Transformacion[] transformaciones = new Canalizacion.Transformacion[hilos];
+				for (int i = 0; i < hilos; ++i) {
+					// Los bytes retenidos tras cada trozo forman parte del siguiente, así
+					// que basta con copiar los trozos para reconstruir la entrada
+					transformaciones[i] = (posicion, trozo, longitud, esFinal, salida) -> {
+						if (longitud > 0) {
+							assertEquals(entrada[(int) posicion], trozo[0]);
+						}
+
+						System.arraycopy(trozo, 0, salida, 0, longitud);
+						return longitud;
+					};
+				}
+
+				final Canalizacion canalizacion = new Canalizacion(100, bytesRetenidos, 100 + bytesRetenidos, transformaciones);
+				final ByteArrayOutputStream salida = new ByteArrayOutputStream();
+				canalizacion.ejecutar(new ByteArrayInputStream(entrada), salida);
+
+				assertArrayEquals(entrada, salida.toByteArray());
+				assertEquals(entrada.length, canalizacion.getBytesLeidos());
+				assertEquals(entrada.length, canalizacion.getBytesEscritos());
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testPropagaFallosDeLaTransformacion() throws IOException {
+		final Canalizacion canalizacion = new Canalizacion(16, 0, 16,
+			(posicion, trozo, longitud, esFinal, salida) -> 0,
+			(posicion, trozo, longitud, esFinal, salida) -> {
+				throw new IOException("Fallo de prueba");
+			}
+		);
+
+		canalizacion.ejecutar(new ByteArrayInputStream(new byte[1000]), new ByteArrayOutputStream());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSinTransformaciones() {
+		new Canalizacion(16, 0, 16);
+	}
+}
@@ -0,0 +1,398 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.MatrizZ2;
+
+/**
+ * Pruebas para {@link CodigoHamming}.
+ *
+ * @author Alejandro González García
+ */
+public class CodigoHammingTest {
+	@Test
+	public void testHammingAmpliado3_2EsDeLaFamilia() {
+		final CodigoHamming codigo = CodigoHamming.ampliado(3);
+
+		assertEquals(8, codigo.getLongitud());
+		assertEquals(4, codigo.getDimension());
+		assertEquals(HammingAmpliado3_2.G, codigo.getMatrizGeneradora());
+		assertEquals(HammingAmpliado3_2.H_TR.traspuesta(), codigo.getMatrizControl());
+		assertEquals(1, codigo.getBytesBloqueFuente());
+		assertEquals(2, codigo.getBytesBloqueCodigo());
+		assertEquals(0, codigo.getBytesRetenidosDecodificacion());
+	}
+
+	@Test
+	public void testHammingAmpliado3_2CoincideConLaFamilia() {
+		final CodigoHamming generico = CodigoHamming.ampliado(3);
+		final HammingAmpliado3_2 especifico = new HammingAmpliado3_2();
+		final byte[] fuente = new byte[256];
+
+		final byte[] fuenteGenerico = new byte[fuente.length];
+
+		// El código (8, 4) del formato original codifica primero el nibble de menor
+		// peso, mientras que el resto de la familia consume los bits en orden
+		for (int i = 0; i < fuente.length; ++i) {
+			fuente[i] = (byte) i;
+			fuenteGenerico[i] = (byte) (i << 4 | i >>> 4);
+		}
+
+		final byte[] codificadoGenerico = new byte[fuente.length * 2];
+		final byte[] codificadoEspecifico = new byte[fuente.length * 2];
+		generico.codificar(fuenteGenerico, 0, fuente.length, codificadoGenerico, 0);
+		especifico.codificar(fuente, 0, fuente.length, codificadoEspecifico, 0);
+
+		assertArrayEquals(codificadoEspecifico, codificadoGenerico);
+		assertEquals("hamming-ampliado:3", especifico.getNombre());
+	}
+
+	@Test
+	public void testMatricesFamilia() {
+		for (int r = CodigoHamming.REDUNDANCIA_MINIMA; r <= CodigoHamming.REDUNDANCIA_MAXIMA; ++r) {
+			for (final boolean ampliado : new boolean[] { false, true }) {
+				final CodigoHamming codigo = ampliado ? CodigoHamming.ampliado(r) : CodigoHamming.hamming(r);
+				final int n = (1 << r) - 1 + (ampliado ? 1 : 0);
+				final int k = (1 << r) - 1 - r;
+
+				assertEquals(n, codigo.getLongitud());
+				assertEquals(k, codigo.getDimension());
+				assertEquals(
+					MatrizZ2.ceros(k, n - k),
+					codigo.getMatrizGeneradora().multiplicarPor(codigo.getMatrizControl().traspuesta())
+				);
+
+				final CodigoLineal creado = CodigoLineal.crear(codigo.getNombre());
+				assertEquals(codigo.getNombre(), creado.getNombre());
+				assertEquals(codigo.getMatrizControl(), creado.getMatrizControl());
+			}
+		}
+	}
+
+	@Test
+	public void testCorreccionErroresSimples() {
+		final Random prng = new Random(5);
+
+		for (int r = CodigoHamming.REDUNDANCIA_MINIMA; r <= 6; ++r) {
+			for (final boolean ampliado : new boolean[] { false, true }) {
+				final CodigoHamming codigo = ampliado ? CodigoHamming.ampliado(r) : CodigoHamming.hamming(r);
+				final byte[] fuente = palabraAleatoria(codigo.getDimension(), prng);
+				final byte[] palabra = new byte[(codigo.getLongitud() + 7) / 8];
+				final byte[] decodificada = new byte[fuente.length];
+
+				codigo.codificarPalabra(fuente, palabra);
+				assertEquals(CodigoLineal.ESTADO_CORRECTA, codigo.decodificarPalabra(palabra, decodificada));
+				assertArrayEquals(fuente, decodificada);
+
+				for (int posicion = 0; posicion < codigo.getLongitud(); ++posicion) {
+					palabra[posicion >>> 3] ^= 0x80 >>> (posicion & 7);
+
+					assertEquals(CodigoLineal.ESTADO_CORREGIDA, codigo.decodificarPalabra(palabra, decodificada));
+					assertArrayEquals(fuente, decodificada);
+
+					palabra[posicion >>> 3] ^= 0x80 >>> (posicion & 7);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDeteccionErroresDobles() {
+		final Random prng = new Random(6);
+
+		for (int r = CodigoHamming.REDUNDANCIA_MINIMA; r <= 5; ++r) {
+			final CodigoHamming codigo = CodigoHamming.ampliado(r);
+			final byte[] fuente = palabraAleatoria(codigo.getDimension(), prng);
+			final byte[] palabra = new byte[(codigo.getLongitud() + 7) / 8];
+			final byte[] decodificada = new byte[fuente.length];
+
+			codigo.codificarPalabra(fuente, palabra);
+
+			for (int i = 0; i < codigo.getLongitud(); ++i) {
+				for (int j = i + 1; j < codigo.getLongitud(); ++j) {
+					final byte[] erronea = palabra.clone();
+					erronea[i >>> 3] ^= 0x80 >>> (i & 7);
+					erronea[j >>> 3] ^= 0x80 >>> (j & 7);
+
+					assertEquals(CodigoLineal.ESTADO_INCORREGIBLE, codigo.decodificarPalabra(erronea, decodificada));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testHistogramaPosicionesError() {
+		final Random prng = new Random(8);
+
+		for (final CodigoLineal codigo : new CodigoLineal[] {
+			CodigoHamming.hamming(3), CodigoHamming.ampliado(4), new HammingAmpliado3_2()
+		}) {
+			final byte[] fuente = new byte[codigo.getBytesBloqueFuente() * 37];
+			prng.nextBytes(fuente);
+
+			final byte[] codificado = new byte[codigo.getBytesBloqueCodigo() * 37];
+			codigo.codificar(fuente, 0, fuente.length, codificado, 0);
+
+			// Introducir en cada palabra código un error en una posición distinta
+			final int palabras = codificado.length * 8 / codigo.getLongitud();
+			final long[] esperado = new long[codigo.getLongitud()];
+			for (int i = 0; i < palabras; ++i) {
+				final int posicion = i % codigo.getLongitud();
+				final int bit = i * codigo.getLongitud() + posicion;
+
+				codificado[bit >>> 3] ^= 0x80 >>> (bit & 7);
+				++esperado[posicion];
+			}
+
+			final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+			final byte[] decodificado = new byte[fuente.length];
+			codigo.decodificar(codificado, 0, codificado.length, decodificado, 0, estadisticas);
+
+			assertEquals(palabras, estadisticas.getPalabrasCorregidas());
+			assertEquals(0, estadisticas.getPalabrasCorrectas());
+			assertArrayEquals(esperado, estadisticas.getHistogramaPosicionesError(codigo));
+			assertEquals(palabras, Arrays.stream(estadisticas.getHistogramaSindromes()).sum());
+		}
+	}
+
+	@Test
+	public void testBorradosPalabrasIncorregibles() {
+		final CodigoHamming codigo = CodigoHamming.ampliado(4);
+		final byte[] fuente = new byte[codigo.getBytesBloqueFuente() * 3 + 5];
+		new Random(9).nextBytes(fuente);
+
+		final byte[] codificado = new byte[(int) codigo.getLongitudCodificada(fuente.length)];
+		final int bloques = fuente.length / codigo.getBytesBloqueFuente();
+		final int codificados = codigo.codificar(fuente, 0, fuente.length, codificado, 0);
+		codigo.codificarFinal(
+			fuente, bloques * codigo.getBytesBloqueFuente(), fuente.length - bloques * codigo.getBytesBloqueFuente(),
+			codificado, codificados
+		);
+
+		// Error doble en los bits de paridad de la primera palabra código, cuyos 11
+		// bits fuente ocupan los dos primeros bytes, y en los de la última, cuyos
+		// bits fuente quedan fuera de los bytes válidos del bloque final
+		codificado[0] ^= 0b11;
+		codificado[codificado.length - 1] ^= 0b11;
+
+		final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion(new MapaBorrados());
+		final byte[] decodificado = new byte[fuente.length + codigo.getBytesBloqueFuente()];
+		final int decodificados = codigo.decodificarFinal(codificado, 0, codificado.length, decodificado, 0, estadisticas);
+
+		assertEquals(fuente.length, decodificados);
+		assertEquals(2, estadisticas.getPalabrasIncorregibles());
+		assertEquals(2, estadisticas.getBytesBorrados());
+		assertTrue(estadisticas.getBorrados().contiene(0));
+		assertTrue(estadisticas.getBorrados().contiene(1));
+		assertArrayEquals(Arrays.copyOfRange(fuente, 2, fuente.length), Arrays.copyOfRange(decodificado, 2, fuente.length));
+	}
+
+	@Test
+	public void testCodificacionDecodificacionFlujos() {
+		final Random prng = new Random(7);
+
+		for (int r = CodigoHamming.REDUNDANCIA_MINIMA; r <= CodigoHamming.REDUNDANCIA_MAXIMA; ++r) {
+			for (final boolean ampliado : new boolean[] { false, true }) {
+				final CodigoHamming codigo = ampliado ? CodigoHamming.ampliado(r) : CodigoHamming.hamming(r);
+
+				for (final int longitud : new int[] { 0, 1, codigo.getBytesBloqueFuente(), 1000, 1001 }) {
+					final byte[] fuente = new byte[longitud];
+					prng.nextBytes(fuente);
+
+					final byte[] codificado = codificarFlujo(codigo, fuente, 1 + prng.nextInt(64));
+					assertEquals(codigo.getLongitudCodificada(longitud), codificado.length);
+
+					// Introducir un error simple en la primera y la última palabra código
+					if (codificado.length > 0) {
+						codificado[0] ^= 0x10;
+					}
+					if (codificado.length * 8 > codigo.getLongitud()) {
+						codificado[codificado.length - 1] ^= 0x01;
+					}
+
+					final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+					assertArrayEquals(
+						codigo.getNombre(),
+						fuente,
+						decodificarFlujo(codigo, codificado, 1 + prng.nextInt(64), estadisticas)
+					);
+					assertEquals(0, estadisticas.getPalabrasIncorregibles());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDecodificacionDeBuffersDirectosPorPartes() throws IOException {
+		final CodigoHamming codigo = CodigoHamming.ampliado(4);
+		// Varios búferes intermedios completos y uno parcial
+		final int bloques = 5 * 64 * 1024 / codigo.getBytesBloqueCodigo() + 7;
+		final byte[] fuente = new byte[bloques * codigo.getBytesBloqueFuente()];
+		new Random(10).nextBytes(fuente);
+
+		final byte[] codificado = new byte[bloques * codigo.getBytesBloqueCodigo()];
+		codigo.codificar(fuente, 0, fuente.length, codificado, 0);
+		for (int i = 0; i < codificado.length; i += 10_007) {
+			codificado[i] ^= 0b11;
+		}
+
+		// Decodificar desde una posición distinta de cero del búfer de destino,
+		// que se usa como índice de los bytes borrados
+		final EstadisticasDecodificacion esperadas = new EstadisticasDecodificacion(new MapaBorrados());
+		final byte[] esperado = new byte[fuente.length + 3];
+		codigo.decodificar(codificado, 0, codificado.length, esperado, 3, esperadas);
+
+		final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion(new MapaBorrados());
+		final ByteBuffer origen = ByteBuffer.allocateDirect(codificado.length).put(codificado);
+		final ByteBuffer destino = ByteBuffer.allocateDirect(esperado.length);
+		// Conversión a Buffer por compatibilidad binaria con Java 8
+		((Buffer) origen).flip();
+		((Buffer) destino).position(3);
+
+		assertEquals(fuente.length, codigo.decodificar(origen, destino, estadisticas));
+		assertEquals(0, origen.remaining());
+
+		final byte[] decodificado = new byte[esperado.length];
+		((Buffer) destino).flip();
+		destino.get(decodificado);
+		assertArrayEquals(esperado, decodificado);
+
+		assertTrue(esperadas.getPalabrasIncorregibles() > 0);
+		assertEquals(esperadas.getPalabrasIncorregibles(), estadisticas.getPalabrasIncorregibles());
+		assertArrayEquals(serializar(esperadas.getBorrados()), serializar(estadisticas.getBorrados()));
+	}
+
+	@Test
+	public void testMatrizControlArbitraria() throws IOException {
+		final Path fichero = Files.createTempFile("hammer", ".txt");
+
+		try {
+			Files.write(fichero, Arrays.asList(
+				"# Código Hamming (7, 4) con las columnas en otro orden",
+				"1 1 0 1 1 0 0",
+				"1 0 1 1 0 1 0",
+				"0 1 1 1 0 0 1"
+			), StandardCharsets.UTF_8);
+
+			final CodigoHamming codigo = CodigoHamming.desdeMatrizControl(CodigoHamming.leerMatrizControl(fichero));
+			final byte[] fuente = new byte[] { 0x5A, (byte) 0xC3, 0x7E };
+			final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+
+			assertEquals(7, codigo.getLongitud());
+			assertEquals(4, codigo.getDimension());
+			assertArrayEquals(fuente, decodificarFlujo(codigo, codificarFlujo(codigo, fuente, 3), 5, estadisticas));
+		} finally {
+			Files.delete(fichero);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMatrizControlColumnasRepetidas() {
+		CodigoHamming.desdeMatrizControl(new MatrizZ2(new byte[][] {
+			{ 1, 1, 1, 0 },
+			{ 1, 1, 0, 1 }
+		}));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRedundanciaInvalida() {
+		CodigoHamming.hamming(1);
+	}
+
+	/**
+	 * Genera una palabra aleatoria de la longitud en bits especificada.
+	 */
+	private static byte[] palabraAleatoria(final int bits, final Random prng) {
+		final byte[] palabra = new byte[(bits + 7) / 8];
+		prng.nextBytes(palabra);
+
+		if ((bits & 7) != 0) {
+			palabra[palabra.length - 1] &= 0xFF << (8 - (bits & 7));
+		}
+
+		return palabra;
+	}
+
+	/**
+	 * Codifica un flujo de bytes, proporcionándolo al código en fragmentos del
+	 * tamaño indicado.
+	 */
+	static byte[] codificarFlujo(final CodigoLineal codigo, final byte[] fuente, final int tamanoFragmento) {
+		final ByteArrayOutputStream codificado = new ByteArrayOutputStream();
+		final byte[] pendientes = new byte[tamanoFragmento + codigo.getBytesBloqueFuente()];
+		final byte[] salida = new byte[pendientes.length / codigo.getBytesBloqueFuente() * codigo.getBytesBloqueCodigo() + codigo.getBytesBloqueCodigo()];
+		int numeroPendientes = 0;
+
+		for (int i = 0; i < fuente.length; i += tamanoFragmento) {
+			final int fragmento = Math.min(tamanoFragmento, fuente.length - i);
+			System.arraycopy(fuente, i, pendientes, numeroPendientes, fragmento);
+			numeroPendientes += fragmento;
+
+			codificado.write(salida, 0, codigo.codificar(pendientes, 0, numeroPendientes, salida, 0));
+
+			final int consumidos = numeroPendientes - numeroPendientes % codigo.getBytesBloqueFuente();
+			System.arraycopy(pendientes, consumidos, pendientes, 0, numeroPendientes - consumidos);
+			numeroPendientes -= consumidos;
+		}
+
+		codificado.write(salida, 0, codigo.codificarFinal(pendientes, 0, numeroPendientes, salida, 0));
+
+		return codificado.toByteArray();
+	}
+
+	private static byte[] serializar(final MapaBorrados borrados) throws IOException {
+		final ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		borrados.escribir(salida);
+
+		return salida.toByteArray();
+	}
+
+	/**
+	 * Decodifica un flujo de bytes, proporcionándolo al código en fragmentos del
+	 * tamaño indicado.
+	 */
+	static byte[] decodificarFlujo(
+		final CodigoLineal codigo, final byte[] codificado, final int tamanoFragmento,
+		final EstadisticasDecodificacion estadisticas
+	) {
+		final ByteArrayOutputStream decodificado = new ByteArrayOutputStream();
+		final int retenidos = codigo.getBytesRetenidosDecodificacion();
+		final byte[] pendientes = new byte[tamanoFragmento + codigo.getBytesBloqueCodigo() + retenidos];
+		final byte[] salida = new byte[(pendientes.length / codigo.getBytesBloqueCodigo() + 1) * codigo.getBytesBloqueFuente()];
+		int numeroPendientes = 0;
+
+		for (int i = 0; i < codificado.length; i += tamanoFragmento) {
+			final int fragmento = Math.min(tamanoFragmento, codificado.length - i);
+			System.arraycopy(codificado, i, pendientes, numeroPendientes, fragmento);
+			numeroPendientes += fragmento;
+
+			int procesables = Math.max(0, numeroPendientes - retenidos);
+			procesables -= procesables % codigo.getBytesBloqueCodigo();
+
+			decodificado.write(salida, 0, codigo.decodificar(pendientes, 0, procesables, salida, 0, estadisticas));
+
+			System.arraycopy(pendientes, procesables, pendientes, 0, numeroPendientes - procesables);
+			numeroPendientes -= procesables;
+		}
+
+		decodificado.write(salida, 0, codigo.decodificarFinal(pendientes, 0, numeroPendientes, salida, 0, estadisticas));
+
+		return decodificado.toByteArray();
+	}
+}
@@ -0,0 +1,241 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import es.uvigo.esei.tc.alejandrogg.hammer.lib.MatrizZ2;
+
+/**
+ * Pruebas para {@link CodigoHsiao72_64}.
+ *
+ * @author Alejandro González García
+ */
+public class CodigoHsiao72_64Test {
+	@Test
+	public void testParametros() {
+		final CodigoLineal codigo = CodigoLineal.crear(CodigoHsiao72_64.NOMBRE_HSIAO);
+
+		assertTrue(codigo instanceof CodigoHsiao72_64);
+		assertEquals(CodigoHsiao72_64.NOMBRE_HSIAO, codigo.getNombre());
+		assertEquals(72, codigo.getLongitud());
+		assertEquals(64, codigo.getDimension());
+		assertEquals(8, codigo.getBytesBloqueFuente());
+		assertEquals(9, codigo.getBytesBloqueCodigo());
+		assertEquals(8, codigo.getBytesRetenidosDecodificacion());
+	}
+
+	@Test
+	public void testMatrizControl() {
+		final MatrizZ2 h = new CodigoHsiao72_64().getMatrizControl();
+
+		// Columnas de peso impar, y filas del mismo peso
+		for (int j = 0; j < h.getNumeroColumnas(); ++j) {
+			int peso = 0;
+			for (int i = 0; i < h.getNumeroFilas(); ++i) {
+				peso += h.getElemento(i, j);
+			}
+
+			assertEquals(1, peso & 1);
+		}
+
+		for (int i = 0; i < h.getNumeroFilas(); ++i) {
+			int peso = 0;
+			for (int j = 0; j < 64; ++j) {
+				peso += h.getElemento(i, j);
+			}
+
+			assertEquals(26, peso);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParametroNoAdmitido() {
+		CodigoLineal.crear(CodigoHsiao72_64.NOMBRE_HSIAO + ":64");
+	}
+
+	@Test
+	public void testCorreccionErroresSimples() {
+		final CodigoHsiao72_64 codigo = new CodigoHsiao72_64();
+		final byte[] fuente = new byte[8 * 72];
+		new Random(11).nextBytes(fuente);
+
+		final byte[] codificado = new byte[9 * 72];
+		assertEquals(codificado.length, codigo.codificar(fuente, 0, fuente.length, codificado, 0));
+
+		// Introducir en cada palabra código un error en una posición distinta
+		for (int i = 0; i < 72; ++i) {
+			final int bit = i * 72 + i;
+			codificado[bit >>> 3] ^= 0x80 >>> (bit & 7);
+		}
+
+		final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+		final byte[] decodificado = new byte[fuente.length];
+		assertEquals(fuente.length, codigo.decodificar(codificado, 0, codificado.length, decodificado, 0, estadisticas));
+
+		assertArrayEquals(fuente, decodificado);
+		assertEquals(72, estadisticas.getPalabrasCorregidas());
+		assertEquals(0, estadisticas.getPalabrasCorrectas());
+		final long[] esperado = new long[72];
+		Arrays.fill(esperado, 1);
+		assertArrayEquals(esperado, estadisticas.getHistogramaPosicionesError(codigo));
+	}
+
+	@Test
+	public void testDeteccionErroresDobles() {
+		final CodigoHsiao72_64 codigo = new CodigoHsiao72_64();
+		final byte[] fuente = new byte[8];
+		new Random(12).nextBytes(fuente);
+
+		final byte[] palabra = new byte[9];
+		codigo.codificar(fuente, 0, fuente.length, palabra, 0);
+
+		final byte[] decodificado = new byte[fuente.length];
+		for (int i = 0; i < 72; ++i) {
+			for (int j = i + 1; j < 72; ++j) {
+				final byte[] erronea = palabra.clone();
+				erronea[i >>> 3] ^= 0x80 >>> (i & 7);
+				erronea[j >>> 3] ^= 0x80 >>> (j & 7);
+
+				final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion(new MapaBorrados());
+				codigo.decodificar(erronea, 0, erronea.length, decodificado, 0, estadisticas);
+
+				assertEquals(1, estadisticas.getPalabrasIncorregibles());
+				assertEquals(8, estadisticas.getBytesBorrados());
+				assertArrayEquals(Arrays.copyOf(erronea, 8), decodificado);
+			}
+		}
+	}
+
+	@Test
+	public void testEquivaleAlCodigoGenerico() {
+		final CodigoHsiao72_64 codigo = new CodigoHsiao72_64();
+		final CodigoHamming generico = CodigoHamming.desdeMatrizControl(codigo.getMatrizControl());
+		final Random prng = new Random(13);
+		final byte[] fuente = new byte[8 * 1000];
+		prng.nextBytes(fuente);
+
+		final byte[] codificado = new byte[9 * 1000];
+		final byte[] esperado = new byte[codificado.length];
+		codigo.codificar(fuente, 0, fuente.length, codificado, 0);
+		generico.codificar(fuente, 0, fuente.length, esperado, 0);
+		assertArrayEquals(esperado, codificado);
+
+		// Errores simples, dobles y triples en posiciones aleatorias
+		for (int i = 0; i < 1500; ++i) {
+			final int bit = prng.nextInt(codificado.length * 8);
+			codificado[bit >>> 3] ^= 0x80 >>> (bit & 7);
+		}
+
+		final EstadisticasDecodificacion esperadas = new EstadisticasDecodificacion(new MapaBorrados());
+		final byte[] decodificadoGenerico = new byte[fuente.length];
+		generico.decodificar(codificado, 0, codificado.length, decodificadoGenerico, 0, esperadas);
+
+		// Decodificar con búferes directos, desde una posición distinta de cero
+		final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion(new MapaBorrados());
+		final ByteBuffer origen = ByteBuffer.allocateDirect(codificado.length).put(codificado);
+		final ByteBuffer destino = ByteBuffer.allocateDirect(fuente.length + 3);
+		// Conversión a Buffer por compatibilidad binaria con Java 8
+		((Buffer) origen).flip();
+		((Buffer) destino).position(3);
+		estadisticas.setDesplazamientoBorrados(-3);
+
+		assertEquals(fuente.length, codigo.decodificar(origen, destino, estadisticas));
+		assertEquals(0, origen.remaining());
+
+		final byte[] decodificado = new byte[fuente.length];
+		((Buffer) destino).position(3);
+		destino.get(decodificado);
+
+		assertArrayEquals(decodificadoGenerico, decodificado);
+		assertTrue(esperadas.getPalabrasIncorregibles() > 0);
+		assertEquals(esperadas.getPalabrasCorrectas(), estadisticas.getPalabrasCorrectas());
+		assertEquals(esperadas.getPalabrasCorregidas(), estadisticas.getPalabrasCorregidas());
+		assertEquals(esperadas.getPalabrasIncorregibles(), estadisticas.getPalabrasIncorregibles());
+		assertArrayEquals(esperadas.getHistogramaSindromes(), estadisticas.getHistogramaSindromes());
+		assertEquals(esperadas.getBytesBorrados(), estadisticas.getBytesBorrados());
+	}
+
+	@Test
+	public void testCodificacionDecodificacionFlujos() {
+		final CodigoHsiao72_64 codigo = new CodigoHsiao72_64();
+		final Random prng = new Random(14);
+
+		for (final int longitud : new int[] { 0, 1, 7, 8, 9, 16, 1000, 1001 }) {
+			final byte[] fuente = new byte[longitud];
+			prng.nextBytes(fuente);
+
+			// 9 bytes por cada palabra completa, y uno más que los bytes fuente de la acortada
+			final byte[] codificado = CodigoHammingTest.codificarFlujo(codigo, fuente, 1 + prng.nextInt(64));
+			final int longitudEsperada = longitud / 8 * 9 + (longitud % 8 > 0 ? longitud % 8 + 1 : 0);
+			assertEquals(longitudEsperada, codificado.length);
+			assertEquals(longitudEsperada, codigo.getLongitudCodificada(longitud));
+
+			// Introducir un error simple en la primera y la última palabra código
+			if (codificado.length > 0) {
+				codificado[0] ^= 0x10;
+			}
+			if (codificado.length > 9) {
+				codificado[codificado.length - 1] ^= 0x01;
+			}
+
+			final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+			assertArrayEquals(
+				fuente,
+				CodigoHammingTest.decodificarFlujo(codigo, codificado, 1 + prng.nextInt(64), estadisticas)
+			);
+			assertEquals(0, estadisticas.getPalabrasIncorregibles());
+			assertEquals(codificado.length > 9 ? 2 : Math.min(1, codificado.length), estadisticas.getPalabrasCorregidas());
+		}
+	}
+
+	@Test
+	public void testPalabraAcortada() {
+		final CodigoHsiao72_64 codigo = new CodigoHsiao72_64();
+		final byte[] fuente = { (byte) 0xA5, 0x3C, 0x0F };
+		final byte[] codificado = new byte[4];
+
+		assertEquals(4, codigo.codificarFinal(fuente, 0, fuente.length, codificado, 0));
+		assertArrayEquals(fuente, Arrays.copyOf(codificado, 3));
+		assertEquals(0, codigo.codificarFinal(fuente, 0, 0, codificado, 0));
+
+		// Un error simple en los bytes transmitidos se corrige
+		for (int bit = 0; bit < 32; ++bit) {
+			final byte[] recibido = codificado.clone();
+			recibido[bit >>> 3] ^= 0x80 >>> (bit & 7);
+
+			final byte[] decodificado = new byte[8];
+			final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+			assertEquals(3, codigo.decodificarFinal(recibido, 0, recibido.length, decodificado, 0, estadisticas));
+			assertArrayEquals(fuente, Arrays.copyOf(decodificado, 3));
+			assertEquals(1, estadisticas.getPalabrasCorregidas());
+		}
+
+		// Un síndrome que apunta al relleno, que no se transmite, no es de un error simple
+		final byte[] relleno = new byte[8];
+		final byte[] columna = new byte[9];
+		relleno[3] = (byte) 0x80;
+		codigo.codificar(relleno, 0, relleno.length, columna, 0);
+		codificado[3] ^= columna[8];
+
+		final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion(new MapaBorrados());
+		final byte[] decodificado = new byte[8];
+		assertEquals(3, codigo.decodificarFinal(codificado, 0, codificado.length, decodificado, 0, estadisticas));
+		assertEquals(1, estadisticas.getPalabrasIncorregibles());
+		assertEquals(3, estadisticas.getBytesBorrados());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCodificacionFinalPalabraCompleta() {
+		new CodigoHsiao72_64().codificarFinal(new byte[8], 0, 8, new byte[9], 0);
+	}
+}
@@ -0,0 +1,177 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Pruebas para {@link EventosJfr}.
+ *
+ * @author Alejandro González García
+ */
+public class EventosJfrTest {
+	private static final String BLOQUE = "es.uvigo.esei.tc.alejandrogg.hammer.Bloque";
+	private static final String ENTRADA_SALIDA = "es.uvigo.esei.tc.alejandrogg.hammer.EntradaSalida";
+	private static final String RAFAGA_ERRORES = "es.uvigo.esei.tc.alejandrogg.hammer.RafagaErrores";
+
+	@Test
+	public void testRegistraBloquesEntradaSalidaYRafagas() throws IOException {
+		final CodigoLineal codigo = CodigoLineal.crear("hamming-ampliado:3");
+		final Procesador procesador = new Procesador(codigo, IntroductorErrores.ninguno(), 1, 1024);
+		final byte[] fuente = new byte[4 * 1024];
+		new Random(5).nextBytes(fuente);
+
+		final List<RecordedEvent> eventos;
+		try (Recording grabacion = new Recording()) {
+			grabacion.enable(BLOQUE).withThreshold(Duration.ZERO);
+			grabacion.enable(ENTRADA_SALIDA).withThreshold(Duration.ZERO);
+			grabacion.enable(RAFAGA_ERRORES);
+			grabacion.start();
+
+			final ByteArrayOutputStream codificado = new ByteArrayOutputStream();
+			procesador.codificar(new ByteArrayInputStream(fuente), codificado);
+
+			// Introducir dos errores, incorregibles, en todas las palabras del
+			// segundo trozo
+			final byte[] recibido = codificado.toByteArray();
+			for (int i = 2048; i < 4096; ++i) {
+				recibido[i] ^= 0x03;
+			}
+
+			procesador.decodificar(
+				new ByteArrayInputStream(recibido), new ByteArrayOutputStream(), new EstadisticasDecodificacion()
+			);
+
+			grabacion.stop();
+
+			final Path fichero = Files.createTempFile("hammer", ".jfr");
+			try {
+				grabacion.dump(fichero);
+				eventos = RecordingFile.readAllEvents(fichero);
+			} finally {
+				Files.delete(fichero);
+			}
+		}
+
+		int codificaciones = 0;
+		long bytesCodificados = 0;
+		int decodificaciones = 0;
+		long palabrasIncorregibles = 0;
+		int llamadasEntradaSalida = 0;
+		int rafagas = 0;
+
+		for (final RecordedEvent evento : eventos) {
+			switch (evento.getEventType().getName()) {
+				case BLOQUE:
+					if ("Codificación".equals(evento.getString("operacion"))) {
+						++codificaciones;
+						bytesCodificados += evento.getLong("bytesSalida");
+					} else {
+						++decodificaciones;
+						palabrasIncorregibles += evento.getLong("palabrasIncorregibles");
+					}
+					break;
+				case ENTRADA_SALIDA:
+					++llamadasEntradaSalida;
+					break;
+				case RAFAGA_ERRORES:
+					++rafagas;
+					assertEquals(2048, evento.getLong("posicion"));
+					assertEquals(2048, evento.getLong("palabras"));
+					assertEquals(2048, evento.getLong("palabrasIncorregibles"));
+					break;
+				default:
+					break;
+			}
+		}
+
+		// El último trozo, que puede estar vacío, también se registra
+		assertTrue(codificaciones >= 4);
+		assertEquals(2 * fuente.length, bytesCodificados);
+		assertTrue(decodificaciones >= 4);
+		assertEquals(2048, palabrasIncorregibles);
+		assertTrue(llamadasEntradaSalida > 0);
+		assertEquals(1, rafagas);
+	}
+
+	/**
+	 * Comprueba que la aplicación funciona en una máquina virtual sin JFR,
+	 * limitando sus módulos a {@code java.base}, lo que solo es posible desde
+	 * Java 9.
+	 */
+	@Test
+	public void testFuncionaSinJfr() throws IOException, InterruptedException {
+		assumeFalse(System.getProperty("java.specification.version").startsWith("1."));
+
+		final byte[] fuente = new byte[100_000];
+		new Random(6).nextBytes(fuente);
+
+		final Path ficheroFuente = Files.createTempFile("hammer", ".raw");
+		final Path ficheroCodificado = Files.createTempFile("hammer", ".ham");
+		try {
+			Files.write(ficheroFuente, fuente);
+
+			// Por flujos, que registran las llamadas de E/S, y proyectando los ficheros,
+			// que registran los bloques
+			final ByteArrayOutputStream esperado = new ByteArrayOutputStream();
+			new Procesador(CodigoLineal.crear("hamming-ampliado:3"), IntroductorErrores.ninguno(), 1, 1024)
+				.codificar(new ByteArrayInputStream(fuente), esperado);
+
+			ejecutarSinJfr("-q", "-c", ficheroCodificado.toString(), ficheroFuente.toString());
+			assertArrayEquals(esperado.toByteArray(), Files.readAllBytes(ficheroCodificado));
+
+			ejecutarSinJfr("-q", "-d", ficheroFuente.toString(), ficheroCodificado.toString());
+			assertArrayEquals(fuente, Files.readAllBytes(ficheroFuente));
+		} finally {
+			Files.delete(ficheroFuente);
+			Files.delete(ficheroCodificado);
+		}
+	}
+
+	private static void ejecutarSinJfr(final String... args) throws IOException, InterruptedException {
+		final List<String> orden = new ArrayList<>(Arrays.asList(
+			Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+			"--limit-modules", "java.base",
+			"-cp", System.getProperty("java.class.path"),
+			Hammer.class.getName()
+		));
+		orden.addAll(Arrays.asList(args));
+
+		final Process proceso = new ProcessBuilder(orden).redirectErrorStream(true).start();
+
+		final ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		try (InputStream flujo = proceso.getInputStream()) {
+			final byte[] buffer = new byte[4096];
+			int leidos;
+			while ((leidos = flujo.read(buffer)) >= 0) {
+				salida.write(buffer, 0, leidos);
+			}
+		}
+
+		assertEquals(new String(salida.toByteArray(), StandardCharsets.UTF_8), 0, proceso.waitFor());
+		assertEquals("", new String(salida.toByteArray(), StandardCharsets.UTF_8));
+	}
+}
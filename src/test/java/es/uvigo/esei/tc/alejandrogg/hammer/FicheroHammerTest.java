@@ -0,0 +1,141 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link FicheroHammer}.
+ *
+ * @author Alejandro González García
+ */
+public class FicheroHammerTest {
+	private Path fichero;
+
+	@Before
+	public void crearFichero() throws IOException {
+		fichero = Files.createTempFile("hammer", ".contenedor");
+	}
+
+	@After
+	public void borrarFichero() throws IOException {
+		Files.delete(fichero);
+	}
+
+	@Test
+	public void testLecturasAleatorias() throws IOException {
+		final Random prng = new Random(40);
+
+		for (final String nombreCodigo : new String[] { "hamming-ampliado:3", "hamming:4", "hamming-ampliado:6" }) {
+			final byte[] fuente = new byte[500_009];
+			prng.nextBytes(fuente);
+
+			try (OutputStream salida = Files.newOutputStream(fichero);
+				FicheroHammer.Escritor escritor = new FicheroHammer.Escritor(salida, nombreCodigo, 10_000)
+			) {
+				escritor.write(fuente, 0, 123);
+				escritor.write(fuente, 123, fuente.length - 123);
+			}
+
+			try (FicheroHammer contenedor = new FicheroHammer(fichero, 4)) {
+				assertEquals(nombreCodigo, contenedor.getNombreCodigo());
+				assertEquals(fuente.length, contenedor.getLongitud());
+				assertEquals(51, contenedor.getNumeroBloques());
+
+				for (int i = 0; i < 1000; ++i) {
+					final int posicion = prng.nextInt(fuente.length);
+					final byte[] leido = new byte[1 + prng.nextInt(25_000)];
+					final int leidos = contenedor.leer(posicion, leido, 0, leido.length);
+
+					assertEquals(Math.min(leido.length, fuente.length - posicion), leidos);
+					assertArrayEquals(
+						Arrays.copyOfRange(fuente, posicion, posicion + leidos), Arrays.copyOf(leido, leidos)
+					);
+				}
+
+				assertEquals(-1, contenedor.leer(fuente.length, new byte[1], 0, 1));
+				assertEquals(0, contenedor.getBloquesDanados());
+				assertTrue(contenedor.getAciertosCache() > 0);
+
+				// Sin errores, solo se decodifican los bloques que salen de la caché
+				assertEquals(contenedor.getFallosCache(), contenedor.getBloquesIntegros());
+				assertEquals(0, contenedor.getEstadisticas().getPalabrasCorregidas());
+			}
+		}
+	}
+
+	@Test
+	public void testBloquesDanados() throws IOException {
+		final byte[] fuente = new byte[100_000];
+		new Random(41).nextBytes(fuente);
+
+		// Con errores de dos bits en algunos bytes, algunos bloques no se recuperan
+		try (OutputStream salida = Files.newOutputStream(fichero);
+			FicheroHammer.Escritor escritor = new FicheroHammer.Escritor(
+				salida, new HammingAmpliado3_2(), 1000, IntroductorErrores.crear("bsc:0.003", 42)
+			)
+		) {
+			escritor.write(fuente);
+			assertEquals(fuente.length, escritor.getBytesLeidos());
+		}
+
+		try (FicheroHammer contenedor = new FicheroHammer(fichero)) {
+			final ByteArrayOutputStream decodificado = new ByteArrayOutputStream();
+
+			assertEquals(fuente.length - 500, contenedor.transferir(500, Long.MAX_VALUE, decodificado));
+			assertEquals(fuente.length - 500, decodificado.size());
+
+			final EstadisticasDecodificacion estadisticas = contenedor.getEstadisticas();
+			assertTrue(estadisticas.getPalabrasCorregidas() > 0);
+			assertTrue(contenedor.getBloquesDanados() > 0);
+			assertEquals(100, contenedor.getBloquesIntegros() + contenedor.getBloquesDanados());
+
+			// Los bytes incorregibles no desplazan a los siguientes, que se recuperan
+			final byte[] bytesDecodificados = decodificado.toByteArray();
+			int diferentes = 0;
+			for (int i = 500; i < fuente.length; ++i) {
+				if (fuente[i] != bytesDecodificados[i - 500]) {
+					++diferentes;
+				}
+			}
+			assertTrue(contenedor.getBytesBorrados() > 0);
+			assertTrue(diferentes > 0 && diferentes < fuente.length / 100);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testIndiceDanado() throws IOException {
+		try (OutputStream salida = Files.newOutputStream(fichero);
+			FicheroHammer.Escritor escritor = new FicheroHammer.Escritor(salida, "hamming:3", 100)
+		) {
+			escritor.write(new byte[1000]);
+		}
+
+		final byte[] contenedor = Files.readAllBytes(fichero);
+		contenedor[contenedor.length - 20] ^= 1;
+		Files.write(fichero, contenedor);
+
+		new FicheroHammer(fichero).close();
+	}
+
+	@Test(expected = IOException.class)
+	public void testNoEsUnContenedor() throws IOException {
+		Files.write(fichero, new byte[100]);
+
+		new FicheroHammer(fichero).close();
+	}
+}
@@ -0,0 +1,210 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link FlujoSalidaHamming} y {@link FlujoEntradaHamming}.
+ *
+ * @author Alejandro González García
+ */
+public class FlujoHammingTest {
+	private static final String[] CODIGOS = { "hamming-ampliado:3", "hamming:4", "hamming-ampliado:5" };
+
+	@Test
+	public void testCodificacionEquivaleACodificarDeUnaVez() throws IOException {
+		final Random prng = new Random(20);
+
+		for (final String nombreCodigo : CODIGOS) {
+			final CodigoLineal codigo = CodigoLineal.crear(nombreCodigo);
+			final byte[] fuente = new byte[200_003];
+			prng.nextBytes(fuente);
+
+			final ByteArrayOutputStream salida = new ByteArrayOutputStream();
+			try (final FlujoSalidaHamming flujo = new FlujoSalidaHamming(salida, nombreCodigo)) {
+				// Escrituras de tamaños variados, incluidas algunas mayores que el búfer
+				int i = 0;
+				while (i < fuente.length) {
+					final int longitud = Math.min(fuente.length - i, tamanoAleatorio(prng));
+
+					if (longitud == 1) {
+						flujo.write(fuente[i]);
+					} else {
+						flujo.write(fuente, i, longitud);
+					}
+
+					if (prng.nextInt(10) == 0) {
+						flujo.flush();
+					}
+
+					i += longitud;
+				}
+
+				assertEquals(fuente.length, flujo.getBytesLeidos());
+			}
+
+			assertArrayEquals(nombreCodigo, codificar(codigo, fuente), salida.toByteArray());
+		}
+	}
+
+	@Test
+	public void testDecodificacionEquivaleADecodificarDeUnaVez() throws IOException {
+		final Random prng = new Random(21);
+
+		for (final String nombreCodigo : CODIGOS) {
+			final CodigoLineal codigo = CodigoLineal.crear(nombreCodigo);
+			final byte[] fuente = new byte[150_001];
+			prng.nextBytes(fuente);
+
+			final byte[] codificado = codificar(codigo, fuente);
+			IntroductorErrores.crear("bsc:0.01", 22).introducir(codificado, 0, codificado.length, 0);
+
+			final EstadisticasDecodificacion esperadas = new EstadisticasDecodificacion();
+			final byte[] esperado = decodificar(codigo, codificado, esperadas);
+
+			final ByteArrayOutputStream decodificado = new ByteArrayOutputStream();
+			try (final FlujoEntradaHamming flujo = new FlujoEntradaHamming(new ByteArrayInputStream(codificado), nombreCodigo)) {
+				final byte[] buffer = new byte[100_000];
+				int leidos;
+
+				do {
+					final int longitud = tamanoAleatorio(prng);
+
+					if (longitud == 1) {
+						leidos = flujo.read();
+						if (leidos >= 0) {
+							decodificado.write(leidos);
+						}
+					} else {
+						leidos = flujo.read(buffer, 0, longitud);
+						if (leidos > 0) {
+							decodificado.write(buffer, 0, leidos);
+						}
+					}
+				} while (leidos >= 0);
+
+				assertEquals(esperadas.getPalabrasCorrectas(), flujo.getPalabrasCorrectas());
+				assertEquals(esperadas.getPalabrasCorregidas(), flujo.getPalabrasCorregidas());
+				assertEquals(esperadas.getPalabrasIncorregibles(), flujo.getPalabrasIncorregibles());
+				assertEquals(esperadas.getBytesDescartados(), flujo.getBytesDescartados());
+				assertTrue(flujo.getPalabrasCorregidas() > 0);
+			}
+
+			assertArrayEquals(nombreCodigo, esperado, decodificado.toByteArray());
+		}
+	}
+
+	@Test
+	public void testIdaYVueltaConErrores() throws IOException {
+		final byte[] fuente = new byte[100_000];
+		new Random(23).nextBytes(fuente);
+
+		// Con un error por byte, el código Hamming ampliado (3, 2) los corrige todos
+		final ByteArrayOutputStream codificado = new ByteArrayOutputStream();
+		final FlujoSalidaHamming flujoSalida = new FlujoSalidaHamming(
+			codificado, new HammingAmpliado3_2(), IntroductorErrores.crear("fijo:1", 24)
+		);
+		flujoSalida.write(fuente);
+		flujoSalida.close();
+
+		assertEquals(2L * fuente.length, flujoSalida.getBytesEscritos());
+		assertEquals(2L * fuente.length, flujoSalida.getErroresIntroducidos());
+
+		final byte[] decodificado = new byte[fuente.length];
+		try (final FlujoEntradaHamming flujo = new FlujoEntradaHamming(new ByteArrayInputStream(codificado.toByteArray()))) {
+			assertEquals(10, flujo.skip(10));
+
+			int leidos = 10;
+			int leidosLlamada;
+			while ((leidosLlamada = flujo.read(decodificado, leidos, decodificado.length - leidos)) > 0) {
+				leidos += leidosLlamada;
+			}
+
+			assertEquals(fuente.length, leidos);
+			assertEquals(-1, flujo.read());
+			assertEquals(2L * fuente.length, flujo.getPalabrasCorregidas());
+		}
+
+		assertArrayEquals(Arrays.copyOfRange(fuente, 10, fuente.length), Arrays.copyOfRange(decodificado, 10, fuente.length));
+	}
+
+	@Test
+	public void testTerminarNoCierraElFlujoSubyacente() throws IOException {
+		final CodigoLineal codigo = CodigoLineal.crear("hamming:4");
+		final byte[] fuente = { 1, 2, 3 };
+		final ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		final FlujoSalidaHamming flujo = new FlujoSalidaHamming(salida, "hamming:4");
+
+		flujo.write(fuente);
+		flujo.terminar();
+		flujo.terminar();
+		salida.write(fuente);
+
+		final byte[] esperado = Arrays.copyOf(codificar(codigo, fuente), codificar(codigo, fuente).length + fuente.length);
+		System.arraycopy(fuente, 0, esperado, esperado.length - fuente.length, fuente.length);
+		assertArrayEquals(esperado, salida.toByteArray());
+	}
+
+	@Test(expected = IOException.class)
+	public void testEscribirTrasTerminar() throws IOException {
+		final FlujoSalidaHamming flujo = new FlujoSalidaHamming(new ByteArrayOutputStream());
+
+		flujo.terminar();
+		flujo.write(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCodigoDesconocido() {
+		new FlujoEntradaHamming(new ByteArrayInputStream(new byte[0]), "golay:23");
+	}
+
+	private static int tamanoAleatorio(final Random prng) {
+		switch (prng.nextInt(4)) {
+			case 0:
+				return 1;
+			case 1:
+				return 1 + prng.nextInt(16);
+			case 2:
+				return 1 + prng.nextInt(5000);
+			default:
+				return 1 + prng.nextInt(100_000);
+		}
+	}
+
+	private static byte[] codificar(final CodigoLineal codigo, final byte[] fuente) {
+		final byte[] codificado = new byte[(int) codigo.getLongitudCodificada(fuente.length)];
+		final int bytesBloques = fuente.length - fuente.length % codigo.getBytesBloqueFuente();
+
+		final int escritos = codigo.codificar(fuente, 0, bytesBloques, codificado, 0);
+		codigo.codificarFinal(fuente, bytesBloques, fuente.length - bytesBloques, codificado, escritos);
+
+		return codificado;
+	}
+
+	private static byte[] decodificar(
+		final CodigoLineal codigo, final byte[] codificado, final EstadisticasDecodificacion estadisticas
+	) {
+		final byte[] decodificado = new byte[(codificado.length / codigo.getBytesBloqueCodigo() + 1) * codigo.getBytesBloqueFuente()];
+
+		int procesables = Math.max(0, codificado.length - codigo.getBytesRetenidosDecodificacion());
+		procesables -= procesables % codigo.getBytesBloqueCodigo();
+
+		int escritos = codigo.decodificar(codificado, 0, procesables, decodificado, 0, estadisticas);
+		escritos += codigo.decodificarFinal(
+			codificado, procesables, codificado.length - procesables, decodificado, escritos, estadisticas
+		);
+
+		return Arrays.copyOf(decodificado, escritos);
+	}
+}
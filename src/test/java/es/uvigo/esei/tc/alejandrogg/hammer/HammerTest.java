@@ -0,0 +1,456 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link Hammer}.
+ *
+ * @author Alejandro González García
+ */
+public class HammerTest {
+	private InputStream entradaEstandar;
+	private PrintStream salidaEstandar;
+	private PrintStream salidaErrores;
+	private Path directorio;
+
+	@Before
+	public void guardarFlujosEstandar() throws IOException {
+		entradaEstandar = System.in;
+		salidaEstandar = System.out;
+		salidaErrores = System.err;
+		directorio = Files.createTempDirectory("hammer");
+	}
+
+	@After
+	public void restaurarFlujosEstandar() throws IOException {
+		System.setIn(entradaEstandar);
+		System.setOut(salidaEstandar);
+		System.setErr(salidaErrores);
+
+		try (Stream<Path> ficheros = Files.list(directorio)) {
+			for (final Path fichero : (Iterable<Path>) ficheros::iterator) {
+				Files.delete(fichero);
+			}
+		}
+		Files.delete(directorio);
+	}
+
+	@Test
+	public void testProyeccionEquivaleAFlujos() throws IOException {
+		final Random prng = new Random(13);
+
+		for (final String codigo : new String[] { "hamming-ampliado:3", "hamming:4", "hamming-ampliado:5" }) {
+			final byte[] fuente = new byte[100_003];
+			prng.nextBytes(fuente);
+
+			// Codificar y decodificar entre ficheros, que se proyectan en memoria
+			final Path ficheroFuente = escribir("fuente", fuente);
+			final Path ficheroCodificado = directorio.resolve("codificado");
+			final Path ficheroDecodificado = directorio.resolve("decodificado");
+
+			new Hammer().run("-q", "--codigo", codigo, "-c", ficheroCodificado.toString(), ficheroFuente.toString());
+			new Hammer().run("-q", "--codigo", codigo, "-d", ficheroDecodificado.toString(), ficheroCodificado.toString());
+
+			assertArrayEquals(fuente, Files.readAllBytes(ficheroDecodificado));
+
+			// Codificar y decodificar con los flujos estándar
+			final byte[] codificado = ejecutarConFlujosEstandar(fuente, "-q", "--codigo", codigo, "-c", "-", "-");
+
+			assertArrayEquals(Files.readAllBytes(ficheroCodificado), codificado);
+			assertArrayEquals(fuente, ejecutarConFlujosEstandar(codificado, "-q", "--codigo", codigo, "-d", "-", "-"));
+		}
+	}
+
+	@Test
+	public void testProyeccionDecodificacionConDescartes() throws IOException {
+		final byte[] codificado = new byte[20_000];
+		final Random prng = new Random(14);
+		prng.nextBytes(codificado);
+
+		final Path ficheroCodificado = escribir("codificado", codificado);
+		final Path ficheroDecodificado = directorio.resolve("decodificado");
+
+		new Hammer().run("-q", "-d", ficheroDecodificado.toString(), ficheroCodificado.toString());
+
+		assertArrayEquals(
+			ejecutarConFlujosEstandar(codificado, "-q", "-d", "-", "-"),
+			Files.readAllBytes(ficheroDecodificado)
+		);
+	}
+
+	@Test
+	public void testParaleloEquivaleASecuencial() throws IOException {
+		final Random prng = new Random(15);
+
+		for (final String codigo : new String[] { "hamming-ampliado:3", "hamming:4", "hamming-ampliado:5" }) {
+			final byte[] fuente = new byte[100_003];
+			prng.nextBytes(fuente);
+
+			final Path ficheroFuente = escribir("fuente", fuente);
+			final Path ficheroCodificado = directorio.resolve("codificado");
+			final Path ficheroCodificadoParalelo = directorio.resolve("codificado-paralelo");
+
+			new Hammer().run("-q", "--codigo", codigo, "-c", ficheroCodificado.toString(), ficheroFuente.toString());
+			new Hammer().run(
+				"-q", "--codigo", codigo, "--hilos", "4", "--tam-bloque", "1000",
+				"-c", ficheroCodificadoParalelo.toString(), ficheroFuente.toString()
+			);
+
+			final byte[] codificado = Files.readAllBytes(ficheroCodificado);
+			assertArrayEquals(codificado, Files.readAllBytes(ficheroCodificadoParalelo));
+			assertArrayEquals(
+				codificado,
+				ejecutarConFlujosEstandar(fuente, "-q", "--codigo", codigo, "--hilos", "3", "--tam-bloque", "777", "-c", "-", "-")
+			);
+
+			// Corromper la codificación para que se descarten bytes fuente, y las
+			// longitudes decodificadas de los trozos sean distintas
+			for (int i = 0; i < codificado.length; i += 1 + prng.nextInt(16)) {
+				codificado[i] ^= 1 << prng.nextInt(8) | 1 << prng.nextInt(8);
+			}
+
+			final Path ficheroCorrupto = escribir("corrupto", codificado);
+			final Path ficheroDecodificado = directorio.resolve("decodificado");
+			final Path ficheroDecodificadoParalelo = directorio.resolve("decodificado-paralelo");
+
+			new Hammer().run("-q", "--codigo", codigo, "-d", ficheroDecodificado.toString(), ficheroCorrupto.toString());
+			new Hammer().run(
+				"-q", "--codigo", codigo, "--hilos", "4", "--tam-bloque", "1000",
+				"-d", ficheroDecodificadoParalelo.toString(), ficheroCorrupto.toString()
+			);
+
+			final byte[] decodificado = Files.readAllBytes(ficheroDecodificado);
+			assertArrayEquals(decodificado, Files.readAllBytes(ficheroDecodificadoParalelo));
+			assertArrayEquals(
+				decodificado,
+				ejecutarConFlujosEstandar(codificado, "-q", "--codigo", codigo, "--hilos", "3", "--tam-bloque", "777", "-d", "-", "-")
+			);
+		}
+	}
+
+	@Test
+	public void testParaleloIntroduceErrores() throws IOException {
+		final byte[] fuente = new byte[50_000];
+		new Random(16).nextBytes(fuente);
+
+		final Path ficheroFuente = escribir("fuente", fuente);
+		final Path ficheroCodificado = directorio.resolve("codificado");
+		final Path ficheroDecodificado = directorio.resolve("decodificado");
+
+		new Hammer().run("-q", "--hilos", "4", "--tam-bloque", "1000", "-e", "1", "-c", ficheroCodificado.toString(), ficheroFuente.toString());
+		new Hammer().run("-q", "--hilos", "4", "--tam-bloque", "1000", "-d", ficheroDecodificado.toString(), ficheroCodificado.toString());
+
+		// Con un error por byte, todos se pueden corregir
+		assertArrayEquals(fuente, Files.readAllBytes(ficheroDecodificado));
+	}
+
+	@Test
+	public void testResumenJson() throws IOException {
+		final byte[] fuente = new byte[10_000];
+		new Random(17).nextBytes(fuente);
+
+		final Path ficheroFuente = escribir("fuente", fuente);
+		final Path ficheroCodificado = directorio.resolve("codificado");
+		final Path ficheroDecodificado = directorio.resolve("decodificado");
+
+		new Hammer().run("-q", "-e", "1", "-c", ficheroCodificado.toString(), ficheroFuente.toString());
+
+		final ByteArrayOutputStream errores = new ByteArrayOutputStream();
+		System.setErr(new PrintStream(errores, true, "UTF-8"));
+		new Hammer().run("-q", "--json", "-d", ficheroDecodificado.toString(), ficheroCodificado.toString());
+
+		final String resumen = errores.toString("UTF-8").trim();
+		assertTrue(resumen.startsWith("{\"operacion\":\"decodificacion\",\"codigo\":\"hamming-ampliado:3\""));
+		assertTrue(resumen.contains("\"palabrasCorregidas\":" + fuente.length * 2 + ","));
+		assertTrue(resumen.contains("\"palabrasIncorregibles\":0,"));
+
+		// Cada error corregido aparece en el histograma de posiciones
+		final Matcher posiciones = Pattern.compile("\"histogramaPosicionesError\":\\[([0-9,]*)\\]").matcher(resumen);
+		assertTrue(posiciones.find());
+		assertEquals(
+			fuente.length * 2,
+			Arrays.stream(posiciones.group(1).split(",")).mapToLong(Long::parseLong).sum()
+		);
+	}
+
+	@Test
+	public void testContadoresCanalizacionSoloEnResumenJson() throws IOException {
+		final byte[] fuente = new byte[10_000];
+		new Random(21).nextBytes(fuente);
+
+		final ByteArrayOutputStream errores = new ByteArrayOutputStream();
+		System.setErr(new PrintStream(errores, true, "UTF-8"));
+		ejecutarConFlujosEstandar(fuente, "-c", "-", "-");
+
+		// El resumen de texto de los flujos ocupa una sola línea
+		final String resumen = errores.toString("UTF-8").trim();
+		assertTrue(resumen.startsWith("> Se han codificado"));
+		assertEquals(-1, resumen.indexOf('\n'));
+
+		errores.reset();
+		ejecutarConFlujosEstandar(fuente, "--json", "-c", "-", "-");
+		assertTrue(errores.toString("UTF-8").contains("\"canalizacion\":{\"esperasLectura\":"));
+	}
+
+	@Test
+	public void testProgresoNoCambiaElResultadoNiSeMuestraEnModoSilencioso() throws IOException {
+		final byte[] fuente = new byte[50_000];
+		new Random(20).nextBytes(fuente);
+
+		final Path ficheroFuente = escribir("fuente", fuente);
+		final Path ficheroCodificado = directorio.resolve("codificado");
+
+		final ByteArrayOutputStream errores = new ByteArrayOutputStream();
+		System.setErr(new PrintStream(errores));
+		new Hammer().run("-q", "--progreso", "-c", ficheroCodificado.toString(), ficheroFuente.toString());
+
+		assertEquals(0, errores.size());
+		assertArrayEquals(ejecutarConFlujosEstandar(fuente, "-q", "-c", "-", "-"), Files.readAllBytes(ficheroCodificado));
+	}
+
+	@Test
+	public void testBorradosConservanPosiciones() throws IOException {
+		final byte[] fuente = new byte[30_000];
+		final Random prng = new Random(18);
+		prng.nextBytes(fuente);
+
+		final Path ficheroFuente = escribir("fuente", fuente);
+		final Path ficheroCodificado = directorio.resolve("codificado");
+		new Hammer().run("-q", "-c", ficheroCodificado.toString(), ficheroFuente.toString());
+
+		// Introducir errores dobles, que se detectan pero no se pueden corregir, en
+		// una de las palabras código de algunos bytes
+		final byte[] codificado = Files.readAllBytes(ficheroCodificado);
+		final boolean[] borrado = new boolean[fuente.length];
+		for (int i = 0; i < fuente.length; ++i) {
+			if (prng.nextInt(10) == 0) {
+				codificado[2 * i + prng.nextInt(2)] ^= 0b101;
+				borrado[i] = true;
+			}
+		}
+		Files.write(ficheroCodificado, codificado);
+
+		byte[] decodificadoAnterior = null;
+		byte[] borradosAnteriores = null;
+
+		for (final String[] opciones : new String[][] { { "--hilos", "1" }, { "--hilos", "3", "--tam-bloque", "999" } }) {
+			for (final boolean proyectar : new boolean[] { true, false }) {
+				final Path ficheroBorrados = directorio.resolve("borrados");
+				final byte[] decodificado;
+
+				if (proyectar) {
+					final Path ficheroDecodificado = directorio.resolve("decodificado");
+					new Hammer().run(concatenar(
+						opciones, "-q", "--borrados", ficheroBorrados.toString(), "-d", ficheroDecodificado.toString(), ficheroCodificado.toString()
+					));
+					decodificado = Files.readAllBytes(ficheroDecodificado);
+				} else {
+					decodificado = ejecutarConFlujosEstandar(codificado, concatenar(
+						opciones, "-q", "--borrados", ficheroBorrados.toString(), "-d", "-", "-"
+					));
+				}
+
+				// Los bytes borrados no desplazan a los demás, que se recuperan
+				final MapaBorrados mapa = MapaBorrados.leer(new ByteArrayInputStream(Files.readAllBytes(ficheroBorrados)));
+				assertEquals(fuente.length, decodificado.length);
+				for (int i = 0; i < fuente.length; ++i) {
+					assertEquals(borrado[i], mapa.contiene(i));
+					assertEquals(borrado[i] ? EstadisticasDecodificacion.BYTE_BORRADO : fuente[i], decodificado[i]);
+				}
+
+				if (decodificadoAnterior != null) {
+					assertArrayEquals(decodificadoAnterior, decodificado);
+					assertArrayEquals(borradosAnteriores, Files.readAllBytes(ficheroBorrados));
+				}
+				decodificadoAnterior = decodificado;
+				borradosAnteriores = Files.readAllBytes(ficheroBorrados);
+			}
+		}
+	}
+
+	@Test
+	public void testSemillaReproduceLosErrores() throws IOException {
+		final byte[] fuente = new byte[200_000];
+		new Random(19).nextBytes(fuente);
+
+		final Path ficheroFuente = escribir("fuente", fuente);
+		byte[] codificadoAnterior = null;
+
+		for (final String canal : new String[] { "normal", "bsc:0.001", "gilbert-elliott:0.001,0.05,0,0.4" }) {
+			for (final String[] opciones : new String[][] {
+				{ "--hilos", "1" }, { "--hilos", "3", "--tam-bloque", "999" }, { "--hilos", "2", "--tam-bloque", "70000" }
+			}) {
+				for (final boolean proyectar : new boolean[] { true, false }) {
+					final byte[] codificado;
+
+					if (proyectar) {
+						final Path ficheroCodificado = directorio.resolve("codificado");
+						new Hammer().run(concatenar(
+							opciones, "-q", "--canal", canal, "--semilla", "42", "-c", ficheroCodificado.toString(), ficheroFuente.toString()
+						));
+						codificado = Files.readAllBytes(ficheroCodificado);
+					} else {
+						codificado = ejecutarConFlujosEstandar(fuente, concatenar(
+							opciones, "-q", "--canal", canal, "--semilla", "42", "-c", "-", "-"
+						));
+					}
+
+					if (codificadoAnterior != null) {
+						assertArrayEquals(codificadoAnterior, codificado);
+					}
+					codificadoAnterior = codificado;
+				}
+			}
+
+			codificadoAnterior = null;
+		}
+	}
+
+	@Test
+	public void testContenedorDecodificaIntervalos() throws IOException {
+		final byte[] fuente = new byte[300_000];
+		new Random(43).nextBytes(fuente);
+
+		final Path ficheroFuente = escribir("fuente", fuente);
+		final Path ficheroContenedor = directorio.resolve("contenedor");
+		final Path ficheroDecodificado = directorio.resolve("decodificado");
+
+		new Hammer().run(
+			"-q", "--contenedor", "--codigo", "hamming:5", "--tam-bloque", "4096",
+			"-c", ficheroContenedor.toString(), ficheroFuente.toString()
+		);
+
+		final ByteArrayOutputStream errores = new ByteArrayOutputStream();
+		System.setErr(new PrintStream(errores, true, "UTF-8"));
+		new Hammer().run(
+			"-q", "--json", "--contenedor", "--desde", "12345", "--hasta", "23456",
+			"-d", ficheroDecodificado.toString(), ficheroContenedor.toString()
+		);
+
+		assertArrayEquals(Arrays.copyOfRange(fuente, 12345, 23456), Files.readAllBytes(ficheroDecodificado));
+
+		// Solo se decodifican los bloques que contienen el intervalo, con el código
+		// indicado en el contenedor
+		final String resumen = errores.toString("UTF-8").trim();
+		assertTrue(resumen.startsWith("{\"operacion\":\"decodificacion\",\"codigo\":\"hamming:5\""));
+		assertTrue(resumen.contains("\"bloquesIntegros\":3,\"bloquesDanados\":0"));
+
+		new Hammer().run("-q", "--contenedor", "-d", ficheroDecodificado.toString(), ficheroContenedor.toString());
+		assertArrayEquals(fuente, Files.readAllBytes(ficheroDecodificado));
+	}
+
+	@Test
+	public void testArgumentosIncorrectosNoAbrenLaSalida() throws IOException {
+		final Path ficheroFuente = escribir("fuente", new byte[] { 1, 2, 3 });
+		final Path ficheroMatriz = escribir("matriz", "1101100\n1011010\n0111001\n".getBytes("UTF-8"));
+		final Path ficheroSalida = escribir("salida", new byte[] { 4, 5, 6 });
+
+		final ByteArrayOutputStream errores = new ByteArrayOutputStream();
+		System.setErr(new PrintStream(errores, true, "UTF-8"));
+		new Hammer().run(
+			"-q", "--codigo", "hamming:3", "--matriz-control", ficheroMatriz.toString(),
+			"-c", ficheroSalida.toString(), ficheroFuente.toString()
+		);
+
+		// La salida existente no se trunca, y el error se muestra aunque se pida silencio
+		assertArrayEquals(new byte[] { 4, 5, 6 }, Files.readAllBytes(ficheroSalida));
+		assertTrue(errores.toString("UTF-8").startsWith("Algún parámetro falta o es incorrecto"));
+	}
+
+	@Test
+	public void testContenedorRechazaIntervaloFueraDelOriginal() throws IOException {
+		final byte[] fuente = new byte[1000];
+		new Random(44).nextBytes(fuente);
+
+		final Path ficheroFuente = escribir("fuente", fuente);
+		final Path ficheroContenedor = directorio.resolve("contenedor");
+		final Path ficheroDecodificado = escribir("decodificado", new byte[] { 7 });
+
+		new Hammer().run("-q", "--contenedor", "-c", ficheroContenedor.toString(), ficheroFuente.toString());
+
+		final ByteArrayOutputStream errores = new ByteArrayOutputStream();
+		System.setErr(new PrintStream(errores, true, "UTF-8"));
+		new Hammer().run(
+			"-q", "--contenedor", "--desde", "1001", "-d", ficheroDecodificado.toString(), ficheroContenedor.toString()
+		);
+
+		// No se abre la salida
+		assertArrayEquals(new byte[] { 7 }, Files.readAllBytes(ficheroDecodificado));
+		assertTrue(errores.toString("UTF-8").startsWith("Algún parámetro falta o es incorrecto"));
+
+		// El intervalo vacío al final del original sí es válido
+		new Hammer().run(
+			"-q", "--contenedor", "--desde", "1000", "-d", ficheroDecodificado.toString(), ficheroContenedor.toString()
+		);
+		assertEquals(0, Files.size(ficheroDecodificado));
+	}
+
+	@Test
+	public void testSimulacionJson() throws IOException {
+		final ByteArrayOutputStream errores = new ByteArrayOutputStream();
+		System.setErr(new PrintStream(errores, true, "UTF-8"));
+		new Hammer().run(
+			"-q", "--json", "--simular", "0,0.02", "--palabras", "20000", "--codigo", "hamming:4", "--semilla", "44"
+		);
+
+		final String resumen = errores.toString("UTF-8").trim();
+		assertTrue(resumen.startsWith(
+			"{\"operacion\":\"simulacion\",\"codigo\":\"hamming:4\",\"palabras\":20000,\"confianza\":0.95,\"semilla\":44,\"puntos\":["
+		));
+
+		// Sin errores, todas las palabras llegan intactas
+		assertTrue(resumen.contains(
+			"{\"probabilidadError\":0.0,\"palabrasSinErrores\":20000,\"palabrasCorregidas\":0,\"palabrasIncorregibles\":0,\"palabrasMalDecodificadas\":0,"
+		));
+		assertTrue(resumen.contains("{\"probabilidadError\":0.02,"));
+
+		// Un código Hamming es perfecto: nunca detecta errores sin corregirlos
+		final Matcher incorregibles = Pattern.compile("\"palabrasIncorregibles\":([0-9]+)").matcher(resumen);
+		while (incorregibles.find()) {
+			assertEquals("0", incorregibles.group(1));
+		}
+	}
+
+	private Path escribir(final String nombre, final byte[] contenido) throws IOException {
+		return Files.write(directorio.resolve(nombre), contenido);
+	}
+
+	private static String[] concatenar(final String[] primeros, final String... siguientes) {
+		final String[] resultado = Arrays.copyOf(primeros, primeros.length + siguientes.length);
+		System.arraycopy(siguientes, 0, resultado, primeros.length, siguientes.length);
+
+		return resultado;
+	}
+
+	private static byte[] ejecutarConFlujosEstandar(final byte[] entrada, final String... args) {
+		final ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+		System.setIn(new ByteArrayInputStream(entrada));
+		System.setOut(new PrintStream(salida));
+		new Hammer().run(args);
+		System.out.flush();
+
+		return salida.toByteArray();
+	}
+}
@@ -2,6 +2,7 @@
 
 package es.uvigo.esei.tc.alejandrogg.hammer;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -9,6 +10,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 
 import org.junit.Test;
 
@@ -110,4 +113,182 @@ public class HammingAmpliado3_2Test {
 
 		assertTrue(todasDecodificacionesFallan);
 	}
+
+	@Test
+	public void testTablaCodificacionCoincideConReferencia() {
+		final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
+
+		for (int nibble = 0; nibble < 16; ++nibble) {
+			assertEquals(
+				HammingAmpliado3_2.codificarNibbleMatricial((byte) nibble),
+				codigo.codificarNibble((byte) nibble)
+			);
+		}
+	}
+
+	@Test
+	public void testTablaDecodificacionCoincideConReferencia() {
+		final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
+
+		for (int primera = 0; primera < 256; ++primera) {
+			final int referenciaPrimera = HammingAmpliado3_2.decodificarPalabraCodigoMatricial((byte) primera);
+
+			for (int segunda = 0; segunda < 256; ++segunda) {
+				final int referenciaSegunda = HammingAmpliado3_2.decodificarPalabraCodigoMatricial((byte) segunda);
+				final int par = codigo.decodificarPar((byte) primera, (byte) segunda);
+
+				assertEquals((referenciaPrimera & 0xF) | (referenciaSegunda & 0xF) << 4, par & 0xFF);
+				assertEquals(referenciaPrimera >>> 4, par >>> 8 & 0x3);
+				assertEquals(referenciaSegunda >>> 4, par >>> 10 & 0x3);
+			}
+		}
+	}
+
+	@Test
+	public void testDecodificacionParErrorSimple() {
+		final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
+		final int byteFuente = 0xA7;
+
+		final byte primera = (byte) (codigo.codificarNibble((byte) (byteFuente & 0xF)) ^ 1 << 5);
+		final byte segunda = codigo.codificarNibble((byte) (byteFuente >>> 4));
+		final int par = codigo.decodificarPar(primera, segunda);
+
+		assertEquals(byteFuente, par & 0xFF);
+		assertEquals(HammingAmpliado3_2.ESTADO_CORREGIDA, par >>> 8 & 0x3);
+		assertEquals(HammingAmpliado3_2.ESTADO_CORRECTA, par >>> 10 & 0x3);
+	}
+
+	@Test
+	public void testCodificacionDecodificacionArrays() {
+		final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
+		final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+		final byte[] fuente = new byte[256];
+		final byte[] codificado = new byte[fuente.length * 2 + 1];
+		final byte[] decodificado = new byte[fuente.length];
+
+		for (int i = 0; i < fuente.length; ++i) {
+			fuente[i] = (byte) i;
+		}
+
+		assertEquals(fuente.length * 2, codigo.codificar(fuente, 0, fuente.length, codificado, 1));
+
+		for (int i = 0; i < fuente.length; ++i) {
+			assertEquals(codigo.codificarNibble((byte) (i & 0xF)), codificado[1 + 2 * i]);
+			assertEquals(codigo.codificarNibble((byte) (i >>> 4)), codificado[2 + 2 * i]);
+		}
+
+		// Introducir un error simple en cada palabra código con índice múltiplo de 3
+		for (int i = 1; i < codificado.length; i += 3) {
+			codificado[i] ^= 1 << (i % 8);
+		}
+
+		assertEquals(fuente.length, codigo.decodificar(codificado, 1, fuente.length * 2, decodificado, 0, estadisticas));
+		assertArrayEquals(fuente, decodificado);
+		assertEquals(fuente.length * 2 - (fuente.length * 2 + 2) / 3, estadisticas.getPalabrasCorrectas());
+		assertEquals((fuente.length * 2 + 2) / 3, estadisticas.getPalabrasCorregidas());
+		assertEquals(0, estadisticas.getPalabrasIncorregibles());
+		assertEquals(0, estadisticas.getBytesDescartados());
+	}
+
+	@Test
+	public void testDecodificacionArraysDescartaBytes() {
+		final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
+		final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+		final byte[] fuente = new byte[] { 0x12, 0x34, 0x56 };
+		final byte[] codificado = new byte[fuente.length * 2 + 1];
+		final byte[] decodificado = new byte[fuente.length];
+
+		codigo.codificar(fuente, 0, fuente.length, codificado, 0);
+
+		// Error doble en el nibble de mayor peso del segundo byte, y palabra sin pareja al final
+		codificado[3] ^= 0b11;
+
+		assertEquals(2, codigo.decodificar(codificado, 0, codificado.length, decodificado, 0, estadisticas));
+		assertEquals(0x12, decodificado[0]);
+		assertEquals(0x56, decodificado[1]);
+		assertEquals(5, estadisticas.getPalabrasCorrectas());
+		assertEquals(1, estadisticas.getPalabrasIncorregibles());
+		assertEquals(1, estadisticas.getBytesDescartados());
+	}
+
+	@Test
+	public void testDecodificacionConservaBorrados() {
+		final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
+		final byte[] fuente = new byte[] { 0x12, 0x34, 0x56 };
+		final byte[] codificado = new byte[fuente.length * 2];
+
+		codigo.codificar(fuente, 0, fuente.length, codificado, 0);
+		codificado[3] ^= 0b11;
+
+		// Arrays, con el destino a partir de la posición 2 de una salida que empieza en 100
+		final EstadisticasDecodificacion estadisticasArrays = new EstadisticasDecodificacion(new MapaBorrados());
+		final byte[] decodificado = new byte[fuente.length + 2];
+		estadisticasArrays.setDesplazamientoBorrados(100);
+
+		assertEquals(3, codigo.decodificar(codificado, 0, codificado.length, decodificado, 2, estadisticasArrays));
+		assertArrayEquals(new byte[] { 0, 0, 0x12, EstadisticasDecodificacion.BYTE_BORRADO, 0x56 }, decodificado);
+		assertEquals(0, estadisticasArrays.getBytesDescartados());
+		assertEquals(1, estadisticasArrays.getBytesBorrados());
+		assertTrue(estadisticasArrays.getBorrados().contiene(103));
+
+		// Búferes cuyo array empieza más adelante, para que sus índices no coincidan
+		final EstadisticasDecodificacion estadisticasBuffers = new EstadisticasDecodificacion(new MapaBorrados());
+		final ByteBuffer destino = ByteBuffer.wrap(new byte[10], 3, 7).slice();
+		((Buffer) destino).position(1);
+
+		assertEquals(3, codigo.decodificar(ByteBuffer.wrap(codificado), destino, estadisticasBuffers));
+		assertEquals(0x56, destino.get(3));
+		assertEquals(1, estadisticasBuffers.getBytesBorrados());
+		assertTrue(estadisticasBuffers.getBorrados().contiene(2));
+	}
+
+	@Test
+	public void testDecodificacionNibbleSinExcepciones() {
+		final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
+
+		for (int palabra = 0; palabra < 256; ++palabra) {
+			assertEquals(
+				HammingAmpliado3_2.decodificarPalabraCodigoMatricial((byte) palabra),
+				codigo.decodificarNibble((byte) palabra)
+			);
+		}
+
+		assertEquals(
+			HammingAmpliado3_2.ESTADO_INCORREGIBLE,
+			codigo.decodificarNibble((byte) (codigo.codificarNibble((byte) 0x5) ^ 0b11)) >>> 4
+		);
+	}
+
+	@Test
+	public void testCodificacionDecodificacionBuffers() {
+		final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
+
+		for (final boolean directos : new boolean[] { false, true }) {
+			final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+			final ByteBuffer fuente = directos ? ByteBuffer.allocateDirect(100) : ByteBuffer.allocate(100);
+			final ByteBuffer codificado = directos ? ByteBuffer.allocateDirect(150) : ByteBuffer.allocate(150);
+			final ByteBuffer decodificado = directos ? ByteBuffer.allocateDirect(100) : ByteBuffer.allocate(100);
+
+			for (int i = 0; i < fuente.capacity(); ++i) {
+				fuente.put(i, (byte) (i * 7));
+			}
+
+			// Solo caben 75 bytes codificados en el búfer de destino
+			assertEquals(150, codigo.codificar(fuente, codificado));
+			assertEquals(75, fuente.position());
+			assertEquals(150, codificado.position());
+
+			// Conversión a Buffer por compatibilidad binaria con Java 8
+			((Buffer) codificado).flip();
+			codificado.put(10, (byte) (codificado.get(10) ^ 0x40));
+
+			assertEquals(75, codigo.decodificar(codificado, decodificado, estadisticas));
+			assertEquals(0, codificado.remaining());
+			assertEquals(1, estadisticas.getPalabrasCorregidas());
+
+			for (int i = 0; i < 75; ++i) {
+				assertEquals(fuente.get(i), decodificado.get(i));
+			}
+		}
+	}
 }
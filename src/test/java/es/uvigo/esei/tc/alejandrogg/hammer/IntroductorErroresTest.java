@@ -0,0 +1,177 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link IntroductorErrores} y sus modelos de canal.
+ *
+ * @author Alejandro González García
+ */
+public class IntroductorErroresTest {
+	@Test
+	public void testNingunoNoModificaLasPalabras() {
+		final IntroductorErrores introductor = IntroductorErrores.ninguno();
+		final byte[] palabras = new byte[1000];
+
+		introductor.introducir(palabras, 0, palabras.length, 0);
+
+		assertFalse(introductor.introduceErrores());
+		assertArrayEquals(new byte[1000], palabras);
+		assertEquals(0, introductor.getErroresIntroducidos());
+	}
+
+	@Test
+	public void testPesoFijoNiegaKBitsPorByte() {
+		for (int k = 1; k <= 8; ++k) {
+			final IntroductorErrores introductor = IntroductorErrores.crear("fijo:" + k, k);
+			final byte[] palabras = new byte[1000];
+
+			introductor.introducir(palabras, 10, 980, 10);
+
+			for (int i = 0; i < palabras.length; ++i) {
+				assertEquals(i < 10 || i >= 990 ? 0 : k, Integer.bitCount(palabras[i] & 0xFF));
+			}
+			assertEquals(980L * k, introductor.getErroresIntroducidos());
+		}
+	}
+
+	@Test
+	public void testNormalLimitadoNoSuperaDosErrores() {
+		final IntroductorErrores introductor = IntroductorErrores.crear("normal-limitado", 1);
+		final byte[] palabras = new byte[100_000];
+		final int[] bytesPorPeso = new int[9];
+
+		introductor.introducir(palabras, 0, palabras.length, 0);
+
+		long errores = 0;
+		for (final byte palabra : palabras) {
+			final int peso = Integer.bitCount(palabra & 0xFF);
+			++bytesPorPeso[peso];
+			errores += peso;
+		}
+
+		assertEquals(errores, introductor.getErroresIntroducidos());
+		assertEquals(palabras.length, bytesPorPeso[0] + bytesPorPeso[1] + bytesPorPeso[2]);
+		// P(|⌊Z⌋| mod 3 = 1) ≈ 0,479
+		assertEquals(0.479, bytesPorPeso[1] / (double) palabras.length, 0.01);
+	}
+
+	@Test
+	public void testBinarioSimetricoRespetaLaProbabilidad() {
+		final double p = 0.001;
+		final IntroductorErrores introductor = IntroductorErrores.crear("bsc:" + p, 2);
+		final byte[] palabras = new byte[1_000_000];
+
+		for (int i = 0; i < palabras.length; i += 999) {
+			introductor.introducir(palabras, i, Math.min(999, palabras.length - i), i);
+		}
+
+		long errores = 0;
+		for (final byte palabra : palabras) {
+			errores += Integer.bitCount(palabra & 0xFF);
+		}
+
+		assertEquals(errores, introductor.getErroresIntroducidos());
+		// Media de 8000 errores, con desviación típica de unos 89
+		assertEquals(8 * palabras.length * p, errores, 400);
+	}
+
+	@Test
+	public void testBinarioSimetricoEnBuferEquivaleAArray() {
+		final byte[] palabras = new byte[10_000];
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(palabras.length);
+
+		IntroductorErrores.crear("bsc:0.01", 3).introducir(palabras, 0, palabras.length, 0);
+		IntroductorErrores.crear("bsc:0.01", 3).introducir(buffer, 0, palabras.length, 0);
+
+		final byte[] contenidoBuffer = new byte[palabras.length];
+		buffer.get(contenidoBuffer);
+		assertArrayEquals(palabras, contenidoBuffer);
+	}
+
+	@Test
+	public void testGilbertElliottIntroduceRafagas() {
+		// Sin errores en el estado bueno, y con ráfagas de unos 100 bits en el malo
+		final IntroductorErrores introductor = IntroductorErrores.crear(
+			"gilbert-elliott:0.0001,0.01,0,0.5", 4
+		);
+		final byte[] palabras = new byte[1_000_000];
+
+		introductor.introducir(palabras, 0, palabras.length, 0);
+
+		long errores = 0;
+		long bytesConErrores = 0;
+		long bytesConErroresTrasOtro = 0;
+		for (int i = 0; i < palabras.length; ++i) {
+			errores += Integer.bitCount(palabras[i] & 0xFF);
+			if (palabras[i] != 0) {
+				++bytesConErrores;
+				if (i > 0 && palabras[i - 1] != 0) {
+					++bytesConErroresTrasOtro;
+				}
+			}
+		}
+
+		assertTrue(introductor.introduceErrores());
+		assertEquals(errores, introductor.getErroresIntroducidos());
+		// Probabilidad estacionaria del estado malo de 1/101
+		assertEquals(8 * palabras.length * 0.5 / 101, errores, 8 * palabras.length * 0.5 / 101 * 0.25);
+		// Dentro de una ráfaga, casi todos los bytes tienen errores
+		assertTrue(bytesConErroresTrasOtro > 0.8 * bytesConErrores);
+	}
+
+	@Test
+	public void testErroresSoloDependenDeLaPosicion() {
+		final Random prng = new Random(7);
+
+		for (final String canal : new String[] { "fijo:2", "normal", "bsc:0.001", "gilbert-elliott:0.001,0.05,0,0.4" }) {
+			final IntroductorErrores introductor = IntroductorErrores.crear(canal, 8);
+			final byte[] esperado = new byte[300_000];
+			introductor.introducir(esperado, 0, esperado.length, 1000);
+
+			// Introducir los errores en trozos de distintos tamaños, en cualquier
+			// orden y con introductores derivados
+			final byte[] palabras = new byte[esperado.length];
+			final IntroductorErrores derivado = introductor.derivar();
+			final int[] cortes = { 0, 1, 70_000, 70_001, 131_071, 200_000, 299_999, palabras.length };
+			for (int i = cortes.length - 2; i >= 0; --i) {
+				final IntroductorErrores usado = prng.nextBoolean() ? derivado : introductor.derivar();
+				usado.introducir(palabras, cortes[i], cortes[i + 1] - cortes[i], 1000 + cortes[i]);
+			}
+
+			assertArrayEquals(canal, esperado, palabras);
+		}
+	}
+
+	@Test
+	public void testProbabilidadesNulasNoIntroducenErrores() {
+		assertFalse(IntroductorErrores.crear("bsc:0", 5).introduceErrores());
+		assertFalse(IntroductorErrores.crear("fijo:0", 5).introduceErrores());
+		assertFalse(IntroductorErrores.crear("gilbert-elliott:0,1,0,1", 5).introduceErrores());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testModeloDesconocido() {
+		IntroductorErrores.crear("gauss", 6);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testProbabilidadInvalida() {
+		IntroductorErrores.crear("bsc:1.5", 6);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNumeroParametrosIncorrecto() {
+		IntroductorErrores.crear("gilbert-elliott:0.1,0.1", 6);
+	}
+}
@@ -0,0 +1,149 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link Lote}.
+ *
+ * @author Alejandro González García
+ */
+public class LoteTest {
+	private Path directorio;
+
+	@Before
+	public void crearDirectorio() throws IOException {
+		directorio = Files.createTempDirectory("hammer");
+	}
+
+	@After
+	public void borrarDirectorio() throws IOException {
+		try (Stream<Path> rutas = Files.walk(directorio)) {
+			for (final Path ruta : (Iterable<Path>) rutas.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(ruta);
+			}
+		}
+	}
+
+	@Test
+	public void testEquivaleAFicherosIndividuales() throws IOException {
+		final Random prng = new Random(70);
+		final Path entrada = directorio.resolve("entrada");
+		final byte[][] fuentes = new byte[20][];
+		final String[] rutas = new String[fuentes.length];
+
+		// Ficheros pequeños, vacíos y más grandes que un trozo, en varios directorios
+		for (int i = 0; i < fuentes.length; ++i) {
+			fuentes[i] = new byte[i % 5 == 0 ? 30_000 + prng.nextInt(1000) : i % 7 == 0 ? 0 : prng.nextInt(3000)];
+			prng.nextBytes(fuentes[i]);
+
+			rutas[i] = "d" + i % 3 + (i % 2 == 0 ? "/sub/f" : "/f") + i;
+
+			final Path fichero = entrada.resolve(rutas[i]);
+			Files.createDirectories(fichero.getParent());
+			Files.write(fichero, fuentes[i]);
+		}
+
+		for (final String nombreCodigo : new String[] { "hamming-ampliado:3", "hamming:4", "hamming-ampliado:5" }) {
+			for (final int hilos : new int[] { 1, 4 }) {
+				final CodigoLineal codigo = CodigoLineal.crear(nombreCodigo);
+				final Path codificados = directorio.resolve("codificados-" + hilos);
+				final Path decodificados = directorio.resolve("decodificados-" + hilos);
+
+				final Lote codificacion = new Lote(codigo, hilos, 10_000);
+				codificacion.codificar(Collections.singletonList(entrada.toString()), codificados);
+
+				assertEquals(fuentes.length, codificacion.getFicheros());
+				assertEquals(4, codificacion.getFicherosTroceados());
+
+				final Lote decodificacion = new Lote(codigo, hilos, 10_000);
+				final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+				decodificacion.decodificar(Collections.singletonList(codificados.toString()), decodificados, estadisticas);
+
+				assertEquals(codificacion.getBytesEscritos(), decodificacion.getBytesLeidos());
+				assertEquals(codificacion.getBytesLeidos(), decodificacion.getBytesEscritos());
+				assertEquals(0, estadisticas.getPalabrasCorregidas() + estadisticas.getPalabrasIncorregibles());
+
+				for (int i = 0; i < fuentes.length; ++i) {
+					final ByteArrayOutputStream codificado = new ByteArrayOutputStream();
+					try (FlujoSalidaHamming flujo = new FlujoSalidaHamming(codificado, nombreCodigo)) {
+						flujo.write(fuentes[i]);
+					}
+
+					assertArrayEquals(codificado.toByteArray(), Files.readAllBytes(codificados.resolve(rutas[i])));
+					assertArrayEquals(fuentes[i], Files.readAllBytes(decodificados.resolve(rutas[i])));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testExpandir() throws IOException {
+		final Path entrada = directorio.resolve("entrada");
+		final Path salida = entrada.resolve("salida");
+
+		for (final String nombre : new String[] { "a.raw", "b.txt", "x/c.raw", "x/y/d.raw", "salida/e.raw" }) {
+			final Path fichero = entrada.resolve(nombre);
+			Files.createDirectories(fichero.getParent());
+			Files.write(fichero, new byte[1]);
+		}
+
+		// Los patrones se aplican a la ruta relativa al directorio sin comodines,
+		// y el directorio de salida no forma parte de la entrada
+		assertEquals(
+			Arrays.asList("c.raw", "y/d.raw"),
+			destinos(Lote.expandir(Collections.singletonList(entrada + "/x/**.raw"), salida), salida)
+		);
+		assertEquals(
+			Arrays.asList("a.raw", "b.txt", "x/c.raw", "x/y/d.raw"),
+			destinos(Lote.expandir(Collections.singletonList(entrada.toString()), salida), salida)
+		);
+		assertEquals(
+			Arrays.asList("b.txt", "d.raw"),
+			destinos(Lote.expandir(Arrays.asList(entrada + "/*.txt", entrada + "/x/y/d.raw"), salida), salida)
+		);
+
+		try {
+			Lote.expandir(Collections.singletonList(entrada + "/*.wav"), salida);
+			fail();
+		} catch (final NoSuchFileException exc) {
+			// Esperado
+		}
+
+		try {
+			Lote.expandir(Arrays.asList(entrada.resolve("x").toString(), entrada + "/x/c.raw"), salida);
+			fail();
+		} catch (final IOException exc) {
+			// Esperado: ambas entradas corresponden a salida/c.raw
+		}
+	}
+
+	private static List<String> destinos(final List<Path[]> ficheros, final Path salida) {
+		final String[] destinos = new String[ficheros.size()];
+		for (int i = 0; i < destinos.length; ++i) {
+			destinos[i] = salida.relativize(ficheros.get(i)[1]).toString().replace('\\', '/');
+		}
+		Arrays.sort(destinos);
+
+		return Arrays.asList(destinos);
+	}
+}
@@ -0,0 +1,113 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link MapaBorrados}.
+ *
+ * @author Alejandro González García
+ */
+public class MapaBorradosTest {
+	@Test
+	public void testRachasConsecutivasSeUnen() {
+		final MapaBorrados mapa = new MapaBorrados();
+		mapa.registrar(5, 1);
+		mapa.registrar(6, 2);
+		mapa.registrar(7, 3);
+		mapa.registrar(20, 1);
+
+		assertEquals(2, mapa.getRachas());
+		assertEquals(6, mapa.getBytesBorrados());
+		assertFalse(mapa.contiene(4));
+		assertTrue(mapa.contiene(5));
+		assertTrue(mapa.contiene(9));
+		assertFalse(mapa.contiene(10));
+		assertTrue(mapa.contiene(20));
+		assertFalse(mapa.contiene(21));
+	}
+
+	@Test
+	public void testAcumularDesordenados() {
+		final MapaBorrados primero = new MapaBorrados();
+		primero.registrar(0, 2);
+		primero.registrar(100, 5);
+
+		final MapaBorrados segundo = new MapaBorrados();
+		segundo.registrar(2, 3);
+		segundo.registrar(50, 1);
+		segundo.registrar(200, 1);
+
+		primero.acumular(segundo);
+
+		assertEquals(4, primero.getRachas());
+		assertEquals(12, primero.getBytesBorrados());
+		assertTrue(primero.contiene(4));
+		assertTrue(primero.contiene(50));
+		assertTrue(primero.contiene(200));
+	}
+
+	@Test
+	public void testRecortar() {
+		final MapaBorrados mapa = new MapaBorrados();
+		mapa.registrar(0, 4);
+		mapa.registrar(10, 4);
+
+		mapa.recortar(12);
+		assertEquals(2, mapa.getRachas());
+		assertEquals(6, mapa.getBytesBorrados());
+		assertFalse(mapa.contiene(12));
+
+		mapa.recortar(3);
+		assertEquals(1, mapa.getRachas());
+		assertEquals(3, mapa.getBytesBorrados());
+	}
+
+	@Test
+	public void testEscribirYLeer() throws IOException {
+		final Random prng = new Random(18);
+		final MapaBorrados mapa = new MapaBorrados();
+		long posicion = 0;
+
+		for (int i = 0; i < 5000; ++i) {
+			posicion += 1 + (prng.nextBoolean() ? prng.nextInt(100) : (long) prng.nextInt(Integer.MAX_VALUE) << 8);
+			final long longitud = 1 + prng.nextInt(300);
+
+			mapa.registrar(posicion, longitud);
+			posicion += longitud;
+		}
+
+		final ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		mapa.escribir(salida);
+		final MapaBorrados leido = MapaBorrados.leer(new ByteArrayInputStream(salida.toByteArray()));
+
+		assertEquals(mapa.getRachas(), leido.getRachas());
+		assertEquals(mapa.getBytesBorrados(), leido.getBytesBorrados());
+
+		final ByteArrayOutputStream reescrito = new ByteArrayOutputStream();
+		leido.escribir(reescrito);
+		assertEquals(salida.toString("ISO-8859-1"), reescrito.toString("ISO-8859-1"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testLeerSinCabecera() throws IOException {
+		MapaBorrados.leer(new ByteArrayInputStream(new byte[] { 'H', 'M', 'B', 'X' }));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRegistrarDesordenado() {
+		final MapaBorrados mapa = new MapaBorrados();
+		mapa.registrar(10, 1);
+		mapa.registrar(5, 1);
+	}
+}
@@ -0,0 +1,123 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static es.uvigo.esei.tc.alejandrogg.hammer.UtilidadesNucleos.assertMismasEstadisticas;
+import static es.uvigo.esei.tc.alejandrogg.hammer.UtilidadesNucleos.envolver;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link NucleoHammingAmpliado3_2}.
+ *
+ * @author Alejandro González García
+ */
+public class NucleoHammingAmpliado3_2Test {
+	@Test
+	public void testCodificarCuatroBytes() {
+		final Random prng = new Random(8);
+
+		for (int i = 0; i < 10000; ++i) {
+			final int bytesFuente = prng.nextInt();
+			final long palabrasCodigo = NucleoHammingAmpliado3_2.codificarCuatroBytes(bytesFuente);
+
+			for (int j = 0; j < 4; ++j) {
+				final int byteFuente = bytesFuente >>> 8 * j;
+
+				assertEquals(HammingAmpliado3_2.palabraCodigo(byteFuente), (byte) (palabrasCodigo >>> 16 * j));
+				assertEquals(HammingAmpliado3_2.palabraCodigo(byteFuente >>> 4), (byte) (palabrasCodigo >>> 16 * j + 8));
+			}
+		}
+	}
+
+	@Test
+	public void testSindromes() {
+		final HammingAmpliado3_2 codigo = new HammingAmpliado3_2();
+
+		// Cada palabra tiene síndrome nulo si y solo si se decodifica sin errores
+		for (int palabra = 0; palabra < 256; ++palabra) {
+			final long sindromes = NucleoHammingAmpliado3_2.sindromes(palabra * 0x0101010101010101L);
+			final boolean correcta = codigo.decodificarPar((byte) palabra, (byte) palabra) >>> 8 == 0;
+
+			assertEquals(correcta, sindromes == 0);
+		}
+	}
+
+	@Test
+	public void testPalabrasConErrores() {
+		final Random prng = new Random(9);
+		final long[] grupo = new long[8];
+
+		for (int i = 0; i < 1000; ++i) {
+			long esperado = 0;
+
+			for (int j = 0; j < grupo.length; ++j) {
+				grupo[j] = NucleoHammingAmpliado3_2.codificarCuatroBytes(prng.nextInt());
+
+				for (int k = 0; k < 8; ++k) {
+					if (prng.nextInt(16) == 0) {
+						grupo[j] ^= 1L << 8 * k + prng.nextInt(8);
+						esperado |= 1L << 8 * j + k;
+					}
+				}
+			}
+
+			assertEquals(esperado, NucleoHammingAmpliado3_2.palabrasConErrores(grupo));
+		}
+	}
+
+	@Test
+	public void testNucleosDecodificacion() {
+		final Random prng = new Random(10);
+
+		for (final int pares : new int[] { 0, 1, 3, 4, 31, 32, 33, 1000, 1027 }) {
+			for (final int erroresPorMil : new int[] { 0, 1, 50, 500 }) {
+				final byte[] codificado = new byte[pares * 2 + 1];
+				prng.nextBytes(codificado);
+
+				for (int i = 1; i < codificado.length; ++i) {
+					codificado[i] = HammingAmpliado3_2.palabraCodigo(codificado[i]);
+
+					if (prng.nextInt(1000) < erroresPorMil) {
+						codificado[i] ^= 1 << prng.nextInt(8);
+					}
+					if (prng.nextInt(1000) < erroresPorMil) {
+						codificado[i] ^= 1 << prng.nextInt(8);
+					}
+				}
+
+				final EstadisticasDecodificacion estadisticasTabla = new EstadisticasDecodificacion();
+				final byte[] esperado = new byte[pares];
+				final int escritosTabla = NucleoHammingAmpliado3_2.decodificarConTabla(
+					envolver(codificado), 1, pares, envolver(esperado), 0, estadisticasTabla
+				);
+
+				final EstadisticasDecodificacion estadisticasSwar = new EstadisticasDecodificacion();
+				final byte[] swar = new byte[pares];
+				assertEquals(escritosTabla, NucleoHammingAmpliado3_2.decodificarSwar(
+					envolver(codificado), 1, pares, envolver(swar), 0, estadisticasSwar
+				));
+				assertArrayEquals(esperado, swar);
+				assertMismasEstadisticas(estadisticasTabla, estadisticasSwar);
+
+				final EstadisticasDecodificacion estadisticasBitsliced = new EstadisticasDecodificacion();
+				final ByteBuffer bitsliced = ByteBuffer.allocateDirect(pares).order(ByteOrder.LITTLE_ENDIAN);
+				final ByteBuffer codificadoDirecto = ByteBuffer.allocateDirect(codificado.length).order(ByteOrder.LITTLE_ENDIAN);
+				codificadoDirecto.put(codificado);
+				assertEquals(escritosTabla, NucleoHammingAmpliado3_2.decodificarBitsliced(
+					codificadoDirecto, 1, pares, bitsliced, 0, estadisticasBitsliced
+				));
+				for (int i = 0; i < escritosTabla; ++i) {
+					assertEquals(esperado[i], bitsliced.get(i));
+				}
+				assertMismasEstadisticas(estadisticasTabla, estadisticasBitsliced);
+			}
+		}
+	}
+}
@@ -0,0 +1,128 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static es.uvigo.esei.tc.alejandrogg.hammer.UtilidadesNucleos.assertMismasEstadisticas;
+import static es.uvigo.esei.tc.alejandrogg.hammer.UtilidadesNucleos.envolver;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link NucleoVectorialHammingAmpliado3_2}, que solo se ejecutan
+ * si los núcleos vectoriales están disponibles.
+ *
+ * @author Alejandro González García
+ */
+public class NucleoVectorialHammingAmpliado3_2Test {
+	@Before
+	public void comprobarDisponibilidad() {
+		assumeTrue(NucleoVectorialHammingAmpliado3_2.disponible());
+	}
+
+	@Test
+	public void testCodificar() {
+		comprobarCodificacion();
+	}
+
+	@Test
+	public void testDecodificar() {
+		comprobarDecodificacion();
+	}
+
+	/**
+	 * Comprueba los núcleos con vectores de 128 bits, los preferidos en
+	 * procesadores como los ARM con NEON, en otra máquina virtual que los limita
+	 * a ese tamaño.
+	 */
+	@Test
+	public void testVectoresDe128Bits() throws IOException, InterruptedException {
+		final Process proceso = new ProcessBuilder(
+			Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+			"--add-modules", "jdk.incubator.vector", "-XX:MaxVectorSize=16",
+			"-cp", System.getProperty("java.class.path"),
+			NucleoVectorialHammingAmpliado3_2Test.class.getName()
+		).redirectErrorStream(true).start();
+
+		final ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		try (InputStream flujo = proceso.getInputStream()) {
+			final byte[] buffer = new byte[4096];
+			int leidos;
+			while ((leidos = flujo.read(buffer)) >= 0) {
+				salida.write(buffer, 0, leidos);
+			}
+		}
+
+		assertEquals(new String(salida.toByteArray(), StandardCharsets.UTF_8), 0, proceso.waitFor());
+	}
+
+	/**
+	 * Comprueba los núcleos en la máquina virtual de {@link #testVectoresDe128Bits()}.
+	 */
+	public static void main(final String[] args) {
+		assertTrue(NucleoVectorialHammingAmpliado3_2.disponible());
+
+		comprobarCodificacion();
+		comprobarDecodificacion();
+	}
+
+	private static void comprobarCodificacion() {
+		final Random prng = new Random(11);
+
+		for (final int longitud : new int[] { 0, 1, 15, 16, 63, 64, 65, 1000 }) {
+			final byte[] fuente = new byte[longitud + 3];
+			prng.nextBytes(fuente);
+
+			final byte[] esperado = new byte[longitud * 2 + 1];
+			NucleoHammingAmpliado3_2.codificar(envolver(fuente), 3, longitud, envolver(esperado), 1);
+
+			final byte[] vectorial = new byte[longitud * 2 + 1];
+			assertEquals(longitud * 2, NucleoVectorialHammingAmpliado3_2.codificar(fuente, 3, longitud, vectorial, 1));
+			assertArrayEquals(esperado, vectorial);
+		}
+	}
+
+	private static void comprobarDecodificacion() {
+		final Random prng = new Random(12);
+
+		for (final int pares : new int[] { 0, 1, 7, 8, 31, 32, 33, 1000 }) {
+			for (final int erroresPorMil : new int[] { 0, 1, 50, 500 }) {
+				final byte[] codificado = new byte[pares * 2 + 1];
+				prng.nextBytes(codificado);
+
+				for (int i = 1; i < codificado.length; ++i) {
+					codificado[i] = HammingAmpliado3_2.palabraCodigo(codificado[i]);
+
+					if (prng.nextInt(1000) < erroresPorMil) {
+						codificado[i] ^= 1 << prng.nextInt(8);
+					}
+				}
+
+				final EstadisticasDecodificacion estadisticasEsperadas = new EstadisticasDecodificacion();
+				final byte[] esperado = new byte[pares];
+				final int escritos = NucleoHammingAmpliado3_2.decodificar(
+					envolver(codificado), 1, pares, envolver(esperado), 0, estadisticasEsperadas
+				);
+
+				final EstadisticasDecodificacion estadisticas = new EstadisticasDecodificacion();
+				final byte[] vectorial = new byte[pares];
+				assertEquals(escritos, NucleoVectorialHammingAmpliado3_2.decodificar(
+					codificado, 1, pares, vectorial, 0, estadisticas
+				));
+				assertArrayEquals(esperado, vectorial);
+				assertMismasEstadisticas(estadisticasEsperadas, estadisticas);
+			}
+		}
+	}
+}
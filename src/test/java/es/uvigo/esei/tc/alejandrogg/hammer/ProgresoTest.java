@@ -0,0 +1,97 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link Progreso}.
+ *
+ * @author Alejandro González García
+ */
+public class ProgresoTest {
+	@Test
+	public void testRegistroConcurrente() throws InterruptedException {
+		final Progreso progreso = new Progreso(new PrintStream(new ByteArrayOutputStream()), -1, true);
+		final Thread[] hilos = new Thread[4];
+
+		for (int i = 0; i < hilos.length; ++i) {
+			hilos[i] = new Thread(() -> {
+				for (int j = 0; j < 10_000; ++j) {
+					progreso.registrar(3, 2, 1);
+				}
+			});
+			hilos[i].start();
+		}
+
+		for (final Thread hilo : hilos) {
+			hilo.join();
+		}
+
+		assertEquals(3 * 10_000 * hilos.length, progreso.getBytes());
+		assertTrue(progreso.muestrear(System.nanoTime()).endsWith(
+			String.format(", %.3f %% de palabras corregidas", 50.0)
+		));
+	}
+
+	@Test
+	public void testPorcentajeYTiempoRestante() {
+		final Progreso progreso = new Progreso(new PrintStream(new ByteArrayOutputStream()), 4_000_000, false);
+		progreso.registrar(1_000_000);
+
+		// Si un cuarto de la entrada ha tardado 2 s, quedan 6 s
+		final String linea = progreso.muestrear(System.nanoTime() + TimeUnit.SECONDS.toNanos(2));
+		assertTrue(linea.contains(String.format(", %.1f %% de %.1f MB, ", 25.0, 4.0)));
+		assertTrue(linea.endsWith(", quedan 0:00:06"));
+
+		// La velocidad es la del intervalo desde la muestra anterior
+		progreso.registrar(3_000_000);
+		assertTrue(progreso.muestrear(System.nanoTime() + TimeUnit.SECONDS.toNanos(3)).startsWith(
+			String.format("> %.1f MB/s, %.1f %%", 3.0, 100.0)
+		));
+	}
+
+	@Test
+	public void testLongitudDesconocida() {
+		final Progreso progreso = new Progreso(new PrintStream(new ByteArrayOutputStream()), -1, false);
+		progreso.registrar(2_500_000);
+
+		final String linea = progreso.muestrear(System.nanoTime());
+		assertTrue(linea.endsWith(String.format(", %.1f MB", 2.5)));
+		assertFalse(linea.contains("quedan"));
+	}
+
+	@Test
+	public void testCerrarBorraLaLinea() throws InterruptedException {
+		final ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		final Progreso progreso = new Progreso(new PrintStream(salida, true), 1000, false);
+
+		progreso.iniciar();
+		Thread.sleep(Progreso.INTERVALO_MUESTREO_MS * 3 / 2);
+		progreso.close();
+
+		final String texto = salida.toString();
+		assertTrue(texto.startsWith("\r> "));
+		assertTrue(texto.matches("(?s).*\r *\r"));
+	}
+
+	@Test
+	public void testNingunoNoRegistra() {
+		Progreso.ninguno().registrar(5, 1, 1);
+
+		assertEquals(0, Progreso.ninguno().getBytes());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNingunoNoSeMuestra() {
+		Progreso.ninguno().iniciar();
+	}
+}
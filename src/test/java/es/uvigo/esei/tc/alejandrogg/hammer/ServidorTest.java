@@ -0,0 +1,162 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link Servidor} y {@link Cliente}.
+ *
+ * @author Alejandro González García
+ */
+public class ServidorTest {
+	private Servidor servidor;
+	private Thread hiloServidor;
+
+	@Before
+	public void arrancarServidor() throws IOException {
+		servidor = new Servidor("0", 2, new PrintStream(new OutputStream() {
+			@Override
+			public void write(final int b) {
+				// Descartar el registro
+			}
+		}));
+
+		hiloServidor = new Thread(() -> {
+			try {
+				servidor.servir();
+			} catch (final IOException exc) {
+				throw new AssertionError(exc);
+			}
+		});
+		hiloServidor.start();
+	}
+
+	@After
+	public void pararServidor() throws IOException, InterruptedException {
+		servidor.close();
+		hiloServidor.join();
+	}
+
+	@Test
+	public void testEquivaleAFlujos() throws IOException {
+		final Random prng = new Random(60);
+
+		try (Cliente cliente = new Cliente(servidor.getDireccion())) {
+			for (final String nombreCodigo : new String[] { "hamming-ampliado:3", "hamming:4", "hamming-ampliado:5" }) {
+				final byte[] fuente = new byte[200_003];
+				prng.nextBytes(fuente);
+
+				final ByteArrayOutputStream codificadoFlujo = new ByteArrayOutputStream();
+				try (FlujoSalidaHamming flujo = new FlujoSalidaHamming(codificadoFlujo, nombreCodigo)) {
+					flujo.write(fuente);
+				}
+
+				// Varias peticiones por la misma conexión
+				final ByteArrayOutputStream codificado = new ByteArrayOutputStream();
+				final ProtocoloServidor.Resumen codificacion = cliente.procesar(
+					ProtocoloServidor.OPERACION_CODIFICAR, nombreCodigo, new ByteArrayInputStream(fuente), codificado
+				);
+				assertArrayEquals(nombreCodigo, codificadoFlujo.toByteArray(), codificado.toByteArray());
+				assertEquals(fuente.length, codificacion.getBytesLeidos());
+				assertEquals(codificado.size(), codificacion.getBytesEscritos());
+
+				final byte[] corrupto = codificado.toByteArray();
+				corrupto[1000] ^= 0x04;
+
+				final ByteArrayOutputStream decodificado = new ByteArrayOutputStream();
+				final ProtocoloServidor.Resumen decodificacion = cliente.procesar(
+					ProtocoloServidor.OPERACION_DECODIFICAR, nombreCodigo, new ByteArrayInputStream(corrupto), decodificado
+				);
+				assertArrayEquals(nombreCodigo, fuente, decodificado.toByteArray());
+				assertEquals(1, decodificacion.getPalabrasCorregidas());
+				assertEquals(0, decodificacion.getPalabrasIncorregibles());
+			}
+		}
+
+		assertEquals(6, servidor.getPeticionesAtendidas());
+	}
+
+	@Test
+	public void testConexionesConcurrentes() throws Exception {
+		final ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+
+		try {
+			final List<Future<Void>> clientes = new ArrayList<>();
+			for (int i = 0; i < 8; ++i) {
+				final int semilla = 61 + i;
+
+				// Solo se atienden dos conexiones a la vez, y el resto esperan
+				clientes.add(ejecutor.submit(() -> {
+					final byte[] fuente = new byte[50_000];
+					new Random(semilla).nextBytes(fuente);
+
+					try (Cliente cliente = new Cliente(servidor.getDireccion())) {
+						final ByteArrayOutputStream codificado = new ByteArrayOutputStream();
+						cliente.procesar(ProtocoloServidor.OPERACION_CODIFICAR, null, new ByteArrayInputStream(fuente), codificado);
+
+						final ByteArrayOutputStream decodificado = new ByteArrayOutputStream();
+						cliente.procesar(
+							ProtocoloServidor.OPERACION_DECODIFICAR, null, new ByteArrayInputStream(codificado.toByteArray()),
+							decodificado
+						);
+
+						assertArrayEquals(fuente, decodificado.toByteArray());
+					}
+
+					return null;
+				}));
+			}
+
+			for (final Future<Void> cliente : clientes) {
+				cliente.get();
+			}
+		} finally {
+			ejecutor.shutdownNow();
+		}
+
+		assertEquals(16, servidor.getPeticionesAtendidas());
+	}
+
+	@Test
+	public void testPeticionErroneaNoCierraLaConexion() throws IOException {
+		try (Cliente cliente = new Cliente(servidor.getDireccion())) {
+			try {
+				cliente.procesar(
+					ProtocoloServidor.OPERACION_CODIFICAR, "hamming:99", new ByteArrayInputStream(new byte[300_000]),
+					new ByteArrayOutputStream()
+				);
+				fail();
+			} catch (final IOException exc) {
+				assertTrue(exc.getMessage().contains("redundancia"));
+			}
+
+			final ByteArrayOutputStream codificado = new ByteArrayOutputStream();
+			cliente.procesar(
+				ProtocoloServidor.OPERACION_CODIFICAR, "hamming:3", new ByteArrayInputStream(new byte[7]), codificado
+			);
+			assertEquals(CodigoLineal.crear("hamming:3").getLongitudCodificada(7), codificado.size());
+		}
+
+		assertEquals(1, servidor.getPeticionesErroneas());
+	}
+}
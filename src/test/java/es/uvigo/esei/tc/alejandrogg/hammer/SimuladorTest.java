@@ -0,0 +1,103 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link Simulador}.
+ *
+ * @author Alejandro González García
+ */
+public class SimuladorTest {
+	@Test
+	public void testDistribucionPesos() {
+		assertArrayEquals(
+			new double[] { 1, 0, 0, 7, 7, 0, 0, 1 },
+			new Simulador(CodigoLineal.crear("hamming:3"), 1, 0).getDistribucionPesos(), 0
+		);
+		assertArrayEquals(
+			new double[] { 1, 0, 0, 0, 14, 0, 0, 0, 1 },
+			new Simulador(CodigoLineal.crear("hamming-ampliado:3"), 1, 0).getDistribucionPesos(), 0
+		);
+
+		// La distribución de pesos de un código suma el número de palabras código
+		for (final String nombreCodigo : new String[] { "hamming:5", "hamming-ampliado:6", "hamming:8" }) {
+			final CodigoLineal codigo = CodigoLineal.crear(nombreCodigo);
+			final double[] distribucion = new Simulador(codigo, 1, 0).getDistribucionPesos();
+
+			double palabras = 0;
+			for (int w = 1; w < 3; ++w) {
+				assertEquals(0, distribucion[w], 0);
+			}
+			for (final double palabrasPeso : distribucion) {
+				palabras += palabrasPeso;
+			}
+			assertEquals(Math.pow(2, codigo.getDimension()), palabras, Math.pow(2, codigo.getDimension()) * 1e-12);
+		}
+	}
+
+	@Test
+	public void testSimulacionConcuerdaConValoresExactos() throws InterruptedException {
+		for (final String nombreCodigo : new String[] { "hamming:3", "hamming-ampliado:3", "hamming-ampliado:4", "hamming:6" }) {
+			final Simulador simulador = new Simulador(CodigoLineal.crear(nombreCodigo), 3, 50);
+
+			for (final double p : new double[] { 0, 0.01, 0.05 }) {
+				final Simulador.Resultado resultado = simulador.simular(p, 100_000);
+
+				assertEquals(
+					resultado.getPalabras(),
+					resultado.getPalabrasSinErrores() + resultado.getPalabrasCorregidas() +
+					resultado.getPalabrasIncorregibles() + resultado.getPalabrasMalDecodificadas()
+				);
+				assertEquals(
+					1, resultado.getProbabilidadExactaSinErrores() + resultado.getProbabilidadExactaCorregida() +
+					resultado.getProbabilidadExactaIncorregible() + resultado.getProbabilidadExactaMalDecodificada(), 1e-12
+				);
+
+				// Con 100000 palabras, un intervalo de confianza algo más amplio que el
+				// calculado contiene el valor exacto con una probabilidad altísima
+				assertCercano(resultado.getPalabrasCorregidas(), resultado, resultado.getProbabilidadExactaCorregida());
+				assertCercano(resultado.getPalabrasIncorregibles(), resultado, resultado.getProbabilidadExactaIncorregible());
+				assertCercano(resultado.getPalabrasMalDecodificadas(), resultado, resultado.getProbabilidadExactaMalDecodificada());
+			}
+		}
+	}
+
+	@Test
+	public void testResultadoIndependienteDeLosHilos() throws InterruptedException {
+		final CodigoLineal codigo = CodigoLineal.crear("hamming-ampliado:5");
+		final Simulador.Resultado secuencial = new Simulador(codigo, 1, 51).simular(0.02, 70_001);
+		final Simulador.Resultado paralelo = new Simulador(codigo, 4, 51).simular(0.02, 70_001);
+
+		assertEquals(secuencial.getPalabrasSinErrores(), paralelo.getPalabrasSinErrores());
+		assertEquals(secuencial.getPalabrasCorregidas(), paralelo.getPalabrasCorregidas());
+		assertEquals(secuencial.getPalabrasIncorregibles(), paralelo.getPalabrasIncorregibles());
+		assertEquals(secuencial.getPalabrasMalDecodificadas(), paralelo.getPalabrasMalDecodificadas());
+	}
+
+	@Test
+	public void testIntervaloWilson() {
+		final double[] intervalo = Simulador.intervaloWilson(0, 1000);
+		assertEquals(0, intervalo[0], 0);
+		assertEquals(3.8e-3, intervalo[1], 1e-4);
+
+		final double[] intervaloMitad = Simulador.intervaloWilson(500, 1000);
+		assertEquals(1, intervaloMitad[0] + intervaloMitad[1], 1e-12);
+		assertEquals(0.469, intervaloMitad[0], 1e-3);
+	}
+
+	private static void assertCercano(final long palabras, final Simulador.Resultado resultado, final double exacta) {
+		final double[] intervalo = Simulador.intervaloWilson(palabras, resultado.getPalabras());
+		final double margen = intervalo[1] - intervalo[0];
+
+		assertTrue(
+			palabras + " palabras, exacta " + exacta,
+			exacta >= intervalo[0] - margen && exacta <= intervalo[1] + margen
+		);
+	}
+}
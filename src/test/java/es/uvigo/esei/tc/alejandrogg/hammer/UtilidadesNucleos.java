@@ -0,0 +1,43 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Utilidades comunes a las pruebas de los núcleos de codificación y
+ * decodificación masiva del código Hamming ampliado (3, 2).
+ *
+ * @author Alejandro González García
+ */
+final class UtilidadesNucleos {
+	private UtilidadesNucleos() {}
+
+	/**
+	 * Comprueba que dos decodificaciones han acumulado las mismas estadísticas.
+	 *
+	 * @param esperadas Las estadísticas esperadas.
+	 * @param obtenidas Las estadísticas obtenidas.
+	 */
+	static void assertMismasEstadisticas(final EstadisticasDecodificacion esperadas, final EstadisticasDecodificacion obtenidas) {
+		assertEquals(esperadas.getPalabrasCorrectas(), obtenidas.getPalabrasCorrectas());
+		assertEquals(esperadas.getPalabrasCorregidas(), obtenidas.getPalabrasCorregidas());
+		assertEquals(esperadas.getPalabrasIncorregibles(), obtenidas.getPalabrasIncorregibles());
+		assertArrayEquals(esperadas.getHistogramaSindromes(), obtenidas.getHistogramaSindromes());
+	}
+
+	/**
+	 * Envuelve un array en un búfer con el orden de bytes que esperan los
+	 * núcleos.
+	 *
+	 * @param array El array.
+	 * @return El búfer.
+	 */
+	static ByteBuffer envolver(final byte[] array) {
+		return ByteBuffer.wrap(array).order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
@@ -0,0 +1,92 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer.lib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link ColaCircular}.
+ *
+ * @author Alejandro González García
+ */
+public class ColaCircularTest {
+	@Test
+	public void testCapacidadPotenciaDeDos() {
+		assertEquals(1, new ColaCircular<Integer>(1).getCapacidad());
+		assertEquals(4, new ColaCircular<Integer>(3).getCapacidad());
+		assertEquals(8, new ColaCircular<Integer>(8).getCapacidad());
+		assertEquals(16, new ColaCircular<Integer>(9).getCapacidad());
+	}
+
+	@Test
+	public void testOfrecerYExtraer() {
+		final ColaCircular<Integer> cola = new ColaCircular<>(4);
+
+		assertNull(cola.extraer());
+
+		// Dar varias vueltas al búfer circular
+		for (int vuelta = 0; vuelta < 3; ++vuelta) {
+			for (int i = 0; i < 4; ++i) {
+				assertTrue(cola.ofrecer(vuelta * 4 + i));
+			}
+			assertFalse(cola.ofrecer(-1));
+
+			for (int i = 0; i < 4; ++i) {
+				assertEquals(Integer.valueOf(vuelta * 4 + i), cola.extraer());
+			}
+			assertNull(cola.extraer());
+		}
+
+		assertEquals(4, cola.getOcupacionMaxima());
+		assertEquals(2.5, cola.getOcupacionMedia(), 0);
+	}
+
+	@Test
+	public void testProductorYConsumidorConcurrentes() throws InterruptedException {
+		final ColaCircular<Integer> cola = new ColaCircular<>(2);
+		final int elementos = 100_000;
+		final AtomicReference<Throwable> fallo = new AtomicReference<>();
+
+		final Thread productor = new Thread(() -> {
+			try {
+				for (int i = 0; i < elementos; ++i) {
+					cola.poner(i);
+				}
+			} catch (final Throwable exc) {
+				fallo.set(exc);
+			}
+		});
+		productor.start();
+
+		for (int i = 0; i < elementos; ++i) {
+			assertEquals(Integer.valueOf(i), cola.tomar());
+		}
+
+		productor.join();
+		assertNull(fallo.get());
+		assertNull(cola.extraer());
+	}
+
+	@Test(expected = InterruptedException.class)
+	public void testInterrupcionMientrasEspera() throws InterruptedException {
+		Thread.currentThread().interrupt();
+		new ColaCircular<Integer>(1).tomar();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testElementoNulo() {
+		new ColaCircular<Integer>(1).ofrecer(null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCapacidadInvalida() {
+		new ColaCircular<Integer>(0);
+	}
+}
@@ -0,0 +1,73 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer.lib;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link EscritorBits} y {@link LectorBits}.
+ *
+ * @author Alejandro González García
+ */
+public class EscritorBitsTest {
+	@Test
+	public void testEscribir() {
+		final byte[] destino = new byte[3];
+		final EscritorBits escritor = new EscritorBits(destino, 0);
+
+		escritor.escribir(0b101, 3);
+		escritor.escribir(0b1111_0000_1, 9);
+		escritor.completar();
+
+		assertArrayEquals(new byte[] { (byte) 0b1011_1110, 0b0001_0000, 0 }, destino);
+		assertEquals(2, escritor.getPosicion());
+	}
+
+	@Test
+	public void testEscribirArray() {
+		final byte[] destino = new byte[2];
+		final EscritorBits escritor = new EscritorBits(destino, 0);
+
+		escritor.escribir(1, 1);
+		escritor.escribir(new byte[] { (byte) 0xFF, (byte) 0b1010_0000 }, 11);
+		escritor.completar();
+
+		assertArrayEquals(new byte[] { (byte) 0xFF, (byte) 0b1101_0000 }, destino);
+	}
+
+	@Test
+	public void testLeerEscrito() {
+		final Random prng = new Random(3);
+		final long[] valores = new long[1000];
+		final int[] longitudes = new int[valores.length];
+		final byte[] bits = new byte[valores.length * 8];
+		final EscritorBits escritor = new EscritorBits(bits, 0);
+
+		for (int i = 0; i < valores.length; ++i) {
+			longitudes[i] = prng.nextInt(65);
+			valores[i] = longitudes[i] == 64 ? prng.nextLong() : prng.nextLong() & ((1L << longitudes[i]) - 1);
+			escritor.escribir(valores[i], longitudes[i]);
+		}
+		escritor.completar();
+
+		final LectorBits lector = new LectorBits(bits, 0);
+		for (int i = 0; i < valores.length; ++i) {
+			assertEquals(valores[i], lector.leer(longitudes[i]));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEscribirDemasiadosBits() {
+		new EscritorBits(new byte[16], 0).escribir(0, 65);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDesplazamientoInvalido() {
+		new LectorBits(new byte[1], 2);
+	}
+}
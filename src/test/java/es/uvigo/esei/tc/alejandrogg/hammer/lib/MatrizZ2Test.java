@@ -4,6 +4,9 @@ package es.uvigo.esei.tc.alejandrogg.hammer.lib;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -142,4 +145,169 @@ public class MatrizZ2Test {
 			a.sumar(c)
 		);
 	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSumaDimensionesDistintas() {
+		a.sumar(b);
+	}
+
+	@Test
+	public void testTraspuesta() {
+		assertEquals(
+			new MatrizZ2(new byte[][] {
+				{ 1, 0 },
+				{ 0, 1 },
+				{ 1, 1 }
+			}),
+			new MatrizZ2(new byte[][] {
+				{ 1, 0, 1 },
+				{ 0, 1, 1 }
+			}).traspuesta()
+		);
+	}
+
+	@Test
+	public void testRango() {
+		assertEquals(
+			2,
+			new MatrizZ2(new byte[][] {
+				{ 1, 0, 1 },
+				{ 0, 1, 1 },
+				{ 1, 1, 0 }
+			}).rango()
+		);
+	}
+
+	@Test
+	public void testFormaSistematica() {
+		final MatrizZ2 h = new MatrizZ2(new byte[][] {
+			{ 1, 1, 1, 0, 1, 0, 0 },
+			{ 0, 1, 1, 1, 1, 1, 0 },
+			{ 1, 0, 1, 1, 1, 1, 1 }
+		});
+
+		assertEquals(
+			new MatrizZ2(new byte[][] {
+				{ 1, 1, 1, 0, 1, 0, 0 },
+				{ 1, 0, 0, 1, 0, 1, 0 },
+				{ 1, 1, 0, 0, 0, 0, 1 }
+			}),
+			h.formaSistematica(true)
+		);
+
+		assertEquals(MatrizZ2.identidad(3), h.formaSistematica(false).getColumnas(0, 3));
+	}
+
+	@Test(expected = ArithmeticException.class)
+	public void testFormaSistematicaImposible() {
+		new MatrizZ2(new byte[][] {
+			{ 1, 0, 1, 1 },
+			{ 0, 1, 1, 1 }
+		}).formaSistematica(true);
+	}
+
+	@Test
+	public void testInversa() {
+		final Random prng = new Random(1);
+
+		for (int n = 1; n < 100; n += 7) {
+			MatrizZ2 matriz;
+			do {
+				matriz = MatrizZ2.aleatoria(n, n, prng);
+			} while (matriz.rango() < n);
+
+			assertEquals(MatrizZ2.identidad(n), matriz.multiplicarPor(matriz.inversa()));
+			assertEquals(MatrizZ2.identidad(n), matriz.inversa().multiplicarPor(matriz));
+		}
+	}
+
+	@Test(expected = ArithmeticException.class)
+	public void testInversaSingular() {
+		new MatrizZ2(new byte[][] {
+			{ 1, 1 },
+			{ 1, 1 }
+		}).inversa();
+	}
+
+	@Test
+	public void testNucleo() {
+		final Random prng = new Random(2);
+
+		for (int n = 10; n < 200; n += 37) {
+			final MatrizZ2 matriz = MatrizZ2.aleatoria(n / 2, n, prng);
+			final MatrizZ2 nucleo = matriz.nucleo();
+
+			assertEquals(n - matriz.rango(), nucleo.getNumeroFilas());
+			assertEquals(nucleo.getNumeroFilas(), nucleo.rango());
+			assertEquals(MatrizZ2.ceros(n / 2, nucleo.getNumeroFilas()), matriz.multiplicarPor(nucleo.traspuesta()));
+		}
+
+		assertNull(MatrizZ2.identidad(5).nucleo());
+	}
+
+	@Test
+	public void testMultiplicacionCoincideConReferencia() {
+		final Random prng = new Random(3);
+
+		for (final int[] dimensiones : new int[][] { { 1, 1, 1 }, { 3, 9, 5 }, { 17, 64, 65 }, { 70, 130, 3 }, { 100, 100, 100 } }) {
+			final MatrizZ2 x = MatrizZ2.aleatoria(dimensiones[0], dimensiones[1], prng);
+			final MatrizZ2 y = MatrizZ2.aleatoria(dimensiones[1], dimensiones[2], prng);
+
+			assertEquals(
+				new MatrizZ2(multiplicarReferencia(desempaquetar(x), desempaquetar(y))),
+				x.multiplicarPor(y)
+			);
+		}
+	}
+
+	@Test
+	public void testMultiplicacionMatricesGrandes() {
+		final Random prng = new Random(4);
+
+		for (int n = 64; n <= 4096; n *= 2) {
+			final MatrizZ2 x = MatrizZ2.aleatoria(n, n, prng);
+			final MatrizZ2 y = MatrizZ2.aleatoria(n, n, prng);
+			final MatrizZ2 producto = x.multiplicarPor(y);
+
+			if (n <= 512) {
+				// Comparar con la implementación original, un byte por elemento
+				assertEquals(new MatrizZ2(multiplicarReferencia(desempaquetar(x), desempaquetar(y))), producto);
+			} else {
+				// La implementación original es cúbica: comprobar el producto
+				// mediante el algoritmo de Freivalds
+				final MatrizZ2 vector = MatrizZ2.aleatoria(n, 1, prng);
+				assertEquals(x.multiplicarPor(y.multiplicarPor(vector)), producto.multiplicarPor(vector));
+			}
+		}
+	}
+
+	/**
+	 * Desempaqueta los elementos de una matriz a un byte por elemento.
+	 */
+	private static byte[][] desempaquetar(final MatrizZ2 matriz) {
+		final byte[][] elementos = new byte[matriz.getNumeroFilas()][];
+		for (int i = 0; i < elementos.length; ++i) {
+			elementos[i] = matriz.getFila(i);
+		}
+
+		return elementos;
+	}
+
+	/**
+	 * Multiplica dos matrices almacenadas con un byte por elemento, como hacía la
+	 * implementación original de {@link MatrizZ2#multiplicarPor(MatrizZ2)}.
+	 */
+	private static byte[][] multiplicarReferencia(final byte[][] x, final byte[][] y) {
+		final byte[][] resultado = new byte[x.length][y[0].length];
+
+		for (int i = 0; i < x.length; ++i) {
+			for (int j = 0; j < y[0].length; ++j) {
+				for (int k = 0; k < y.length; ++k) {
+					resultado[i][j] ^= (byte) (x[i][k] * y[k][j]);
+				}
+			}
+		}
+
+		return resultado;
+	}
 }
@@ -0,0 +1,43 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer.lib;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link ObjetoJson}.
+ *
+ * @author Alejandro González García
+ */
+public class ObjetoJsonTest {
+	@Test
+	public void testObjetoVacio() {
+		assertEquals("{}", new ObjetoJson().toString());
+	}
+
+	@Test
+	public void testMiembros() {
+		assertEquals(
+			"{\"entero\":-3,\"real\":0.5,\"infinito\":null,\"cadena\":\"a\\\"b\\\\c\\u000a\",\"nula\":null," +
+			"\"array\":[1,2,3],\"vacio\":[],\"objeto\":{\"x\":1},\"objetos\":[{\"x\":1},{}]}",
+			new ObjetoJson()
+				.anadir("entero", -3)
+				.anadir("real", 0.5)
+				.anadir("infinito", Double.POSITIVE_INFINITY)
+				.anadir("cadena", "a\"b\\c\n")
+				.anadir("nula", (String) null)
+				.anadir("array", new long[] { 1, 2, 3 })
+				.anadir("vacio", new long[0])
+				.anadir("objeto", new ObjetoJson().anadir("x", 1))
+				.anadir("objetos", new ObjetoJson[] { new ObjetoJson().anadir("x", 1), new ObjetoJson() })
+				.toString()
+		);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNombreNulo() {
+		new ObjetoJson().anadir(null, 1);
+	}
+}
@@ -0,0 +1,115 @@
+// SPDX-License-Identifier: GPL-3.0-or-later
+
+package es.uvigo.esei.tc.alejandrogg.hammer.lib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Pruebas para {@link ReservaBuffers}.
+ *
+ * @author Alejandro González García
+ */
+public class ReservaBuffersTest {
+	@Test
+	public void testReutilizaLosBuffersDevueltos() {
+		final ReservaBuffers reserva = new ReservaBuffers(16, 2, false);
+
+		final ByteBuffer primero = reserva.tomar();
+		final ByteBuffer segundo = reserva.tomar();
+		assertNotSame(primero, segundo);
+		assertEquals(2, reserva.getBuffersCreados());
+
+		// El búfer devuelto se reutiliza vacío, sea cual sea su estado
+		primero.put((byte) 1);
+		// Conversión a Buffer por compatibilidad binaria con Java 8
+		((Buffer) primero).limit(5);
+		reserva.devolver(primero);
+		final ByteBuffer reutilizado = reserva.tomar();
+
+		assertSame(primero, reutilizado);
+		assertEquals(0, reutilizado.position());
+		assertEquals(16, reutilizado.limit());
+		assertEquals(2, reserva.getBuffersCreados());
+	}
+
+	@Test
+	public void testDescartaLosBuffersQueSobran() {
+		final ReservaBuffers reserva = new ReservaBuffers(8, 1, false);
+		final ByteBuffer primero = reserva.tomar();
+		final ByteBuffer segundo = reserva.tomar();
+
+		reserva.devolver(primero);
+		reserva.devolver(segundo);
+
+		assertSame(primero, reserva.tomar());
+		reserva.tomar();
+		assertEquals(3, reserva.getBuffersCreados());
+	}
+
+	@Test
+	public void testTipoDeLosBuffers() {
+		final ByteBuffer directo = new ReservaBuffers(32, 1, true).tomar();
+		final ByteBuffer noDirecto = new ReservaBuffers(32, 1, false).tomar();
+
+		assertTrue(directo.isDirect());
+		assertEquals(32, directo.capacity());
+		assertFalse(noDirecto.isDirect());
+		assertTrue(noDirecto.hasArray());
+		assertEquals(32, noDirecto.array().length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDevolverBufferAjeno() {
+		new ReservaBuffers(32, 1, true).devolver(ByteBuffer.allocate(32));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTamanoNoPositivo() {
+		new ReservaBuffers(0, 1, false);
+	}
+
+	@Test
+	public void testUsoConcurrente() throws InterruptedException {
+		final ReservaBuffers reserva = new ReservaBuffers(4, 4, false);
+		final AtomicReference<Throwable> fallo = new AtomicReference<>();
+		final Thread[] hilos = new Thread[4];
+
+		for (int i = 0; i < hilos.length; ++i) {
+			final byte marca = (byte) i;
+
+			hilos[i] = new Thread(() -> {
+				try {
+					for (int j = 0; j < 10_000; ++j) {
+						// Ningún otro hilo debe de usar el búfer mientras se tiene
+						final ByteBuffer buffer = reserva.tomar();
+						buffer.put(0, marca);
+						Thread.yield();
+						assertEquals(marca, buffer.get(0));
+						reserva.devolver(buffer);
+					}
+				} catch (final Throwable exc) {
+					fallo.compareAndSet(null, exc);
+				}
+			});
+			hilos[i].start();
+		}
+
+		for (final Thread hilo : hilos) {
+			hilo.join();
+		}
+
+		assertNull(fallo.get());
+		assertTrue(reserva.getBuffersCreados() <= hilos.length);
+	}
+}